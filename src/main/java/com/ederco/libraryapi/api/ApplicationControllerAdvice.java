@@ -1,7 +1,12 @@
 package com.ederco.libraryapi.api;
 
 import com.ederco.libraryapi.api.exceptions.ApiErrors;
+import com.ederco.libraryapi.api.limit.RateLimitExceededException;
+import com.ederco.libraryapi.api.limit.RateLimitInterceptor;
+import com.ederco.libraryapi.api.limit.TokenBucketStore;
 import com.ederco.libraryapi.exception.BusinessException;
+import com.ederco.libraryapi.exception.ServiceOverloadedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -33,4 +38,23 @@ public class ApplicationControllerAdvice {
         return new ResponseEntity(new ApiErrors(ex),ex.getStatusCode());
 
      }
+
+    //503 com Retry-After: o cliente deve tentar de novo depois do tempo indicado
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ApiErrors> handleServiceOverloadedException(ServiceOverloadedException ex){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(new ApiErrors(ex));
+    }
+
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<ApiErrors> handleRateLimitExceededException(RateLimitExceededException ex){
+        TokenBucketStore.Decision decision = ex.getDecision();
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(RateLimitInterceptor.LIMIT_HEADER, String.valueOf(decision.limit()))
+                .header(RateLimitInterceptor.REMAINING_HEADER, String.valueOf(decision.remaining()))
+                .header(RateLimitInterceptor.RESET_HEADER, String.valueOf(decision.resetSeconds()))
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(decision.retryAfterSeconds()))
+                .body(new ApiErrors(ex));
+    }
 }
@@ -0,0 +1,112 @@
+package com.ederco.libraryapi.api.binary;
+
+import com.ederco.libraryapi.api.dto.BookDTO;
+import com.ederco.libraryapi.api.dto.LoanDTO;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.NativeProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+//application/x-protobuf para BookDTO , LoanDTO e páginas deles , com o esquema de proto/catalog.proto.
+//Só escrita: as respostas são para os clientes de sincronização , os pedidos continuam em JSON.
+public class CatalogProtobufMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-protobuf";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+    public static final String SCHEMA_LOCATION = "proto/catalog.proto";
+
+    private final ProtobufMapper mapper = new ProtobufMapper();
+    private final Map<Class<?>, ProtobufSchema> messages = new HashMap<>();
+    private final Map<Class<?>, ProtobufSchema> pages = new HashMap<>();
+
+    public CatalogProtobufMessageConverter() {
+        super(MEDIA_TYPE);
+        NativeProtobufSchema schema = loadSchema();
+        messages.put(BookDTO.class, schema.forType("Book"));
+        messages.put(LoanDTO.class, schema.forType("Loan"));
+        pages.put(BookDTO.class, schema.forType("BookPage"));
+        pages.put(LoanDTO.class, schema.forType("LoanPage"));
+        //Protobuf não tem null , e um campo novo no DTO não quebra a resposta antes de entrar no esquema
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        mapper.enable(JsonGenerator.Feature.IGNORE_UNKNOWN);
+    }
+
+    public static NativeProtobufSchema loadSchema() {
+        try (InputStream in = new ClassPathResource(SCHEMA_LOCATION).getInputStream()) {
+            return ProtobufSchemaLoader.std.parseNative(StreamUtils.copyToString(in, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load " + SCHEMA_LOCATION, e);
+        }
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        return schemaFor(type != null ? type : clazz) != null && canWrite(mediaType);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return schemaFor(clazz) != null;
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean canRead(@Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public Object read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf requests are not supported", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf requests are not supported", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object value, @Nullable Type type, HttpOutputMessage outputMessage) throws IOException {
+        ProtobufSchema schema = schemaFor(type != null ? type : value.getClass());
+        Object message = value instanceof Page<?> page ? ProtoPage.of(page) : value;
+        mapper.writer(schema).writeValue(StreamUtils.nonClosing(outputMessage.getBody()), message);
+    }
+
+    //Page<BookDTO> -> BookPage , Page<LoanDTO> -> LoanPage , BookDTO -> Book , LoanDTO -> Loan
+    private ProtobufSchema schemaFor(Type type) {
+        ResolvableType resolved = ResolvableType.forType(type);
+        Class<?> raw = resolved.resolve();
+        if (raw == null) {
+            return null;
+        }
+        if (Page.class.isAssignableFrom(raw)) {
+            Class<?> element = resolved.as(Page.class).getGeneric(0).resolve();
+            return element == null ? null : pages.get(element);
+        }
+        return messages.get(raw);
+    }
+}
@@ -0,0 +1,15 @@
+package com.ederco.libraryapi.api.binary;
+
+import com.ederco.libraryapi.service.cache.CountedPage;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+//Envelope das mensagens BookPage/LoanPage do catalog.proto
+public record ProtoPage(List<?> content, int page, int size, long totalElements, int totalPages, boolean exactTotal) {
+
+    public static ProtoPage of(Page<?> page) {
+        return new ProtoPage(page.getContent(), page.getNumber(), page.getSize(),
+                page.getTotalElements(), page.getTotalPages(), CountedPage.isExact(page));
+    }
+}
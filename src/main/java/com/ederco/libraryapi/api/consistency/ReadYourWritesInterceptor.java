@@ -0,0 +1,74 @@
+package com.ederco.libraryapi.api.consistency;
+
+import com.ederco.libraryapi.model.datasource.ReadYourWrites;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+
+//Token de read-your-writes: o horário do último commit do cliente , recebido no header X-Last-Write
+//(ou no cookie de mesmo valor) e devolvido nos dois depois de cada escrita da requisição.
+//O cookie expira em max-lag: depois disso toda réplica no rodízio já recebeu o commit.
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String HEADER = "X-Last-Write";
+    public static final String COOKIE = "LAST_WRITE";
+
+    private final Duration maxLag;
+
+    public ReadYourWritesInterceptor(Duration maxLag) {
+        this.maxLag = maxLag;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        ReadYourWrites.begin(lastWrite(request), millis -> {
+            response.setHeader(HEADER, Long.toString(millis));
+            response.addHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(COOKIE, Long.toString(millis))
+                    .path("/")
+                    .httpOnly(true)
+                    .maxAge(maxLag)
+                    .build()
+                    .toString());
+        });
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ReadYourWrites.end();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ReadYourWrites.end();
+    }
+
+    //Um token inválido é ignorado , e um horário no futuro vale como agora
+    private static long lastWrite(HttpServletRequest request) {
+        String token = request.getHeader(HEADER);
+        if (token == null && request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (COOKIE.equals(cookie.getName())) {
+                    token = cookie.getValue();
+                }
+            }
+        }
+        if (token == null) {
+            return 0;
+        }
+        try {
+            return Math.min(Math.max(0, Long.parseLong(token.trim())), System.currentTimeMillis());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.ederco.libraryapi.api.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.*;
 
@@ -21,4 +22,8 @@ public class BookDTO {
     @NotEmpty
     private String isbn;
 
+    //Só nas leituras (ActiveLoanIndex): fica de fora enquanto a disponibilidade não é conhecida
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean available;
+
 }
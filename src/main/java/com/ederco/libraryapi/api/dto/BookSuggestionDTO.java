@@ -0,0 +1,17 @@
+package com.ederco.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookSuggestionDTO {
+
+    private Long id;
+    private String title;
+    private String author;
+}
@@ -13,5 +13,6 @@ public class LoanFilterDTO {
 
     private String isbn;
     private String customer;
+    private String customerPrefix;
 
 }
@@ -0,0 +1,18 @@
+package com.ederco.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanRequestDTO {
+
+    private String id;
+    private String status;
+    private Long loanId;
+    private String error;
+}
@@ -0,0 +1,20 @@
+package com.ederco.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PopularBookDTO {
+
+    private Long id;
+    private String title;
+    private String author;
+    private String isbn;
+    //estimativa (nunca abaixo do número real de empréstimos na janela)
+    private long loans;
+}
@@ -1,6 +1,8 @@
 package com.ederco.libraryapi.api.exceptions;
 
+import com.ederco.libraryapi.api.limit.RateLimitExceededException;
 import com.ederco.libraryapi.exception.BusinessException;
+import com.ederco.libraryapi.exception.ServiceOverloadedException;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -27,4 +29,12 @@ public class ApiErrors {
     public ApiErrors(ResponseStatusException ex) {
         this.errors = Arrays.asList(ex.getReason());
     }
+
+    public ApiErrors(ServiceOverloadedException ex) {
+        this.errors = Arrays.asList(ex.getMessage());
+    }
+
+    public ApiErrors(RateLimitExceededException ex) {
+        this.errors = Arrays.asList(ex.getMessage());
+    }
 }
@@ -0,0 +1,47 @@
+package com.ederco.libraryapi.api.json;
+
+import com.ederco.libraryapi.service.changes.BookChanges;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+
+//GET /api/books/changes: só o que mudou depois do token , e o token para a próxima chamada.
+//{"changes":[{"seq":12,"op":"upsert","book":{...}},{"seq":13,"op":"delete","id":5}],"next":"13","hasMore":false}
+public record BookChangeFeed(BookChanges changes) implements JsonBody {
+
+    static final SerializedString CHANGES = new SerializedString("changes");
+    static final SerializedString SEQ = new SerializedString("seq");
+    static final SerializedString OP = new SerializedString("op");
+    static final SerializedString NEXT = new SerializedString("next");
+    static final SerializedString HAS_MORE = new SerializedString("hasMore");
+
+    @Override
+    public void writeTo(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(CHANGES);
+        generator.writeStartArray();
+        for (BookChanges.Change change : changes.changes()) {
+            generator.writeStartObject();
+            generator.writeFieldName(SEQ);
+            generator.writeNumber(change.seq());
+            generator.writeFieldName(OP);
+            if (change.tombstone()) {
+                generator.writeString("delete");
+                CatalogJsonWriter.writeId(generator, change.bookId());
+            } else {
+                generator.writeString("upsert");
+                generator.writeFieldName(CatalogJsonWriter.BOOK);
+                CatalogJsonWriter.book(change.book(), generator);
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        //O token é opaco para o cliente
+        generator.writeFieldName(NEXT);
+        generator.writeString(Long.toString(changes.next()));
+        generator.writeFieldName(HAS_MORE);
+        generator.writeBoolean(changes.hasMore());
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,65 @@
+package com.ederco.libraryapi.api.json;
+
+import com.ederco.libraryapi.model.entity.Book;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+//Campos do BookDTO aceitos em ?fields=
+public enum BookField implements SparseFields.Field {
+
+    ID(CatalogJsonWriter.ID, "id"),
+    TITLE(CatalogJsonWriter.TITLE, "title"),
+    AUTHOR(CatalogJsonWriter.AUTHOR, "author"),
+    ISBN(CatalogJsonWriter.ISBN, "isbn");
+
+    private final SerializedString jsonName;
+    private final List<String> attributes;
+
+    BookField(SerializedString jsonName, String... attributes) {
+        this.jsonName = jsonName;
+        this.attributes = List.of(attributes);
+    }
+
+    @Override
+    public SerializedString jsonName() {
+        return jsonName;
+    }
+
+    @Override
+    public List<String> attributes() {
+        return attributes;
+    }
+
+    public static EnumSet<BookField> parse(Collection<String> names) {
+        return SparseFields.parse(BookField.class, names);
+    }
+
+    public static JsonPage.RowWriter<Book> writer(Set<BookField> fields) {
+        return (book, generator) -> {
+            generator.writeStartObject();
+            for (BookField field : fields) {
+                field.write(book, generator);
+            }
+            generator.writeEndObject();
+        };
+    }
+
+    private void write(Book book, JsonGenerator generator) throws IOException {
+        if (this == ID) {
+            CatalogJsonWriter.writeId(generator, book.getId());
+            return;
+        }
+        generator.writeFieldName(jsonName);
+        generator.writeString(switch (this) {
+            case TITLE -> book.getTitle();
+            case AUTHOR -> book.getAuthor();
+            default -> book.getIsbn();
+        });
+    }
+}
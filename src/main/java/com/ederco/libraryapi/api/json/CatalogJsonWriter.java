@@ -0,0 +1,64 @@
+package com.ederco.libraryapi.api.json;
+
+import com.ederco.libraryapi.model.entity.Book;
+import com.ederco.libraryapi.model.entity.Loan;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+
+//Escreve livros e empréstimos com os mesmos campos do BookDTO/LoanDTO ,
+//lendo direto das entidades.
+public final class CatalogJsonWriter {
+
+    static final SerializedString ID = new SerializedString("id");
+    static final SerializedString TITLE = new SerializedString("title");
+    static final SerializedString AUTHOR = new SerializedString("author");
+    static final SerializedString ISBN = new SerializedString("isbn");
+    static final SerializedString CUSTOMER = new SerializedString("customer");
+    static final SerializedString EMAIL = new SerializedString("email");
+    static final SerializedString BOOK = new SerializedString("book");
+
+    private CatalogJsonWriter() {
+    }
+
+    public static void book(Book book, JsonGenerator generator) throws IOException {
+        if (book == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartObject();
+        writeId(generator, book.getId());
+        generator.writeFieldName(TITLE);
+        generator.writeString(book.getTitle());
+        generator.writeFieldName(AUTHOR);
+        generator.writeString(book.getAuthor());
+        generator.writeFieldName(ISBN);
+        generator.writeString(book.getIsbn());
+        generator.writeEndObject();
+    }
+
+    public static void loan(Loan loan, JsonGenerator generator) throws IOException {
+        Book book = loan.getBook();
+        generator.writeStartObject();
+        writeId(generator, loan.getId());
+        generator.writeFieldName(ISBN);
+        generator.writeString(book == null ? null : book.getIsbn());
+        generator.writeFieldName(CUSTOMER);
+        generator.writeString(loan.getCustomer());
+        generator.writeFieldName(EMAIL);
+        generator.writeString(loan.getCustomerEmail());
+        generator.writeFieldName(BOOK);
+        book(book, generator);
+        generator.writeEndObject();
+    }
+
+    static void writeId(JsonGenerator generator, Long id) throws IOException {
+        generator.writeFieldName(ID);
+        if (id == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(id);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.ederco.libraryapi.api.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+//Resposta que se escreve sozinha no JsonGenerator (ver JsonPageMessageConverter)
+public interface JsonBody {
+
+    void writeTo(JsonGenerator generator) throws IOException;
+}
@@ -0,0 +1,57 @@
+package com.ederco.libraryapi.api.json;
+
+import com.ederco.libraryapi.service.cache.CountedPage;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import org.springframework.data.domain.Page;
+
+import java.io.IOException;
+
+//Página escrita direto no JsonGenerator: as linhas vêm das entidades da consulta ,
+//sem lista de DTOs , sem ModelMapper e sem os blocos "pageable"/"sort" do PageImpl.
+//{"content":[...],"page":0,"size":20,"numberOfElements":20,"totalElements":57,"totalPages":3,"exactTotal":true}
+public record JsonPage<T>(Page<T> page, RowWriter<T> rowWriter) implements JsonBody {
+
+    //Nomes com os bytes UTF-8 já calculados
+    static final SerializedString CONTENT = new SerializedString("content");
+    static final SerializedString PAGE = new SerializedString("page");
+    static final SerializedString SIZE = new SerializedString("size");
+    static final SerializedString NUMBER_OF_ELEMENTS = new SerializedString("numberOfElements");
+    static final SerializedString TOTAL_ELEMENTS = new SerializedString("totalElements");
+    static final SerializedString TOTAL_PAGES = new SerializedString("totalPages");
+    static final SerializedString EXACT_TOTAL = new SerializedString("exactTotal");
+
+    @FunctionalInterface
+    public interface RowWriter<T> {
+        void write(T row, JsonGenerator generator) throws IOException;
+    }
+
+    @Override
+    public void writeTo(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(CONTENT);
+        generator.writeStartArray();
+        for (T row : page.getContent()) {
+            rowWriter.write(row, generator);
+        }
+        generator.writeEndArray();
+        writePageFields(page, generator);
+        generator.writeEndObject();
+    }
+
+    //Campos da página , depois do "content"
+    static void writePageFields(Page<?> page, JsonGenerator generator) throws IOException {
+        generator.writeFieldName(PAGE);
+        generator.writeNumber(page.getNumber());
+        generator.writeFieldName(SIZE);
+        generator.writeNumber(page.getSize());
+        generator.writeFieldName(NUMBER_OF_ELEMENTS);
+        generator.writeNumber(page.getNumberOfElements());
+        generator.writeFieldName(TOTAL_ELEMENTS);
+        generator.writeNumber(page.getTotalElements());
+        generator.writeFieldName(TOTAL_PAGES);
+        generator.writeNumber(page.getTotalPages());
+        generator.writeFieldName(EXACT_TOTAL);
+        generator.writeBoolean(CountedPage.isExact(page));
+    }
+}
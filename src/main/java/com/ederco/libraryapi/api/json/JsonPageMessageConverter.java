@@ -0,0 +1,73 @@
+package com.ederco.libraryapi.api.json;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+
+//Escreve JsonBody (JsonPage com Accept: application/vnd.library.page+json ,
+//NormalizedLoanPage também como application/json , CBOR ou Smile) direto na resposta.
+//Os buffers de saída são os reaproveitados pelo JsonFactory (BufferRecycler) ,
+//e o corpo vai em partes , sem montar a página inteira em memória.
+@Component
+public class JsonPageMessageConverter extends AbstractHttpMessageConverter<JsonBody> {
+
+    public static final String MEDIA_TYPE_VALUE = "application/vnd.library.page+json";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+    public static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    private final JsonFactory jsonFactory;
+    private final JsonFactory cborFactory = new CBORFactory();
+    private final JsonFactory smileFactory = new SmileFactory();
+
+    public JsonPageMessageConverter(ObjectMapper objectMapper) {
+        //application/json primeiro: é o tipo escolhido quando o cliente aceita qualquer um (*/*)
+        super(MediaType.APPLICATION_JSON, MEDIA_TYPE, MediaType.APPLICATION_CBOR, SMILE);
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return JsonBody.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected JsonBody readInternal(Class<? extends JsonBody> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("JsonBody is write only", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(JsonBody body, HttpOutputMessage outputMessage) throws IOException {
+        try (JsonGenerator generator = factoryFor(outputMessage.getHeaders().getContentType()).createGenerator(
+                StreamUtils.nonClosing(outputMessage.getBody()), JsonEncoding.UTF8)) {
+            body.writeTo(generator);
+        }
+    }
+
+    //O mesmo JsonBody escreve JSON , CBOR ou Smile , só muda o JsonFactory
+    private JsonFactory factoryFor(MediaType contentType) {
+        if (contentType != null && MediaType.APPLICATION_CBOR.isCompatibleWith(contentType)) {
+            return cborFactory;
+        }
+        if (contentType != null && SMILE.isCompatibleWith(contentType)) {
+            return smileFactory;
+        }
+        return jsonFactory;
+    }
+}
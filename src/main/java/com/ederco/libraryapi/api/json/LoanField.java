@@ -0,0 +1,73 @@
+package com.ederco.libraryapi.api.json;
+
+import com.ederco.libraryapi.model.entity.Book;
+import com.ederco.libraryapi.model.entity.Loan;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+//Campos do LoanDTO aceitos em ?fields= , "isbn" e "book" leem o livro do empréstimo
+public enum LoanField implements SparseFields.Field {
+
+    ID(CatalogJsonWriter.ID, "id"),
+    ISBN(CatalogJsonWriter.ISBN, "book.isbn"),
+    CUSTOMER(CatalogJsonWriter.CUSTOMER, "customer"),
+    EMAIL(CatalogJsonWriter.EMAIL, "customerEmail"),
+    BOOK(CatalogJsonWriter.BOOK, "book.id", "book.title", "book.author", "book.isbn");
+
+    private final SerializedString jsonName;
+    private final List<String> attributes;
+
+    LoanField(SerializedString jsonName, String... attributes) {
+        this.jsonName = jsonName;
+        this.attributes = List.of(attributes);
+    }
+
+    @Override
+    public SerializedString jsonName() {
+        return jsonName;
+    }
+
+    @Override
+    public List<String> attributes() {
+        return attributes;
+    }
+
+    public static EnumSet<LoanField> parse(Collection<String> names) {
+        return SparseFields.parse(LoanField.class, names);
+    }
+
+    public static JsonPage.RowWriter<Loan> writer(Set<LoanField> fields) {
+        return (loan, generator) -> {
+            generator.writeStartObject();
+            for (LoanField field : fields) {
+                field.write(loan, generator);
+            }
+            generator.writeEndObject();
+        };
+    }
+
+    private void write(Loan loan, JsonGenerator generator) throws IOException {
+        Book book = loan.getBook();
+        switch (this) {
+            case ID -> CatalogJsonWriter.writeId(generator, loan.getId());
+            case BOOK -> {
+                generator.writeFieldName(jsonName);
+                CatalogJsonWriter.book(book, generator);
+            }
+            default -> {
+                generator.writeFieldName(jsonName);
+                generator.writeString(switch (this) {
+                    case ISBN -> book == null ? null : book.getIsbn();
+                    case CUSTOMER -> loan.getCustomer();
+                    default -> loan.getCustomerEmail();
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.ederco.libraryapi.api.json;
+
+import com.ederco.libraryapi.model.entity.Book;
+import com.ederco.libraryapi.model.entity.Loan;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import org.springframework.data.domain.Page;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//Página de empréstimos com "shape=normalized": cada empréstimo leva só o "bookId"
+//e cada livro aparece uma única vez no mapa "books" (id -> livro).
+//{"content":[{"id":1,"customer":"...","email":"...","bookId":7}],"books":{"7":{...}},"page":0,...}
+public record NormalizedLoanPage(Page<Loan> page) implements JsonBody {
+
+    static final SerializedString BOOK_ID = new SerializedString("bookId");
+    static final SerializedString BOOKS = new SerializedString("books");
+
+    @Override
+    public void writeTo(JsonGenerator generator) throws IOException {
+        Map<Long, Book> books = new LinkedHashMap<>();
+        generator.writeStartObject();
+        generator.writeFieldName(JsonPage.CONTENT);
+        generator.writeStartArray();
+        for (Loan loan : page.getContent()) {
+            Book book = loan.getBook();
+            generator.writeStartObject();
+            CatalogJsonWriter.writeId(generator, loan.getId());
+            generator.writeFieldName(CatalogJsonWriter.CUSTOMER);
+            generator.writeString(loan.getCustomer());
+            generator.writeFieldName(CatalogJsonWriter.EMAIL);
+            generator.writeString(loan.getCustomerEmail());
+            generator.writeFieldName(BOOK_ID);
+            if (book == null || book.getId() == null) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(book.getId());
+                books.putIfAbsent(book.getId(), book);
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+
+        generator.writeFieldName(BOOKS);
+        generator.writeStartObject();
+        for (Map.Entry<Long, Book> entry : books.entrySet()) {
+            generator.writeFieldId(entry.getKey());
+            CatalogJsonWriter.book(entry.getValue(), generator);
+        }
+        generator.writeEndObject();
+
+        JsonPage.writePageFields(page, generator);
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,55 @@
+package com.ederco.libraryapi.api.json;
+
+import com.ederco.libraryapi.exception.BusinessException;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+//?fields=id,title: os campos do JSON pedidos e os atributos da entidade que eles leem.
+//A resposta sai sempre na ordem do DTO , não na ordem pedida.
+public final class SparseFields {
+
+    public interface Field {
+        SerializedString jsonName();
+
+        List<String> attributes();
+    }
+
+    private SparseFields() {
+    }
+
+    //Nome desconhecido é erro do cliente (400) , para não virar um atributo na consulta
+    public static <E extends Enum<E> & Field> EnumSet<E> parse(Class<E> type, Collection<String> names) {
+        EnumSet<E> fields = EnumSet.noneOf(type);
+        for (String name : names) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            fields.add(find(type, trimmed));
+        }
+        if (fields.isEmpty()) {
+            throw new BusinessException("At least one field is required");
+        }
+        return fields;
+    }
+
+    public static Set<String> attributes(Collection<? extends Field> fields) {
+        Set<String> attributes = new LinkedHashSet<>();
+        fields.forEach(field -> attributes.addAll(field.attributes()));
+        return attributes;
+    }
+
+    private static <E extends Enum<E> & Field> E find(Class<E> type, String name) {
+        for (E field : type.getEnumConstants()) {
+            if (field.jsonName().getValue().equals(name)) {
+                return field;
+            }
+        }
+        throw new BusinessException("Unknown field: " + name);
+    }
+}
@@ -0,0 +1,52 @@
+package com.ederco.libraryapi.api.limit;
+
+import com.ederco.libraryapi.exception.ServiceOverloadedException;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+//Recusa com 503 (via ServiceOverloadedException) as requisições acima do limite do grupo
+//e devolve a latência de cada requisição aceita para o limitador.
+//Nas respostas assíncronas (Mono , DeferredResult) a vaga só é liberada no fim do despacho ASYNC.
+public class ConcurrencyLimitInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".permit";
+
+    private final ConcurrencyLimiters limiters;
+    private final long retryAfterSeconds;
+
+    public ConcurrencyLimitInterceptor(ConcurrencyLimiters limiters, long retryAfterSeconds) {
+        this.limiters = limiters;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        GradientLimiter limiter = limiters.forMethod(request.getMethod());
+        if (!limiter.tryAcquire()) {
+            throw new ServiceOverloadedException("Too many concurrent requests", retryAfterSeconds);
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, new Permit(limiter, System.nanoTime()));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.isAsyncStarted()) {
+            return;
+        }
+        Permit permit = (Permit) request.getAttribute(PERMIT_ATTRIBUTE);
+        if (permit != null) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            permit.limiter().release(System.nanoTime() - permit.startNanos(),
+                    ex != null || response.getStatus() >= 500);
+        }
+    }
+
+    private record Permit(GradientLimiter limiter, long startNanos) {
+    }
+}
@@ -0,0 +1,44 @@
+package com.ederco.libraryapi.api.limit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//Um limitador por grupo de endpoints: leituras (GET/HEAD) e escritas (demais métodos).
+//Separados para que uma onda de buscas não tome o espaço dos empréstimos e vice-versa.
+public class ConcurrencyLimiters {
+
+    public static final String READS = "reads";
+    public static final String WRITES = "writes";
+
+    private final Map<String, GradientLimiter> limiters = new LinkedHashMap<>();
+
+    public ConcurrencyLimiters(GradientLimiter reads, GradientLimiter writes, MeterRegistry registry) {
+        limiters.put(READS, reads);
+        limiters.put(WRITES, writes);
+        limiters.values().forEach(limiter -> bindTo(limiter, registry));
+    }
+
+    public GradientLimiter forMethod(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) ? limiters.get(READS) : limiters.get(WRITES);
+    }
+
+    public Collection<GradientLimiter> all() {
+        return limiters.values();
+    }
+
+    private static void bindTo(GradientLimiter limiter, MeterRegistry registry) {
+        Gauge.builder("library.concurrency.limit", limiter, GradientLimiter::getLimit)
+                .tag("group", limiter.getName()).register(registry);
+        Gauge.builder("library.concurrency.in.flight", limiter, GradientLimiter::getInFlight)
+                .tag("group", limiter.getName()).register(registry);
+        FunctionCounter.builder("library.concurrency.requests", limiter, GradientLimiter::getAccepted)
+                .tag("group", limiter.getName()).tag("result", "accepted").register(registry);
+        FunctionCounter.builder("library.concurrency.requests", limiter, GradientLimiter::getRejected)
+                .tag("group", limiter.getName()).tag("result", "rejected").register(registry);
+    }
+}
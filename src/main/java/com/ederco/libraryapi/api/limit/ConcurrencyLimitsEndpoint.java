@@ -0,0 +1,34 @@
+package com.ederco.libraryapi.api.limit;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//GET /actuator/concurrencylimits
+@Endpoint(id = "concurrencylimits")
+public class ConcurrencyLimitsEndpoint {
+
+    private final ConcurrencyLimiters limiters;
+
+    public ConcurrencyLimitsEndpoint(ConcurrencyLimiters limiters) {
+        this.limiters = limiters;
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> limits() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        for (GradientLimiter limiter : limiters.all()) {
+            Map<String, Object> group = new LinkedHashMap<>();
+            group.put("limit", limiter.getLimit());
+            group.put("inFlight", limiter.getInFlight());
+            group.put("accepted", limiter.getAccepted());
+            group.put("rejected", limiter.getRejected());
+            group.put("latencyMillis", limiter.getLatencyMillis());
+            group.put("baselineLatencyMillis", limiter.getBaselineLatencyMillis());
+            result.put(limiter.getName(), group);
+        }
+        return result;
+    }
+}
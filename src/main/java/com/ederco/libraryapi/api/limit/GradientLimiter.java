@@ -0,0 +1,112 @@
+package com.ederco.libraryapi.api.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Limite de concorrência adaptativo no estilo "gradient" (TCP Vegas):
+//compara a latência recente com a latência de referência (média longa).
+//Enquanto as duas estão próximas o limite cresce ; quando a latência recente
+//sobe (fila se formando no banco ou no pool) o limite é reduzido na mesma proporção.
+public class GradientLimiter {
+
+    //Quanto a latência recente pode passar da referência antes de reduzirmos o limite
+    private static final double TOLERANCE = 1.5;
+    //Peso das novas amostras nas médias (a longa acompanha algo como as últimas 500 requisições)
+    private static final double SHORT_SMOOTHING = 0.2;
+    private static final double LONG_SMOOTHING = 0.002;
+    //Folga acima do limite atual para continuar sondando se cabe mais
+    private static final int QUEUE_SIZE = 4;
+    private static final double LIMIT_SMOOTHING = 0.2;
+    //Redução aplicada quando a requisição falha (erro 5xx)
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private volatile double limit;
+    private double shortRttNanos;
+    private double longRttNanos;
+
+    public GradientLimiter(String name, int initialLimit, int minLimit, int maxLimit) {
+        this.name = name;
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    //Não bloqueia: acima do limite a requisição é recusada na hora
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                accepted.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    public void release(long rttNanos, boolean failed) {
+        int current = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (failed) {
+                limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                return;
+            }
+            if (longRttNanos == 0) {
+                shortRttNanos = longRttNanos = rttNanos;
+                return;
+            }
+            shortRttNanos += (rttNanos - shortRttNanos) * SHORT_SMOOTHING;
+            longRttNanos += (rttNanos - longRttNanos) * LONG_SMOOTHING;
+            //Se a média longa ficou muito acima da curta (o sistema se recuperou) ela é puxada para baixo ,
+            //senão o limite levaria muito tempo para voltar a crescer.
+            if (longRttNanos / shortRttNanos > 2) {
+                longRttNanos *= 0.95;
+            }
+            //Com poucas requisições em andamento a latência não diz nada sobre o limite
+            if (current < limit / 2) {
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRttNanos / shortRttNanos));
+            double newLimit = limit * gradient + QUEUE_SIZE;
+            newLimit = limit * (1 - LIMIT_SMOOTHING) + newLimit * LIMIT_SMOOTHING;
+            limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getAccepted() {
+        return accepted.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public synchronized double getLatencyMillis() {
+        return shortRttNanos / 1_000_000;
+    }
+
+    public synchronized double getBaselineLatencyMillis() {
+        return longRttNanos / 1_000_000;
+    }
+}
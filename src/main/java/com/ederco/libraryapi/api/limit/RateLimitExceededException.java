@@ -0,0 +1,18 @@
+package com.ederco.libraryapi.api.limit;
+
+import com.ederco.libraryapi.api.limit.TokenBucketStore.Decision;
+
+//Cliente passou do limite da regra (HTTP 429)
+public class RateLimitExceededException extends RuntimeException {
+
+    private final Decision decision;
+
+    public RateLimitExceededException(Decision decision) {
+        super("Rate limit exceeded");
+        this.decision = decision;
+    }
+
+    public Decision getDecision() {
+        return decision;
+    }
+}
@@ -0,0 +1,87 @@
+package com.ederco.libraryapi.api.limit;
+
+import com.ederco.libraryapi.api.limit.TokenBucketStore.Decision;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.List;
+import java.util.Set;
+
+//Limite de requisições por cliente (chave de API ou IP) e por regra , com headers
+//RateLimit-Limit / RateLimit-Remaining / RateLimit-Reset em todas as respostas limitadas.
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    public static final String LIMIT_HEADER = "RateLimit-Limit";
+    public static final String REMAINING_HEADER = "RateLimit-Remaining";
+    public static final String RESET_HEADER = "RateLimit-Reset";
+
+    private final TokenBucketStore store;
+    private final String apiKeyHeader;
+    private final Set<String> apiKeys;
+    private final List<CompiledRule> rules;
+
+    public RateLimitInterceptor(RateLimitProperties properties, TokenBucketStore store, MeterRegistry registry) {
+        this.store = store;
+        this.apiKeyHeader = properties.getApiKeyHeader();
+        this.apiKeys = Set.copyOf(properties.getApiKeys());
+        this.rules = properties.getRules().stream()
+                .map(rule -> new CompiledRule(rule, PathPatternParser.defaultInstance.parse(rule.getPattern()),
+                        Counter.builder("library.rate.limit.requests").tag("rule", rule.getName()).tag("result", "allowed").register(registry),
+                        Counter.builder("library.rate.limit.requests").tag("rule", rule.getName()).tag("result", "rejected").register(registry)))
+                .toList();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        CompiledRule rule = match(request);
+        if (rule == null) {
+            return true;
+        }
+        Decision decision = store.tryConsume(rule.rule().getName() + ":" + client(request),
+                rule.rule().getCapacity(), rule.rule().getRefillPerSecond(), System.nanoTime());
+        if (!decision.allowed()) {
+            rule.rejected().increment();
+            throw new RateLimitExceededException(decision);
+        }
+        rule.allowed().increment();
+        writeHeaders(response, decision);
+        return true;
+    }
+
+    public static void writeHeaders(HttpServletResponse response, Decision decision) {
+        response.setHeader(LIMIT_HEADER, String.valueOf(decision.limit()));
+        response.setHeader(REMAINING_HEADER, String.valueOf(decision.remaining()));
+        response.setHeader(RESET_HEADER, String.valueOf(decision.resetSeconds()));
+    }
+
+    private CompiledRule match(HttpServletRequest request) {
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        for (CompiledRule rule : rules) {
+            String method = rule.rule().getMethod();
+            if ((method == null || method.isEmpty() || method.equalsIgnoreCase(request.getMethod()))
+                    && rule.pattern().matches(path)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private String client(HttpServletRequest request) {
+        //Só as chaves configuradas valem ; uma chave desconhecida não escapa do limite do IP
+        String apiKey = request.getHeader(apiKeyHeader);
+        return apiKey != null && apiKeys.contains(apiKey) ? "key:" + apiKey : "ip:" + request.getRemoteAddr();
+    }
+
+    private record CompiledRule(RateLimitProperties.Rule rule, PathPattern pattern, Counter allowed, Counter rejected) {
+    }
+}
@@ -0,0 +1,35 @@
+package com.ederco.libraryapi.api.limit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+//application.rate-limit.* : regras por endpoint , avaliadas na ordem (a primeira que casar vale).
+@Data
+@ConfigurationProperties("application.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    //Sem a chave no header (ou com uma chave fora de apiKeys) o cliente é identificado pelo IP
+    private String apiKeyHeader = "X-API-Key";
+    //Chaves aceitas. Qualquer outra seria um balde novo a cada valor inventado pelo cliente.
+    private Set<String> apiKeys = new HashSet<>();
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    private int stripes = 64;
+    private List<Rule> rules = new ArrayList<>();
+
+    @Data
+    public static class Rule {
+        private String name;
+        //vazio = qualquer método
+        private String method;
+        private String pattern;
+        private int capacity;
+        private double refillPerSecond;
+    }
+}
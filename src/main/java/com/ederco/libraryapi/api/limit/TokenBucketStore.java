@@ -0,0 +1,99 @@
+package com.ederco.libraryapi.api.limit;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+//Baldes de tokens por cliente , em memória. As chaves são distribuídas em "stripes" com
+//travas independentes , então clientes diferentes raramente disputam a mesma trava.
+//Baldes parados há mais de idleTimeout são removidos aos poucos , durante os próprios acessos.
+public class TokenBucketStore {
+
+    private final Stripe[] stripes;
+    private final long idleTimeoutNanos;
+
+    public TokenBucketStore(int stripes, long idleTimeoutNanos) {
+        //potência de 2 para escolher a stripe com uma máscara
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.idleTimeoutNanos = idleTimeoutNanos;
+    }
+
+    public Decision tryConsume(String key, int capacity, double refillPerSecond, long nowNanos) {
+        Stripe stripe = stripes[spread(key.hashCode()) & (stripes.length - 1)];
+        synchronized (stripe) {
+            if (nowNanos - stripe.lastSweepNanos > idleTimeoutNanos) {
+                stripe.sweep(nowNanos - idleTimeoutNanos);
+                stripe.lastSweepNanos = nowNanos;
+            }
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(capacity, nowNanos);
+                stripe.buckets.put(key, bucket);
+            }
+            return bucket.tryConsume(capacity, refillPerSecond, nowNanos);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.buckets.size();
+            }
+        }
+        return size;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    //remaining: tokens que sobraram ; resetSeconds: tempo até o balde encher de novo ;
+    //retryAfterSeconds: tempo até o próximo token (só quando recusado)
+    public record Decision(boolean allowed, int limit, int remaining, long resetSeconds, long retryAfterSeconds) {
+    }
+
+    private static class Stripe {
+        private final Map<String, Bucket> buckets = new HashMap<>();
+        private long lastSweepNanos = System.nanoTime();
+
+        private void sweep(long idleSinceNanos) {
+            Iterator<Bucket> iterator = buckets.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().lastAccessNanos < idleSinceNanos) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private static class Bucket {
+        private double tokens;
+        private long lastRefillNanos;
+        private long lastAccessNanos;
+
+        private Bucket(int capacity, long nowNanos) {
+            this.tokens = capacity;
+            this.lastRefillNanos = nowNanos;
+        }
+
+        private Decision tryConsume(int capacity, double refillPerSecond, long nowNanos) {
+            double refillPerNano = refillPerSecond / 1_000_000_000d;
+            tokens = Math.min(capacity, tokens + (nowNanos - lastRefillNanos) * refillPerNano);
+            lastRefillNanos = nowNanos;
+            lastAccessNanos = nowNanos;
+
+            boolean allowed = tokens >= 1;
+            if (allowed) {
+                tokens -= 1;
+            }
+            long resetSeconds = (long) Math.ceil((capacity - tokens) / refillPerSecond);
+            long retryAfterSeconds = allowed ? 0 : (long) Math.ceil((1 - tokens) / refillPerSecond);
+            return new Decision(allowed, capacity, (int) tokens, resetSeconds, retryAfterSeconds);
+        }
+    }
+}
@@ -2,10 +2,20 @@ package com.ederco.libraryapi.api.resource;
 
 import com.ederco.libraryapi.api.dto.BookDTO;
 import com.ederco.libraryapi.api.dto.LoanDTO;
+import com.ederco.libraryapi.api.json.BookChangeFeed;
+import com.ederco.libraryapi.api.json.BookField;
+import com.ederco.libraryapi.api.json.CatalogJsonWriter;
+import com.ederco.libraryapi.api.json.JsonPage;
+import com.ederco.libraryapi.api.json.JsonPageMessageConverter;
+import com.ederco.libraryapi.api.json.NormalizedLoanPage;
+import com.ederco.libraryapi.api.json.SparseFields;
+import com.ederco.libraryapi.exception.BusinessException;
 import com.ederco.libraryapi.model.entity.Book;
 import com.ederco.libraryapi.model.entity.Loan;
 import com.ederco.libraryapi.service.BookService;
 import com.ederco.libraryapi.service.LoanService;
+import com.ederco.libraryapi.service.cache.CountedPage;
+import com.ederco.libraryapi.service.snapshot.ActiveLoanIndex;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
@@ -20,6 +30,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.EnumSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -32,11 +43,14 @@ public class BookController {
     private final BookService service;
     private final ModelMapper modelMapper;
     private final LoanService loanService;
+    private final ActiveLoanIndex activeLoans;
 
-    public BookController(BookService service, ModelMapper modelMapper, LoanService loanService) {
+    public BookController(BookService service, ModelMapper modelMapper, LoanService loanService,
+                          ActiveLoanIndex activeLoans) {
         this.service = service;
         this.modelMapper = modelMapper;
         this.loanService = loanService;
+        this.activeLoans = activeLoans;
     }
 
 //    Com o uso do @RequiredArgsConstructor não é necessário o uso do construtor ...
@@ -94,7 +108,7 @@ public class BookController {
         //O método "map" mapeia o resultado da consulta do "getById"
         return service
                 .getById(id)
-                .map( book -> modelMapper.map(book,BookDTO.class) )
+                .map( book -> toReadDTO(book) )
                 .orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
     @DeleteMapping("{id}")
@@ -137,14 +151,60 @@ public class BookController {
         Page<Book> result = service.find(filter, pageRequest);
         List<BookDTO> list = result.getContent().stream()
                 //retorna o "stream" de " BookDTO"
-                .map(entity -> modelMapper.map(entity, BookDTO.class))
+                .map(entity -> toReadDTO(entity))
                 .collect(Collectors.toList());
 
         //Para criar uma página , passamos 3 parâmetros :
         //primeiro o conteúdo: "list"
         //segundo a página atual e quantos registros tem: "pageRequest"
         //terceiro o total de elementos :"result.getTotalElements()"
-        return new PageImpl<BookDTO>(list, pageRequest,result.getTotalElements());
+        //e o quarto informa ao cliente se este total é exato ou veio do cache
+        return new CountedPage<BookDTO>(list, pageRequest, result.getTotalElements(), CountedPage.isExact(result));
+    }
+
+    //Accept: application/vnd.library.page+json , a mesma busca escrita direto das entidades
+    @GetMapping(produces = JsonPageMessageConverter.MEDIA_TYPE_VALUE)
+    @ApiOperation("Lists books by params as a streamed page")
+    public JsonPage<Book> findStreamed(BookDTO dto, Pageable pageRequest){
+        Book filter = modelMapper.map(dto, Book.class);
+        return new JsonPage<>(service.find(filter, pageRequest), CatalogJsonWriter::book);
+    }
+
+    //?fields=id,title: só essas colunas saem do banco e só esses campos vão na resposta
+    @GetMapping(params = "fields")
+    @ApiOperation("Lists books by params with only the requested fields")
+    public JsonPage<Book> findFields(BookDTO dto, @RequestParam List<String> fields, Pageable pageRequest){
+        EnumSet<BookField> selected = BookField.parse(fields);
+        Book filter = modelMapper.map(dto, Book.class);
+        Page<Book> result = service.findFields(filter, SparseFields.attributes(selected), pageRequest);
+        return new JsonPage<>(result, BookField.writer(selected));
+    }
+
+    //Sincronização incremental: sem "since" vem o catálogo inteiro (em lotes , enquanto "hasMore")
+    //e depois só as inclusões , alterações e remoções posteriores ao token "next" recebido.
+    @GetMapping("changes")
+    @ApiOperation("Lists book inserts, updates and deletes since a change token")
+    public BookChangeFeed changes(@RequestParam(defaultValue = "0") String since){
+        return new BookChangeFeed(service.getChanges(parseToken(since)));
+    }
+
+    //DTO de leitura: o livro com a disponibilidade do índice em memória
+    private BookDTO toReadDTO(Book book) {
+        BookDTO dto = modelMapper.map(book, BookDTO.class);
+        dto.setAvailable(activeLoans.available(book.getId()));
+        return dto;
+    }
+
+    private static long parseToken(String token) {
+        try {
+            long since = Long.parseLong(token);
+            if (since >= 0) {
+                return since;
+            }
+        } catch (NumberFormatException e) {
+            //mesma resposta do token negativo
+        }
+        throw new BusinessException("Invalid change token");
     }
 
     @GetMapping("{id}/loans")
@@ -166,6 +226,13 @@ public class BookController {
 
     }
 
+    //?shape=normalized: o livro vai uma única vez no mapa "books" em vez de repetido em cada empréstimo
+    @GetMapping(value = "{id}/loans", params = "shape=normalized")
+    public NormalizedLoanPage loansByBookNormalized( @PathVariable Long id, Pageable pageable ){
+        Book book = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        return new NormalizedLoanPage(loanService.getLoansByBook(book, pageable));
+    }
+
 
 
 }
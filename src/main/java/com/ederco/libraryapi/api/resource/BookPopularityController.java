@@ -0,0 +1,39 @@
+package com.ederco.libraryapi.api.resource;
+
+import com.ederco.libraryapi.api.dto.PopularBookDTO;
+import com.ederco.libraryapi.service.BookService;
+import com.ederco.libraryapi.service.popularity.PopularityTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+//Mais emprestados: GET /api/books/popular?window=24h&limit=10 (window: 1h , 24h ou 30d).
+//A lista vem pronta da memória e os livros do cache por id , sem consultar a tabela loan.
+@RestController
+@RequestMapping("/api/books/popular")
+@RequiredArgsConstructor
+public class BookPopularityController {
+
+    private final PopularityTracker popularity;
+    private final BookService bookService;
+
+    @GetMapping
+    public List<PopularBookDTO> popular(@RequestParam(defaultValue = "24h") String window,
+                                        @RequestParam(defaultValue = "10") int limit){
+        //livros removidos depois dos empréstimos ficam de fora
+        return popularity.top(window, limit).stream()
+                .flatMap(popular -> bookService.getById(popular.bookId()).stream()
+                        .map(book -> PopularBookDTO.builder()
+                                .id(book.getId())
+                                .title(book.getTitle())
+                                .author(book.getAuthor())
+                                .isbn(book.getIsbn())
+                                .loans(popular.loans())
+                                .build()))
+                .toList();
+    }
+}
@@ -0,0 +1,38 @@
+package com.ederco.libraryapi.api.resource;
+
+import com.ederco.libraryapi.api.dto.BookSuggestionDTO;
+import com.ederco.libraryapi.exception.BusinessException;
+import com.ederco.libraryapi.service.autocomplete.BookAutocomplete;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+//Autocomplete da caixa de busca: GET /api/books/suggestions?q=senhor%20dos
+//(responde da memória , no lugar de um GET /api/books?title=... a cada tecla).
+//Devolve no máximo application.autocomplete.top-k livros.
+@RestController
+@RequestMapping("/api/books/suggestions")
+@RequiredArgsConstructor
+public class BookSuggestionController {
+
+    private final BookAutocomplete autocomplete;
+
+    @GetMapping
+    public List<BookSuggestionDTO> suggest(@RequestParam("q") String prefix,
+                                           @RequestParam(defaultValue = "10") int limit){
+        if (limit < 1) {
+            throw new BusinessException("Suggestion limit must be positive");
+        }
+        return autocomplete.suggest(prefix, limit).stream()
+                .map(suggestion -> BookSuggestionDTO.builder()
+                        .id(suggestion.id())
+                        .title(suggestion.title())
+                        .author(suggestion.author())
+                        .build())
+                .toList();
+    }
+}
@@ -0,0 +1,27 @@
+package com.ederco.libraryapi.api.resource;
+
+import com.ederco.libraryapi.service.activity.LoanActivityBus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+//Eventos de empréstimo (criado , devolvido , atrasado) em tempo real , no lugar de
+//consultar GET /api/loans repetidamente.
+@RestController
+@RequestMapping("/api/loans")
+@RequiredArgsConstructor
+public class LoanActivityController {
+
+    public static final String STREAM_PATH = "/api/loans/stream";
+
+    private final LoanActivityBus loanActivityBus;
+
+    @GetMapping(value = "stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId){
+        return loanActivityBus.subscribe(lastEventId);
+    }
+}
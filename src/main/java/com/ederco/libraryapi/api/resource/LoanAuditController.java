@@ -0,0 +1,34 @@
+package com.ederco.libraryapi.api.resource;
+
+import com.ederco.libraryapi.service.journal.JournalRecord;
+import com.ederco.libraryapi.service.journal.LoanJournal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.List;
+
+//Consulta ao journal de auditoria (checkouts e devoluções)
+@RestController
+@RequestMapping("/api/audit/loans")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "application.journal.enabled", havingValue = "true", matchIfMissing = true)
+public class LoanAuditController {
+
+    private final LoanJournal loanJournal;
+
+    @GetMapping("{id}")
+    public List<JournalRecord> byLoan(@PathVariable Long id){
+        return loanJournal.byLoan(id);
+    }
+
+    //?from=2024-01-01T00:00:00Z&to=2024-01-02T00:00:00Z
+    @GetMapping
+    public List<JournalRecord> between(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                       @RequestParam(defaultValue = "1000") int limit){
+        return loanJournal.between(from, to, limit);
+    }
+}
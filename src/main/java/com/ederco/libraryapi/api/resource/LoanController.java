@@ -3,21 +3,34 @@ package com.ederco.libraryapi.api.resource;
 import com.ederco.libraryapi.api.dto.BookDTO;
 import com.ederco.libraryapi.api.dto.LoanDTO;
 import com.ederco.libraryapi.api.dto.LoanFilterDTO;
+import com.ederco.libraryapi.api.dto.LoanRequestDTO;
 import com.ederco.libraryapi.api.dto.ReturnedLoanDTO;
+import com.ederco.libraryapi.api.json.CatalogJsonWriter;
+import com.ederco.libraryapi.api.json.JsonPage;
+import com.ederco.libraryapi.api.json.JsonPageMessageConverter;
+import com.ederco.libraryapi.api.json.LoanField;
+import com.ederco.libraryapi.api.json.NormalizedLoanPage;
+import com.ederco.libraryapi.api.json.SparseFields;
 import com.ederco.libraryapi.model.entity.Book;
 import com.ederco.libraryapi.model.entity.Loan;
 import com.ederco.libraryapi.service.BookService;
 import com.ederco.libraryapi.service.LoanService;
+import com.ederco.libraryapi.service.LoanSubmissionService;
+import com.ederco.libraryapi.service.cache.CountedPage;
+import com.ederco.libraryapi.service.submission.LoanRequest;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -29,6 +42,7 @@ public class LoanController {
     private final LoanService loanService;
     private final BookService bookService;
     private final ModelMapper modelMapper;
+    private final LoanSubmissionService loanSubmissionService;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -48,6 +62,39 @@ public class LoanController {
 
     }
 
+    //Com "Prefer: respond-async" o pedido vai para a fila e o cliente acompanha pelo Location.
+    //O Prefer é uma lista de preferências (ex.: "respond-async, wait=10") ; sem o respond-async
+    //o empréstimo é criado na hora , como no create.
+    @PostMapping(headers = "Prefer")
+    public ResponseEntity<?> submit(@RequestBody LoanDTO dto, @RequestHeader("Prefer") List<String> prefer){
+        if (!respondAsync(prefer)) {
+            return ResponseEntity.status(HttpStatus.CREATED).body(create(dto));
+        }
+        LoanRequest request = loanSubmissionService.submit(dto);
+        return ResponseEntity
+                .accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequestUri()
+                        .path("/requests/{id}")
+                        .buildAndExpand(request.getId())
+                        .toUri())
+                .body(toDTO(request));
+    }
+
+    //Cada preferência pode ter valor e parâmetros ("wait=10" , "respond-async; x=y") ; só o nome importa aqui
+    private static boolean respondAsync(List<String> prefer) {
+        return prefer.stream()
+                .flatMap(value -> Arrays.stream(value.split(",")))
+                .map(token -> token.split("[;=]", 2)[0].trim())
+                .anyMatch("respond-async"::equalsIgnoreCase);
+    }
+
+    @GetMapping("requests/{id}")
+    public LoanRequestDTO getRequest(@PathVariable String id){
+        return loanSubmissionService.getRequest(id)
+                .map(this::toDTO)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+
     @PatchMapping("{id}")
     public void returnBook(@PathVariable Long id, @RequestBody ReturnedLoanDTO dto){
 
@@ -77,6 +124,36 @@ public class LoanController {
                     return loanDTO;
 
                 }).collect(Collectors.toList());
-        return new PageImpl<LoanDTO>(loans,pageable,result.getTotalElements());
+        return new CountedPage<LoanDTO>(loans, pageable, result.getTotalElements(), CountedPage.isExact(result));
+    }
+
+    //Accept: application/vnd.library.page+json , a mesma busca escrita direto das entidades
+    @GetMapping(produces = JsonPageMessageConverter.MEDIA_TYPE_VALUE)
+    public JsonPage<Loan> findStreamed(LoanFilterDTO loanFilterDTO, Pageable pageable){
+        return new JsonPage<>(loanService.find(loanFilterDTO, pageable), CatalogJsonWriter::loan);
+    }
+
+    //?shape=normalized: cada livro uma única vez no mapa "books" , os empréstimos levam só o "bookId"
+    @GetMapping(params = "shape=normalized")
+    public NormalizedLoanPage findNormalized(LoanFilterDTO loanFilterDTO, Pageable pageable){
+        return new NormalizedLoanPage(loanService.find(loanFilterDTO, pageable));
+    }
+
+    //?fields=customer,isbn: só essas colunas saem do banco (o livro só entra no JOIN se for pedido)
+    //e só esses campos vão na resposta. Com shape=normalized vale o formato normalizado.
+    @GetMapping(params = {"fields", "!shape"})
+    public JsonPage<Loan> findFields(LoanFilterDTO loanFilterDTO, @RequestParam List<String> fields, Pageable pageable){
+        EnumSet<LoanField> selected = LoanField.parse(fields);
+        Page<Loan> result = loanService.findFields(loanFilterDTO, SparseFields.attributes(selected), pageable);
+        return new JsonPage<>(result, LoanField.writer(selected));
+    }
+
+    private LoanRequestDTO toDTO(LoanRequest request){
+        return LoanRequestDTO.builder()
+                .id(request.getId())
+                .status(request.getStatus().name())
+                .loanId(request.getLoanId())
+                .error(request.getError())
+                .build();
     }
 }
@@ -0,0 +1,56 @@
+package com.ederco.libraryapi.api.resource;
+
+import com.ederco.libraryapi.api.dto.BookDTO;
+import com.ederco.libraryapi.model.entity.Book;
+import com.ederco.libraryapi.model.repository.ReactiveCatalogRepository;
+import lombok.RequiredArgsConstructor;
+import org.modelmapper.ModelMapper;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+//Leituras não bloqueantes: a thread da requisição é liberada enquanto o R2DBC
+//consulta o banco , e o Spring MVC completa a resposta de forma assíncrona.
+//Os empréstimos ficam no ReactiveLoanController.
+@RestController
+@RequestMapping("/api/reactive")
+@RequiredArgsConstructor
+public class ReactiveCatalogController {
+
+    //quantos registros pedimos ao banco por vez no modo streaming
+    static final int STREAM_PREFETCH = 256;
+
+    private final ReactiveCatalogRepository repository;
+    private final ModelMapper modelMapper;
+
+    @GetMapping("books/{id}")
+    public Mono<BookDTO> get(@PathVariable Long id){
+        return repository.findBookById(id)
+                .map(book -> modelMapper.map(book, BookDTO.class))
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    @GetMapping("books")
+    public Mono<Page<BookDTO>> findBooks(BookDTO dto, Pageable pageRequest){
+        Book filter = modelMapper.map(dto, Book.class);
+        return repository.findBooks(filter, pageRequest)
+                .map(book -> modelMapper.map(book, BookDTO.class))
+                .collectList()
+                .zipWith(repository.countBooks(filter))
+                .map(result -> new PageImpl<>(result.getT1(), pageRequest, result.getT2()));
+    }
+
+    //Uma linha JSON por livro , enviada assim que lida do banco (sem montar a página em memória)
+    @GetMapping(value = "books", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BookDTO> streamBooks(BookDTO dto, Pageable pageRequest){
+        return repository.findBooks(modelMapper.map(dto, Book.class), pageRequest)
+                .limitRate(STREAM_PREFETCH)
+                .map(book -> modelMapper.map(book, BookDTO.class));
+    }
+}
@@ -0,0 +1,60 @@
+package com.ederco.libraryapi.api.resource;
+
+import com.ederco.libraryapi.api.dto.BookDTO;
+import com.ederco.libraryapi.api.dto.LoanDTO;
+import com.ederco.libraryapi.api.dto.LoanFilterDTO;
+import com.ederco.libraryapi.model.entity.Loan;
+import com.ederco.libraryapi.model.repository.LoanFilter;
+import com.ederco.libraryapi.model.repository.ReactiveCatalogRepository;
+import lombok.RequiredArgsConstructor;
+import org.modelmapper.ModelMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+//Empréstimos pelo R2DBC , que lê a tabela loan do banco principal. Com os empréstimos divididos entre
+//shards (application.loan-shards.enabled=true) essa tabela não tem os empréstimos e estas rotas não
+//sobem: a busca continua disponível em /api/loans (LoanStore).
+@RestController
+@RequestMapping("/api/reactive")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "application.loan-shards.enabled", havingValue = "false", matchIfMissing = true)
+public class ReactiveLoanController {
+
+    private final ReactiveCatalogRepository repository;
+    private final ModelMapper modelMapper;
+
+    @GetMapping("loans")
+    public Mono<Page<LoanDTO>> findLoans(LoanFilterDTO loanFilterDTO, Pageable pageable){
+        LoanFilter filter = filter(loanFilterDTO);
+        return repository.findLoans(filter, pageable)
+                .map(this::toDTO)
+                .collectList()
+                .zipWith(repository.countLoans(filter))
+                .map(result -> new PageImpl<>(result.getT1(), pageable, result.getT2()));
+    }
+
+    @GetMapping(value = "loans", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<LoanDTO> streamLoans(LoanFilterDTO loanFilterDTO, Pageable pageable){
+        return repository.findLoans(filter(loanFilterDTO), pageable)
+                .limitRate(ReactiveCatalogController.STREAM_PREFETCH)
+                .map(this::toDTO);
+    }
+
+    //Mesmas regras do LoanServiceImpl.find
+    private static LoanFilter filter(LoanFilterDTO dto){
+        return LoanFilter.of(dto.getIsbn(), dto.getCustomer(), dto.getCustomerPrefix());
+    }
+
+    private LoanDTO toDTO(Loan entity){
+        BookDTO bookDTO = modelMapper.map(entity.getBook(), BookDTO.class);
+        LoanDTO loanDTO = modelMapper.map(entity, LoanDTO.class);
+        loanDTO.setBook(bookDTO);
+        return loanDTO;
+    }
+}
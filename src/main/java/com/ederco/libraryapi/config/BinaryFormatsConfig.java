@@ -0,0 +1,37 @@
+package com.ederco.libraryapi.config;
+
+import com.ederco.libraryapi.api.binary.CatalogProtobufMessageConverter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+//Formatos binários escolhidos pelo Accept , para os clientes de sincronização:
+//application/cbor e application/x-jackson-smile usam os conversores do Spring , mas com o ObjectMapper
+//do Boot (mesmos módulos e configurações do JSON) e na mesma posição dos padrões , depois do JSON.
+//application/x-protobuf vai no fim da lista , então um cliente sem Accept continua recebendo JSON.
+@Configuration
+public class BinaryFormatsConfig implements WebMvcConfigurer {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new CatalogProtobufMessageConverter());
+    }
+}
@@ -0,0 +1,56 @@
+package com.ederco.libraryapi.config;
+
+import com.ederco.libraryapi.api.limit.ConcurrencyLimitInterceptor;
+import com.ederco.libraryapi.api.limit.ConcurrencyLimiters;
+import com.ederco.libraryapi.api.limit.ConcurrencyLimitsEndpoint;
+import com.ederco.libraryapi.api.limit.GradientLimiter;
+import com.ederco.libraryapi.api.resource.LoanActivityController;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+//Limite adaptativo de requisições simultâneas em /api/** (application.concurrency-limit.*).
+@Configuration
+@ConditionalOnProperty(name = "application.concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public ConcurrencyLimiters concurrencyLimiters(
+            MeterRegistry registry,
+            @Value("${application.concurrency-limit.reads.initial-limit:50}") int readsInitial,
+            @Value("${application.concurrency-limit.reads.min-limit:10}") int readsMin,
+            @Value("${application.concurrency-limit.reads.max-limit:400}") int readsMax,
+            @Value("${application.concurrency-limit.writes.initial-limit:20}") int writesInitial,
+            @Value("${application.concurrency-limit.writes.min-limit:5}") int writesMin,
+            @Value("${application.concurrency-limit.writes.max-limit:100}") int writesMax) {
+        return new ConcurrencyLimiters(
+                new GradientLimiter(ConcurrencyLimiters.READS, readsInitial, readsMin, readsMax),
+                new GradientLimiter(ConcurrencyLimiters.WRITES, writesInitial, writesMin, writesMax),
+                registry);
+    }
+
+    @Bean
+    public ConcurrencyLimitsEndpoint concurrencyLimitsEndpoint(ConcurrencyLimiters concurrencyLimiters) {
+        return new ConcurrencyLimitsEndpoint(concurrencyLimiters);
+    }
+
+    //Registrado por aqui (e não como @Component) para não entrar nos testes @WebMvcTest
+    @Bean
+    public WebMvcConfigurer concurrencyLimitWebMvcConfigurer(
+            ConcurrencyLimiters concurrencyLimiters,
+            @Value("${application.concurrency-limit.retry-after-seconds:1}") long retryAfterSeconds) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                //O stream SSE fica aberto por muito tempo e ocuparia uma vaga o tempo todo
+                registry.addInterceptor(new ConcurrencyLimitInterceptor(concurrencyLimiters, retryAfterSeconds))
+                        .addPathPatterns("/api/**")
+                        .excludePathPatterns(LoanActivityController.STREAM_PATH);
+            }
+        };
+    }
+}
@@ -0,0 +1,27 @@
+package com.ederco.libraryapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+
+//Pools criados fora do DataSource padrão (réplicas , shards). spring.datasource.hikari.* vale para todos
+//e cada pool é registrado no Micrometer pelo próprio Hikari (hikari.connections.* com a tag pool = name).
+public final class HikariPools {
+
+    private HikariPools() {
+    }
+
+    public static HikariDataSource create(Environment environment, MeterRegistry registry, String name,
+                                          String url, String username, String password) {
+        HikariDataSource dataSource = new HikariDataSource();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMetricRegistry(registry);
+        return dataSource;
+    }
+}
@@ -0,0 +1,69 @@
+package com.ederco.libraryapi.config;
+
+import com.ederco.libraryapi.model.repository.BookRepository;
+import com.ederco.libraryapi.model.shard.LoanShardProperties;
+import com.ederco.libraryapi.model.shard.ShardedLoanStore;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Empréstimos divididos entre vários bancos (application.loan-shards.*). Livros , outbox e o resto
+//continuam no spring.datasource.* ; sem shards os empréstimos ficam no JpaLoanStore , como sempre.
+//
+//A gravação do empréstimo no shard e a do evento no outbox (banco principal) não são atômicas entre si.
+@Configuration
+@EnableConfigurationProperties(LoanShardProperties.class)
+@ConditionalOnProperty(name = "application.loan-shards.enabled", havingValue = "true")
+public class LoanShardingConfig {
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @Bean
+    public ShardedLoanStore shardedLoanStore(LoanShardProperties properties, BookRepository bookRepository,
+                                             Environment environment, MeterRegistry registry,
+                                             @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        List<LoanShardProperties.Target> targets = properties.getTargets();
+        List<DataSource> dataSources = new ArrayList<>();
+        for (int i = 0; i < targets.size(); i++) {
+            LoanShardProperties.Target target = targets.get(i);
+            HikariDataSource pool = HikariPools.create(environment, registry, "loan-shard-" + i,
+                    target.getUrl(), target.getUsername(), target.getPassword());
+            pool.setMaximumPoolSize(properties.getMaximumPoolSize());
+            pools.add(pool);
+            dataSources.add(pool);
+        }
+
+        //Uma consulta por shard ao mesmo tempo por busca: mais threads do que conexões só esperariam no pool
+        AtomicInteger sequence = new AtomicInteger();
+        ExecutorService executor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("loan-shard-", 1).factory())
+                : Executors.newFixedThreadPool(targets.size() * properties.getMaximumPoolSize(),
+                        task -> {
+                            Thread thread = new Thread(task, "loan-shard-" + sequence.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+
+        ShardedLoanStore store = new ShardedLoanStore(dataSources, bookRepository, executor, registry);
+        store.createSchema();
+        return store;
+    }
+
+    @PreDestroy
+    public void close() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,41 @@
+package com.ederco.libraryapi.config;
+
+import com.ederco.libraryapi.api.limit.RateLimitInterceptor;
+import com.ederco.libraryapi.api.limit.RateLimitProperties;
+import com.ederco.libraryapi.api.limit.TokenBucketStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+//Limite por cliente (application.rate-limit.*). Roda antes do limite de concorrência ,
+//assim um cliente acima da cota não ocupa vaga dos demais.
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+@ConditionalOnProperty(name = "application.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfig {
+
+    @Bean
+    public TokenBucketStore tokenBucketStore(RateLimitProperties properties, MeterRegistry registry) {
+        TokenBucketStore store = new TokenBucketStore(properties.getStripes(), properties.getIdleTimeout().toNanos());
+        Gauge.builder("library.rate.limit.buckets", store, TokenBucketStore::size).register(registry);
+        return store;
+    }
+
+    @Bean
+    public WebMvcConfigurer rateLimitWebMvcConfigurer(RateLimitProperties properties, TokenBucketStore tokenBucketStore,
+                                                      MeterRegistry registry) {
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(properties, tokenBucketStore, registry);
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(interceptor).addPathPatterns("/api/**").order(Ordered.HIGHEST_PRECEDENCE);
+            }
+        };
+    }
+}
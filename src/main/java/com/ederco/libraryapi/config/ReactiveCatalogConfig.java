@@ -0,0 +1,52 @@
+package com.ederco.libraryapi.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.util.StringUtils;
+
+//Conexões R2DBC só para o ReactiveCatalogRepository (spring.r2dbc.*).
+//O ConnectionFactory não é bean: com um ConnectionFactory no contexto o Spring Boot 3.2 não cria
+//o DataSource JDBC (DataSourceAutoConfiguration) e o JPA fica sem repositórios. Por isso o
+//R2dbcAutoConfiguration está em spring.autoconfigure.exclude.
+@Configuration
+@EnableConfigurationProperties(R2dbcProperties.class)
+public class ReactiveCatalogConfig {
+
+    private final ConnectionPool pool;
+
+    public ReactiveCatalogConfig(R2dbcProperties properties) {
+        ConnectionFactoryBuilder builder = ConnectionFactoryBuilder.withUrl(properties.getUrl());
+        if (StringUtils.hasText(properties.getUsername())) {
+            builder.username(properties.getUsername());
+        }
+        if (StringUtils.hasText(properties.getPassword())) {
+            builder.password(properties.getPassword());
+        }
+        ConnectionFactory connectionFactory = builder.build();
+        R2dbcProperties.Pool poolProperties = properties.getPool();
+        this.pool = new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .name("reactive-catalog")
+                .initialSize(poolProperties.getInitialSize())
+                .maxSize(poolProperties.getMaxSize())
+                .maxIdleTime(poolProperties.getMaxIdleTime())
+                .build());
+    }
+
+    @Bean
+    public DatabaseClient reactiveCatalogDatabaseClient() {
+        return DatabaseClient.create(pool);
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.dispose();
+    }
+}
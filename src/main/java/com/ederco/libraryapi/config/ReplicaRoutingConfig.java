@@ -0,0 +1,96 @@
+package com.ederco.libraryapi.config;
+
+import com.ederco.libraryapi.api.consistency.ReadYourWritesInterceptor;
+import com.ederco.libraryapi.model.datasource.ReplicaLagMonitor;
+import com.ederco.libraryapi.model.datasource.ReplicaProperties;
+import com.ederco.libraryapi.model.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//Réplicas de leitura (application.datasource.replicas.*). Sem elas a aplicação usa só o
+//DataSource do spring.datasource.* , como sempre.
+//
+//Os pools não são beans (HikariPools): as métricas saem com a tag pool = primary , replica-0 , ...
+@Configuration
+@EnableConfigurationProperties(ReplicaProperties.class)
+@ConditionalOnProperty(name = "application.datasource.replicas.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    private final HikariDataSource primary;
+    private final Map<String, HikariDataSource> replicas = new LinkedHashMap<>();
+
+    public ReplicaRoutingConfig(DataSourceProperties properties, ReplicaProperties replicaProperties,
+                                Environment environment, MeterRegistry registry) {
+        //Com open-in-view a conexão da requisição fica presa à primeira rota escolhida (ver ReplicaRoutingDataSource)
+        if (environment.getProperty("spring.jpa.open-in-view", Boolean.class, true)) {
+            throw new IllegalStateException("Replica routing requires spring.jpa.open-in-view=false");
+        }
+        this.primary = HikariPools.create(environment, registry, ReplicaRoutingDataSource.PRIMARY,
+                properties.determineUrl(), properties.determineUsername(), properties.determinePassword());
+        List<ReplicaProperties.Target> targets = replicaProperties.getTargets();
+        for (int i = 0; i < targets.size(); i++) {
+            ReplicaProperties.Target target = targets.get(i);
+            HikariDataSource replica = HikariPools.create(environment, registry, "replica-" + i,
+                    target.getUrl(), target.getUsername(), target.getPassword());
+            replica.setMaximumPoolSize(replicaProperties.getMaximumPoolSize());
+            replica.setReadOnly(true);
+            replicas.put(replica.getPoolName(), replica);
+        }
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(ReplicaProperties properties, MeterRegistry registry) throws SQLException {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(primary, new LinkedHashMap<>(replicas), properties.getMaxLag(), registry);
+        monitor.createHeartbeatTable();
+        monitor.heartbeat();
+        return monitor;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaLagMonitor lagMonitor, MeterRegistry registry) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(lagMonitor, registry);
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(ReplicaRoutingDataSource.PRIMARY, primary);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    //Token de read-your-writes das requisições (X-Last-Write)
+    @Bean
+    public WebMvcConfigurer readYourWritesWebMvcConfigurer(ReplicaProperties properties) {
+        ReadYourWritesInterceptor interceptor = new ReadYourWritesInterceptor(properties.getMaxLag());
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(interceptor).addPathPatterns("/api/**");
+            }
+        };
+    }
+
+    @PreDestroy
+    public void close() {
+        replicas.values().forEach(HikariDataSource::close);
+        primary.close();
+    }
+}
@@ -1,5 +1,6 @@
 package com.ederco.libraryapi.config;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import springfox.documentation.builders.ApiInfoBuilder;
@@ -11,8 +12,11 @@ import springfox.documentation.spi.DocumentationType;
 import springfox.documentation.spring.web.plugins.Docket;
 import springfox.documentation.swagger2.annotations.EnableSwagger2;
 
+//O Springfox 3.0 usa javax.servlet e não sobe no Spring Boot 3 (jakarta.servlet) ,
+//por isso só é ligado com springfox.documentation.enabled=true.
 @EnableSwagger2
 @Configuration
+@ConditionalOnProperty(name = "springfox.documentation.enabled", havingValue = "true")
 public class SwaggerCongig {
 
     @Bean
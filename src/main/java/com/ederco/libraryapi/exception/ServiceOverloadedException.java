@@ -0,0 +1,16 @@
+package com.ederco.libraryapi.exception;
+
+//Recusa temporária por excesso de carga (HTTP 503) , com o tempo sugerido para nova tentativa.
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(String s, long retryAfterSeconds) {
+        super(s);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
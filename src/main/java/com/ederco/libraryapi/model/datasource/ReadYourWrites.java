@@ -0,0 +1,66 @@
+package com.ederco.libraryapi.model.datasource;
+
+import java.util.function.LongConsumer;
+
+//Read-your-writes por cliente. O horário do último commit do cliente chega no token da requisição
+//(ReadYourWritesInterceptor) e só as leituras dessa requisição esperam uma réplica que já o tenha recebido ;
+//leituras sem token vão para qualquer réplica dentro do max-lag.
+//
+//Como outras requisições podem ler de uma réplica que ainda não tem os commits deste nó , a thread
+//também guarda se a última leitura foi numa réplica assim: esse resultado não vai para os caches por
+//versão (WriteVersions) , que seriam invalidados só na próxima escrita.
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<Session> SESSION = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> BEHIND = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    //onWrite recebe o horário de cada commit feito durante a requisição (para devolver o novo token)
+    public static void begin(long lastWriteMillis, LongConsumer onWrite) {
+        SESSION.set(new Session(lastWriteMillis, onWrite));
+        BEHIND.remove();
+    }
+
+    public static void end() {
+        SESSION.remove();
+        BEHIND.remove();
+    }
+
+    //false se a última leitura desta thread foi numa réplica sem todos os commits deste nó
+    public static boolean cacheable() {
+        return !Boolean.TRUE.equals(BEHIND.get());
+    }
+
+    static long requiredMillis() {
+        Session session = SESSION.get();
+        return session == null ? 0 : session.lastWriteMillis;
+    }
+
+    static void routed(boolean behindNode) {
+        if (behindNode) {
+            BEHIND.set(Boolean.TRUE);
+        } else {
+            BEHIND.remove();
+        }
+    }
+
+    static void committed(long millis) {
+        Session session = SESSION.get();
+        if (session != null && millis > session.lastWriteMillis) {
+            session.lastWriteMillis = millis;
+            session.onWrite.accept(millis);
+        }
+    }
+
+    private static final class Session {
+        private long lastWriteMillis;
+        private final LongConsumer onWrite;
+
+        private Session(long lastWriteMillis, LongConsumer onWrite) {
+            this.lastWriteMillis = lastWriteMillis;
+            this.onWrite = onWrite;
+        }
+    }
+}
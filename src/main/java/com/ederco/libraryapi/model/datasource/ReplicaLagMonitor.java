@@ -0,0 +1,133 @@
+package com.ederco.libraryapi.model.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Mede o atraso das réplicas com uma linha de heartbeat: o primário grava o horário atual e cada
+//réplica devolve o último horário que já recebeu. Como a replicação aplica os commits em ordem ,
+//uma réplica com heartbeat > T já tem tudo o que foi commitado no primário até T.
+@Slf4j
+public class ReplicaLagMonitor {
+
+    static final String TABLE = "replication_heartbeat";
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaLagMonitor(DataSource primary, Map<String, DataSource> replicas, Duration maxLag, MeterRegistry registry) {
+        this.primary = primary;
+        this.maxLagMillis = maxLag.toMillis();
+        replicas.forEach((name, dataSource) -> {
+            Replica replica = new Replica(name, dataSource);
+            this.replicas.add(replica);
+            Gauge.builder("library.datasource.replica.lag", replica, r -> r.lagMillis)
+                    .baseUnit("milliseconds").tag("replica", name).register(registry);
+            Gauge.builder("library.datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .tag("replica", name).register(registry);
+        });
+    }
+
+    public void createHeartbeatTable() throws SQLException {
+        try (Connection connection = primary.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists " + TABLE + " (id int primary key, beat_millis bigint not null)");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.datasource.replicas.heartbeat-millis:500}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        try (Connection connection = primary.getConnection();
+             PreparedStatement update = connection.prepareStatement("update " + TABLE + " set beat_millis = ? where id = 1")) {
+            update.setLong(1, now);
+            if (update.executeUpdate() == 0) {
+                try (PreparedStatement insert = connection.prepareStatement("insert into " + TABLE + " (id, beat_millis) values (1, ?)")) {
+                    insert.setLong(1, now);
+                    insert.executeUpdate();
+                }
+            }
+        } catch (SQLException e) {
+            log.warn(" could not write the replication heartbeat ", e);
+        }
+        replicas.forEach(this::check);
+    }
+
+    //Escolhe (em rodízio) uma réplica saudável que já recebeu tudo o que foi commitado até requiredMillis ,
+    //ou null para usar o primário
+    public String pick(long requiredMillis) {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy && replica.caughtUpMillis > requiredMillis) {
+                return replica.name;
+            }
+        }
+        return null;
+    }
+
+    //Horário do último heartbeat recebido pela réplica (0 se desconhecida)
+    public long caughtUpMillis(String replica) {
+        return replicas.stream().filter(r -> r.name.equals(replica)).findFirst().map(r -> r.caughtUpMillis).orElse(0l);
+    }
+
+    public long lagMillis(String replica) {
+        return replicas.stream().filter(r -> r.name.equals(replica)).findFirst().map(r -> r.lagMillis).orElse(-1l);
+    }
+
+    private void check(Replica replica) {
+        try (Connection connection = replica.dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("select beat_millis from " + TABLE + " where id = 1")) {
+            if (!result.next()) {
+                markUnhealthy(replica, "no heartbeat yet");
+                return;
+            }
+            long beat = result.getLong(1);
+            replica.caughtUpMillis = beat;
+            replica.lagMillis = Math.max(0, System.currentTimeMillis() - beat);
+            boolean healthy = replica.lagMillis <= maxLagMillis;
+            if (healthy != replica.healthy) {
+                log.info(" replica {} is now {} ( lag {} ms ) ", replica.name, healthy ? "in rotation" : "out of rotation", replica.lagMillis);
+            }
+            replica.healthy = healthy;
+        } catch (SQLException e) {
+            markUnhealthy(replica, e.getMessage());
+        }
+    }
+
+    private void markUnhealthy(Replica replica, String reason) {
+        if (replica.healthy) {
+            log.warn(" replica {} is out of rotation: {} ", replica.name, reason);
+        }
+        replica.healthy = false;
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy;
+        private volatile long caughtUpMillis;
+        private volatile long lagMillis = -1;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
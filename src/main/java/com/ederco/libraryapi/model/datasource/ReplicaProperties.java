@@ -0,0 +1,29 @@
+package com.ederco.libraryapi.model.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+//application.datasource.replicas.* : réplicas de leitura. O primário continua sendo o spring.datasource.*
+@Data
+@ConfigurationProperties("application.datasource.replicas")
+public class ReplicaProperties {
+
+    private boolean enabled = false;
+    //Acima deste atraso a réplica sai do rodízio até alcançar o primário
+    private Duration maxLag = Duration.ofSeconds(5);
+    private long heartbeatMillis = 500;
+    //As demais configurações do pool vêm de spring.datasource.hikari.*
+    private int maximumPoolSize = 10;
+    private List<Target> targets = new ArrayList<>();
+
+    @Data
+    public static class Target {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,77 @@
+package com.ederco.libraryapi.model.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Transações read-only (@Transactional(readOnly = true) , e as leituras dos repositórios do Spring Data)
+//vão para uma réplica ; o resto vai para o primário.
+//
+//Read-your-writes por cliente (ReadYourWrites): numa requisição com o token do último commit do cliente ,
+//uma réplica só é usada depois que o heartbeat dela mostra que esse commit já chegou. Até lá (ou se todas
+//estiverem atrasadas) a leitura vai para o primário. Sem token , qualquer réplica dentro do max-lag serve.
+//O horário do último commit deste nó só decide se o resultado lido pode ir para os caches por versão.
+//
+//Deve ficar atrás de um LazyConnectionDataSourceProxy: a conexão só é pedida no primeiro comando ,
+//quando o read-only da transação já foi definido. Também exige spring.jpa.open-in-view=false: com o
+//EntityManager aberto durante a requisição , a conexão pedida na primeira transação (réplica ou primário)
+//seria reaproveitada pelas seguintes.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final AtomicLong lastWriteMillis = new AtomicLong();
+    private final MeterRegistry registry;
+    private final Map<String, Counter> routed = new ConcurrentHashMap<>();
+
+    public ReplicaRoutingDataSource(ReplicaLagMonitor lagMonitor, MeterRegistry registry) {
+        this.lagMonitor = lagMonitor;
+        this.registry = registry;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String target;
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            long nodeWriteMillis = lastWriteMillis.get();
+            String replica = lagMonitor.pick(ReadYourWrites.requiredMillis());
+            target = replica == null ? PRIMARY : replica;
+            ReadYourWrites.routed(replica != null && lagMonitor.caughtUpMillis(replica) <= nodeWriteMillis);
+        } else {
+            target = PRIMARY;
+            ReadYourWrites.routed(false);
+            recordWrite();
+        }
+        routed.computeIfAbsent(target, name -> Counter.builder("library.datasource.routed")
+                .tag("target", name).register(registry)).increment();
+        return target;
+    }
+
+    public long lastWriteMillis() {
+        return lastWriteMillis.get();
+    }
+
+    //Só as transações que não são read-only contam como escrita , no commit. Conexões fora de
+    //transação (leituras simples , DDL) não são registradas: as escritas da aplicação passam por
+    //@Transactional ou pelos repositórios do Spring Data.
+    private void recordWrite() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    long now = System.currentTimeMillis();
+                    lastWriteMillis.accumulateAndGet(now, Math::max);
+                    ReadYourWrites.committed(now);
+                }
+            });
+        }
+    }
+}
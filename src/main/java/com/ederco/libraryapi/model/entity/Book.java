@@ -13,7 +13,9 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table
+@Table(indexes = {
+        @Index(name = "idx_book_isbn", columnList = "isbn"),
+        @Index(name = "idx_book_isbn_key", columnList = "isbn_key")})
 public class Book {
     @Id
     @Column
@@ -33,6 +35,18 @@ public class Book {
     @Column
     private String isbn;
 
+    //ISBN-13 numérico (Isbn.key) , igual para as variações ISBN-10/13 e com ou sem hífens.
+    //Nulo quando o isbn não é válido. Preenchido antes de gravar.
+    @Column(name = "isbn_key")
+    private Long isbnKey;
+
+    @PrePersist
+    @PreUpdate
+    void updateIsbnKey() {
+        long key = Isbn.key(isbn);
+        this.isbnKey = key == Isbn.NONE ? null : key;
+    }
+
     @OneToMany( mappedBy = "book" )// fetch = FetchType.LAZY)// não é necessario pois o default é LAZY...
     private List<Loan> loans;
 
@@ -0,0 +1,34 @@
+package com.ederco.libraryapi.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+//Uma linha por livro com a última alteração: cada escrita troca a linha por outra com "seq" maior ,
+//e o livro removido fica como tombstone. A tabela cresce com o número de livros , não de escritas.
+@Table(name = "book_change", indexes = @Index(name = "idx_book_change_book", columnList = "book_id", unique = true))
+public class BookChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long seq;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Column(nullable = false)
+    private boolean deleted;
+
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+
+}
@@ -0,0 +1,77 @@
+package com.ederco.libraryapi.model.entity;
+
+//Chave numérica canônica do ISBN: o ISBN-13 como long. ISBN-10 é convertido para 978 + 9 dígitos
+//com o novo dígito verificador , então "0-306-40615-2" , "0306406152" e "978-0-306-40615-7" têm a mesma chave.
+//Hífens , espaços e o texto "ISBN" são ignorados. Não aloca objetos.
+public final class Isbn {
+
+    //Texto que não é um ISBN-10/13 válido (tamanho ou dígito verificador)
+    public static final long NONE = -1;
+
+    private Isbn() {
+    }
+
+    public static long key(CharSequence isbn) {
+        if (isbn == null) {
+            return NONE;
+        }
+        long digits = 0;
+        int count = 0;
+        boolean checkX = false;
+        int weighted10 = 0;
+        int weighted13 = 0;
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (checkX || count == 13) {
+                    return NONE;
+                }
+                int digit = c - '0';
+                digits = digits * 10 + digit;
+                weighted10 += (10 - count) * digit;
+                weighted13 += (count % 2 == 0 ? 1 : 3) * digit;
+                count++;
+            } else if ((c == 'X' || c == 'x') && count == 9) {
+                //"X" só vale como dígito verificador do ISBN-10
+                weighted10 += 10;
+                checkX = true;
+                count++;
+            } else if (c == '-' || c == ' ' || c == ':' || isIsbnLabel(c)) {
+                continue;
+            } else {
+                return NONE;
+            }
+        }
+        if (count == 13) {
+            long prefix = digits / 10_000_000_000L;
+            return (prefix == 978 || prefix == 979) && weighted13 % 10 == 0 ? digits : NONE;
+        }
+        if (count == 10 && weighted10 % 11 == 0) {
+            long body = checkX ? digits : digits / 10;
+            return toIsbn13(body);
+        }
+        return NONE;
+    }
+
+    public static boolean isValid(CharSequence isbn) {
+        return key(isbn) != NONE;
+    }
+
+    //978 + os 9 primeiros dígitos do ISBN-10 + o dígito verificador do ISBN-13
+    private static long toIsbn13(long body) {
+        long withPrefix = 978_000_000_000L + body;
+        int sum = 0;
+        long rest = withPrefix;
+        //12 dígitos , da direita para a esquerda: pesos 3 , 1 , 3 , ...
+        for (int position = 0; position < 12; position++) {
+            int digit = (int) (rest % 10);
+            sum += (position % 2 == 0 ? 3 : 1) * digit;
+            rest /= 10;
+        }
+        return withPrefix * 10 + (10 - sum % 10) % 10;
+    }
+
+    private static boolean isIsbnLabel(char c) {
+        return c == 'I' || c == 'S' || c == 'B' || c == 'N' || c == 'i' || c == 's' || c == 'b' || c == 'n';
+    }
+}
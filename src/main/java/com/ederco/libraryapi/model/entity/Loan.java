@@ -13,7 +13,8 @@ import java.time.LocalDate;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table
+//Índice usado pelas buscas por cliente (igualdade e prefixo)
+@Table(indexes = @Index(name = "idx_loan_customer", columnList = "customer"))
 public class Loan {
 
     @Id
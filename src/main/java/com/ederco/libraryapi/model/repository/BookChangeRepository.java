@@ -0,0 +1,19 @@
+package com.ederco.libraryapi.model.repository;
+
+import com.ederco.libraryapi.model.entity.BookChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface BookChangeRepository extends JpaRepository<BookChange, Long> {
+
+    List<BookChange> findBySeqGreaterThanOrderBySeqAsc(Long seq, Pageable pageable);
+
+    @Modifying
+    @Query("delete from BookChange c where c.bookId = :bookId")
+    int deleteByBookId(@Param("bookId") Long bookId);
+}
@@ -6,11 +6,16 @@ import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.Optional;
 
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
     boolean existsByIsbn(String isbn);
 
     Optional<Book> findByIsbn(String isbn);
 
+    //Chave canônica (Isbn.key): encontra qualquer variação do mesmo ISBN
+    boolean existsByIsbnKey(Long isbnKey);
+
+    Optional<Book> findFirstByIsbnKey(Long isbnKey);
+
 //    Desta forma , irá fazer uma busca "fetch" de livros ,mas
 //    não usaremos esta estratégia:
 //    Book findBooksFetchLoans();
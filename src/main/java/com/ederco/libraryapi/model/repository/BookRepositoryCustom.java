@@ -0,0 +1,18 @@
+package com.ederco.libraryapi.model.repository;
+
+import com.ederco.libraryapi.model.entity.Book;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface BookRepositoryCustom {
+
+    //Mesma consulta do findAll(example, pageable) , mas sem a consulta de "count" ...
+    List<Book> findContent(Example<Book> example, Pageable pageable);
+
+    //Mesmo filtro , mas só com os atributos pedidos (fields=). Os livros retornados estão
+    //incompletos , não são gerenciados pelo EntityManager e não devem ir para o cache.
+    List<Book> findFields(Example<Book> example, Collection<String> fields, Pageable pageable);
+}
@@ -0,0 +1,74 @@
+package com.ederco.libraryapi.model.repository;
+
+import com.ederco.libraryapi.model.entity.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.convert.QueryByExamplePredicateBuilder;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class BookRepositoryImpl implements BookRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Book> findContent(Example<Book> example, Pageable pageable) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Book> query = builder.createQuery(Book.class);
+        Root<Book> root = query.from(Book.class);
+
+        Predicate predicate = QueryByExamplePredicateBuilder.getPredicate(root, builder, example);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(root).orderBy(QueryUtils.toOrders(pageable.getSort(), root, builder));
+
+        TypedQuery<Book> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        return typedQuery.getResultList();
+    }
+
+    @Override
+    public List<Book> findFields(Example<Book> example, Collection<String> fields, Pageable pageable) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<Book> root = query.from(Book.class);
+
+        Predicate predicate = QueryByExamplePredicateBuilder.getPredicate(root, builder, example);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        List<Selection<?>> selections = new ArrayList<>(fields.size());
+        for (String field : fields) {
+            selections.add(root.get(field));
+        }
+        query.multiselect(selections).orderBy(QueryUtils.toOrders(pageable.getSort(), root, builder));
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        List<Book> books = new ArrayList<>();
+        for (Tuple tuple : typedQuery.getResultList()) {
+            books.add(Projections.fill(new Book(), fields, tuple));
+        }
+        return books;
+    }
+}
@@ -0,0 +1,116 @@
+package com.ederco.libraryapi.model.repository;
+
+import com.ederco.libraryapi.model.entity.Book;
+import com.ederco.libraryapi.model.entity.Loan;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+//Empréstimos num banco só (padrão)
+@Repository
+@ConditionalOnProperty(name = "application.loan-shards.enabled", havingValue = "false", matchIfMissing = true)
+public class JpaLoanStore implements LoanStore {
+
+    private final LoanRepository repository;
+
+    public JpaLoanStore(LoanRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public boolean existsByBookAndNotReturned(Book book) {
+        return repository.existsByBookAndNotReturned(book);
+    }
+
+    @Override
+    public Loan save(Loan loan) {
+        return repository.save(loan);
+    }
+
+    @Override
+    public Optional<Loan> findById(Long id) {
+        return repository.findById(id);
+    }
+
+    @Override
+    public Slice<Loan> findSliceByBookIsbn(String isbn, Pageable pageable) {
+        return repository.findSliceByBookIsbn(isbn, pageable);
+    }
+
+    @Override
+    public long countByBookIsbn(String isbn) {
+        return repository.countByBookIsbn(isbn);
+    }
+
+    @Override
+    public Slice<Loan> findSliceByCustomer(String customer, Pageable pageable) {
+        return repository.findSliceByCustomer(customer, pageable);
+    }
+
+    @Override
+    public long countByCustomer(String customer) {
+        return repository.countByCustomer(customer);
+    }
+
+    @Override
+    public Slice<Loan> findSliceByCustomerStartingWith(String customerPrefix, Pageable pageable) {
+        return repository.findSliceByCustomerStartingWith(customerPrefix, pageable);
+    }
+
+    @Override
+    public long countByCustomerStartingWith(String customerPrefix) {
+        return repository.countByCustomerStartingWith(customerPrefix);
+    }
+
+    @Override
+    public Slice<Loan> findSliceByIsbnOrCustomer(LoanFilter filter, Pageable pageable) {
+        return repository.findSliceByIsbnOrCustomer(filter, pageable);
+    }
+
+    @Override
+    public long countByIsbnOrCustomer(LoanFilter filter) {
+        return repository.countByIsbnOrCustomer(filter);
+    }
+
+    @Override
+    public Slice<Loan> findSliceAll(Pageable pageable) {
+        return repository.findSliceAll(pageable);
+    }
+
+    @Override
+    public long count() {
+        return repository.count();
+    }
+
+    @Override
+    public Page<Loan> findByBook(Book book, Pageable pageable) {
+        return repository.findByBook(book, pageable);
+    }
+
+    @Override
+    public List<Loan> findByLoanDateLessThanAndNotReturned(LocalDate loanDate) {
+        return repository.findByLoanDateLessThanAndNotReturned(loanDate);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachActive(ActiveLoanConsumer consumer) {
+        try (Stream<Object[]> rows = repository.streamActiveIds()) {
+            rows.forEach(row -> consumer.accept(((Number) row[0]).longValue(), ((Number) row[1]).longValue()));
+        }
+    }
+
+    @Override
+    public Slice<Loan> findFields(LoanFilter filter, Collection<String> fields, Pageable pageable) {
+        return repository.findFields(filter, fields, pageable);
+    }
+}
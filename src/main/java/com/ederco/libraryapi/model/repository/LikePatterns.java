@@ -0,0 +1,16 @@
+package com.ederco.libraryapi.model.repository;
+
+//Valores usados em "like ... escape '\'": % e _ digitados pelo cliente são comparados literalmente
+public final class LikePatterns {
+
+    private LikePatterns() {
+    }
+
+    public static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    public static String startingWith(String prefix) {
+        return escape(prefix) + "%";
+    }
+}
@@ -0,0 +1,37 @@
+package com.ederco.libraryapi.model.repository;
+
+//Um filtro de empréstimos por vez , como nas buscas do LoanStore (o service escolhe qual usar).
+//Todos nulos: todos os empréstimos. Isbn junto com cliente (ou prefixo): os empréstimos de um OU do outro.
+public record LoanFilter(String isbn, String customer, String customerPrefix) {
+
+    //Filtro da requisição (LoanFilterDTO): o cliente exato tem prioridade sobre o prefixo
+    public static LoanFilter of(String isbn, String customer, String customerPrefix) {
+        return new LoanFilter(isbn, customer, customer == null ? customerPrefix : null);
+    }
+
+    public static LoanFilter all() {
+        return new LoanFilter(null, null, null);
+    }
+
+    public static LoanFilter byIsbn(String isbn) {
+        return new LoanFilter(isbn, null, null);
+    }
+
+    public static LoanFilter byCustomer(String customer) {
+        return new LoanFilter(null, customer, null);
+    }
+
+    //O prefixo vem sem escape , como no findSliceByCustomerStartingWith
+    public static LoanFilter byCustomerPrefix(String customerPrefix) {
+        return new LoanFilter(null, null, customerPrefix);
+    }
+
+    //Só um entre customer e customerPrefix (o outro nulo)
+    public static LoanFilter byIsbnOrCustomer(String isbn, String customer, String customerPrefix) {
+        return new LoanFilter(isbn, customer, customerPrefix);
+    }
+
+    public boolean union() {
+        return isbn != null && (customer != null || customerPrefix != null);
+    }
+}
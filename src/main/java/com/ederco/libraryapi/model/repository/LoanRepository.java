@@ -4,31 +4,51 @@ import com.ederco.libraryapi.model.entity.Book;
 import com.ederco.libraryapi.model.entity.Loan;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface LoanRepository extends JpaRepository< Loan , Long > {
+public interface LoanRepository extends JpaRepository< Loan , Long >, LoanRepositoryCustom {
 
     //" select from Loan where book = :book and returned is not true ",
     //no banco de dados  , só haverá retorno se o valor for "true" ,
     //então, se o valor for "false" ou "null" , não haverá retorno ,
     // por isso , utilizamos o "not true" ...
     @Query(value =" select case when ( count(l.id) > 0 ) then true else false end " +
-            " from Loan l where l.book = :book and ( l.returned is null or l.returned is false ) ")
+            " from Loan l where l.book = :book and ( l.returned is null or l.returned = false ) ")
     boolean existsByBookAndNotReturned(@Param("book") Book book);
 
-    //No JPARepository podemos fazer qualquer pesquisa e retornarmos o objeto PageRequest ,
-    //no final que irá retornar uma página.
-    @Query( value = "select l from Loan as l join l.book as b where b.isbn = :isbn or l.customer =:customer ")
-    Page<Loan> findByBookIsbnOrCustomer(@Param("isbn") String isbn,
-                                        @Param("customer") String customer,
-                                        Pageable pageRequest);
+    //Antes a busca era feita com "where b.isbn = :isbn or l.customer = :customer" ,
+    //mas o OR entre duas tabelas impede o uso dos índices e , quando um dos filtros
+    //é nulo , aquele lado não encontra nada. Agora cada filtro tem sua consulta
+    //indexada e o service escolhe qual usar.
+    //Os métodos retornam Slice , assim o Spring Data não executa o "count" ,
+    //que fica a cargo do service (e do cache de totais).
+    Slice<Loan> findSliceByBookIsbn(String isbn, Pageable pageable);
+
+    long countByBookIsbn(String isbn);
+
+    Slice<Loan> findSliceByCustomer(String customer, Pageable pageable);
+
+    long countByCustomer(String customer);
+
+    Slice<Loan> findSliceByCustomerStartingWith(String customerPrefix, Pageable pageable);
+
+    long countByCustomerStartingWith(String customerPrefix);
+
+    @Query(" select l from Loan l ")
+    Slice<Loan> findSliceAll(Pageable pageable);
 
     Page<Loan> findByBook(Book book, Pageable pageable);
-    @Query(" select l from Loan l where l.loanDate <= :threeDaysAgo and ( l.returned is null or l.returned is false ) ")
+    @Query(" select l from Loan l where l.loanDate <= :threeDaysAgo and ( l.returned is null or l.returned = false ) ")
     List<Loan> findByLoanDateLessThanAndNotReturned(@Param("threeDaysAgo") LocalDate threeDaysAgo);
+
+    //[id do empréstimo , id do livro] dos não devolvidos , lidos aos poucos (precisa de transação)
+    @Query(" select l.id , l.book.id from Loan l where l.returned is null or l.returned = false ")
+    Stream<Object[]> streamActiveIds();
 }
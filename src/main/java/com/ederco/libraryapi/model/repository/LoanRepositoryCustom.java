@@ -0,0 +1,21 @@
+package com.ederco.libraryapi.model.repository;
+
+import com.ederco.libraryapi.model.entity.Loan;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.Collection;
+
+public interface LoanRepositoryCustom {
+
+    //Só os atributos pedidos (ex.: "customer" , "book.title"). O livro só entra na consulta
+    //se algum atributo dele foi pedido ou se o filtro é pelo isbn.
+    //Os empréstimos retornados estão incompletos e não são gerenciados pelo EntityManager.
+    Slice<Loan> findFields(LoanFilter filter, Collection<String> fields, Pageable pageable);
+
+    //Isbn OU cliente/prefixo: a união das duas buscas indexadas fica no banco (UNION) , com a ordenação
+    //e o limite da página ; só os ids da página voltam para carregar os empréstimos.
+    Slice<Loan> findSliceByIsbnOrCustomer(LoanFilter filter, Pageable pageable);
+
+    long countByIsbnOrCustomer(LoanFilter filter);
+}
@@ -0,0 +1,169 @@
+package com.ederco.libraryapi.model.repository;
+
+import com.ederco.libraryapi.exception.BusinessException;
+import com.ederco.libraryapi.model.entity.Book;
+import com.ederco.libraryapi.model.entity.Loan;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+public class LoanRepositoryImpl implements LoanRepositoryCustom {
+
+    private static final String BOOK = "book.";
+
+    //Ordenações aceitas na união (SQL nativo): propriedade do Loan -> coluna
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "id", "l.id",
+            "customer", "l.customer",
+            "customerEmail", "l.customer_email",
+            "loanDate", "l.loan_date",
+            "returned", "l.returned",
+            "book.id", "l.id_book",
+            "book.isbn", "b.isbn");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<Loan> findFields(LoanFilter filter, Collection<String> fields, Pageable pageable) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<Loan> root = query.from(Loan.class);
+
+        //Na união a página já vem do banco , pelos ids
+        List<Long> pageIds = null;
+        if (filter.union()) {
+            pageIds = unionPageIds(filter, pageable);
+            if (pageIds.isEmpty()) {
+                return new SliceImpl<>(List.of(), pageable, false);
+            }
+        }
+
+        Join<Loan, Book> book = null;
+        if (filter.isbn() != null && pageIds == null) {
+            book = root.join("book");
+        } else if (fields.stream().anyMatch(field -> field.startsWith(BOOK))) {
+            book = root.join("book", JoinType.LEFT);
+        }
+
+        if (pageIds != null) {
+            query.where(root.get("id").in(pageIds));
+        } else if (filter.isbn() != null) {
+            query.where(builder.equal(book.get("isbn"), filter.isbn()));
+        } else if (filter.customer() != null) {
+            query.where(builder.equal(root.get("customer"), filter.customer()));
+        } else if (filter.customerPrefix() != null) {
+            query.where(builder.like(root.get("customer"), LikePatterns.startingWith(filter.customerPrefix()), '\\'));
+        }
+
+        List<Selection<?>> selections = new ArrayList<>(fields.size());
+        for (String field : fields) {
+            selections.add(field.startsWith(BOOK) ? book.get(field.substring(BOOK.length())) : root.get(field));
+        }
+        query.multiselect(selections).orderBy(QueryUtils.toOrders(pageable.getSort(), root, builder));
+
+        //Uma linha a mais indica se há próxima página , sem "count" (como nos métodos Slice)
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged() && pageIds == null) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize() + 1);
+        }
+        List<Loan> loans = new ArrayList<>();
+        for (Tuple tuple : typedQuery.getResultList()) {
+            loans.add(Projections.fill(new Loan(), fields, tuple));
+        }
+        boolean hasNext = pageable.isPaged() && loans.size() > pageable.getPageSize();
+        if (hasNext) {
+            loans.remove(loans.size() - 1);
+        }
+        return new SliceImpl<>(loans, pageable, hasNext);
+    }
+
+    @Override
+    public Slice<Loan> findSliceByIsbnOrCustomer(LoanFilter filter, Pageable pageable) {
+        List<Long> ids = unionPageIds(filter, pageable);
+        boolean hasNext = pageable.isPaged() && ids.size() > pageable.getPageSize();
+        if (hasNext) {
+            ids = ids.subList(0, pageable.getPageSize());
+        }
+        if (ids.isEmpty()) {
+            return new SliceImpl<>(List.of(), pageable, false);
+        }
+        Map<Long, Loan> loans = new HashMap<>();
+        entityManager.createQuery(" select l from Loan l where l.id in :ids ", Loan.class)
+                .setParameter("ids", ids)
+                .getResultList()
+                .forEach(loan -> loans.put(loan.getId(), loan));
+        List<Loan> content = ids.stream().map(loans::get).filter(Objects::nonNull).toList();
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    @Override
+    public long countByIsbnOrCustomer(LoanFilter filter) {
+        Query query = entityManager.createNativeQuery("select count(*) from ( " + union(filter) + " ) u");
+        bindUnion(query, filter);
+        return ((Number) query.getSingleResult()).longValue();
+    }
+
+    //Os ids da página (mais um , para saber se há próxima) na ordem pedida
+    private List<Long> unionPageIds(LoanFilter filter, Pageable pageable) {
+        Query query = entityManager.createNativeQuery("select l.id from loan l left join book b on b.id = l.id_book"
+                + " where l.id in ( " + union(filter) + " ) order by " + orderBy(pageable.getSort()));
+        bindUnion(query, filter);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize() + 1);
+        }
+        List<Long> ids = new ArrayList<>();
+        for (Object id : query.getResultList()) {
+            ids.add(((Number) id).longValue());
+        }
+        return ids;
+    }
+
+    private static String union(LoanFilter filter) {
+        return "select l1.id from loan l1 join book b1 on b1.id = l1.id_book where b1.isbn = :isbn"
+                + " union select l2.id from loan l2 where "
+                + (filter.customer() != null ? "l2.customer = :customer" : "l2.customer like :customer escape '\\'");
+    }
+
+    private static void bindUnion(Query query, LoanFilter filter) {
+        query.setParameter("isbn", filter.isbn());
+        query.setParameter("customer", filter.customer() != null ? filter.customer() : LikePatterns.startingWith(filter.customerPrefix()));
+    }
+
+    //O id no fim desempata , para a paginação ser estável
+    private static String orderBy(Sort sort) {
+        List<String> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            String column = SORT_COLUMNS.get(order.getProperty());
+            if (column == null) {
+                throw new BusinessException("Unsupported loan sort property: " + order.getProperty());
+            }
+            orders.add(column + (order.isAscending() ? " asc" : " desc"));
+        }
+        orders.add("l.id");
+        return String.join(" , ", orders);
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.ederco.libraryapi.model.repository;
+
+import com.ederco.libraryapi.model.entity.Book;
+import com.ederco.libraryapi.model.entity.Loan;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+//Acesso aos empréstimos usado pelo LoanServiceImpl. Com um banco só é o LoanRepository (JpaLoanStore) ;
+//com application.loan-shards.enabled=true os empréstimos ficam divididos entre vários bancos (ShardedLoanStore).
+//Os métodos têm a mesma semântica dos equivalentes do LoanRepository.
+public interface LoanStore {
+
+    boolean existsByBookAndNotReturned(Book book);
+
+    Loan save(Loan loan);
+
+    Optional<Loan> findById(Long id);
+
+    Slice<Loan> findSliceByBookIsbn(String isbn, Pageable pageable);
+
+    long countByBookIsbn(String isbn);
+
+    Slice<Loan> findSliceByCustomer(String customer, Pageable pageable);
+
+    long countByCustomer(String customer);
+
+    Slice<Loan> findSliceByCustomerStartingWith(String customerPrefix, Pageable pageable);
+
+    long countByCustomerStartingWith(String customerPrefix);
+
+    //Isbn OU cliente/prefixo (LoanFilter.union()): a união é feita no banco , com a ordenação e o limite
+    Slice<Loan> findSliceByIsbnOrCustomer(LoanFilter filter, Pageable pageable);
+
+    long countByIsbnOrCustomer(LoanFilter filter);
+
+    Slice<Loan> findSliceAll(Pageable pageable);
+
+    long count();
+
+    Page<Loan> findByBook(Book book, Pageable pageable);
+
+    List<Loan> findByLoanDateLessThanAndNotReturned(LocalDate loanDate);
+
+    //Todos os empréstimos não devolvidos , só os ids (snapshot do catálogo). Deve rodar numa transação.
+    void forEachActive(ActiveLoanConsumer consumer);
+
+    @FunctionalInterface
+    interface ActiveLoanConsumer {
+        void accept(long loanId, long bookId);
+    }
+
+    //A busca correspondente ao filtro
+    default Slice<Loan> findSlice(LoanFilter filter, Pageable pageable) {
+        if (filter.union()) {
+            return findSliceByIsbnOrCustomer(filter, pageable);
+        }
+        if (filter.isbn() != null) {
+            return findSliceByBookIsbn(filter.isbn(), pageable);
+        }
+        if (filter.customer() != null) {
+            return findSliceByCustomer(filter.customer(), pageable);
+        }
+        if (filter.customerPrefix() != null) {
+            return findSliceByCustomerStartingWith(filter.customerPrefix(), pageable);
+        }
+        return findSliceAll(pageable);
+    }
+
+    //fields=: só os atributos pedidos (ver LoanRepositoryCustom). Sem projeção por colunas ,
+    //o padrão devolve os empréstimos completos e a resposta escreve só os campos pedidos.
+    default Slice<Loan> findFields(LoanFilter filter, Collection<String> fields, Pageable pageable) {
+        return findSlice(filter, pageable);
+    }
+}
@@ -0,0 +1,35 @@
+package com.ederco.libraryapi.model.repository;
+
+import com.ederco.libraryapi.model.entity.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    List<OutboxEvent> findByPublishedAtIsNullOrderByIdAsc(Pageable pageable);
+
+    //Publicados ou não: usado para reaplicar as alterações posteriores a um snapshot
+    List<OutboxEvent> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query("select coalesce(max(e.id), 0) from OutboxEvent e")
+    long findMaxId();
+
+    //Null quando nenhum evento foi criado desde createdAt
+    @Query("select min(e.id) from OutboxEvent e where e.createdAt >= :createdAt")
+    Long findMinIdCreatedSince(@Param("createdAt") Instant createdAt);
+
+    @Modifying
+    @Query("update OutboxEvent e set e.publishedAt = :publishedAt where e.id in :ids")
+    int markPublished(@Param("ids") Collection<Long> ids, @Param("publishedAt") Instant publishedAt);
+
+    @Modifying
+    @Query("delete from OutboxEvent e where e.publishedAt < :publishedBefore")
+    int deletePublishedBefore(@Param("publishedBefore") Instant publishedBefore);
+}
@@ -0,0 +1,29 @@
+package com.ederco.libraryapi.model.repository;
+
+import jakarta.persistence.Tuple;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+
+import java.util.Collection;
+
+//Monta entidades incompletas a partir das consultas por colunas (fields=)
+final class Projections {
+
+    private Projections() {
+    }
+
+    //Cada atributo na posição em que foi selecionado. "book.title" cria o Book se preciso ,
+    //e valores nulos não criam objetos (um livro ausente no LEFT JOIN continua nulo).
+    static <T> T fill(T target, Collection<String> fields, Tuple tuple) {
+        BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(target);
+        wrapper.setAutoGrowNestedPaths(true);
+        int index = 0;
+        for (String field : fields) {
+            Object value = tuple.get(index++);
+            if (value != null) {
+                wrapper.setPropertyValue(field, value);
+            }
+        }
+        return target;
+    }
+}
@@ -0,0 +1,195 @@
+package com.ederco.libraryapi.model.repository;
+
+import com.ederco.libraryapi.exception.BusinessException;
+import com.ederco.libraryapi.model.entity.Book;
+import com.ederco.libraryapi.model.entity.Loan;
+import io.r2dbc.spi.Readable;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+//Consultas de leitura não bloqueantes (R2DBC) sobre as mesmas tabelas do JPA.
+//Os filtros seguem as mesmas regras do BookServiceImpl.find (contém , ignorando
+//maiúsculas) e do LoanServiceImpl.find (o mesmo LoanFilter: isbn e/ou cliente , sem OR entre as tabelas).
+//Ordenação por um atributo desconhecido é erro do cliente (400) , como no LoanRepositoryImpl.
+//As consultas de empréstimo leem a tabela loan do banco principal: com os shards ligados
+//(application.loan-shards.enabled) o ReactiveLoanController não sobe e elas não são usadas.
+@Repository
+public class ReactiveCatalogRepository {
+
+    private static final String BOOK_COLUMNS = " b.id as book_id, b.title, b.author, b.isbn ";
+    private static final String LOAN_COLUMNS = " l.id as loan_id, l.customer, l.customer_email, l.loan_date, l.returned, " + BOOK_COLUMNS;
+
+    private static final Map<String, String> BOOK_SORT = Map.of(
+            "id", "book_id", "title", "title", "author", "author", "isbn", "isbn");
+    private static final Map<String, String> LOAN_SORT = Map.of(
+            "id", "loan_id", "customer", "customer", "loanDate", "loan_date", "returned", "returned");
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveCatalogRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<Book> findBookById(Long id) {
+        return databaseClient.sql("select" + BOOK_COLUMNS + "from book b where b.id = :id")
+                .bind("id", id)
+                .map(ReactiveCatalogRepository::toBook)
+                .one();
+    }
+
+    public Flux<Book> findBooks(Book filter, Pageable pageable) {
+        Query query = bookQuery(filter);
+        return query.bindTo(databaseClient.sql("select * from (select" + BOOK_COLUMNS + "from book b" + query.where() + ") q"
+                        + orderBy(pageable.getSort(), BOOK_SORT, "book_id", "book") + limit(pageable)))
+                .map(ReactiveCatalogRepository::toBook)
+                .all();
+    }
+
+    public Mono<Long> countBooks(Book filter) {
+        Query query = bookQuery(filter);
+        return query.bindTo(databaseClient.sql("select count(*) from book b" + query.where()))
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    public Flux<Loan> findLoans(LoanFilter filter, Pageable pageable) {
+        String sql = "select * from (" + loanSql(filter, "select" + LOAN_COLUMNS) + ") q"
+                + orderBy(pageable.getSort(), LOAN_SORT, "loan_id", "loan") + limit(pageable);
+        return bindLoanFilter(databaseClient.sql(sql), filter)
+                .map(ReactiveCatalogRepository::toLoan)
+                .all();
+    }
+
+    public Mono<Long> countLoans(LoanFilter filter) {
+        String sql = "select count(*) from (" + loanSql(filter, "select l.id as loan_id") + ") q";
+        return bindLoanFilter(databaseClient.sql(sql), filter)
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    //Mesmo critério do Example usado no BookServiceImpl: "contém" nos textos , ignorando maiúsculas e nulos ,
+    //e igualdade no id (o Example só aplica o "contém" às Strings).
+    private static Query bookQuery(Book filter) {
+        Query query = new Query();
+        query.equal("b.id", "id", filter.getId());
+        query.like("b.title", "title", filter.getTitle());
+        query.like("b.author", "author", filter.getAuthor());
+        query.like("b.isbn", "isbn", filter.getIsbn());
+        return query;
+    }
+
+    //Com isbn e cliente informados (LoanFilter.union()) fazemos a união (sem repetição) de duas
+    //consultas indexadas , assim como no LoanRepositoryImpl.
+    private static String loanSql(LoanFilter filter, String select) {
+        String from = " from loan l join book b on b.id = l.id_book ";
+        String byCustomer = filter.customer() != null ? " where l.customer = :customer "
+                : filter.customerPrefix() != null ? " where l.customer like :customerPrefix escape '\\' " : null;
+
+        String sql;
+        if (filter.union()) {
+            sql = select + from + " where b.isbn = :isbn union " + select + from + byCustomer;
+        } else if (filter.isbn() != null) {
+            sql = select + from + " where b.isbn = :isbn ";
+        } else if (byCustomer != null) {
+            sql = select + from + byCustomer;
+        } else {
+            sql = select + from;
+        }
+        return sql;
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindLoanFilter(DatabaseClient.GenericExecuteSpec spec, LoanFilter filter) {
+        if (filter.isbn() != null) {
+            spec = spec.bind("isbn", filter.isbn());
+        }
+        if (filter.customer() != null) {
+            spec = spec.bind("customer", filter.customer());
+        } else if (filter.customerPrefix() != null) {
+            spec = spec.bind("customerPrefix", LikePatterns.startingWith(filter.customerPrefix()));
+        }
+        return spec;
+    }
+
+    private static String orderBy(Sort sort, Map<String, String> columns, String defaultColumn, String entity) {
+        List<String> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            String column = columns.get(order.getProperty());
+            if (column == null) {
+                throw new BusinessException("Unsupported " + entity + " sort property: " + order.getProperty());
+            }
+            orders.add(column + (order.isAscending() ? " asc" : " desc"));
+        }
+        if (orders.isEmpty()) {
+            orders.add(defaultColumn);
+        }
+        return " order by " + String.join(", ", orders);
+    }
+
+    private static String limit(Pageable pageable) {
+        return pageable.isPaged() ? " limit " + pageable.getPageSize() + " offset " + pageable.getOffset() : "";
+    }
+
+
+    private static Book toBook(Readable row) {
+        return Book.builder()
+                .id(row.get("book_id", Long.class))
+                .title(row.get("title", String.class))
+                .author(row.get("author", String.class))
+                .isbn(row.get("isbn", String.class))
+                .build();
+    }
+
+    private static Loan toLoan(Readable row) {
+        return Loan.builder()
+                .id(row.get("loan_id", Long.class))
+                .customer(row.get("customer", String.class))
+                .customerEmail(row.get("customer_email", String.class))
+                .loanDate(row.get("loan_date", LocalDate.class))
+                .returned(row.get("returned", Boolean.class))
+                .book(toBook(row))
+                .build();
+    }
+
+    private static class Query {
+        private final Map<String, Object> bindings = new LinkedHashMap<>();
+        private final List<String> conditions = new ArrayList<>();
+
+        void equal(String column, String name, Object value) {
+            if (value == null) {
+                return;
+            }
+            conditions.add(column + " = :" + name);
+            bindings.put(name, value);
+        }
+
+        void like(String column, String name, Object value) {
+            if (value == null || value.toString().isEmpty()) {
+                return;
+            }
+            conditions.add("lower(cast(" + column + " as varchar)) like :" + name + " escape '\\'");
+            bindings.put(name, "%" + LikePatterns.escape(value.toString().toLowerCase()) + "%");
+        }
+
+        String where() {
+            return conditions.isEmpty() ? "" : conditions.stream().collect(Collectors.joining(" and ", " where ", ""));
+        }
+
+        DatabaseClient.GenericExecuteSpec bindTo(DatabaseClient.GenericExecuteSpec spec) {
+            for (Map.Entry<String, Object> binding : bindings.entrySet()) {
+                spec = spec.bind(binding.getKey(), binding.getValue());
+            }
+            return spec;
+        }
+    }
+}
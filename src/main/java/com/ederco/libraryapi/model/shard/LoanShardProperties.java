@@ -0,0 +1,25 @@
+package com.ederco.libraryapi.model.shard;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//application.loan-shards.* : bancos que guardam os empréstimos , na ordem (o índice é o número do shard).
+//A quantidade não pode mudar depois que houver dados: o shard é calculado pelo id do livro.
+@Data
+@ConfigurationProperties("application.loan-shards")
+public class LoanShardProperties {
+
+    private boolean enabled = false;
+    private int maximumPoolSize = 10;
+    private List<Target> targets = new ArrayList<>();
+
+    @Data
+    public static class Target {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,42 @@
+package com.ederco.libraryapi.model.shard;
+
+//Todos os empréstimos de um livro ficam no mesmo shard (hash do id do livro).
+//O id do empréstimo carrega o shard: id = sequência do shard * quantidade de shards + shard ,
+//assim uma busca por id também vai direto ao shard certo.
+public class LoanShardRouter {
+
+    private final int shards;
+
+    public LoanShardRouter(int shards) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("At least one loan shard is required");
+        }
+        this.shards = shards;
+    }
+
+    public int size() {
+        return shards;
+    }
+
+    public int shardOfBook(long bookId) {
+        return (int) Math.floorMod(mix(bookId), (long) shards);
+    }
+
+    public int shardOfLoan(long loanId) {
+        return (int) Math.floorMod(loanId, (long) shards);
+    }
+
+    public long loanId(long sequence, int shard) {
+        return Math.multiplyExact(sequence, (long) shards) + shard;
+    }
+
+    //Ids sequenciais de livros espalhados por igual entre os shards (finalizador do MurmurHash3)
+    static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,364 @@
+package com.ederco.libraryapi.model.shard;
+
+import com.ederco.libraryapi.exception.BusinessException;
+import com.ederco.libraryapi.model.entity.Book;
+import com.ederco.libraryapi.model.entity.Loan;
+import com.ederco.libraryapi.model.repository.BookRepository;
+import com.ederco.libraryapi.model.repository.LikePatterns;
+import com.ederco.libraryapi.model.repository.LoanFilter;
+import com.ederco.libraryapi.model.repository.LoanStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+//Empréstimos divididos entre vários bancos pelo id do livro (LoanShardRouter).
+//
+//Consultas de um livro (findByBook , existsByBookAndNotReturned) e por id vão a um shard só.
+//As demais (isbn , cliente , atrasados , todos) rodam em paralelo em todos os shards: cada shard devolve
+//as primeiras offset + size + 1 linhas já ordenadas e o resultado é intercalado aqui com a mesma ordem ,
+//por isso páginas muito profundas custam offset * shards linhas.
+//
+//Cada shard tem a tabela loan com o isbn do livro copiado (não há join com book entre bancos) ;
+//os livros são completados depois com uma consulta só no banco principal.
+public class ShardedLoanStore implements LoanStore {
+
+    private static final String COLUMNS = "id, customer, customer_email, id_book, isbn, loan_date, returned";
+    private static final String NOT_RETURNED = "( returned is null or returned = false )";
+
+    //Ordenações aceitas: propriedade do Loan -> coluna , e o valor usado para intercalar os shards
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "id", "id",
+            "customer", "customer",
+            "loanDate", "loan_date",
+            "returned", "returned",
+            "book.id", "id_book",
+            "book.isbn", "isbn");
+    private static final Map<String, Function<Loan, Comparable>> SORT_VALUES = Map.of(
+            "id", Loan::getId,
+            "customer", Loan::getCustomer,
+            "loanDate", Loan::getLoanDate,
+            "returned", Loan::getReturned,
+            "book.id", loan -> loan.getBook().getId(),
+            "book.isbn", loan -> loan.getBook().getIsbn());
+
+    private static final RowMapper<Loan> ROW_MAPPER = (rs, rowNum) -> {
+        Date loanDate = rs.getDate("loan_date");
+        return Loan.builder()
+                .id(rs.getLong("id"))
+                .customer(rs.getString("customer"))
+                .customerEmail(rs.getString("customer_email"))
+                .book(Book.builder().id(rs.getLong("id_book")).isbn(rs.getString("isbn")).build())
+                .loanDate(loanDate == null ? null : loanDate.toLocalDate())
+                .returned(rs.getObject("returned", Boolean.class))
+                .build();
+    };
+
+    private record ShardQuery(String where, Object[] args) {
+    }
+
+    private final List<JdbcTemplate> shards;
+    private final LoanShardRouter router;
+    private final BookRepository bookRepository;
+    private final ExecutorService executor;
+    private final Timer scatterTimer;
+
+    public ShardedLoanStore(List<DataSource> dataSources, BookRepository bookRepository,
+                            ExecutorService executor, MeterRegistry registry) {
+        this.shards = dataSources.stream().map(JdbcTemplate::new).toList();
+        this.router = new LoanShardRouter(dataSources.size());
+        this.bookRepository = bookRepository;
+        this.executor = executor;
+        this.scatterTimer = Timer.builder("library.loan.shards.scatter").register(registry);
+    }
+
+    public void createSchema() {
+        for (JdbcTemplate shard : shards) {
+            shard.execute("create table if not exists loan ( id bigint primary key , customer varchar(100) , " +
+                    "customer_email varchar(255) , id_book bigint not null , isbn varchar(255) , loan_date date , returned boolean )");
+            shard.execute("create index if not exists idx_loan_book on loan ( id_book )");
+            shard.execute("create index if not exists idx_loan_isbn on loan ( isbn )");
+            shard.execute("create index if not exists idx_loan_customer on loan ( customer )");
+            shard.execute("create index if not exists idx_loan_date on loan ( loan_date )");
+            shard.execute("create sequence if not exists loan_seq");
+        }
+    }
+
+    public void close() {
+        executor.shutdown();
+    }
+
+    @Override
+    public boolean existsByBookAndNotReturned(Book book) {
+        Long count = shardOfBook(book).queryForObject(
+                "select count(*) from loan where id_book = ? and " + NOT_RETURNED, Long.class, book.getId());
+        return count != null && count > 0;
+    }
+
+    @Override
+    public Loan save(Loan loan) {
+        Book book = loan.getBook();
+        if (book == null || book.getId() == null) {
+            throw new IllegalArgumentException("Loan book id can't be null");
+        }
+        if (loan.getId() == null) {
+            int shard = router.shardOfBook(book.getId());
+            Long sequence = shards.get(shard).queryForObject("select next value for loan_seq", Long.class);
+            loan.setId(router.loanId(sequence, shard));
+            shards.get(shard).update("insert into loan ( " + COLUMNS + " ) values ( ? , ? , ? , ? , ? , ? , ? )",
+                    loan.getId(), loan.getCustomer(), loan.getCustomerEmail(), book.getId(), book.getIsbn(),
+                    loan.getLoanDate(), loan.getReturned());
+        } else {
+            int shard = router.shardOfLoan(loan.getId());
+            if (shard != router.shardOfBook(book.getId())) {
+                throw new IllegalArgumentException("A loan can't be moved to a book in another shard");
+            }
+            shards.get(shard).update("update loan set customer = ? , customer_email = ? , id_book = ? , isbn = ? , " +
+                            "loan_date = ? , returned = ? where id = ?",
+                    loan.getCustomer(), loan.getCustomerEmail(), book.getId(), book.getIsbn(),
+                    loan.getLoanDate(), loan.getReturned(), loan.getId());
+        }
+        return loan;
+    }
+
+    @Override
+    public Optional<Loan> findById(Long id) {
+        List<Loan> found = shards.get(router.shardOfLoan(id))
+                .query("select " + COLUMNS + " from loan where id = ?", ROW_MAPPER, id);
+        return withBooks(found).stream().findFirst();
+    }
+
+    @Override
+    public Slice<Loan> findSliceByBookIsbn(String isbn, Pageable pageable) {
+        return slice(everyShard("isbn = ?", isbn), pageable);
+    }
+
+    @Override
+    public long countByBookIsbn(String isbn) {
+        return count(everyShard("isbn = ?", isbn));
+    }
+
+    @Override
+    public Slice<Loan> findSliceByCustomer(String customer, Pageable pageable) {
+        return slice(everyShard("customer = ?", customer), pageable);
+    }
+
+    @Override
+    public long countByCustomer(String customer) {
+        return count(everyShard("customer = ?", customer));
+    }
+
+    @Override
+    public Slice<Loan> findSliceByCustomerStartingWith(String customerPrefix, Pageable pageable) {
+        return slice(everyShard("customer like ? escape '\\'", LikePatterns.startingWith(customerPrefix)), pageable);
+    }
+
+    @Override
+    public long countByCustomerStartingWith(String customerPrefix) {
+        return count(everyShard("customer like ? escape '\\'", LikePatterns.startingWith(customerPrefix)));
+    }
+
+    @Override
+    public Slice<Loan> findSliceByIsbnOrCustomer(LoanFilter filter, Pageable pageable) {
+        return slice(union(filter), pageable);
+    }
+
+    @Override
+    public long countByIsbnOrCustomer(LoanFilter filter) {
+        return count(union(filter));
+    }
+
+    @Override
+    public Slice<Loan> findSliceAll(Pageable pageable) {
+        return slice(everyShard(null), pageable);
+    }
+
+    @Override
+    public long count() {
+        return count(everyShard(null));
+    }
+
+    @Override
+    public Page<Loan> findByBook(Book book, Pageable pageable) {
+        Map<Integer, ShardQuery> query = Map.of(router.shardOfBook(book.getId()), new ShardQuery("id_book = ?", new Object[]{book.getId()}));
+        Slice<Loan> slice = slice(query, pageable);
+        return new PageImpl<>(slice.getContent(), pageable, count(query));
+    }
+
+    @Override
+    public List<Loan> findByLoanDateLessThanAndNotReturned(LocalDate loanDate) {
+        Comparator<Loan> byDate = comparator(Sort.by("loanDate"));
+        List<List<Loan>> parts = scatter(everyShard("loan_date <= ? and " + NOT_RETURNED, loanDate), (shard, query) ->
+                shard.query("select " + COLUMNS + " from loan where " + query.where() + " order by " + orderBy(Sort.by("loanDate")),
+                        ROW_MAPPER, query.args()));
+        List<Loan> loans = parts.stream().flatMap(List::stream).sorted(byDate).collect(Collectors.toCollection(ArrayList::new));
+        return withBooks(loans);
+    }
+
+    //Um shard de cada vez , sem montar a lista em memória
+    @Override
+    public void forEachActive(ActiveLoanConsumer consumer) {
+        for (JdbcTemplate shard : shards) {
+            shard.query("select id, id_book from loan where " + NOT_RETURNED,
+                    (RowCallbackHandler) rs -> consumer.accept(rs.getLong(1), rs.getLong(2)));
+        }
+    }
+
+    private JdbcTemplate shardOfBook(Book book) {
+        return shards.get(router.shardOfBook(book.getId()));
+    }
+
+    private Map<Integer, ShardQuery> everyShard(String where, Object... args) {
+        Map<Integer, ShardQuery> queries = new LinkedHashMap<>();
+        IntStream.range(0, shards.size()).forEach(shard -> queries.put(shard, new ShardQuery(where, args)));
+        return queries;
+    }
+
+    //Em cada shard a união das duas buscas indexadas (isbn e cliente) , sem repetir o empréstimo
+    //que atende às duas ; a ordenação e o limite ficam com o slice/count como nas outras buscas
+    private Map<Integer, ShardQuery> union(LoanFilter filter) {
+        String byCustomer = filter.customer() != null ? "customer = ?" : "customer like ? escape '\\'";
+        Object customer = filter.customer() != null ? filter.customer() : LikePatterns.startingWith(filter.customerPrefix());
+        return everyShard("id in ( select id from loan where isbn = ? union select id from loan where " + byCustomer + " )",
+                filter.isbn(), customer);
+    }
+
+    private Slice<Loan> slice(Map<Integer, ShardQuery> queries, Pageable pageable) {
+        Sort sort = pageable.getSort();
+        String orderBy = orderBy(sort);
+        boolean paged = pageable.isPaged();
+        //uma linha a mais para saber se existe a próxima página
+        long needed = paged ? pageable.getOffset() + pageable.getPageSize() + 1 : 0;
+
+        List<List<Loan>> parts = scatter(queries, (shard, query) -> {
+            List<Object> args = new ArrayList<>(List.of(query.args()));
+            String sql = "select " + COLUMNS + " from loan" + where(query) + " order by " + orderBy;
+            if (paged) {
+                sql += " limit ?";
+                args.add(needed);
+            }
+            return shard.query(sql, ROW_MAPPER, args.toArray());
+        });
+
+        List<Loan> merged = parts.stream().flatMap(List::stream).sorted(comparator(sort)).toList();
+        if (!paged) {
+            return new SliceImpl<>(withBooks(new ArrayList<>(merged)), pageable, false);
+        }
+        int from = (int) Math.min(pageable.getOffset(), merged.size());
+        int to = Math.min(from + pageable.getPageSize(), merged.size());
+        List<Loan> content = withBooks(new ArrayList<>(merged.subList(from, to)));
+        return new SliceImpl<>(content, pageable, merged.size() > to);
+    }
+
+    private long count(Map<Integer, ShardQuery> queries) {
+        return scatter(queries, (shard, query) -> shard.queryForObject("select count(*) from loan" + where(query), Long.class, query.args()))
+                .stream().mapToLong(Long::longValue).sum();
+    }
+
+    //Roda a consulta em cada shard em paralelo (um shard só: na própria thread)
+    private <T> List<T> scatter(Map<Integer, ShardQuery> queries, ShardCall<T> call) {
+        if (queries.size() == 1) {
+            Map.Entry<Integer, ShardQuery> only = queries.entrySet().iterator().next();
+            return List.of(call.run(shards.get(only.getKey()), only.getValue()));
+        }
+        return scatterTimer.record(() -> {
+            List<Future<T>> futures = new ArrayList<>(queries.size());
+            queries.forEach((shard, query) -> futures.add(executor.submit(() -> call.run(shards.get(shard), query))));
+            List<T> results = new ArrayList<>(futures.size());
+            try {
+                for (Future<T> future : futures) {
+                    results.add(future.get());
+                }
+                return results;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while querying the loan shards", e);
+            } catch (ExecutionException | CancellationException e) {
+                Throwable cause = e.getCause() == null ? e : e.getCause();
+                throw cause instanceof RuntimeException runtime ? runtime : new IllegalStateException(cause);
+            } finally {
+                futures.forEach(future -> future.cancel(true));
+            }
+        });
+    }
+
+    //Troca o livro parcial (id e isbn) pelo livro do banco principal
+    private List<Loan> withBooks(List<Loan> loans) {
+        if (loans.isEmpty()) {
+            return loans;
+        }
+        Map<Long, Book> books = new HashMap<>();
+        bookRepository.findAllById(loans.stream().map(loan -> loan.getBook().getId()).distinct().toList())
+                .forEach(book -> books.put(book.getId(), book));
+        loans.forEach(loan -> loan.setBook(books.getOrDefault(loan.getBook().getId(), loan.getBook())));
+        return loans;
+    }
+
+    private static String where(ShardQuery query) {
+        return query.where() == null ? "" : " where " + query.where();
+    }
+
+    //O id desempata , assim a ordem é a mesma em todos os shards e na intercalação.
+    //Nulos primeiro no ascendente (e por último no descendente) , igual ao Comparator.
+    private static String orderBy(Sort sort) {
+        List<String> columns = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            String column = column(order.getProperty());
+            columns.add(column + (order.isAscending() ? " asc nulls first" : " desc nulls last"));
+        }
+        columns.add("id asc");
+        return String.join(" , ", columns);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparator<Loan> comparator(Sort sort) {
+        Comparator<Loan> comparator = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            column(order.getProperty());
+            Function<Loan, Comparable> value = SORT_VALUES.get(order.getProperty());
+            Comparator<Comparable> values = Comparator.nullsFirst(Comparator.naturalOrder());
+            Comparator<Loan> byProperty = Comparator.comparing(value, values);
+            comparator = comparator.thenComparing(order.isAscending() ? byProperty : byProperty.reversed());
+        }
+        return comparator.thenComparing(Loan::getId);
+    }
+
+    private static String column(String property) {
+        String column = SORT_COLUMNS.get(property);
+        if (column == null) {
+            throw new BusinessException("Unsupported loan sort property: " + property);
+        }
+        return column;
+    }
+
+
+    @FunctionalInterface
+    private interface ShardCall<T> {
+        T run(JdbcTemplate shard, ShardQuery query);
+    }
+}
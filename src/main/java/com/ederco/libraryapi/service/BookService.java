@@ -1,10 +1,12 @@
 package com.ederco.libraryapi.service;
 
 import com.ederco.libraryapi.model.entity.Book;
+import com.ederco.libraryapi.service.changes.BookChanges;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.util.Optional;
+import java.util.Set;
 
 public interface BookService {
 
@@ -18,6 +20,12 @@ public interface BookService {
 
     Page<Book> find(Book filter, Pageable pageRequest);
 
+    //Mesma busca , mas só com os atributos pedidos (os livros vêm incompletos)
+    Page<Book> findFields(Book filter, Set<String> fields, Pageable pageRequest);
+
+    //Inclusões , alterações e remoções depois do token (0: o catálogo inteiro)
+    BookChanges getChanges(long since);
+
     Optional<Book> getBookByIsbn(String isbn);
     //**Após criar o método é necessário acertar a classe de
     // implementação , no caso BookServiceImpl
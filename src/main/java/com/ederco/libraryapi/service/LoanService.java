@@ -8,6 +8,7 @@ import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface LoanService {
     Loan save(Loan loan);
@@ -16,8 +17,14 @@ public interface LoanService {
 
     Page<Loan> find(LoanFilterDTO filterDTO, Pageable pageable);
 
+    //Mesma busca , mas só com os atributos pedidos (ex.: "customer" , "book.title")
+    Page<Loan> findFields(LoanFilterDTO filterDTO, Set<String> fields, Pageable pageable);
+
     Page<Loan> getLoansByBook(Book book, Pageable pageable);
 
     List<Loan> getALLLateLoans();
 
+    //Grava um LOAN_OVERDUE no outbox para cada empréstimo atrasado
+    void markOverdue(List<Loan> loans);
+
 }
@@ -0,0 +1,12 @@
+package com.ederco.libraryapi.service;
+
+import com.ederco.libraryapi.api.dto.LoanDTO;
+import com.ederco.libraryapi.service.submission.LoanRequest;
+
+import java.util.Optional;
+
+public interface LoanSubmissionService {
+    LoanRequest submit(LoanDTO dto);
+
+    Optional<LoanRequest> getRequest(String id);
+}
@@ -1,6 +1,8 @@
 package com.ederco.libraryapi.service;
 
 import com.ederco.libraryapi.model.entity.Loan;
+import com.ederco.libraryapi.service.bulkhead.Bulkhead;
+import com.ederco.libraryapi.service.bulkhead.BulkheadRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -22,8 +24,10 @@ public class ScheduleService {
     private final EmailService emailService;
 
     @Scheduled(cron = CRON_LATE_LOANS)
+    @Bulkhead(BulkheadRegistry.BACKGROUND)
     public void sendMailToLateLoans(){
         List<Loan> allLateLoans = loanService.getALLLateLoans();
+        loanService.markOverdue(allLateLoans);
         List<String> mailsList = allLateLoans.stream()
                 .map(loan -> loan.getCustomerEmail())
                 .collect(Collectors.toList());
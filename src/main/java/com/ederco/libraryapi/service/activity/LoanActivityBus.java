@@ -0,0 +1,259 @@
+package com.ederco.libraryapi.service.activity;
+
+import com.ederco.libraryapi.exception.ServiceOverloadedException;
+import com.ederco.libraryapi.service.outbox.Outbox;
+import com.ederco.libraryapi.service.outbox.OutboxMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Distribui os eventos de empréstimo para os clientes SSE conectados.
+//Todos os eventos chegam pelo outbox (OutboxMessage) e o id do evento SSE é o id do outbox , então
+//continua valendo depois de reiniciar a aplicação. O relay entrega pelo menos uma vez: as reentregas são
+//descartadas pelos ids entregues mais recentemente (dedup-window).
+//Cada cliente tem uma fila limitada: quem não acompanha o ritmo é desconectado e
+//pode reconectar com Last-Event-ID , recebendo o que veio depois dele no histórico. Se esse id já saiu
+//do histórico (ou o histórico não cabe na fila) , o cliente recebe um loan-reset e deve recarregar a lista.
+@Slf4j
+@Component
+public class LoanActivityBus {
+
+    private final int bufferSize;
+    private final int historySize;
+    private final int dedupWindow;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final ExecutorService sender;
+
+    //protegidos por "history". O histórico fica na ordem de entrega , que pode não ser a dos ids:
+    //uma transação com id menor pode confirmar depois de uma com id maior.
+    private final Deque<LoanActivityEvent> history = new ArrayDeque<>();
+    private final Set<Long> delivered = new LinkedHashSet<>();
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Counter dropped;
+
+    public LoanActivityBus(MeterRegistry registry,
+                           @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                           @Value("${application.loan-activity.buffer-size:256}") int bufferSize,
+                           @Value("${application.loan-activity.history-size:1000}") int historySize,
+                           @Value("${application.loan-activity.dedup-window:65536}") int dedupWindow,
+                           @Value("${application.loan-activity.max-subscribers:500}") int maxSubscribers,
+                           @Value("${application.loan-activity.timeout-millis:1800000}") long timeoutMillis,
+                           @Value("${application.loan-activity.sender-threads:4}") int senderThreads) {
+        this.bufferSize = bufferSize;
+        this.historySize = historySize;
+        this.dedupWindow = dedupWindow;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger threads = new AtomicInteger();
+        this.sender = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("loan-activity-", 1).factory())
+                : Executors.newFixedThreadPool(senderThreads, task -> {
+                    Thread thread = new Thread(task, "loan-activity-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        Gauge.builder("library.loan.activity.subscribers", subscribers, List::size).register(registry);
+        this.dropped = Counter.builder("library.loan.activity.dropped").register(registry);
+    }
+
+    //lastEventId: último evento recebido antes de reconectar (ou null)
+    public SseEmitter subscribe(Long lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ServiceOverloadedException("Too many loan activity subscribers", 5);
+        }
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMillis), new ArrayBlockingQueue<>(bufferSize));
+        subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onTimeout(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onError(error -> subscribers.remove(subscriber));
+
+        //Mesmo lock da publicação: nenhum evento é perdido ou repetido entre o histórico e a fila
+        synchronized (history) {
+            if (lastEventId != null) {
+                replay(subscriber, lastEventId);
+            }
+            subscribers.add(subscriber);
+        }
+        schedule(subscriber);
+        return subscriber.emitter;
+    }
+
+    //id: id do OutboxMessage. Devolve null se o evento já foi entregue.
+    public LoanActivityEvent publish(long id, String type, String data) {
+        synchronized (history) {
+            if (!delivered.add(id)) {
+                return null;
+            }
+            if (delivered.size() > dedupWindow) {
+                Iterator<Long> oldest = delivered.iterator();
+                oldest.next();
+                oldest.remove();
+            }
+            LoanActivityEvent event = new LoanActivityEvent(id, type, data);
+            history.addLast(event);
+            if (history.size() > historySize) {
+                history.removeFirst();
+            }
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.queue.offer(event)) {
+                    schedule(subscriber);
+                } else {
+                    drop(subscriber);
+                }
+            }
+            return event;
+        }
+    }
+
+    @EventListener
+    public void onOutboxMessage(OutboxMessage message) {
+        if (!Outbox.LOAN.equals(message.aggregateType())) {
+            return;
+        }
+        if (Outbox.EventType.LOAN_CREATED.name().equals(message.eventType())) {
+            publish(message.id(), LoanActivityEvent.CREATED, message.payload());
+        } else if (Outbox.EventType.LOAN_RETURNED.name().equals(message.eventType())) {
+            publish(message.id(), LoanActivityEvent.RETURNED, message.payload());
+        } else if (Outbox.EventType.LOAN_OVERDUE.name().equals(message.eventType())) {
+            publish(message.id(), LoanActivityEvent.OVERDUE, message.payload());
+        }
+    }
+
+    //Comentário periódico para manter a conexão aberta em proxies e detectar clientes que saíram
+    @Scheduled(fixedRateString = "${application.loan-activity.heartbeat-millis:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            sender.execute(() -> {
+                synchronized (subscriber) {
+                    try {
+                        subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } catch (IOException | IllegalStateException e) {
+                        subscribers.remove(subscriber);
+                    }
+                }
+            });
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        sender.shutdown();
+    }
+
+    //Chamado com o lock de "history"
+    private void replay(Subscriber subscriber, long lastEventId) {
+        boolean found = false;
+        for (LoanActivityEvent event : history) {
+            if (found) {
+                if (!subscriber.queue.offer(event)) {
+                    subscriber.queue.clear();
+                    subscriber.queue.offer(reset(lastEventId));
+                    return;
+                }
+            } else if (event.id() == lastEventId) {
+                found = true;
+            }
+        }
+        if (!found) {
+            log.info(" loan activity history no longer has event {} , sending reset ", lastEventId);
+            subscriber.queue.offer(reset(lastEventId));
+        }
+    }
+
+    //O id do reset é o do último evento do histórico: depois de recarregar , o cliente continua dali
+    private LoanActivityEvent reset(long lastEventId) {
+        LoanActivityEvent newest = history.peekLast();
+        return new LoanActivityEvent(newest == null ? null : newest.id(), LoanActivityEvent.RESET,
+                "{\"lastEventId\":" + lastEventId + "}");
+    }
+
+    private void drop(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            dropped.increment();
+            log.info(" dropping slow loan activity subscriber ");
+            subscriber.emitter.complete();
+        }
+    }
+
+    //Uma tarefa de envio por cliente por vez , para manter a ordem dos eventos
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            sender.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        List<LoanActivityEvent> events = new ArrayList<>();
+        while (true) {
+            subscriber.queue.drainTo(events);
+            if (events.isEmpty()) {
+                subscriber.draining.set(false);
+                //Um evento pode ter chegado entre o drainTo e o set(false)
+                if (subscriber.queue.isEmpty() || !subscriber.draining.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            synchronized (subscriber) {
+                try {
+                    for (LoanActivityEvent event : events) {
+                        SseEmitter.SseEventBuilder builder = SseEmitter.event();
+                        if (event.id() != null) {
+                            builder.id(String.valueOf(event.id()));
+                        }
+                        subscriber.emitter.send(builder
+                                .name(event.type())
+                                .data(event.data(), MediaType.APPLICATION_JSON));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    subscribers.remove(subscriber);
+                    subscriber.draining.set(false);
+                    return;
+                }
+            }
+            events.clear();
+        }
+    }
+
+    private static class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<LoanActivityEvent> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter, BlockingQueue<LoanActivityEvent> queue) {
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+    }
+}
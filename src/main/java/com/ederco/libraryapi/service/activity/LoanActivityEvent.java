@@ -0,0 +1,12 @@
+package com.ederco.libraryapi.service.activity;
+
+//id: id do OutboxMessage (usado como id do evento SSE / Last-Event-ID). Nulo só no loan-reset com o histórico vazio.
+//data: JSON do empréstimo
+public record LoanActivityEvent(Long id, String type, String data) {
+
+    public static final String CREATED = "loan-created";
+    public static final String RETURNED = "loan-returned";
+    public static final String OVERDUE = "loan-overdue";
+    //o Last-Event-ID não está mais no histórico: eventos podem ter sido perdidos
+    public static final String RESET = "loan-reset";
+}
@@ -0,0 +1,115 @@
+package com.ederco.libraryapi.service.autocomplete;
+
+import com.ederco.libraryapi.service.outbox.Outbox;
+import com.ederco.libraryapi.service.outbox.OutboxMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+
+//Autocomplete de títulos e autores (GET /api/books/suggestions) sem ir ao banco.
+//Carregado uma vez na subida e atualizado pelos eventos de livros do outbox (depois do commit).
+@Slf4j
+@Component
+public class BookAutocomplete implements SmartInitializingSingleton {
+
+    private final BookTrie trie;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Timer queries;
+
+    public BookAutocomplete(JdbcTemplate jdbcTemplate,
+                            ObjectMapper objectMapper,
+                            MeterRegistry registry,
+                            @Value("${application.autocomplete.top-k:10}") int topK,
+                            @Value("${application.autocomplete.max-term-length:48}") int maxTermLength) {
+        this.trie = new BookTrie(topK, maxTermLength);
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.queries = Timer.builder("library.autocomplete.queries").register(registry);
+        Gauge.builder("library.autocomplete.books", this, autocomplete -> autocomplete.read(trie::size)).register(registry);
+        Gauge.builder("library.autocomplete.nodes", this, autocomplete -> autocomplete.read(trie::nodes)).register(registry);
+        Gauge.builder("library.autocomplete.memory", this, autocomplete -> autocomplete.read(trie::estimatedBytes))
+                .baseUnit("bytes").register(registry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            jdbcTemplate.query("select id, title, author from book", rs -> {
+                trie.put(rs.getLong(1), rs.getString(2), rs.getString(3));
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info(" autocomplete index built with {} books in {} ms ", trie.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public List<BookTrie.Suggestion> suggest(String prefix, int limit) {
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            return trie.suggest(prefix, limit);
+        } finally {
+            lock.readLock().unlock();
+            queries.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void put(long id, String title, String author) {
+        lock.writeLock().lock();
+        try {
+            trie.put(id, title, author);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            trie.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onOutboxMessage(OutboxMessage message) throws JsonProcessingException {
+        if (!Outbox.BOOK.equals(message.aggregateType()) || message.aggregateId() == null) {
+            return;
+        }
+        if (Outbox.EventType.BOOK_DELETED.name().equals(message.eventType())) {
+            remove(message.aggregateId());
+        } else {
+            JsonNode book = objectMapper.readTree(message.payload());
+            put(message.aggregateId(), book.path("title").asText(null), book.path("author").asText(null));
+        }
+    }
+
+    private long read(LongSupplier supplier) {
+        lock.readLock().lock();
+        try {
+            return supplier.getAsLong();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
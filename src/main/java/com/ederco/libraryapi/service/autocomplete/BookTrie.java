@@ -0,0 +1,348 @@
+package com.ederco.libraryapi.service.autocomplete;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+//Trie de prefixos sobre títulos e autores normalizados (minúsculas , sem acentos , só letras e dígitos).
+//Cada palavra do texto também inicia um termo , então "aneis" encontra "O Senhor dos Anéis".
+//
+//Cada nó guarda os k melhores livros da sua subárvore , a consulta é só descer pelo prefixo e copiar
+//a lista do nó. Os filhos ficam em arrays ordenados (char[] + Node[]) em vez de mapas.
+//
+//Não é thread-safe: o BookAutocomplete controla o acesso.
+public class BookTrie {
+
+    public record Suggestion(long id, String title, String author) {
+    }
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final long[] NO_LONGS = new long[0];
+
+    private static final int TITLE = 0;
+    private static final int AUTHOR = 1;
+
+    private final int topK;
+    private final int maxTermLength;
+    private final Node root = new Node();
+    private final Map<Long, Suggestion> books = new HashMap<>();
+    private int nodes = 1;
+    //estimatedBytes , atualizado a cada alteração (o gauge não percorre a árvore)
+    private long bytes = root.bytes();
+
+    public BookTrie(int topK, int maxTermLength) {
+        this.topK = topK;
+        this.maxTermLength = maxTermLength;
+    }
+
+    //Inclui ou substitui o livro
+    public void put(long id, String title, String author) {
+        if (books.containsKey(id)) {
+            remove(id);
+        }
+        Suggestion book = new Suggestion(id, title, author);
+        books.put(id, book);
+        bytes += bytes(book);
+        index(id, TITLE, title);
+        index(id, AUTHOR, author);
+    }
+
+    public void remove(long id) {
+        Suggestion book = books.remove(id);
+        if (book == null) {
+            return;
+        }
+        bytes -= bytes(book);
+        //Tira o livro dos nós terminais e recalcula os k melhores dos nós visitados , dos mais fundos para a raiz
+        Map<Node, Integer> visited = new IdentityHashMap<>();
+        for (String term : terms(book.title())) {
+            unindex(id, term, visited);
+        }
+        for (String term : terms(book.author())) {
+            unindex(id, term, visited);
+        }
+        List<Map.Entry<Node, Integer>> byDepth = new ArrayList<>(visited.entrySet());
+        byDepth.sort(Map.Entry.<Node, Integer>comparingByValue().reversed());
+        for (Map.Entry<Node, Integer> entry : byDepth) {
+            recompute(entry.getKey());
+        }
+    }
+
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        Node node = root;
+        for (int i = 0; i < normalized.length() && i < maxTermLength; i++) {
+            node = node.child(normalized.charAt(i));
+            if (node == null) {
+                return List.of();
+            }
+        }
+        int size = Math.max(0, Math.min(limit, node.topSize));
+        List<Suggestion> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(books.get(node.topIds[i]));
+        }
+        return result;
+    }
+
+    public int size() {
+        return books.size();
+    }
+
+    public int nodes() {
+        return nodes;
+    }
+
+    //Estimativa (JVM 64 bits com compressed oops): cabeçalhos de objeto , arrays dos nós e os textos guardados
+    public long estimatedBytes() {
+        return bytes;
+    }
+
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String withoutAccents = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return NON_ALPHANUMERIC.matcher(withoutAccents.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private void index(long id, int field, String text) {
+        List<String> terms = terms(text);
+        int length = normalize(text).length();
+        for (int word = 0; word < terms.size(); word++) {
+            String term = terms.get(word);
+            long rank = rank(field, word, length);
+            Node[] path = new Node[term.length() + 1];
+            path[0] = root;
+            Node node = root;
+            for (int i = 0; i < term.length(); i++) {
+                Node child = node.child(term.charAt(i));
+                if (child == null) {
+                    long before = node.bytes();
+                    child = node.addChild(term.charAt(i));
+                    bytes += node.bytes() - before + child.bytes();
+                    nodes++;
+                }
+                node = child;
+                path[i + 1] = node;
+            }
+            long before = node.bytes();
+            node.addEnd(id, rank);
+            bytes += node.bytes() - before;
+            for (int i = path.length - 1; i >= 0; i--) {
+                before = path[i].bytes();
+                path[i].offer(id, rank, topK);
+                bytes += path[i].bytes() - before;
+            }
+        }
+    }
+
+    private void unindex(long id, String term, Map<Node, Integer> visited) {
+        Node node = root;
+        visited.putIfAbsent(root, 0);
+        for (int i = 0; i < term.length(); i++) {
+            Node child = node.child(term.charAt(i));
+            if (child == null) {
+                return;
+            }
+            visited.putIfAbsent(child, i + 1);
+            node = child;
+        }
+        node.removeEnd(id);
+    }
+
+    //Os k melhores do nó = os terminados nele + os k melhores de cada filho. Filhos vazios são removidos.
+    private void recompute(Node node) {
+        long before = node.bytes();
+        List<Node> empty = new ArrayList<>();
+        Map<Long, Long> best = new HashMap<>();
+        for (int i = 0; i < node.endSize; i++) {
+            best.merge(node.endIds[i], node.endRanks[i], Math::min);
+        }
+        for (int c = 0; c < node.children.length; c++) {
+            Node child = node.children[c];
+            if (child.topSize == 0 && child.children.length == 0) {
+                empty.add(child);
+                continue;
+            }
+            for (int i = 0; i < child.topSize; i++) {
+                best.merge(child.topIds[i], child.topRanks[i], Math::min);
+            }
+        }
+        for (Node child : empty) {
+            node.removeChild(child);
+            bytes -= child.bytes();
+            nodes--;
+        }
+        List<Map.Entry<Long, Long>> entries = new ArrayList<>(best.entrySet());
+        entries.sort(Map.Entry.<Long, Long>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+        int size = Math.min(topK, entries.size());
+        node.topIds = new long[size];
+        node.topRanks = new long[size];
+        for (int i = 0; i < size; i++) {
+            node.topIds[i] = entries.get(i).getKey();
+            node.topRanks[i] = entries.get(i).getValue();
+        }
+        node.topSize = size;
+        bytes += node.bytes() - before;
+    }
+
+    //Um termo por palavra: o texto a partir dela , limitado a maxTermLength caracteres
+    private List<String> terms(String text) {
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> terms = new ArrayList<>();
+        for (int i = 0; i < normalized.length(); i++) {
+            if (i == 0 || normalized.charAt(i - 1) == ' ') {
+                terms.add(normalized.substring(i, Math.min(normalized.length(), i + maxTermLength)));
+            }
+        }
+        return terms;
+    }
+
+    //Menor é melhor: título antes de autor , início do texto antes de palavras do meio , textos curtos primeiro
+    private static long rank(int field, int word, int length) {
+        return ((long) field << 40) | ((word == 0 ? 0L : 1L) << 39)
+                | ((long) Math.min(length, 0xFFFF) << 16) | Math.min(word, 0xFFFF);
+    }
+
+    private static long bytes(Suggestion book) {
+        return 32 + 24 + text(book.title()) + text(book.author()) + 48;
+    }
+
+    private static long array(int length, int elementBytes) {
+        return length == 0 ? 0 : 16 + (long) length * elementBytes;
+    }
+
+    private static long text(String value) {
+        return value == null ? 0 : 24 + 16 + value.length();
+    }
+
+    private static final class Node {
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        //livros cujo termo termina neste nó
+        private long[] endIds = NO_LONGS;
+        private long[] endRanks = NO_LONGS;
+        private int endSize;
+        //os k melhores da subárvore , ordenados por (rank , id)
+        private long[] topIds = NO_LONGS;
+        private long[] topRanks = NO_LONGS;
+        private int topSize;
+
+        private long bytes() {
+            return 48 + array(keys.length, 2) + array(children.length, 4)
+                    + 2 * array(endIds.length, 8) + 2 * array(topIds.length, 8);
+        }
+
+        private Node child(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private Node addChild(char key) {
+            int insertion = -Arrays.binarySearch(keys, key) - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertion);
+            System.arraycopy(children, 0, newChildren, 0, insertion);
+            newKeys[insertion] = key;
+            Node child = new Node();
+            newChildren[insertion] = child;
+            System.arraycopy(keys, insertion, newKeys, insertion + 1, keys.length - insertion);
+            System.arraycopy(children, insertion, newChildren, insertion + 1, children.length - insertion);
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+
+        private void removeChild(Node child) {
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] == child) {
+                    char[] newKeys = new char[keys.length - 1];
+                    Node[] newChildren = new Node[children.length - 1];
+                    System.arraycopy(keys, 0, newKeys, 0, i);
+                    System.arraycopy(children, 0, newChildren, 0, i);
+                    System.arraycopy(keys, i + 1, newKeys, i, keys.length - i - 1);
+                    System.arraycopy(children, i + 1, newChildren, i, children.length - i - 1);
+                    keys = newKeys;
+                    children = newChildren;
+                    return;
+                }
+            }
+        }
+
+        private void addEnd(long id, long rank) {
+            if (endSize == endIds.length) {
+                endIds = Arrays.copyOf(endIds, Math.max(2, endSize * 2));
+                endRanks = Arrays.copyOf(endRanks, endIds.length);
+            }
+            endIds[endSize] = id;
+            endRanks[endSize] = rank;
+            endSize++;
+        }
+
+        private void removeEnd(long id) {
+            int kept = 0;
+            for (int i = 0; i < endSize; i++) {
+                if (endIds[i] != id) {
+                    endIds[kept] = endIds[i];
+                    endRanks[kept] = endRanks[i];
+                    kept++;
+                }
+            }
+            endSize = kept;
+        }
+
+        //Inclusão: o livro entra se couber ou se for melhor que o último (mantendo o melhor rank se já estiver)
+        private void offer(long id, long rank, int topK) {
+            for (int i = 0; i < topSize; i++) {
+                if (topIds[i] == id) {
+                    if (rank >= topRanks[i]) {
+                        return;
+                    }
+                    removeTop(i);
+                    break;
+                }
+            }
+            int position = topSize;
+            while (position > 0 && (topRanks[position - 1] > rank || (topRanks[position - 1] == rank && topIds[position - 1] > id))) {
+                position--;
+            }
+            if (position >= topK) {
+                return;
+            }
+            if (topIds.length < Math.min(topK, topSize + 1)) {
+                topIds = Arrays.copyOf(topIds, Math.min(topK, Math.max(2, topSize * 2)));
+                topRanks = Arrays.copyOf(topRanks, topIds.length);
+            }
+            int size = Math.min(topSize + 1, topK);
+            System.arraycopy(topIds, position, topIds, position + 1, size - position - 1);
+            System.arraycopy(topRanks, position, topRanks, position + 1, size - position - 1);
+            topIds[position] = id;
+            topRanks[position] = rank;
+            topSize = size;
+        }
+
+        private void removeTop(int index) {
+            System.arraycopy(topIds, index + 1, topIds, index, topSize - index - 1);
+            System.arraycopy(topRanks, index + 1, topRanks, index, topSize - index - 1);
+            topSize--;
+        }
+    }
+}
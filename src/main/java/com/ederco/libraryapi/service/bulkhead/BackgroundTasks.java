@@ -0,0 +1,57 @@
+package com.ederco.libraryapi.service.bulkhead;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Executor próprio e limitado para o trabalho em segundo plano (envio de emails) ,
+//separado do executor usado pelas requisições assíncronas.
+//Não é exposto como bean Executor para não substituir o applicationTaskExecutor do Spring Boot.
+@Component
+public class BackgroundTasks {
+
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong rejected = new AtomicLong();
+
+    public BackgroundTasks(MeterRegistry registry,
+                           @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                           @Value("${application.bulkhead.background.max-concurrent:2}") int threads,
+                           @Value("${application.bulkhead.background.queue-capacity:100}") int queueCapacity) {
+        AtomicInteger sequence = new AtomicInteger();
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("background-", 1).factory()
+                : task -> new Thread(task, "background-" + sequence.incrementAndGet());
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory,
+                (task, pool) -> {
+                    rejected.incrementAndGet();
+                    throw new RejectedExecutionException("Background queue is full");
+                });
+
+        Gauge.builder("library.background.active", executor, ThreadPoolExecutor::getActiveCount).register(registry);
+        Gauge.builder("library.background.queued", executor, e -> e.getQueue().size()).register(registry);
+        FunctionCounter.builder("library.background.rejected", rejected, AtomicLong::get).register(registry);
+    }
+
+    //Fila cheia: lança RejectedExecutionException em vez de bloquear quem chamou
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,14 @@
+package com.ederco.libraryapi.service.bulkhead;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+//Executa o método dentro das vagas do grupo (ver BulkheadRegistry).
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Bulkhead {
+
+    String value();
+}
@@ -0,0 +1,36 @@
+package com.ederco.libraryapi.service.bulkhead;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+//Roda antes de qualquer outro proxy (ex.: @Transactional) para que a vaga seja obtida
+//antes de uma conexão ser retirada do pool.
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class BulkheadAspect {
+
+    private final BulkheadRegistry registry;
+
+    public BulkheadAspect(BulkheadRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("@annotation(bulkhead)")
+    public Object around(ProceedingJoinPoint joinPoint, Bulkhead bulkhead) throws Throwable {
+        BulkheadGroup group = registry.get(bulkhead.value());
+        if (group.isHeldByCurrentThread()) {
+            return joinPoint.proceed();
+        }
+        group.acquire();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            group.release();
+        }
+    }
+}
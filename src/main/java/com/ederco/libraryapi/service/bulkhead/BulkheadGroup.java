@@ -0,0 +1,93 @@
+package com.ederco.libraryapi.service.bulkhead;
+
+import com.ederco.libraryapi.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+//Vagas de um grupo de trabalho. Cada vaga corresponde , no máximo , a uma conexão do pool ,
+//então a soma das vagas dos grupos define quanto do pool cada um pode ocupar.
+public class BulkheadGroup {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final long maxWaitMillis;
+    private final Semaphore permits;
+    private final Counter permitted;
+    private final Counter rejected;
+    private final Timer waitTimer;
+    private final ThreadLocal<Boolean> holding = new ThreadLocal<>();
+
+    public BulkheadGroup(String name, int maxConcurrent, long maxWaitMillis, MeterRegistry registry) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitMillis = maxWaitMillis;
+        this.permits = new Semaphore(maxConcurrent, true);
+
+        Gauge.builder("library.bulkhead.active", this, BulkheadGroup::getActive).tag("group", name).register(registry);
+        Gauge.builder("library.bulkhead.max", this, BulkheadGroup::getMaxConcurrent).tag("group", name).register(registry);
+        Gauge.builder("library.bulkhead.waiting", permits, Semaphore::getQueueLength).tag("group", name).register(registry);
+        this.permitted = Counter.builder("library.bulkhead.calls").tag("group", name).tag("result", "permitted").register(registry);
+        this.rejected = Counter.builder("library.bulkhead.calls").tag("group", name).tag("result", "rejected").register(registry);
+        this.waitTimer = Timer.builder("library.bulkhead.wait").tag("group", name).register(registry);
+    }
+
+    //Espera no máximo maxWaitMillis por uma vaga ; depois disso recusa com 503
+    public void acquire() {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            rejected.increment();
+            throw new ServiceOverloadedException("Too many concurrent " + name + " operations", 1);
+        }
+        permitted.increment();
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    //Para quem não tem requisição esperando (ex.: os workers de empréstimos): espera a vaga sem prazo
+    //e executa a ação com ela. As chamadas @Bulkhead do grupo feitas dentro da ação (mesma thread ,
+    //mesma conexão) não pedem outra vaga.
+    public void runHolding(Runnable action) throws InterruptedException {
+        long start = System.nanoTime();
+        permits.acquire();
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        permitted.increment();
+        holding.set(Boolean.TRUE);
+        try {
+            action.run();
+        } finally {
+            holding.remove();
+            permits.release();
+        }
+    }
+
+    public boolean isHeldByCurrentThread() {
+        return holding.get() != null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getActive() {
+        return maxConcurrent - permits.availablePermits();
+    }
+}
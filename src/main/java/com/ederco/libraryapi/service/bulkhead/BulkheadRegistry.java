@@ -0,0 +1,48 @@
+package com.ederco.libraryapi.service.bulkhead;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+//Grupos isolados: buscas no catálogo , gravação de empréstimos e tarefas em segundo plano
+//(jobs agendados e emails). Buscas e tarefas em segundo plano têm menos vagas que o pool
+//de conexões , então sempre sobram conexões para os empréstimos.
+@Slf4j
+@Component
+public class BulkheadRegistry {
+
+    public static final String SEARCH = "search";
+    public static final String LOAN_WRITES = "loan-writes";
+    public static final String BACKGROUND = "background";
+
+    private final Map<String, BulkheadGroup> groups;
+
+    public BulkheadRegistry(MeterRegistry registry,
+                            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                            @Value("${application.bulkhead.search.max-concurrent:5}") int searchMax,
+                            @Value("${application.bulkhead.search.max-wait-millis:100}") long searchWait,
+                            @Value("${application.bulkhead.loan-writes.max-concurrent:8}") int loanWritesMax,
+                            @Value("${application.bulkhead.loan-writes.max-wait-millis:1000}") long loanWritesWait,
+                            @Value("${application.bulkhead.background.max-concurrent:2}") int backgroundMax,
+                            @Value("${application.bulkhead.background.max-wait-millis:60000}") long backgroundWait) {
+        this.groups = Map.of(
+                SEARCH, new BulkheadGroup(SEARCH, searchMax, searchWait, registry),
+                LOAN_WRITES, new BulkheadGroup(LOAN_WRITES, loanWritesMax, loanWritesWait, registry),
+                BACKGROUND, new BulkheadGroup(BACKGROUND, backgroundMax, backgroundWait, registry));
+        if (searchMax + backgroundMax >= poolSize) {
+            log.warn("Search ({}) and background ({}) bulkheads can take the whole connection pool ({})",
+                    searchMax, backgroundMax, poolSize);
+        }
+    }
+
+    public BulkheadGroup get(String name) {
+        BulkheadGroup group = groups.get(name);
+        if (group == null) {
+            throw new IllegalArgumentException("Unknown bulkhead: " + name);
+        }
+        return group;
+    }
+}
@@ -0,0 +1,26 @@
+package com.ederco.libraryapi.service.cache;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+//Atualizações de cache/versão só valem depois do commit: se a transação for desfeita
+//o cache não pode ficar com um registro que nunca existiu.
+//Fora de transação a ação roda na hora.
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
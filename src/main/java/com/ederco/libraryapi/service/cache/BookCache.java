@@ -0,0 +1,85 @@
+package com.ederco.libraryapi.service.cache;
+
+import com.ederco.libraryapi.model.entity.Book;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+//Cache de livros por id. Guardamos e devolvemos cópias , assim uma requisição
+//que altera o livro (ex.: update) não modifica o objeto compartilhado no cache.
+//
+//store=heap: LruCache com as cópias. store=off-heap: OffHeapBookStore , os livros ficam
+//fora do heap e cada leitura monta um Book novo (catálogos grandes sem pressão no GC).
+@Component
+public class BookCache {
+
+    private static final String NAME = "book-by-id";
+
+    private final LruCache<Long, Book> cache;
+    private final OffHeapBookStore offHeap;
+
+    public BookCache(int maxEntries, MeterRegistry meterRegistry) {
+        this(maxEntries, "heap", 0, meterRegistry);
+    }
+
+    @Autowired
+    public BookCache(@Value("${application.book-cache.max-entries:50000}") int maxEntries,
+                     @Value("${application.book-cache.store:heap}") String store,
+                     @Value("${application.book-cache.off-heap.arena-bytes:67108864}") int arenaBytes,
+                     MeterRegistry meterRegistry) {
+        switch (store) {
+            case "heap" -> {
+                this.cache = new LruCache<>(maxEntries);
+                this.offHeap = null;
+                this.cache.bindTo(meterRegistry, NAME);
+            }
+            case "off-heap" -> {
+                this.cache = null;
+                this.offHeap = new OffHeapBookStore(maxEntries, arenaBytes);
+                this.offHeap.bindTo(meterRegistry, NAME);
+            }
+            default -> throw new IllegalArgumentException("Unknown book cache store: " + store);
+        }
+    }
+
+    public Optional<Book> get(Long id) {
+        if (offHeap != null) {
+            return id == null ? Optional.empty() : Optional.ofNullable(offHeap.get(id));
+        }
+        return Optional.ofNullable(cache.get(id)).map(BookCache::copy);
+    }
+
+    public void put(Book book) {
+        if (book != null && book.getId() != null) {
+            if (offHeap != null) {
+                offHeap.put(book);
+            } else {
+                cache.put(book.getId(), copy(book));
+            }
+        }
+    }
+
+    public void evict(Long id) {
+        if (offHeap != null) {
+            if (id != null) {
+                offHeap.remove(id);
+            }
+        } else {
+            cache.remove(id);
+        }
+    }
+
+    //A lista de empréstimos (lazy) não é copiada , ela pertence à sessão que carregou o livro.
+    public static Book copy(Book book) {
+        return Book.builder()
+                .id(book.getId())
+                .title(book.getTitle())
+                .author(book.getAuthor())
+                .isbn(book.getIsbn())
+                .isbnKey(book.getIsbnKey())
+                .build();
+    }
+}
@@ -0,0 +1,31 @@
+package com.ederco.libraryapi.service.cache;
+
+import com.ederco.libraryapi.model.entity.Book;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+//Agrupa as consultas concorrentes de um mesmo livro (por id ou por isbn) em uma
+//única ida ao banco. Cada chamador recebe a sua cópia do livro , pois a entidade
+//carregada pertence à sessão de quem executou a consulta.
+@Component
+public class BookLookupCoalescer {
+
+    private final SingleFlight<Long, Optional<Book>> byId = new SingleFlight<>();
+    private final SingleFlight<String, Optional<Book>> byIsbn = new SingleFlight<>();
+
+    public BookLookupCoalescer(MeterRegistry meterRegistry) {
+        byId.bindTo(meterRegistry, "book-by-id");
+        byIsbn.bindTo(meterRegistry, "book-by-isbn");
+    }
+
+    public Optional<Book> byId(Long id, Supplier<Optional<Book>> loader) {
+        return byId.execute(id, loader).map(BookCache::copy);
+    }
+
+    public Optional<Book> byIsbn(String isbn, Supplier<Optional<Book>> loader) {
+        return byIsbn.execute(isbn, loader).map(BookCache::copy);
+    }
+}
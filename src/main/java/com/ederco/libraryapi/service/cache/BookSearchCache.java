@@ -0,0 +1,54 @@
+package com.ederco.libraryapi.service.cache;
+
+import com.ederco.libraryapi.model.datasource.ReadYourWrites;
+import com.ederco.libraryapi.model.entity.Book;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+//Cache do resultado das buscas de livros. Guardamos apenas os ids da página e o total ,
+//os livros são hidratados pelo BookCache. A versão do catálogo faz parte da chave ,
+//então qualquer escrita em livros torna as entradas antigas inalcançáveis e o LRU as remove.
+@Component
+public class BookSearchCache {
+
+    private final LruCache<Key, Entry> cache;
+
+    public BookSearchCache(@Value("${application.search-cache.max-entries:1000}") int maxEntries,
+                           MeterRegistry meterRegistry) {
+        this.cache = new LruCache<>(maxEntries);
+        this.cache.bindTo(meterRegistry, "book-search");
+    }
+
+    public Optional<Entry> get(List<String> filter, Pageable pageable, long catalogVersion) {
+        if (pageable.isUnpaged()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.get(Key.of(filter, pageable, catalogVersion)));
+    }
+
+    //Uma página lida numa réplica atrasada em relação a este nó não é guardada
+    public void put(List<String> filter, Pageable pageable, long catalogVersion, Page<Book> page) {
+        if (pageable.isUnpaged() || !ReadYourWrites.cacheable()) {
+            return;
+        }
+        List<Long> ids = page.getContent().stream().map(Book::getId).collect(Collectors.toList());
+        cache.put(Key.of(filter, pageable, catalogVersion), new Entry(ids, page.getTotalElements()));
+    }
+
+    public record Entry(List<Long> ids, long total) {
+    }
+
+    private record Key(long catalogVersion, List<String> filter, long offset, int size, Sort sort) {
+        static Key of(List<String> filter, Pageable pageable, long catalogVersion) {
+            return new Key(catalogVersion, filter, pageable.getOffset(), pageable.getPageSize(), pageable.getSort());
+        }
+    }
+}
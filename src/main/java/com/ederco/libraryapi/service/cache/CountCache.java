@@ -0,0 +1,70 @@
+package com.ederco.libraryapi.service.cache;
+
+import com.ederco.libraryapi.model.datasource.ReadYourWrites;
+import com.ederco.libraryapi.service.cache.WriteVersions.Table;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class CountCache {
+
+    private final WriteVersions versions;
+    private final int maxEntries;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    public CountCache(WriteVersions versions,
+                      @Value("${application.count-cache.max-entries:10000}") int maxEntries) {
+        this.versions = versions;
+        this.maxEntries = maxEntries;
+    }
+
+    //O filtro já deve chegar normalizado , ou seja , dois filtros que retornam
+    //o mesmo resultado devem gerar a mesma chave.
+    public static List<String> key(String... filterValues) {
+        return Arrays.asList(filterValues);
+    }
+
+    public OptionalLong get(Table table, List<String> filter) {
+        Entry entry = entries.get(new Key(table, filter));
+        if (entry == null || entry.version() != versions.current(table)) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(entry.count());
+    }
+
+    //A versão deve ser lida ANTES de executar a contagem , assim uma escrita
+    //concorrente torna a entrada obsoleta imediatamente. Uma contagem lida numa réplica
+    //atrasada em relação a este nó não é guardada.
+    public void put(Table table, List<String> filter, long version, long count) {
+        if (!ReadYourWrites.cacheable()) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            evictStale();
+        }
+        entries.put(new Key(table, filter), new Entry(version, count));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evictStale() {
+        entries.entrySet().removeIf(e -> e.getValue().version() != versions.current(e.getKey().table()));
+        if (entries.size() >= maxEntries) {
+            entries.clear();
+        }
+    }
+
+    private record Key(Table table, List<String> filter) {
+    }
+
+    private record Entry(long version, long count) {
+    }
+}
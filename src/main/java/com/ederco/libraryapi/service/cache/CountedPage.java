@@ -0,0 +1,29 @@
+package com.ederco.libraryapi.service.cache;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+//Página que informa se o "totalElements" foi contado agora (exato)
+//ou se veio do cache de totais.
+public class CountedPage<T> extends PageImpl<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean exactTotal;
+
+    public CountedPage(List<T> content, Pageable pageable, long total, boolean exactTotal) {
+        super(content, pageable, total);
+        this.exactTotal = exactTotal;
+    }
+
+    public boolean isExactTotal() {
+        return exactTotal;
+    }
+
+    public static boolean isExact(Page<?> page) {
+        return !(page instanceof CountedPage<?> counted) || counted.isExactTotal();
+    }
+}
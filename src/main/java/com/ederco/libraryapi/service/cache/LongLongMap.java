@@ -0,0 +1,159 @@
+package com.ederco.libraryapi.service.cache;
+
+import java.util.Arrays;
+
+//Mapa long -> long com endereçamento aberto (sondagem linear) em dois arrays primitivos:
+//sem boxing e sem objetos por entrada. A chave 0 é reservada para "vazio".
+//A remoção desloca as entradas seguintes para trás , então não há lápides.
+//
+//Não é thread-safe.
+public class LongLongMap {
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private final long missingValue;
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public LongLongMap(int expectedSize, long missingValue) {
+        this.missingValue = missingValue;
+        allocate(capacityFor(expectedSize));
+    }
+
+    public long get(long key) {
+        checkKey(key);
+        long[] keys = this.keys;
+        int mask = this.mask;
+        for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) {
+                return values[slot];
+            }
+            if (current == 0) {
+                return missingValue;
+            }
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != missingValue;
+    }
+
+    //Retorna o valor anterior ou missingValue
+    public long put(long key, long value) {
+        checkKey(key);
+        for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) {
+                long previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            if (current == 0) {
+                keys[slot] = key;
+                values[slot] = value;
+                if (++size > resizeAt) {
+                    rehash(keys.length * 2);
+                }
+                return missingValue;
+            }
+        }
+    }
+
+    //Retorna o valor removido ou missingValue
+    public long remove(long key) {
+        checkKey(key);
+        for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == 0) {
+                return missingValue;
+            }
+            if (current == key) {
+                long previous = values[slot];
+                shiftBack(slot);
+                size--;
+                return previous;
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    public long memoryBytes() {
+        return 2 * (16 + 8L * keys.length);
+    }
+
+    //Puxa para o buraco as entradas seguintes do mesmo agrupamento que estariam antes dele
+    private void shiftBack(int gap) {
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            long key = keys[slot];
+            if (key == 0) {
+                break;
+            }
+            int ideal = slot(key, mask);
+            //a entrada pode ir para o buraco se o slot ideal dela não estiver entre o buraco e a posição atual
+            if (((slot - ideal) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = key;
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        keys[gap] = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != 0) {
+                int slot = slot(key, mask);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int needed = (int) Math.ceil(Math.max(expectedSize, 2) / LOAD_FACTOR);
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    private static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static void checkKey(long key) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.ederco.libraryapi.service.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Cache LRU limitado por quantidade de entradas , com contadores de acerto/erro.
+public class LruCache<K, V> {
+
+    private final Map<K, V> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public LruCache(int maxEntries) {
+        //"accessOrder = true" faz o LinkedHashMap manter a ordem de acesso ,
+        //então a entrada mais antiga é a menos usada recentemente.
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                boolean evict = size() > maxEntries;
+                if (evict) {
+                    evictions.incrementAndGet();
+                }
+                return evict;
+            }
+        });
+    }
+
+    public V get(K key) {
+        V value = entries.get(key);
+        (value == null ? misses : hits).incrementAndGet();
+        return value;
+    }
+
+    public void put(K key, V value) {
+        entries.put(key, value);
+    }
+
+    public void remove(K key) {
+        entries.remove(key);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public double hitRatio() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    public void bindTo(MeterRegistry registry, String name) {
+        FunctionCounter.builder("library.cache.gets", hits, AtomicLong::get)
+                .tag("cache", name).tag("result", "hit").register(registry);
+        FunctionCounter.builder("library.cache.gets", misses, AtomicLong::get)
+                .tag("cache", name).tag("result", "miss").register(registry);
+        FunctionCounter.builder("library.cache.evictions", evictions, AtomicLong::get)
+                .tag("cache", name).register(registry);
+        Gauge.builder("library.cache.size", this, LruCache::size)
+                .tag("cache", name).register(registry);
+        Gauge.builder("library.cache.hit.ratio", this, LruCache::hitRatio)
+                .tag("cache", name).register(registry);
+    }
+}
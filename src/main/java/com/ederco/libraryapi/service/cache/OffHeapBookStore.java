@@ -0,0 +1,396 @@
+package com.ederco.libraryapi.service.cache;
+
+import com.ederco.libraryapi.model.entity.Book;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+//Livros guardados fora do heap: cada livro ocupa um slot de tamanho fixo num buffer direto
+//e os textos (título , autor e isbn em UTF-8) ficam numa arena , também direta.
+//No heap fica só o índice id -> slot (LongLongMap , dois arrays de long) , então um catálogo
+//com milhões de livros não vira milhões de objetos para o GC percorrer.
+//
+//Limites: "capacity" slots e "arenaBytes" de texto. Quando um dos dois lota , o CLOCK escolhe
+//quem sai: o bit de referência dá uma segunda chance aos livros lidos desde a última passada.
+//A arena é só de inclusão , os textos de livros removidos/substituídos viram buracos que a
+//compactação elimina quando o fim da arena é alcançado.
+public class OffHeapBookStore {
+
+    //Layout do slot: id (8) , isbnKey (8) , offset do texto (4) , tamanho do texto (4) , referenciado (1)
+    private static final int ID = 0;
+    private static final int ISBN_KEY = 8;
+    private static final int TEXT_OFFSET = 16;
+    private static final int TEXT_LENGTH = 20;
+    private static final int REFERENCED = 24;
+    static final int SLOT_BYTES = 32;
+
+    //Os ids começam em 1 , então 0 marca um slot livre
+    private static final long EMPTY = 0;
+    private static final long NO_ISBN_KEY = Long.MIN_VALUE;
+    //Cada texto é gravado como tamanho (2 bytes) + bytes , 0xFFFF representa null
+    private static final int NULL_TEXT = 0xFFFF;
+    static final int MAX_TEXT_BYTES = 0xFFFE;
+    private static final int COPY_CHUNK = 8192;
+
+    private final int capacity;
+    private final ByteBuffer slots;
+    private final ByteBuffer arena;
+    private final LongLongMap index;
+    private final int[] freeSlots;
+    private int freeCount;
+    private int usedSlots;
+    private int clockHand;
+    private int arenaTop;
+    private long arenaLive;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public OffHeapBookStore(int capacity, int arenaBytes) {
+        if (capacity <= 0 || arenaBytes <= 0) {
+            throw new IllegalArgumentException("Off-heap book store needs a positive capacity and arena size");
+        }
+        if ((long) capacity * SLOT_BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Off-heap book store capacity too large: " + capacity);
+        }
+        this.capacity = capacity;
+        this.slots = ByteBuffer.allocateDirect(capacity * SLOT_BYTES);
+        this.arena = ByteBuffer.allocateDirect(arenaBytes);
+        this.index = new LongLongMap(capacity, -1);
+        this.freeSlots = new int[capacity];
+    }
+
+    public Book get(long id) {
+        lock.readLock().lock();
+        try {
+            int slot = id > 0 ? (int) index.get(id) : -1;
+            if (slot < 0) {
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            int base = slot * SLOT_BYTES;
+            //Corrida benigna entre leitores: todos só gravam 1
+            slots.put(base + REFERENCED, (byte) 1);
+            long isbnKey = slots.getLong(base + ISBN_KEY);
+            int position = slots.getInt(base + TEXT_OFFSET);
+            Book book = Book.builder()
+                    .id(id)
+                    .isbnKey(isbnKey == NO_ISBN_KEY ? null : isbnKey)
+                    .build();
+            position = readText(position, book::setTitle);
+            position = readText(position, book::setAuthor);
+            readText(position, book::setIsbn);
+            return book;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Retorna false se o livro não cabe (textos maiores que a arena ou que MAX_TEXT_BYTES)
+    public boolean put(Book book) {
+        if (book == null || book.getId() == null || book.getId() <= 0) {
+            return false;
+        }
+        byte[] title = encode(book.getTitle());
+        byte[] author = encode(book.getAuthor());
+        byte[] isbn = encode(book.getIsbn());
+        if (title == null && book.getTitle() != null
+                || author == null && book.getAuthor() != null
+                || isbn == null && book.getIsbn() != null) {
+            rejected.incrementAndGet();
+            remove(book.getId());
+            return false;
+        }
+        int length = textBytes(title) + textBytes(author) + textBytes(isbn);
+        if (length > arena.capacity()) {
+            rejected.incrementAndGet();
+            remove(book.getId());
+            return false;
+        }
+
+        lock.writeLock().lock();
+        try {
+            long id = book.getId();
+            int slot = (int) index.get(id);
+            if (slot >= 0) {
+                releaseText(slot);
+            }
+            reserveArena(length, slot);
+            if (slot < 0) {
+                slot = acquireSlot();
+                index.put(id, slot);
+            }
+
+            int position = arenaTop;
+            position = writeText(position, title);
+            position = writeText(position, author);
+            writeText(position, isbn);
+
+            int base = slot * SLOT_BYTES;
+            slots.putLong(base + ID, id);
+            slots.putLong(base + ISBN_KEY, book.getIsbnKey() == null ? NO_ISBN_KEY : book.getIsbnKey());
+            slots.putInt(base + TEXT_OFFSET, arenaTop);
+            slots.putInt(base + TEXT_LENGTH, length);
+            slots.put(base + REFERENCED, (byte) 1);
+            arenaTop += length;
+            arenaLive += length;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        if (id <= 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            int slot = (int) index.remove(id);
+            if (slot >= 0) {
+                free(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            index.clear();
+            for (int slot = 0; slot < usedSlots; slot++) {
+                slots.putLong(slot * SLOT_BYTES + ID, EMPTY);
+            }
+            freeCount = 0;
+            usedSlots = 0;
+            clockHand = 0;
+            arenaTop = 0;
+            arenaLive = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long arenaLiveBytes() {
+        lock.readLock().lock();
+        try {
+            return arenaLive;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long arenaUsedBytes() {
+        lock.readLock().lock();
+        try {
+            return arenaTop;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Memória fora do heap reservada (slots + arena) , alocada toda na criação
+    public long offHeapBytes() {
+        return (long) slots.capacity() + arena.capacity();
+    }
+
+    //Memória no heap: índice e pilha de slots livres
+    public long heapBytes() {
+        lock.readLock().lock();
+        try {
+            return index.memoryBytes() + (long) freeSlots.length * Integer.BYTES;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long evictions() {
+        return evictions.get();
+    }
+
+    public long compactions() {
+        return compactions.get();
+    }
+
+    public double hitRatio() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    //Mesmos nomes do LruCache , mais o uso de memória fora do heap
+    public void bindTo(MeterRegistry registry, String name) {
+        FunctionCounter.builder("library.cache.gets", hits, AtomicLong::get)
+                .tag("cache", name).tag("result", "hit").register(registry);
+        FunctionCounter.builder("library.cache.gets", misses, AtomicLong::get)
+                .tag("cache", name).tag("result", "miss").register(registry);
+        FunctionCounter.builder("library.cache.evictions", evictions, AtomicLong::get)
+                .tag("cache", name).register(registry);
+        FunctionCounter.builder("library.cache.offheap.compactions", compactions, AtomicLong::get)
+                .tag("cache", name).register(registry);
+        FunctionCounter.builder("library.cache.offheap.rejected", rejected, AtomicLong::get)
+                .tag("cache", name).register(registry);
+        Gauge.builder("library.cache.size", this, OffHeapBookStore::size)
+                .tag("cache", name).register(registry);
+        Gauge.builder("library.cache.hit.ratio", this, OffHeapBookStore::hitRatio)
+                .tag("cache", name).register(registry);
+        Gauge.builder("library.cache.offheap.memory", this, OffHeapBookStore::offHeapBytes)
+                .tag("cache", name).tag("area", "off-heap").baseUnit("bytes").register(registry);
+        Gauge.builder("library.cache.offheap.memory", this, OffHeapBookStore::heapBytes)
+                .tag("cache", name).tag("area", "heap").baseUnit("bytes").register(registry);
+        Gauge.builder("library.cache.offheap.arena.live", this, OffHeapBookStore::arenaLiveBytes)
+                .tag("cache", name).baseUnit("bytes").register(registry);
+        Gauge.builder("library.cache.offheap.arena.used", this, OffHeapBookStore::arenaUsedBytes)
+                .tag("cache", name).baseUnit("bytes").register(registry);
+    }
+
+    //Libera espaço para "length" bytes no fim da arena: expulsa livros até sobrar uma folga de 1/8
+    //e compacta. Sem a folga , cada inclusão numa arena cheia compactaria tudo de novo.
+    //O slot "keep" (em atualização , texto já liberado) não sai.
+    private void reserveArena(int length, int keep) {
+        int limit = arena.capacity();
+        if (arenaTop + length <= limit) {
+            return;
+        }
+        while (arenaLive > 0 && arenaLive + length > limit - limit / 8) {
+            evict(keep);
+        }
+        compact();
+    }
+
+    private int acquireSlot() {
+        if (freeCount == 0) {
+            if (usedSlots < capacity) {
+                return usedSlots++;
+            }
+            evict(-1);
+        }
+        return freeSlots[--freeCount];
+    }
+
+    private void evict(int keep) {
+        while (true) {
+            int slot = clockHand;
+            clockHand = (clockHand + 1) % usedSlots;
+            int base = slot * SLOT_BYTES;
+            long id = slots.getLong(base + ID);
+            if (slot == keep || id == EMPTY) {
+                continue;
+            }
+            if (slots.get(base + REFERENCED) != 0) {
+                slots.put(base + REFERENCED, (byte) 0);
+                continue;
+            }
+            index.remove(id);
+            free(slot);
+            evictions.incrementAndGet();
+            return;
+        }
+    }
+
+    private void free(int slot) {
+        releaseText(slot);
+        slots.putLong(slot * SLOT_BYTES + ID, EMPTY);
+        freeSlots[freeCount++] = slot;
+    }
+
+    private void releaseText(int slot) {
+        int base = slot * SLOT_BYTES;
+        arenaLive -= slots.getInt(base + TEXT_LENGTH);
+        slots.putInt(base + TEXT_LENGTH, 0);
+    }
+
+    //Move os textos vivos para o início da arena , na ordem em que estão gravados.
+    //Como o destino nunca passa da origem , a cópia em blocos para frente é segura.
+    private void compact() {
+        long[] live = new long[index.size()];
+        int count = 0;
+        for (int slot = 0; slot < usedSlots; slot++) {
+            int base = slot * SLOT_BYTES;
+            if (slots.getLong(base + ID) != EMPTY && slots.getInt(base + TEXT_LENGTH) > 0) {
+                live[count++] = ((long) slots.getInt(base + TEXT_OFFSET) << 32) | slot;
+            }
+        }
+        Arrays.sort(live, 0, count);
+
+        byte[] chunk = new byte[COPY_CHUNK];
+        int top = 0;
+        for (int i = 0; i < count; i++) {
+            int slot = (int) live[i];
+            int base = slot * SLOT_BYTES;
+            int offset = slots.getInt(base + TEXT_OFFSET);
+            int length = slots.getInt(base + TEXT_LENGTH);
+            if (offset != top) {
+                for (int copied = 0; copied < length; copied += COPY_CHUNK) {
+                    int size = Math.min(COPY_CHUNK, length - copied);
+                    arena.get(offset + copied, chunk, 0, size);
+                    arena.put(top + copied, chunk, 0, size);
+                }
+                slots.putInt(base + TEXT_OFFSET, top);
+            }
+            top += length;
+        }
+        arenaTop = top;
+        compactions.incrementAndGet();
+    }
+
+    private int writeText(int position, byte[] text) {
+        if (text == null) {
+            arena.putShort(position, (short) NULL_TEXT);
+            return position + 2;
+        }
+        arena.putShort(position, (short) text.length);
+        arena.put(position + 2, text);
+        return position + 2 + text.length;
+    }
+
+    private int readText(int position, Consumer<String> setter) {
+        int length = arena.getShort(position) & 0xFFFF;
+        if (length == NULL_TEXT) {
+            setter.accept(null);
+            return position + 2;
+        }
+        byte[] bytes = new byte[length];
+        arena.get(position + 2, bytes);
+        setter.accept(new String(bytes, StandardCharsets.UTF_8));
+        return position + 2 + length;
+    }
+
+    //null se o texto for null ou grande demais
+    private static byte[] encode(String text) {
+        if (text == null) {
+            return null;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        return bytes.length > MAX_TEXT_BYTES ? null : bytes;
+    }
+
+    private static int textBytes(byte[] text) {
+        return 2 + (text == null ? 0 : text.length);
+    }
+}
@@ -0,0 +1,74 @@
+package com.ederco.libraryapi.service.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+//"Single-flight": requisições concorrentes pela mesma chave compartilham uma única
+//execução do loader. A primeira executa , as demais esperam e recebem o mesmo resultado
+//(ou a mesma exceção). Terminada a execução a chave é liberada , nada fica em cache aqui.
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, call);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            return await(running);
+        }
+
+        executed.incrementAndGet();
+        try {
+            V value = loader.get();
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    public long coalescedCount() {
+        return coalesced.get();
+    }
+
+    public long executedCount() {
+        return executed.get();
+    }
+
+    public void bindTo(MeterRegistry registry, String name) {
+        FunctionCounter.builder("library.singleflight.calls", executed, AtomicLong::get)
+                .tag("name", name).tag("result", "executed").register(registry);
+        FunctionCounter.builder("library.singleflight.calls", coalesced, AtomicLong::get)
+                .tag("name", name).tag("result", "coalesced").register(registry);
+        Gauge.builder("library.singleflight.in.flight", inFlight, Map::size)
+                .tag("name", name).register(registry);
+    }
+
+    private static <V> V await(CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
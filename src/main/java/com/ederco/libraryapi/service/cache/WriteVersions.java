@@ -0,0 +1,92 @@
+package com.ederco.libraryapi.service.cache;
+
+import com.ederco.libraryapi.model.datasource.ReadYourWrites;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+@Component
+public class WriteVersions {
+
+    public enum Table { BOOK, LOAN }
+
+    private static final long UNKNOWN = -1L;
+
+    private final Map<Table, AtomicLong> versions = new EnumMap<>(Table.class);
+    private final Map<Table, AtomicLong> rowCounts = new EnumMap<>(Table.class);
+    private final Map<Table, AtomicInteger> committing = new EnumMap<>(Table.class);
+
+    public WriteVersions() {
+        for (Table table : Table.values()) {
+            versions.put(table, new AtomicLong());
+            rowCounts.put(table, new AtomicLong(UNKNOWN));
+            committing.put(table, new AtomicInteger());
+        }
+    }
+
+    public long current(Table table) {
+        return versions.get(table).get();
+    }
+
+    //Cada escrita incrementa a versão da tabela (invalidando os totais em cache)
+    //e ajusta o contador de linhas, caso ele já tenha sido inicializado.
+    public void written(Table table, long rowDelta) {
+        versions.get(table).incrementAndGet();
+        if (rowDelta != 0) {
+            rowCounts.get(table).getAndUpdate(count -> count == UNKNOWN ? UNKNOWN : Math.max(0, count + rowDelta));
+        }
+    }
+
+    //Chamado dentro da transação que insere ou remove linhas: do "beforeCommit" até o fim
+    //do commit a tabela tem escrita em andamento. Nesse intervalo a linha já pode aparecer
+    //num "count" antes de o "written" (afterCommit) ajustar o contador.
+    public void writing(Table table) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        AtomicInteger inFlight = committing.get(table);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean counted;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                inFlight.incrementAndGet();
+                counted = true;
+            }
+
+            //roda depois de todos os afterCommit , ou seja , depois do "written"
+            @Override
+            public void afterCompletion(int status) {
+                if (counted) {
+                    inFlight.decrementAndGet();
+                }
+            }
+        });
+    }
+
+    //Total sem filtro: o contador é inicializado uma única vez com um "count" no banco
+    //e depois mantido pelas escritas. Se houver escrita em andamento antes ou durante
+    //a contagem (ou se ela veio de uma réplica atrasada) , o valor não é guardado e a próxima
+    //chamada conta novamente.
+    public long rowCount(Table table, LongSupplier exactCount) {
+        AtomicLong counter = rowCounts.get(table);
+        long count = counter.get();
+        if (count != UNKNOWN) {
+            return count;
+        }
+        AtomicInteger inFlight = committing.get(table);
+        long version = current(table);
+        boolean quiet = inFlight.get() == 0;
+        count = exactCount.getAsLong();
+        if (quiet && inFlight.get() == 0 && version == current(table) && ReadYourWrites.cacheable()) {
+            counter.compareAndSet(UNKNOWN, count);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,101 @@
+package com.ederco.libraryapi.service.changes;
+
+import com.ederco.libraryapi.model.entity.Book;
+import com.ederco.libraryapi.model.entity.BookChange;
+import com.ederco.libraryapi.model.repository.BookChangeRepository;
+import com.ederco.libraryapi.model.repository.BookRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//Sequência de alterações dos livros para a sincronização incremental (GET /api/books/changes).
+//
+//O "seq" é gerado na escrita , mas uma transação mais antiga pode fazer o commit depois de uma mais nova.
+//Por isso o token só avança até a última alteração com mais de "settle" de idade: as mais recentes
+//são enviadas , mas voltam na próxima sincronização (o cliente aplica cada alteração de forma idempotente).
+@Slf4j
+@Component
+public class BookChangeLog implements SmartInitializingSingleton {
+
+    private final BookChangeRepository repository;
+    private final BookRepository bookRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxBatch;
+    private final Duration settle;
+
+    public BookChangeLog(BookChangeRepository repository,
+                         BookRepository bookRepository,
+                         JdbcTemplate jdbcTemplate,
+                         @Value("${application.book-changes.max-batch:1000}") int maxBatch,
+                         @Value("${application.book-changes.settle-millis:5000}") long settleMillis) {
+        this.repository = repository;
+        this.bookRepository = bookRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxBatch = maxBatch;
+        this.settle = Duration.ofMillis(settleMillis);
+    }
+
+    //Livros gravados antes da sequência existir entram uma vez , para o token 0 trazer o catálogo inteiro
+    @Override
+    public void afterSingletonsInstantiated() {
+        int inserted = jdbcTemplate.update("insert into book_change (book_id, deleted, changed_at) "
+                + "select b.id, false, ? from book b "
+                + "where not exists (select 1 from book_change c where c.book_id = b.id) order by b.id",
+                Timestamp.from(Instant.now().minus(settle)));
+        log.info(" book change log initialized , {} books without changes added ", inserted);
+    }
+
+    //Na mesma transação da escrita do livro
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void bookChanged(Long bookId, boolean deleted) {
+        repository.deleteByBookId(bookId);
+        repository.save(BookChange.builder()
+                .bookId(bookId)
+                .deleted(deleted)
+                .changedAt(Instant.now())
+                .build());
+    }
+
+    public BookChanges since(long token) {
+        List<BookChange> rows = repository.findBySeqGreaterThanOrderBySeqAsc(token, PageRequest.of(0, maxBatch + 1));
+        boolean hasMore = rows.size() > maxBatch;
+        if (hasMore) {
+            rows = rows.subList(0, maxBatch);
+        }
+
+        //O estado atual dos livros alterados , numa única consulta
+        List<Long> liveIds = rows.stream().filter(row -> !row.isDeleted()).map(BookChange::getBookId).toList();
+        Map<Long, Book> books = new HashMap<>();
+        bookRepository.findAllById(liveIds).forEach(book -> books.put(book.getId(), book));
+
+        Instant settled = Instant.now().minus(settle);
+        long next = token;
+        boolean settling = false;
+        List<BookChanges.Change> changes = new ArrayList<>(rows.size());
+        for (BookChange row : rows) {
+            //Removido depois da leitura da sequência: o tombstone dele ainda vai chegar
+            Book book = row.isDeleted() ? null : books.get(row.getBookId());
+            changes.add(new BookChanges.Change(row.getSeq(), row.getBookId(), book));
+            if (!settling && !row.getChangedAt().isAfter(settled)) {
+                next = row.getSeq();
+            } else {
+                settling = true;
+            }
+        }
+        //Com alterações recentes o token parou antes do fim do lote , repetir agora traria o mesmo lote
+        return new BookChanges(changes, next, hasMore && !settling);
+    }
+}
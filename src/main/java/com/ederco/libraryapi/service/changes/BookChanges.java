@@ -0,0 +1,18 @@
+package com.ederco.libraryapi.service.changes;
+
+import com.ederco.libraryapi.model.entity.Book;
+
+import java.util.List;
+
+//Alterações depois de um token , em ordem de "seq". "next" é o token da próxima sincronização
+//e "hasMore" indica que o lote foi cortado e a chamada deve ser repetida com "next".
+public record BookChanges(List<Change> changes, long next, boolean hasMore) {
+
+    //book nulo: o livro foi removido (tombstone)
+    public record Change(long seq, long bookId, Book book) {
+
+        public boolean tombstone() {
+            return book == null;
+        }
+    }
+}
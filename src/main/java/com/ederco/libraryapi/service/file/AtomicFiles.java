@@ -0,0 +1,24 @@
+package com.ederco.libraryapi.service.file;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+//Troca de arquivos gravados num temporário ao lado do destino
+public final class AtomicFiles {
+
+    private AtomicFiles() {
+    }
+
+    //Quem lê o destino vê o arquivo antigo ou o novo inteiro. Sem move atômico no sistema de arquivos
+    //(ex.: alguns volumes de rede) fica a troca simples.
+    public static void replace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
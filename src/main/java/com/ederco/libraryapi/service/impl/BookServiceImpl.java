@@ -1,17 +1,46 @@
 package com.ederco.libraryapi.service.impl;
 
 import com.ederco.libraryapi.exception.BusinessException;
+import com.ederco.libraryapi.model.datasource.ReadYourWrites;
 import com.ederco.libraryapi.model.entity.Book;
+import com.ederco.libraryapi.model.entity.Isbn;
 import com.ederco.libraryapi.model.repository.BookRepository;
 import com.ederco.libraryapi.service.BookService;
+import com.ederco.libraryapi.service.bulkhead.Bulkhead;
+import com.ederco.libraryapi.service.cache.AfterCommit;
+import com.ederco.libraryapi.service.cache.BookCache;
+import com.ederco.libraryapi.service.cache.BookLookupCoalescer;
+import com.ederco.libraryapi.service.cache.BookSearchCache;
+import com.ederco.libraryapi.service.cache.CountCache;
+import com.ederco.libraryapi.service.cache.CountedPage;
+import com.ederco.libraryapi.service.cache.WriteVersions;
+import com.ederco.libraryapi.service.changes.BookChangeLog;
+import com.ederco.libraryapi.service.changes.BookChanges;
+import com.ederco.libraryapi.service.isbn.IsbnIndex;
+import com.ederco.libraryapi.service.outbox.Outbox;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+
+import static com.ederco.libraryapi.service.bulkhead.BulkheadRegistry.SEARCH;
+import static com.ederco.libraryapi.service.outbox.Outbox.EventType.BOOK_CREATED;
+import static com.ederco.libraryapi.service.outbox.Outbox.EventType.BOOK_DELETED;
+import static com.ederco.libraryapi.service.outbox.Outbox.EventType.BOOK_UPDATED;
+import static com.ederco.libraryapi.service.cache.WriteVersions.Table.BOOK;
 
 @Service
 public class BookServiceImpl implements BookService {
@@ -19,34 +48,91 @@ public class BookServiceImpl implements BookService {
     @Autowired
     private BookRepository repository;
 
-    public BookServiceImpl(BookRepository repository) {
+    private final WriteVersions writeVersions;
+    private final CountCache countCache;
+    private final BookCache bookCache;
+    private final BookSearchCache searchCache;
+    private final BookLookupCoalescer lookupCoalescer;
+    private final Outbox outbox;
+    private final IsbnIndex isbnIndex;
+    private final BookChangeLog changeLog;
+
+    public BookServiceImpl(BookRepository repository,
+                           WriteVersions writeVersions,
+                           CountCache countCache,
+                           BookCache bookCache,
+                           BookSearchCache searchCache,
+                           BookLookupCoalescer lookupCoalescer,
+                           Outbox outbox,
+                           IsbnIndex isbnIndex,
+                           BookChangeLog changeLog) {
         this.repository = repository;
+        this.writeVersions = writeVersions;
+        this.countCache = countCache;
+        this.bookCache = bookCache;
+        this.searchCache = searchCache;
+        this.lookupCoalescer = lookupCoalescer;
+        this.outbox = outbox;
+        this.isbnIndex = isbnIndex;
+        this.changeLog = changeLog;
     }
 
     @Override
+    @Transactional
     public Book save(Book book) {
         //existsByIsbn teve que ser criado na interface
-        if(repository.existsByIsbn(book.getIsbn())){
+        //Também recusa outra forma do mesmo ISBN (ISBN-10/13 , com ou sem hífens)
+        long isbnKey = Isbn.key(book.getIsbn());
+        if(repository.existsByIsbn(book.getIsbn())
+                || (isbnKey != Isbn.NONE && repository.existsByIsbnKey(isbnKey))){
             throw new BusinessException("Isbn já cadastrado.");
         }
-        return repository.save(book);
+        writeVersions.writing(BOOK);
+        Book savedBook = repository.save(book);
+        outbox.bookChanged(BOOK_CREATED, savedBook);
+        changeLog.bookChanged(savedBook.getId(), false);
+        AfterCommit.run(() -> {
+            writeVersions.written(BOOK, 1);
+            bookCache.put(savedBook);
+            isbnIndex.put(savedBook.getIsbn(), savedBook.getId());
+        });
+        return savedBook;
     }
 
     @Override
     public Optional<Book> getById(Long id) {
-        return this.repository.findById(id);
+        Optional<Book> cached = bookCache.get(id);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        //Requisições simultâneas pelo mesmo id compartilham uma única consulta
+        return lookupCoalescer.byId(id, () -> {
+            long version = writeVersions.current(BOOK);
+            Optional<Book> book = this.repository.findById(id);
+            book.ifPresent(found -> cacheIfUnchanged(found, version));
+            return book;
+        });
     }
 
     @Override
+    @Transactional
     public void delete(Book book) {
         if(book == null || book.getId() == null){
             throw new IllegalArgumentException("Book id can't be null");
         }
+        writeVersions.writing(BOOK);
         this.repository.delete(book);
-
+        outbox.bookChanged(BOOK_DELETED, book);
+        changeLog.bookChanged(book.getId(), true);
+        AfterCommit.run(() -> {
+            writeVersions.written(BOOK, -1);
+            bookCache.evict(book.getId());
+            isbnIndex.remove(book.getIsbn(), book.getId());
+        });
     }
 
     @Override
+    @Transactional
     public Book update(Book book) {
         //Antes estava assim...
         //return null;
@@ -54,25 +140,176 @@ public class BookServiceImpl implements BookService {
         if (book == null || book.getId() == null) {
             throw new IllegalArgumentException("Book id can't be null");
         }
-        return this.repository.save(book);
+        Book updatedBook = this.repository.save(book);
+        outbox.bookChanged(BOOK_UPDATED, updatedBook);
+        changeLog.bookChanged(updatedBook.getId(), false);
+        AfterCommit.run(() -> {
+            writeVersions.written(BOOK, 0);
+            bookCache.evict(book.getId());
+            //a chave antiga (se o isbn mudou) é descartada na primeira leitura que não confere
+            isbnIndex.put(updatedBook.getIsbn(), updatedBook.getId());
+        });
+        return updatedBook;
     }
 
     @Override
+    @Bulkhead(SEARCH)
+    @Transactional(readOnly = true)
     public Page<Book> find(Book filter, Pageable pageRequest) {
         //Ao rodar o teste de service filtrar , apresentou este erro porquê devido "return null"
         //java.lang.NullPointerException: Cannot invoke "org.springframework.data.domain.Page.getTotalElements()" because "result" is null
         //return null;
-        Example<Book> example = Example.of(filter,
+        Example<Book> example = example(filter);
+
+        List<String> key = countKey(filter);
+        long version = writeVersions.current(BOOK);
+
+        //Mesma busca , mesma página e nenhuma escrita desde então: usamos os ids
+        //guardados e hidratamos os livros pelo cache por id.
+        Optional<BookSearchCache.Entry> cachedSearch = searchCache.get(key, pageRequest, version);
+        if (cachedSearch.isPresent()) {
+            Optional<List<Book>> books = hydrate(cachedSearch.get().ids());
+            if (books.isPresent()) {
+                return new CountedPage<>(books.get(), pageRequest, cachedSearch.get().total(), false);
+            }
+        }
+
+        //Se o total deste filtro já estiver em cache , buscamos apenas o conteúdo da página
+        //e evitamos a consulta de "count" ...
+        OptionalLong cachedTotal = cachedTotal(key);
+        Page<Book> page;
+        if (cachedTotal.isPresent()) {
+            List<Book> content = repository.findContent(example, pageRequest);
+            page = new CountedPage<>(content, pageRequest, cachedTotal.getAsLong(), false);
+        } else {
+            page = repository.findAll(example , pageRequest);
+            countCache.put(BOOK, key, version, page.getTotalElements());
+        }
+
+        searchCache.put(key, pageRequest, version, page);
+        page.forEach(book -> cacheIfUnchanged(book, version));
+        return page;
+    }
+
+    @Override
+    @Bulkhead(SEARCH)
+    @Transactional(readOnly = true)
+    public Page<Book> findFields(Book filter, Set<String> fields, Pageable pageRequest) {
+        Example<Book> example = example(filter);
+        List<String> key = countKey(filter);
+        long version = writeVersions.current(BOOK);
+
+        //Só as colunas pedidas saem do banco. Livros incompletos não vão para o cache
+        //por id nem para o cache de buscas , mas o total é o mesmo da busca completa.
+        List<Book> content = repository.findFields(example, fields, pageRequest);
+        OptionalLong cachedTotal = cachedTotal(key);
+        if (cachedTotal.isPresent()) {
+            return new CountedPage<>(content, pageRequest, cachedTotal.getAsLong(), false);
+        }
+        Page<Book> page = PageableExecutionUtils.getPage(content, pageRequest, () -> repository.count(example));
+        countCache.put(BOOK, key, version, page.getTotalElements());
+        return page;
+    }
+
+    private static Example<Book> example(Book filter) {
+        return Example.of(filter,
                 ExampleMatcher
                         .matching()
                         .withIgnoreCase()
                         .withIgnoreNullValues()
                         .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING));
-        return repository.findAll(example , pageRequest);
+    }
+
+    private OptionalLong cachedTotal(List<String> key) {
+        return key.stream().allMatch(Objects::isNull)
+                ? OptionalLong.of(writeVersions.rowCount(BOOK, repository::count))
+                : countCache.get(BOOK, key);
+    }
+
+    //Se houve escrita enquanto líamos do banco , o livro lido pode estar desatualizado
+    //e não deve ir para o cache (a escrita já fez o "evict" depois de incrementar a versão).
+    //O mesmo vale para um livro lido numa réplica que ainda não tem os commits deste nó.
+    private void cacheIfUnchanged(Book book, long version) {
+        if (version == writeVersions.current(BOOK) && ReadYourWrites.cacheable()) {
+            bookCache.put(book);
+        }
+    }
+
+    //Retorna vazio se algum livro não existir mais , neste caso a busca é refeita.
+    private Optional<List<Book>> hydrate(List<Long> ids) {
+        Map<Long, Book> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            bookCache.get(id).ifPresentOrElse(book -> found.put(id, book), () -> missing.add(id));
+        }
+        if (!missing.isEmpty()) {
+            long version = writeVersions.current(BOOK);
+            for (Book book : repository.findAllById(missing)) {
+                cacheIfUnchanged(book, version);
+                found.put(book.getId(), book);
+            }
+        }
+        if (found.size() < ids.size()) {
+            return Optional.empty();
+        }
+        List<Book> books = new ArrayList<>(ids.size());
+        ids.forEach(id -> books.add(found.get(id)));
+        return Optional.of(books);
+    }
+
+    //O Example ignora maiúsculas/minúsculas e valores nulos ,
+    //e uma string vazia com "CONTAINING" equivale a não filtrar.
+    private static List<String> countKey(Book filter) {
+        return CountCache.key(
+                filter.getId() == null ? null : filter.getId().toString(),
+                normalize(filter.getTitle()),
+                normalize(filter.getAuthor()),
+                normalize(filter.getIsbn()));
+    }
+
+    private static String normalize(String value) {
+        return value == null || value.isEmpty() ? null : value.toLowerCase();
+    }
+
+    @Override
+    @Bulkhead(SEARCH)
+    @Transactional(readOnly = true)
+    public BookChanges getChanges(long since) {
+        return changeLog.since(since);
     }
 
     @Override
     public Optional<Book> getBookByIsbn(String isbn) {
-        return repository.findByIsbn(isbn);
+        long isbnKey = Isbn.key(isbn);
+        if (isbnKey == Isbn.NONE) {
+            //Não é um ISBN válido: só a comparação exata do texto
+            return lookupCoalescer.byIsbn(isbn, () -> {
+                long version = writeVersions.current(BOOK);
+                Optional<Book> book = repository.findByIsbn(isbn);
+                book.ifPresent(found -> cacheIfUnchanged(found, version));
+                return book;
+            });
+        }
+
+        //Índice em memória + cache por id: nenhuma consulta ao banco
+        long bookId = isbnIndex.get(isbnKey);
+        if (bookId != IsbnIndex.MISSING) {
+            Optional<Book> book = getById(bookId);
+            if (book.isPresent() && Isbn.key(book.get().getIsbn()) == isbnKey) {
+                return book;
+            }
+            isbnIndex.remove(isbn, bookId);
+        }
+
+        //Chave canônica no banco , qualquer variação digitada encontra o livro
+        return lookupCoalescer.byIsbn(Long.toString(isbnKey), () -> {
+            long version = writeVersions.current(BOOK);
+            Optional<Book> book = repository.findFirstByIsbnKey(isbnKey);
+            book.ifPresent(found -> {
+                cacheIfUnchanged(found, version);
+                isbnIndex.put(found.getIsbn(), found.getId());
+            });
+            return book;
+        });
     }
 }
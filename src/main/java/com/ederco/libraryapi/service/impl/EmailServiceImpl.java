@@ -1,21 +1,31 @@
 package com.ederco.libraryapi.service.impl;
 
 import com.ederco.libraryapi.service.EmailService;
-import lombok.RequiredArgsConstructor;
+import com.ederco.libraryapi.service.bulkhead.BackgroundTasks;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class EmailServiceImpl implements EmailService {
 
     @Value("${application.mail.default-remetent}")
     private String remetent;
 
     private final JavaMailSender javaMailSender;
+    private final BackgroundTasks backgroundTasks;
+
+    //O envio (SMTP) é feito no executor limitado de segundo plano , que com
+    //spring.threads.virtual.enabled=true usa threads virtuais.
+    public EmailServiceImpl(JavaMailSender javaMailSender, BackgroundTasks backgroundTasks) {
+        this.javaMailSender = javaMailSender;
+        this.backgroundTasks = backgroundTasks;
+    }
 
     @Override
     public void sendMails(String message, List<String> mailsList) {
@@ -28,7 +38,17 @@ public class EmailServiceImpl implements EmailService {
         mailMessage.setText(message);
         mailMessage.setTo(mails);
 
-        javaMailSender.send(mailMessage);
+        try {
+            backgroundTasks.execute(() -> {
+                try {
+                    javaMailSender.send(mailMessage);
+                } catch (RuntimeException e) {
+                    log.error(" failed to send late loan mails ", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.error(" background queue is full , late loan mails were not sent ", e);
+        }
 
     }
 }
@@ -4,30 +4,79 @@ import com.ederco.libraryapi.api.dto.LoanFilterDTO;
 import com.ederco.libraryapi.exception.BusinessException;
 import com.ederco.libraryapi.model.entity.Book;
 import com.ederco.libraryapi.model.entity.Loan;
-import com.ederco.libraryapi.model.repository.LoanRepository;
+import com.ederco.libraryapi.model.repository.LoanFilter;
+import com.ederco.libraryapi.model.repository.LoanStore;
 import com.ederco.libraryapi.service.LoanService;
+import com.ederco.libraryapi.service.bulkhead.Bulkhead;
+import com.ederco.libraryapi.service.cache.AfterCommit;
+import com.ederco.libraryapi.service.cache.CountCache;
+import com.ederco.libraryapi.service.cache.CountedPage;
+import com.ederco.libraryapi.service.cache.WriteVersions;
+import com.ederco.libraryapi.service.outbox.Outbox;
+import com.ederco.libraryapi.service.popularity.PopularityTracker;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+import static com.ederco.libraryapi.service.bulkhead.BulkheadRegistry.SEARCH;
+import static com.ederco.libraryapi.service.bulkhead.BulkheadRegistry.LOAN_WRITES;
+import static com.ederco.libraryapi.service.cache.WriteVersions.Table.LOAN;
+import static com.ederco.libraryapi.service.outbox.Outbox.EventType.LOAN_CREATED;
+import static com.ederco.libraryapi.service.outbox.Outbox.EventType.LOAN_OVERDUE;
+import static com.ederco.libraryapi.service.outbox.Outbox.EventType.LOAN_RETURNED;
+import static com.ederco.libraryapi.service.outbox.Outbox.EventType.LOAN_UPDATED;
+
 @Service
 public class LoanServiceImpl implements LoanService {
 
-    private LoanRepository repository;
-    public LoanServiceImpl(LoanRepository repository) {
+    private LoanStore repository;
+    private final WriteVersions writeVersions;
+    private final CountCache countCache;
+    private final Outbox outbox;
+    private final PopularityTracker popularity;
+
+    public LoanServiceImpl(LoanStore repository, WriteVersions writeVersions, CountCache countCache, Outbox outbox,
+                           PopularityTracker popularity) {
 
         this.repository = repository;
+        this.writeVersions = writeVersions;
+        this.countCache = countCache;
+        this.outbox = outbox;
+        this.popularity = popularity;
     }
 
     @Override
+    @Bulkhead(LOAN_WRITES)
+    //A regra de negócio é verificada antes de gravar , então não há o que desfazer
+    //(e um lote de empréstimos assíncronos não é marcado para rollback por causa dela)
+    @Transactional(noRollbackFor = BusinessException.class)
     public Loan save(Loan loan) {
         if(repository.existsByBookAndNotReturned(loan.getBook())){
             throw new BusinessException("Book already loaned");
         }
-        return repository.save(loan);
+        //o livro vem do empréstimo recebido , já conferido acima
+        Book book = loan.getBook();
+        writeVersions.writing(LOAN);
+        Loan savedLoan = repository.save(loan);
+        outbox.loanChanged(LOAN_CREATED, savedLoan);
+        AfterCommit.run(() -> {
+            writeVersions.written(LOAN, 1);
+            //só empréstimos confirmados contam para os mais emprestados
+            if (book != null && book.getId() != null) {
+                popularity.record(book.getId());
+            }
+        });
+        return savedLoan;
     }
 
     @Override
@@ -36,16 +85,94 @@ public class LoanServiceImpl implements LoanService {
     }
 
     @Override
+    @Bulkhead(LOAN_WRITES)
+    @Transactional
     public Loan update(Loan loan) {
-        return repository.save(loan);
+        Loan updatedLoan = repository.save(loan);
+        outbox.loanChanged(Boolean.TRUE.equals(updatedLoan.getReturned()) ? LOAN_RETURNED : LOAN_UPDATED, updatedLoan);
+        AfterCommit.run(() -> writeVersions.written(LOAN, 0));
+        return updatedLoan;
     }
 
     @Override
+    @Bulkhead(SEARCH)
+    @Transactional(readOnly = true)
     public Page<Loan> find(LoanFilterDTO filterDTO, Pageable pageable) {
-        return repository.findByBookIsbnOrCustomer(filterDTO.getIsbn(), filterDTO.getCustomer(), pageable);
+        return search(filterDTO, null, pageable);
     }
 
     @Override
+    @Bulkhead(SEARCH)
+    @Transactional(readOnly = true)
+    public Page<Loan> findFields(LoanFilterDTO filterDTO, Set<String> fields, Pageable pageable) {
+        return search(filterDTO, fields, pageable);
+    }
+
+    //fields nulo: empréstimos completos
+    private Page<Loan> search(LoanFilterDTO filterDTO, Set<String> fields, Pageable pageable) {
+        LoanFilter requested = LoanFilter.of(filterDTO.getIsbn(), filterDTO.getCustomer(), filterDTO.getCustomerPrefix());
+        String isbn = requested.isbn();
+        String customer = requested.customer();
+        String customerPrefix = requested.customerPrefix();
+
+        //Os filtros são comparados por igualdade (ou prefixo) , então os próprios valores são a chave.
+        List<String> key = CountCache.key(isbn, customer, customerPrefix);
+        OptionalLong cachedTotal = isbn == null && customer == null && customerPrefix == null
+                ? OptionalLong.of(writeVersions.rowCount(LOAN, repository::count))
+                : countCache.get(LOAN, key);
+        long version = writeVersions.current(LOAN);
+
+        LoanFilter filter;
+        LongSupplier count;
+        if (isbn != null && (customer != null || customerPrefix != null)) {
+            //"isbn OU cliente": a união das duas buscas indexadas , feita no banco com a ordenação e o limite ,
+            //no lugar do OR entre as tabelas loan e book.
+            LoanFilter union = LoanFilter.byIsbnOrCustomer(isbn, customer, customerPrefix);
+            filter = union;
+            count = () -> repository.countByIsbnOrCustomer(union);
+        } else if (isbn != null) {
+            filter = LoanFilter.byIsbn(isbn);
+            count = () -> repository.countByBookIsbn(isbn);
+        } else if (customer != null) {
+            filter = LoanFilter.byCustomer(customer);
+            count = () -> repository.countByCustomer(customer);
+        } else if (customerPrefix != null) {
+            filter = LoanFilter.byCustomerPrefix(customerPrefix);
+            count = () -> repository.countByCustomerStartingWith(customerPrefix);
+        } else {
+            filter = LoanFilter.all();
+            count = repository::count;
+        }
+        Slice<Loan> slice = fields == null
+                ? repository.findSlice(filter, pageable)
+                : repository.findFields(filter, fields, pageable);
+
+        if (cachedTotal.isPresent()) {
+            return new CountedPage<>(slice.getContent(), pageable, cachedTotal.getAsLong(), false);
+        }
+        long total = total(slice, pageable, count);
+        countCache.put(LOAN, key, version, total);
+        return new PageImpl<>(slice.getContent(), pageable, total);
+    }
+
+    //Assim como o Spring Data faz nas consultas paginadas: na primeira página incompleta
+    //ou na última página o total já é conhecido e o "count" não é necessário.
+    private static long total(Slice<Loan> slice, Pageable pageable, LongSupplier count) {
+        if (slice.hasNext()) {
+            return count.getAsLong();
+        }
+        if (pageable.isUnpaged()) {
+            return slice.getNumberOfElements();
+        }
+        if (slice.hasContent() || pageable.getOffset() == 0) {
+            return pageable.getOffset() + slice.getNumberOfElements();
+        }
+        return count.getAsLong();
+    }
+
+    @Override
+    @Bulkhead(SEARCH)
+    @Transactional(readOnly = true)
     public Page<Loan> getLoansByBook(Book book, Pageable pageable) {
         return repository.findByBook(book, pageable);
     }
@@ -56,4 +183,10 @@ public class LoanServiceImpl implements LoanService {
         LocalDate threeDaysAgo = LocalDate.now().minusDays(loanDays);
         return repository.findByLoanDateLessThanAndNotReturned(threeDaysAgo);
     }
+
+    @Override
+    @Transactional
+    public void markOverdue(List<Loan> loans) {
+        loans.forEach(loan -> outbox.loanChanged(LOAN_OVERDUE, loan));
+    }
 }
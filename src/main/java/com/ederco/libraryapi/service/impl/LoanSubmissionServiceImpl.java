@@ -0,0 +1,206 @@
+package com.ederco.libraryapi.service.impl;
+
+import com.ederco.libraryapi.api.dto.LoanDTO;
+import com.ederco.libraryapi.exception.BusinessException;
+import com.ederco.libraryapi.exception.ServiceOverloadedException;
+import com.ederco.libraryapi.model.entity.Book;
+import com.ederco.libraryapi.model.entity.Loan;
+import com.ederco.libraryapi.service.BookService;
+import com.ederco.libraryapi.service.LoanService;
+import com.ederco.libraryapi.service.LoanSubmissionService;
+import com.ederco.libraryapi.service.bulkhead.BulkheadGroup;
+import com.ederco.libraryapi.service.bulkhead.BulkheadRegistry;
+import com.ederco.libraryapi.service.cache.LruCache;
+import com.ederco.libraryapi.service.submission.LoanRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Recebe pedidos de empréstimo numa fila limitada e grava em lotes pequenos ,
+//para que um pico de pedidos não fique disputando locks do banco dentro das requisições.
+@Slf4j
+@Service
+public class LoanSubmissionServiceImpl implements LoanSubmissionService {
+
+    private final BookService bookService;
+    private final LoanService loanService;
+    private final TransactionTemplate transactionTemplate;
+    private final BulkheadGroup loanWrites;
+    private final BlockingQueue<LoanRequest> queue;
+    private final LruCache<String, LoanRequest> requests;
+    private final int workers;
+    private final int batchSize;
+    private final long retryAfterSeconds;
+    private final boolean batched;
+    private final Counter accepted;
+    private final Counter overloaded;
+    private ExecutorService executor;
+    private volatile boolean running;
+
+    public LoanSubmissionServiceImpl(BookService bookService,
+                                     LoanService loanService,
+                                     PlatformTransactionManager transactionManager,
+                                     BulkheadRegistry bulkheads,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${application.loan-submission.queue-capacity:1000}") int queueCapacity,
+                                     @Value("${application.loan-submission.workers:2}") int workers,
+                                     @Value("${application.loan-submission.batch-size:20}") int batchSize,
+                                     @Value("${application.loan-submission.retry-after-seconds:1}") long retryAfterSeconds,
+                                     @Value("${application.loan-submission.retained-requests:10000}") int retainedRequests,
+                                     @Value("${application.loan-shards.enabled:false}") boolean loanShards) {
+        this.bookService = bookService;
+        this.loanService = loanService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.loanWrites = bulkheads.get(BulkheadRegistry.LOAN_WRITES);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        //Os status ficam disponíveis para consulta até serem empurrados para fora pelos mais novos
+        this.requests = new LruCache<>(Math.max(retainedRequests, queueCapacity));
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.retryAfterSeconds = retryAfterSeconds;
+        //Nos shards cada empréstimo é gravado na hora (auto-commit) , fora da transação do lote:
+        //desfazer o lote e refazer um por um gravaria de novo (ou recusaria com "Book already loaned")
+        //os empréstimos que já estavam no shard. Lá cada pedido tem a sua transação , sem refazer.
+        this.batched = !loanShards;
+
+        Gauge.builder("library.loan.submission.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+        this.accepted = Counter.builder("library.loan.submission.requests").tag("result", "accepted").register(meterRegistry);
+        this.overloaded = Counter.builder("library.loan.submission.requests").tag("result", "overloaded").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger sequence = new AtomicInteger();
+        running = true;
+        executor = Executors.newFixedThreadPool(workers,
+                task -> new Thread(task, "loan-submission-" + sequence.incrementAndGet()));
+        for (int i = 0; i < workers; i++) {
+            executor.execute(this::drain);
+        }
+    }
+
+    //Os workers terminam de gravar o que já estava na fila antes de parar
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (executor != null) {
+            executor.shutdown();
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Loan submission workers stopped with {} pending requests", queue.size());
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    @Override
+    public LoanRequest submit(LoanDTO dto) {
+        LoanRequest request = new LoanRequest(dto);
+        requests.put(request.getId(), request);
+        if (!queue.offer(request)) {
+            requests.remove(request.getId());
+            overloaded.increment();
+            throw new ServiceOverloadedException("Loan submission queue is full", retryAfterSeconds);
+        }
+        accepted.increment();
+        return request;
+    }
+
+    @Override
+    public Optional<LoanRequest> getRequest(String id) {
+        return Optional.ofNullable(requests.get(id));
+    }
+
+    private void drain() {
+        List<LoanRequest> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                LoanRequest first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Unexpected error processing loan submissions", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    //Um lote por transação. Se o lote inteiro falhar (erro de banco) , cada pedido
+    //é refeito na sua própria transação para que um pedido ruim não derrube os outros.
+    //Com os empréstimos nos shards , cada pedido já vai direto para a sua própria transação.
+    //O lote usa uma conexão por vez , então ocupa uma vaga de gravação de empréstimos , obtida antes
+    //de abrir a transação: o worker não segura uma conexão esperando vaga e a falta de vaga não desfaz o lote.
+    void process(List<LoanRequest> batch) throws InterruptedException {
+        List<Runnable> outcomes = new ArrayList<>(batch.size());
+        loanWrites.runHolding(() -> write(batch, outcomes));
+        //Só publica o resultado depois do commit
+        outcomes.forEach(Runnable::run);
+    }
+
+    private void write(List<LoanRequest> batch, List<Runnable> outcomes) {
+        boolean oneByOne = !batched;
+        if (batched) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> batch.forEach(request -> outcomes.add(create(request))));
+            } catch (RuntimeException e) {
+                log.warn("Loan submission batch of {} failed , retrying one by one", batch.size(), e);
+                outcomes.clear();
+                oneByOne = true;
+            }
+        }
+        if (oneByOne) {
+            for (LoanRequest request : batch) {
+                try {
+                    outcomes.add(transactionTemplate.execute(status -> create(request)));
+                } catch (RuntimeException ex) {
+                    log.error("Loan submission {} failed", request.getId(), ex);
+                    outcomes.add(() -> request.rejected("Loan could not be created"));
+                }
+            }
+        }
+    }
+
+    private Runnable create(LoanRequest request) {
+        LoanDTO dto = request.getLoan();
+        Optional<Book> book = bookService.getBookByIsbn(dto.getIsbn());
+        if (book.isEmpty()) {
+            return () -> request.rejected("Book not found for passed isbn");
+        }
+        Loan entity = Loan.builder()
+                .book(book.get())
+                .customer(dto.getCustomer())
+                .loanDate(LocalDate.now())
+                .build();
+        try {
+            Loan saved = loanService.save(entity);
+            return () -> request.created(saved.getId());
+        } catch (BusinessException e) {
+            return () -> request.rejected(e.getMessage());
+        }
+    }
+}
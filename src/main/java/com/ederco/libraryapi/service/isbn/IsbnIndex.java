@@ -0,0 +1,116 @@
+package com.ederco.libraryapi.service.isbn;
+
+import com.ederco.libraryapi.model.entity.Isbn;
+import com.ederco.libraryapi.service.cache.LongLongMap;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.ToDoubleFunction;
+
+//Índice em memória chave canônica do ISBN -> id do livro , carregado na subida e mantido pelo BookServiceImpl
+//depois de cada commit. A leitura é otimista (StampedLock) e não aloca objetos.
+@Slf4j
+@Component
+public class IsbnIndex implements SmartInitializingSingleton {
+
+    public static final long MISSING = -1;
+
+    private final LongLongMap bookIdByKey;
+    private final StampedLock lock = new StampedLock();
+    private final JdbcTemplate jdbcTemplate;
+
+    public IsbnIndex(JdbcTemplate jdbcTemplate,
+                     MeterRegistry registry,
+                     @Value("${application.isbn-index.expected-books:100000}") int expectedBooks) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bookIdByKey = new LongLongMap(expectedBooks, MISSING);
+        Gauge.builder("library.isbn.index.size", this, index -> index.read(LongLongMap::size)).register(registry);
+        Gauge.builder("library.isbn.index.memory", this, index -> index.read(LongLongMap::memoryBytes))
+                .baseUnit("bytes").register(registry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long stamp = lock.writeLock();
+        try {
+            jdbcTemplate.query("select id, isbn from book", rs -> {
+                long key = Isbn.key(rs.getString(2));
+                if (key != Isbn.NONE) {
+                    bookIdByKey.put(key, rs.getLong(1));
+                }
+            });
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        log.info(" isbn index loaded with {} books ", bookIdByKey.size());
+    }
+
+    //MISSING se a chave não estiver no índice
+    public long get(long key) {
+        if (key == Isbn.NONE) {
+            return MISSING;
+        }
+        long stamp = lock.tryOptimisticRead();
+        long bookId;
+        try {
+            bookId = bookIdByKey.get(key);
+        } catch (RuntimeException e) {
+            //arrays trocados por um rehash durante a leitura otimista
+            bookId = MISSING;
+            stamp = 0;
+        }
+        if (lock.validate(stamp)) {
+            return bookId;
+        }
+        stamp = lock.readLock();
+        try {
+            return bookIdByKey.get(key);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public void put(String isbn, long bookId) {
+        long key = Isbn.key(isbn);
+        if (key == Isbn.NONE) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            bookIdByKey.put(key, bookId);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    //Só remove se a chave ainda apontar para este livro
+    public void remove(String isbn, long bookId) {
+        long key = Isbn.key(isbn);
+        if (key == Isbn.NONE) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            if (bookIdByKey.get(key) == bookId) {
+                bookIdByKey.remove(key);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private double read(ToDoubleFunction<LongLongMap> metric) {
+        long stamp = lock.readLock();
+        try {
+            return metric.applyAsDouble(bookIdByKey);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.ederco.libraryapi.service.journal;
+
+import java.time.Instant;
+
+//Registro de auditoria de um empréstimo. sequence é o id do evento no outbox ,
+//então é único mesmo com reentregas ; segue a ordem de inserção , não a de commit.
+public record JournalRecord(long sequence, Instant timestamp, Type type, long loanId, long bookId, String customer) {
+
+    public enum Type {
+        CHECKOUT((byte) 1), RETURN((byte) 2);
+
+        private final byte code;
+
+        Type(byte code) {
+            this.code = code;
+        }
+
+        public byte code() {
+            return code;
+        }
+
+        public static Type of(byte code) {
+            for (Type type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown journal record type: " + code);
+        }
+    }
+}
@@ -0,0 +1,474 @@
+package com.ederco.libraryapi.service.journal;
+
+import com.ederco.libraryapi.service.outbox.Outbox;
+import com.ederco.libraryapi.service.outbox.OutboxMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+//Journal de auditoria dos empréstimos: registros binários compactos gravados em segmentos
+//mapeados em memória (data/journal/segment-<primeira sequência>.log) , sem escrever no H2.
+//
+//Formato de cada registro: [tamanho int][crc32 int][sequence long][timestamp long][tipo byte]
+//[loanId long][bookId long][tamanho do customer short][customer UTF-8]. Tamanho 0 marca o fim do segmento.
+//
+//Uma única thread grava: quem chama só coloca o registro numa fila circular limitada e a thread
+//grava os lotes de uma vez (group commit) , aplicando a política de fsync configurada.
+//
+//A sequence é o id do outbox , que segue a ordem de inserção e não a de commit: um id menor pode
+//chegar depois de um maior. As reentregas são descartadas pelos ids gravados mais recentemente
+//(dedup-window) , e o nome de cada segmento é maior que toda sequence gravada nos anteriores.
+//
+//As consultas por empréstimo e por período usam o resumo de cada segmento (SegmentSummary) para
+//abrir só os segmentos que podem ter o que procuram. Os resumos ficam em memória e são refeitos
+//a partir dos segmentos ao iniciar.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "application.journal.enabled", havingValue = "true", matchIfMissing = true)
+public class LoanJournal {
+
+    public enum FsyncPolicy { ALWAYS, INTERVAL, NEVER }
+
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_BATCH = 1024;
+    private static final long RETRY_MILLIS = 1000;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final BlockingQueue<Entry> ring;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final ObjectMapper objectMapper;
+    private final Counter written;
+    private final Timer fsyncTimer;
+    private final int dedupWindow;
+    private final Map<Path, SegmentSummary> summaries = new ConcurrentHashMap<>();
+
+    //estado da thread de escrita
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long lastForceNanos;
+    private boolean dirty;
+    private long segmentFirst;
+    private SegmentSummary summary;
+    //ids gravados mais recentemente , na ordem de gravação (para descartar reentregas)
+    private final Set<Long> recent = new LinkedHashSet<>();
+    //a maior sequence gravada
+    private volatile long lastSequence;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public LoanJournal(@Value("${application.journal.directory:data/journal}") Path directory,
+                       @Value("${application.journal.segment-bytes:67108864}") int segmentBytes,
+                       @Value("${application.journal.ring-size:65536}") int ringSize,
+                       @Value("${application.journal.fsync:INTERVAL}") FsyncPolicy fsyncPolicy,
+                       @Value("${application.journal.fsync-interval-millis:200}") long fsyncIntervalMillis,
+                       @Value("${application.journal.dedup-window:65536}") int dedupWindow,
+                       ObjectMapper objectMapper,
+                       MeterRegistry registry) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.ring = new ArrayBlockingQueue<>(ringSize);
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMillis);
+        this.dedupWindow = dedupWindow;
+        this.objectMapper = objectMapper;
+
+        Gauge.builder("library.journal.pending", ring, BlockingQueue::size).register(registry);
+        this.written = Counter.builder("library.journal.records").register(registry);
+        this.fsyncTimer = Timer.builder("library.journal.fsync").register(registry);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(directory);
+        recover();
+        running = true;
+        writer = new Thread(this::writeLoop, "loan-journal-writer");
+        writer.start();
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException, IOException {
+        running = false;
+        if (writer != null) {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        if (channel != null) {
+            force();
+            channel.close();
+        }
+    }
+
+    //Checkouts e devoluções chegam pelo outbox , depois do commit
+    @EventListener
+    public void onOutboxMessage(OutboxMessage message) throws JsonProcessingException {
+        if (!Outbox.LOAN.equals(message.aggregateType())) {
+            return;
+        }
+        JournalRecord.Type type;
+        if (Outbox.EventType.LOAN_CREATED.name().equals(message.eventType())) {
+            type = JournalRecord.Type.CHECKOUT;
+        } else if (Outbox.EventType.LOAN_RETURNED.name().equals(message.eventType())) {
+            type = JournalRecord.Type.RETURN;
+        } else {
+            return;
+        }
+        JsonNode payload = objectMapper.readTree(message.payload());
+        append(new JournalRecord(message.id(), message.createdAt(), type, message.aggregateId(),
+                payload.path("bookId").asLong(), payload.path("customer").asText(null)));
+    }
+
+    //Bloqueia se a fila estiver cheia: um registro de auditoria não pode ser descartado
+    public void append(JournalRecord record) {
+        try {
+            ring.put(new Entry(record, null));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while appending to the loan journal", e);
+        }
+    }
+
+    //Espera tudo o que já foi enfileirado ser gravado e sincronizado com o disco
+    public void flush() throws InterruptedException {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        ring.put(new Entry(null, done));
+        done.join();
+    }
+
+    public long lastSequence() {
+        return lastSequence;
+    }
+
+    public List<JournalRecord> byLoan(long loanId) {
+        List<JournalRecord> result = new ArrayList<>();
+        for (Path segment : segments()) {
+            if (mayMatch(segment, summary -> summary.mightContainLoan(loanId))) {
+                scanSegment(segment, record -> {
+                    if (record.loanId() == loanId) {
+                        result.add(record);
+                    }
+                    return true;
+                });
+            }
+        }
+        return result;
+    }
+
+    //Os primeiros "limit" registros do período , na ordem de gravação
+    public List<JournalRecord> between(Instant from, Instant to, int limit) {
+        List<JournalRecord> result = new ArrayList<>();
+        for (Path segment : segments()) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if (mayMatch(segment, summary -> summary.overlaps(from, to))) {
+                scanSegment(segment, record -> {
+                    if (!record.timestamp().isBefore(from) && record.timestamp().isBefore(to)) {
+                        result.add(record);
+                    }
+                    return result.size() < limit;
+                });
+            }
+        }
+        return result;
+    }
+
+    //Entrega , na ordem de gravação , todos os registros com sequence maior ou igual a fromSequence
+    public void replay(long fromSequence, Consumer<JournalRecord> consumer) {
+        scan(fromSequence, record -> record.sequence() >= fromSequence, consumer);
+    }
+
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>(MAX_BATCH);
+        while (running || !ring.isEmpty() || !batch.isEmpty()) {
+            try {
+                //Um lote que falhou é gravado de novo antes de pegar os próximos
+                if (batch.isEmpty()) {
+                    Entry first = ring.poll(fsyncIntervalNanos > 0 ? fsyncIntervalNanos : 100_000_000, TimeUnit.NANOSECONDS);
+                    if (first != null) {
+                        batch.add(first);
+                        ring.drainTo(batch, MAX_BATCH - 1);
+                    }
+                }
+                boolean flushRequested = false;
+                for (Entry entry : batch) {
+                    if (entry.record() != null) {
+                        write(entry.record());
+                    } else {
+                        flushRequested = true;
+                    }
+                }
+                if (flushRequested || fsyncPolicy == FsyncPolicy.ALWAYS
+                        || (fsyncPolicy == FsyncPolicy.INTERVAL && System.nanoTime() - lastForceNanos >= fsyncIntervalNanos)) {
+                    force();
+                }
+                batch.stream().filter(entry -> entry.flushed() != null).forEach(entry -> entry.flushed().complete(null));
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                //O lote inteiro fica para a próxima volta (o que já foi gravado é descartado como
+                //reentrega): um registro de auditoria não pode ser perdido. Enquanto isso a fila enche
+                //e o append bloqueia , segurando o relay do outbox. No desligamento não há próxima volta.
+                if (!running) {
+                    log.error(" failed to write loan journal batch of {} records while closing ", batch.size(), e);
+                    fail(batch, e);
+                    return;
+                }
+                log.error(" failed to write loan journal batch of {} records , retrying in {} ms ", batch.size(), RETRY_MILLIS, e);
+                try {
+                    Thread.sleep(RETRY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void fail(List<Entry> batch, Exception e) {
+        batch.stream().filter(entry -> entry.flushed() != null).forEach(entry -> entry.flushed().completeExceptionally(e));
+        batch.clear();
+    }
+
+    private void write(JournalRecord record) throws IOException {
+        //Reentrega do outbox: já gravado
+        if (recent.contains(record.sequence())) {
+            return;
+        }
+        byte[] body = encode(record);
+        if (HEADER_BYTES + body.length + 4 > segmentBytes) {
+            log.error(" loan journal record {} is larger than a segment and was skipped ", record.sequence());
+            return;
+        }
+        if (buffer.remaining() < HEADER_BYTES + body.length + 4) {
+            force();
+            channel.close();
+            openSegment(Math.max(lastSequence, segmentFirst) + 1);
+        }
+        int position = buffer.position();
+        buffer.position(position + HEADER_BYTES);
+        buffer.put(body);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        buffer.putInt(position + 4, (int) crc.getValue());
+        //O resumo é atualizado antes do registro ficar visível para as consultas
+        summary.add(record);
+        //O tamanho é escrito por último: um registro pela metade continua parecendo o fim do segmento
+        buffer.putInt(position, body.length);
+        remember(record.sequence());
+        dirty = true;
+        written.increment();
+    }
+
+    private void remember(long sequence) {
+        recent.add(sequence);
+        if (recent.size() > dedupWindow) {
+            Iterator<Long> oldest = recent.iterator();
+            oldest.next();
+            oldest.remove();
+        }
+        lastSequence = Math.max(lastSequence, sequence);
+    }
+
+    private void force() {
+        if (dirty) {
+            long start = System.nanoTime();
+            buffer.force();
+            fsyncTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            dirty = false;
+        }
+        lastForceNanos = System.nanoTime();
+    }
+
+    //Reabre o último segmento e posiciona a escrita depois do último registro válido
+    private void recover() throws IOException {
+        List<Path> segments = segments();
+        if (segments.isEmpty()) {
+            openSegment(1);
+            return;
+        }
+        //Refaz o resumo de cada segmento e guarda os ids da janela de reentrega (os últimos gravados)
+        Deque<Long> sequences = new ArrayDeque<>();
+        for (Path segment : segments) {
+            SegmentSummary segmentSummary = new SegmentSummary(segmentBytes);
+            scanSegment(segment, record -> {
+                segmentSummary.add(record);
+                sequences.addLast(record.sequence());
+                if (sequences.size() > dedupWindow) {
+                    sequences.removeFirst();
+                }
+                return true;
+            });
+            summaries.put(segment, segmentSummary);
+        }
+        sequences.forEach(this::remember);
+
+        Path last = segments.get(segments.size() - 1);
+        summary = summaries.get(last);
+        segmentFirst = firstSequence(last);
+        lastSequence = Math.max(lastSequence, segmentFirst - 1);
+        channel = FileChannel.open(last, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        int position = 0;
+        while (read(buffer, position) != null) {
+            position += HEADER_BYTES + buffer.getInt(position);
+        }
+        //descarta um registro incompleto que tenha ficado depois do último válido
+        if (position + 4 <= buffer.limit()) {
+            buffer.putInt(position, 0);
+        }
+        buffer.position(position);
+        log.info(" loan journal recovered at sequence {} ", lastSequence);
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        segmentFirst = firstSequence;
+        Path path = directory.resolve(String.format("segment-%020d.log", firstSequence));
+        summary = new SegmentSummary(segmentBytes);
+        summaries.put(path, summary);
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+    }
+
+    private void scan(long fromSequence, Predicate<JournalRecord> filter, Consumer<JournalRecord> consumer) {
+        List<Path> segments = segments();
+        for (int i = 0; i < segments.size(); i++) {
+            //pula segmentos que terminam antes de fromSequence (todas as sequences de um segmento
+            //são menores que o nome do seguinte)
+            if (i + 1 < segments.size() && firstSequence(segments.get(i + 1)) <= fromSequence) {
+                continue;
+            }
+            scanSegment(segments.get(i), record -> {
+                if (filter.test(record)) {
+                    consumer.accept(record);
+                }
+                return true;
+            });
+        }
+    }
+
+    //Um segmento sem resumo (acabou de ser criado) é lido inteiro
+    private boolean mayMatch(Path segment, Predicate<SegmentSummary> test) {
+        SegmentSummary segmentSummary = summaries.get(segment);
+        return segmentSummary == null || test.test(segmentSummary);
+    }
+
+    //Lê os registros enquanto o consumer devolver true
+    private static void scanSegment(Path path, Predicate<JournalRecord> consumer) {
+        try (FileChannel segment = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer data = segment.map(FileChannel.MapMode.READ_ONLY, 0, segment.size());
+            int position = 0;
+            JournalRecord record;
+            while ((record = read(data, position)) != null && consumer.test(record)) {
+                position += HEADER_BYTES + data.getInt(position);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //null no fim do segmento ou num registro inválido (incompleto ou com crc errado)
+    private static JournalRecord read(ByteBuffer data, int position) {
+        if (position + HEADER_BYTES > data.limit()) {
+            return null;
+        }
+        int length = data.getInt(position);
+        if (length <= 0 || position + HEADER_BYTES + length > data.limit()) {
+            return null;
+        }
+        byte[] body = new byte[length];
+        data.get(position + HEADER_BYTES, body);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        if ((int) crc.getValue() != data.getInt(position + 4)) {
+            return null;
+        }
+        return decode(ByteBuffer.wrap(body));
+    }
+
+    private static byte[] encode(JournalRecord record) {
+        byte[] customer = record.customer() == null ? new byte[0] : record.customer().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer body = ByteBuffer.allocate(8 + 8 + 1 + 8 + 8 + 2 + customer.length);
+        body.putLong(record.sequence());
+        body.putLong(record.timestamp().toEpochMilli());
+        body.put(record.type().code());
+        body.putLong(record.loanId());
+        body.putLong(record.bookId());
+        body.putShort((short) customer.length);
+        body.put(customer);
+        return body.array();
+    }
+
+    private static JournalRecord decode(ByteBuffer body) {
+        long sequence = body.getLong();
+        Instant timestamp = Instant.ofEpochMilli(body.getLong());
+        JournalRecord.Type type = JournalRecord.Type.of(body.get());
+        long loanId = body.getLong();
+        long bookId = body.getLong();
+        byte[] customer = new byte[body.getShort()];
+        body.get(customer);
+        return new JournalRecord(sequence, timestamp, type, loanId, bookId,
+                customer.length == 0 ? null : new String(customer, StandardCharsets.UTF_8));
+    }
+
+    private List<Path> segments() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("segment-"))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring("segment-".length(), name.length() - ".log".length()));
+    }
+
+    private record Entry(JournalRecord record, CompletableFuture<Void> flushed) {
+    }
+}
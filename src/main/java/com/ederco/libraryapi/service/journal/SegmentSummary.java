@@ -0,0 +1,59 @@
+package com.ederco.libraryapi.service.journal;
+
+import java.time.Instant;
+import java.util.BitSet;
+
+//Resumo de um segmento do journal , mantido em memória: o intervalo dos timestamps e um filtro de
+//Bloom dos loanIds. As consultas só abrem os segmentos que podem ter o que procuram
+//(o filtro pode dar falso positivo , nunca falso negativo).
+//Atualizado pela thread de escrita e lido pelas consultas , por isso os métodos são synchronized.
+final class SegmentSummary {
+
+    private static final int HASHES = 3;
+    private static final int BITS_PER_RECORD = 8;
+    //o menor registro possível: cabeçalho + corpo sem customer
+    private static final int MIN_RECORD_BYTES = 8 + 8 + 8 + 1 + 8 + 8 + 2;
+
+    private final BitSet loans;
+    private final int bits;
+    private long minMillis = Long.MAX_VALUE;
+    private long maxMillis = Long.MIN_VALUE;
+
+    SegmentSummary(int segmentBytes) {
+        this.bits = Math.max(64, segmentBytes / MIN_RECORD_BYTES * BITS_PER_RECORD);
+        this.loans = new BitSet(bits);
+    }
+
+    synchronized void add(JournalRecord record) {
+        long millis = record.timestamp().toEpochMilli();
+        minMillis = Math.min(minMillis, millis);
+        maxMillis = Math.max(maxMillis, millis);
+        for (int i = 0; i < HASHES; i++) {
+            loans.set(bit(record.loanId(), i));
+        }
+    }
+
+    synchronized boolean mightContainLoan(long loanId) {
+        for (int i = 0; i < HASHES; i++) {
+            if (!loans.get(bit(loanId, i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //[from , to)
+    synchronized boolean overlaps(Instant from, Instant to) {
+        return minMillis <= maxMillis
+                && !Instant.ofEpochMilli(maxMillis).isBefore(from) && Instant.ofEpochMilli(minMillis).isBefore(to);
+    }
+
+    //Hash duplo (h1 + i * h2) a partir de um mix de 64 bits do loanId
+    private int bit(long loanId, int i) {
+        long hash = loanId * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 32;
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 16) | 1;
+        return Math.floorMod(h1 + i * h2, bits);
+    }
+}
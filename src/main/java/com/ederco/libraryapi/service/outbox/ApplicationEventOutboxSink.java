@@ -0,0 +1,28 @@
+package com.ederco.libraryapi.service.outbox;
+
+import com.ederco.libraryapi.model.entity.OutboxEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+//Entrega os eventos para os listeners da própria aplicação (OutboxMessage)
+@Component
+public class ApplicationEventOutboxSink implements OutboxSink {
+
+    private final ApplicationEventPublisher publisher;
+
+    public ApplicationEventOutboxSink(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @Override
+    public String name() {
+        return "application";
+    }
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        events.forEach(event -> publisher.publishEvent(OutboxMessage.of(event)));
+    }
+}
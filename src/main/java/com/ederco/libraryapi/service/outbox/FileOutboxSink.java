@@ -0,0 +1,50 @@
+package com.ederco.libraryapi.service.outbox;
+
+import com.ederco.libraryapi.model.entity.OutboxEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+//Grava os eventos num arquivo , um JSON por linha. Útil em testes e para inspecionar o fluxo.
+@Component
+@ConditionalOnProperty(name = "application.outbox.file-sink.enabled", havingValue = "true")
+public class FileOutboxSink implements OutboxSink {
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+
+    public FileOutboxSink(@Value("${application.outbox.file-sink.path:data/outbox.ndjson}") Path path,
+                          ObjectMapper objectMapper) {
+        this.path = path;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    //Um append por lote
+    @Override
+    public synchronized void publish(List<OutboxEvent> events) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (OutboxEvent event : events) {
+                writer.write(objectMapper.writeValueAsString(OutboxMessage.of(event)));
+                writer.write('\n');
+            }
+        }
+    }
+}
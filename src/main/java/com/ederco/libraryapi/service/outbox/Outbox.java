@@ -0,0 +1,70 @@
+package com.ederco.libraryapi.service.outbox;
+
+import com.ederco.libraryapi.model.entity.Book;
+import com.ederco.libraryapi.model.entity.Loan;
+import com.ederco.libraryapi.model.entity.OutboxEvent;
+import com.ederco.libraryapi.model.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//Grava o evento de alteração na tabela outbox_event , na mesma transação da alteração.
+//O OutboxRelay publica depois do commit.
+@Component
+public class Outbox {
+
+    public static final String BOOK = "Book";
+    public static final String LOAN = "Loan";
+
+    public enum EventType { BOOK_CREATED, BOOK_UPDATED, BOOK_DELETED, LOAN_CREATED, LOAN_UPDATED, LOAN_RETURNED, LOAN_OVERDUE }
+
+    private final OutboxEventRepository repository;
+    private final ObjectMapper objectMapper;
+
+    public Outbox(OutboxEventRepository repository, ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void bookChanged(EventType type, Book book) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("id", book.getId());
+        payload.put("title", book.getTitle());
+        payload.put("author", book.getAuthor());
+        payload.put("isbn", book.getIsbn());
+        append(BOOK, book.getId(), type, payload);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void loanChanged(EventType type, Loan loan) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("id", loan.getId());
+        payload.put("bookId", loan.getBook() == null ? null : loan.getBook().getId());
+        payload.put("isbn", loan.getBook() == null ? null : loan.getBook().getIsbn());
+        payload.put("customer", loan.getCustomer());
+        payload.put("loanDate", loan.getLoanDate() == null ? null : loan.getLoanDate().toString());
+        payload.put("returned", loan.getReturned());
+        append(LOAN, loan.getId(), type, payload);
+    }
+
+    private void append(String aggregateType, Long aggregateId, EventType type, Map<String, Object> payload) {
+        try {
+            repository.save(OutboxEvent.builder()
+                    .aggregateType(aggregateType)
+                    .aggregateId(aggregateId)
+                    .eventType(type.name())
+                    .payload(objectMapper.writeValueAsString(payload))
+                    .createdAt(Instant.now())
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + type + " event", e);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.ederco.libraryapi.service.outbox;
+
+import com.ederco.libraryapi.model.entity.OutboxEvent;
+
+import java.time.Instant;
+
+//Evento publicado dentro da aplicação pelo ApplicationEventOutboxSink (use @EventListener para receber)
+public record OutboxMessage(Long id, String aggregateType, Long aggregateId, String eventType,
+                            String payload, Instant createdAt) {
+
+    public static OutboxMessage of(OutboxEvent event) {
+        return new OutboxMessage(event.getId(), event.getAggregateType(), event.getAggregateId(),
+                event.getEventType(), event.getPayload(), event.getCreatedAt());
+    }
+}
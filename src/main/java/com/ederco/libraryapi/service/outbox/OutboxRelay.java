@@ -0,0 +1,85 @@
+package com.ederco.libraryapi.service.outbox;
+
+import com.ederco.libraryapi.model.entity.OutboxEvent;
+import com.ederco.libraryapi.model.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+//Publica os eventos pendentes do outbox em lotes , na ordem em que foram gravados.
+//Um lote só é marcado como publicado depois que todos os sinks aceitaram ; se algum falhar
+//o lote inteiro é reenviado na próxima rodada , preservando a ordem por agregado.
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private final OutboxEventRepository repository;
+    private final List<OutboxSink> sinks;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration retention;
+    private final Counter published;
+    private final Counter failures;
+
+    public OutboxRelay(OutboxEventRepository repository,
+                       List<OutboxSink> sinks,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry registry,
+                       @Value("${application.outbox.batch-size:100}") int batchSize,
+                       @Value("${application.outbox.retention:7d}") Duration retention) {
+        this.repository = repository;
+        this.sinks = sinks;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.retention = retention;
+        this.published = Counter.builder("library.outbox.published").register(registry);
+        this.failures = Counter.builder("library.outbox.failures").register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${application.outbox.poll-interval-millis:1000}")
+    public void relay() {
+        //Continua enquanto houver lotes cheios pendentes
+        int count;
+        do {
+            count = publishBatch();
+        } while (count == batchSize);
+    }
+
+    @Scheduled(cron = "${application.outbox.cleanup-cron:0 30 3 * * ?}")
+    public void cleanup() {
+        Integer deleted = transactionTemplate.execute(status ->
+                repository.deletePublishedBefore(Instant.now().minus(retention)));
+        log.info(" removed {} published outbox events ", deleted);
+    }
+
+    //Retorna quantos eventos foram publicados
+    public int publishBatch() {
+        List<OutboxEvent> batch = repository.findByPublishedAtIsNullOrderByIdAsc(PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        for (OutboxSink sink : sinks) {
+            try {
+                sink.publish(batch);
+            } catch (Exception e) {
+                failures.increment();
+                log.warn(" outbox sink {} failed , {} events will be retried ", sink.name(), batch.size(), e);
+                return 0;
+            }
+        }
+        List<Long> ids = batch.stream().map(OutboxEvent::getId).toList();
+        transactionTemplate.executeWithoutResult(status -> repository.markPublished(ids, Instant.now()));
+        published.increment(batch.size());
+        return batch.size();
+    }
+}
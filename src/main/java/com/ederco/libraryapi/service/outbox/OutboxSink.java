@@ -0,0 +1,14 @@
+package com.ederco.libraryapi.service.outbox;
+
+import com.ederco.libraryapi.model.entity.OutboxEvent;
+
+import java.util.List;
+
+//Destino dos eventos do outbox. Recebe os lotes em ordem de id ; o mesmo lote pode
+//chegar mais de uma vez (entrega "at-least-once") , então quem consome deve ignorar ids repetidos.
+public interface OutboxSink {
+
+    String name();
+
+    void publish(List<OutboxEvent> events) throws Exception;
+}
@@ -0,0 +1,86 @@
+package com.ederco.libraryapi.service.popularity;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+//Contagem aproximada por livro em memória fixa: "depth" linhas de "width" contadores.
+//A estimativa é o menor contador entre as linhas , nunca abaixo do valor real e acima dele
+//no máximo ~ total * e / width (com probabilidade 1 - e^-depth).
+//Sem "conservative update" , para que subtrair um sketch desfaça exatamente o que ele somou.
+final class CountMinSketch {
+
+    private final int depth;
+    private final int mask;
+    private final int[] counters;
+
+    //width é arredondado para potência de 2
+    CountMinSketch(int depth, int width) {
+        if (depth < 1 || width < 1) {
+            throw new IllegalArgumentException("Sketch depth and width must be positive");
+        }
+        int rowWidth = Integer.highestOneBit(width);
+        if (rowWidth < width) {
+            rowWidth <<= 1;
+        }
+        this.depth = depth;
+        this.mask = rowWidth - 1;
+        this.counters = new int[depth * rowWidth];
+    }
+
+    void add(long key, int count) {
+        for (int row = 0; row < depth; row++) {
+            counters[index(row, key)] += count;
+        }
+    }
+
+    long estimate(long key) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters[index(row, key)]);
+        }
+        return min;
+    }
+
+    void subtract(CountMinSketch other) {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] -= other.counters[i];
+        }
+    }
+
+    void addAll(CountMinSketch other) {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] += other.counters[i];
+        }
+    }
+
+    void clear() {
+        Arrays.fill(counters, 0);
+    }
+
+    long memoryBytes() {
+        return (long) counters.length * Integer.BYTES;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        for (int counter : counters) {
+            out.writeInt(counter);
+        }
+    }
+
+    void readFrom(DataInputStream in) throws IOException {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = in.readInt();
+        }
+    }
+
+    //Um hash independente por linha (SplitMix64 com a linha misturada na chave)
+    private int index(int row, long key) {
+        long h = key + (row + 1) * 0x9E3779B97F4A7C15L;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        h ^= h >>> 31;
+        return row * (mask + 1) + ((int) h & mask);
+    }
+}
@@ -0,0 +1,5 @@
+package com.ederco.libraryapi.service.popularity;
+
+//Empréstimos estimados de um livro na janela
+public record PopularBook(long bookId, long loans) {
+}
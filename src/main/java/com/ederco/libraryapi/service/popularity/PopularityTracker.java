@@ -0,0 +1,162 @@
+package com.ederco.libraryapi.service.popularity;
+
+import com.ederco.libraryapi.exception.BusinessException;
+import com.ederco.libraryapi.service.file.AtomicFiles;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//Livros mais emprestados nas últimas 1h , 24h e 30d , contados em memória a cada empréstimo gravado
+//(LoanServiceImpl.save) no lugar de um GROUP BY na tabela loan.
+//
+//GET /api/books/popular só lê a lista já ordenada de cada janela. As janelas avançam a cada empréstimo
+//e uma vez por minuto , e um checkpoint periódico em arquivo mantém as contagens entre reinícios.
+@Slf4j
+@Component
+public class PopularityTracker implements SmartInitializingSingleton {
+
+    private static final int MAGIC = 0x504F5055; //"POPU"
+    private static final short FORMAT = 1;
+
+    private final int depth;
+    private final int width;
+    private final int candidates;
+    private final Path checkpoint;
+    private volatile Map<String, PopularityWindow> windows;
+
+    public PopularityTracker(MeterRegistry registry,
+                             @Value("${application.popularity.sketch-depth:4}") int depth,
+                             @Value("${application.popularity.sketch-width:2048}") int width,
+                             @Value("${application.popularity.candidates:100}") int candidates,
+                             @Value("${application.popularity.checkpoint-path:data/popularity/checkpoint.bin}") Path checkpoint) {
+        this.depth = depth;
+        this.width = width;
+        this.candidates = candidates;
+        this.checkpoint = checkpoint;
+        this.windows = newWindows(System.currentTimeMillis());
+        Gauge.builder("library.popularity.memory", this,
+                        tracker -> tracker.windows.values().stream().mapToLong(PopularityWindow::memoryBytes).sum())
+                .baseUnit("bytes").register(registry);
+    }
+
+    //1h em buckets de 5 min , 24h em buckets de 1h e 30d em buckets de 1 dia
+    private Map<String, PopularityWindow> newWindows(long now) {
+        Map<String, PopularityWindow> created = new LinkedHashMap<>();
+        created.put("1h", new PopularityWindow("1h", Duration.ofHours(1), 12, depth, width, candidates, now));
+        created.put("24h", new PopularityWindow("24h", Duration.ofHours(24), 24, depth, width, candidates, now));
+        created.put("30d", new PopularityWindow("30d", Duration.ofDays(30), 30, depth, width, candidates, now));
+        return created;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!Files.exists(checkpoint)) {
+            return;
+        }
+        try {
+            load();
+            log.info(" book popularity restored from {} ", checkpoint);
+        } catch (IOException e) {
+            //Sem o checkpoint as contagens começam do zero
+            log.warn(" could not restore book popularity from {} ", checkpoint, e);
+        }
+    }
+
+    public void record(long bookId) {
+        long now = System.currentTimeMillis();
+        for (PopularityWindow window : windows.values()) {
+            window.add(bookId, now);
+        }
+    }
+
+    //No máximo "candidates" livros , do mais emprestado para o menos
+    public List<PopularBook> top(String window, int limit) {
+        PopularityWindow found = windows.get(window);
+        if (found == null) {
+            throw new BusinessException("Unknown window: " + window + " , use one of " + windows.keySet());
+        }
+        List<PopularBook> top = found.top();
+        return top.subList(0, Math.max(0, Math.min(limit, top.size())));
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void advance() {
+        long now = System.currentTimeMillis();
+        windows.values().forEach(window -> window.advance(now));
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${application.popularity.checkpoint-millis:300000}",
+            initialDelayString = "${application.popularity.checkpoint-millis:300000}")
+    public void checkpoint() {
+        try {
+            write();
+        } catch (IOException e) {
+            log.warn(" could not write the book popularity checkpoint to {} ", checkpoint, e);
+        }
+    }
+
+    //Arquivo temporário ao lado do destino , trocado pelo definitivo só no final
+    void write() throws IOException {
+        Path parent = checkpoint.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, checkpoint.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024))) {
+                out.writeInt(MAGIC);
+                out.writeShort(FORMAT);
+                out.writeInt(depth);
+                out.writeInt(width);
+                out.writeInt(windows.size());
+                for (PopularityWindow window : windows.values()) {
+                    window.writeTo(out);
+                }
+            }
+            AtomicFiles.replace(temp, checkpoint);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    //Carrega em janelas novas e só então troca , um arquivo inválido não deixa contagens pela metade
+    void load() throws IOException {
+        long now = System.currentTimeMillis();
+        Map<String, PopularityWindow> loaded = newWindows(now);
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(checkpoint), 64 * 1024))) {
+            if (in.readInt() != MAGIC || in.readShort() != FORMAT) {
+                throw new IOException("Not a popularity checkpoint: " + checkpoint);
+            }
+            if (in.readInt() != depth || in.readInt() != width) {
+                throw new IOException("Checkpoint sketch size differs from the configured one");
+            }
+            int count = in.readInt();
+            if (count != loaded.size()) {
+                throw new IOException("Checkpoint has " + count + " windows , expected " + loaded.size());
+            }
+            for (PopularityWindow window : loaded.values()) {
+                window.readFrom(in);
+                window.advance(now);
+            }
+        }
+        windows = loaded;
+    }
+}
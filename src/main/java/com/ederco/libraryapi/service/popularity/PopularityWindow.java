@@ -0,0 +1,159 @@
+package com.ederco.libraryapi.service.popularity;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+//Janela deslizante dividida em "buckets" , cada um com o seu CountMinSketch , e um sketch "total"
+//com a soma dos buckets da janela: quando um bucket sai da janela ele é subtraído do total.
+//
+//Os mais emprestados ficam num conjunto limitado de candidatos (bookId -> estimativa); um livro
+//entra no lugar do menor quando a estimativa dele passa a ser maior. A lista ordenada é refeita
+//a cada alteração e lida sem lock.
+final class PopularityWindow {
+
+    private static final Comparator<PopularBook> MOST_LOANS = Comparator.comparingLong(PopularBook::loans).reversed()
+            .thenComparingLong(PopularBook::bookId);
+
+    private final String name;
+    private final long bucketMillis;
+    private final CountMinSketch[] buckets;
+    private final CountMinSketch total;
+    private final int candidateCapacity;
+    private final Map<Long, Long> candidates = new HashMap<>();
+    //índice absoluto (instante / bucketMillis) do bucket atual
+    private long bucket;
+    private volatile List<PopularBook> top = List.of();
+
+    PopularityWindow(String name, Duration span, int bucketCount, int depth, int width, int candidateCapacity, long now) {
+        this.name = name;
+        this.bucketMillis = span.toMillis() / bucketCount;
+        this.buckets = new CountMinSketch[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new CountMinSketch(depth, width);
+        }
+        this.total = new CountMinSketch(depth, width);
+        this.candidateCapacity = candidateCapacity;
+        this.bucket = now / bucketMillis;
+    }
+
+    String name() {
+        return name;
+    }
+
+    List<PopularBook> top() {
+        return top;
+    }
+
+    synchronized void add(long bookId, long now) {
+        advance(now);
+        buckets[slot(bucket)].add(bookId, 1);
+        total.add(bookId, 1);
+        offer(bookId, total.estimate(bookId));
+        publish();
+    }
+
+    //Descarta os buckets que saíram da janela
+    synchronized void advance(long now) {
+        long current = now / bucketMillis;
+        if (current <= bucket) {
+            return;
+        }
+        long expired = Math.min(current - bucket, buckets.length);
+        for (long i = 1; i <= expired; i++) {
+            CountMinSketch old = buckets[slot(bucket + i)];
+            total.subtract(old);
+            old.clear();
+        }
+        bucket = current;
+
+        //As estimativas só diminuem , quem chegar a zero deixa de ser candidato
+        Iterator<Map.Entry<Long, Long>> iterator = candidates.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Long> candidate = iterator.next();
+            long estimate = total.estimate(candidate.getKey());
+            if (estimate <= 0) {
+                iterator.remove();
+            } else {
+                candidate.setValue(estimate);
+            }
+        }
+        publish();
+    }
+
+    long memoryBytes() {
+        return total.memoryBytes() * (buckets.length + 1);
+    }
+
+    synchronized void writeTo(DataOutputStream out) throws IOException {
+        out.writeUTF(name);
+        out.writeInt(buckets.length);
+        out.writeLong(bucketMillis);
+        out.writeLong(bucket);
+        for (CountMinSketch sketch : buckets) {
+            sketch.writeTo(out);
+        }
+        out.writeInt(candidates.size());
+        for (Map.Entry<Long, Long> candidate : candidates.entrySet()) {
+            out.writeLong(candidate.getKey());
+        }
+    }
+
+    //O total é a soma dos buckets , e as estimativas dos candidatos são recalculadas
+    synchronized void readFrom(DataInputStream in) throws IOException {
+        String savedName = in.readUTF();
+        int savedBuckets = in.readInt();
+        long savedBucketMillis = in.readLong();
+        if (!name.equals(savedName) || savedBuckets != buckets.length || savedBucketMillis != bucketMillis) {
+            throw new IOException("Checkpoint window " + savedName + " does not match window " + name);
+        }
+        bucket = in.readLong();
+        total.clear();
+        for (CountMinSketch sketch : buckets) {
+            sketch.readFrom(in);
+            total.addAll(sketch);
+        }
+        candidates.clear();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            long bookId = in.readLong();
+            offer(bookId, total.estimate(bookId));
+        }
+        publish();
+    }
+
+    private void offer(long bookId, long estimate) {
+        if (candidates.containsKey(bookId) || candidates.size() < candidateCapacity) {
+            candidates.put(bookId, estimate);
+            return;
+        }
+        Map.Entry<Long, Long> min = null;
+        for (Map.Entry<Long, Long> candidate : candidates.entrySet()) {
+            if (min == null || candidate.getValue() < min.getValue()) {
+                min = candidate;
+            }
+        }
+        if (estimate > min.getValue()) {
+            candidates.remove(min.getKey());
+            candidates.put(bookId, estimate);
+        }
+    }
+
+    private void publish() {
+        List<PopularBook> sorted = new ArrayList<>(candidates.size());
+        candidates.forEach((bookId, loans) -> sorted.add(new PopularBook(bookId, loans)));
+        sorted.sort(MOST_LOANS);
+        top = List.copyOf(sorted);
+    }
+
+    private int slot(long index) {
+        return (int) Math.floorMod(index, (long) buckets.length);
+    }
+}
@@ -0,0 +1,88 @@
+package com.ederco.libraryapi.service.snapshot;
+
+import com.ederco.libraryapi.service.outbox.Outbox;
+import com.ederco.libraryapi.service.outbox.OutboxMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+//Índice em memória dos livros emprestados (id do livro -> id do empréstimo ativo) , usado no campo
+//"available" das leituras de livros sem ir ao banco.
+//Carregado pelo snapshot do catálogo na subida e mantido pelos eventos do outbox depois disso. Sem o
+//snapshot (ou se o aquecimento falhar) o índice não está completo e a disponibilidade fica desconhecida.
+@Component
+public class ActiveLoanIndex {
+
+    private final Map<Long, Long> loanByBook = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper;
+    private volatile boolean loaded;
+
+    public ActiveLoanIndex(ObjectMapper objectMapper, MeterRegistry registry) {
+        this.objectMapper = objectMapper;
+        Gauge.builder("library.catalog.active.loans", loanByBook, Map::size).register(registry);
+    }
+
+    //null enquanto o índice não foi carregado. Segue o outbox , então pode atrasar alguns instantes em
+    //relação ao banco: a regra de empréstimo continua sendo conferida no LoanService.
+    public Boolean available(Long bookId) {
+        return loaded ? !loanByBook.containsKey(bookId) : null;
+    }
+
+    public int size() {
+        return loanByBook.size();
+    }
+
+    public void forEach(BiConsumer<Long, Long> consumer) {
+        loanByBook.forEach(consumer);
+    }
+
+    public void loaned(long bookId, long loanId) {
+        loanByBook.put(bookId, loanId);
+    }
+
+    //Só remove se o empréstimo devolvido ainda for o ativo do livro (eventos podem chegar repetidos)
+    public void returned(long bookId, long loanId) {
+        loanByBook.remove(bookId, loanId);
+    }
+
+    public void clear() {
+        loaded = false;
+        loanByBook.clear();
+    }
+
+    //Chamado pelo CatalogSnapshotService depois de carregar o snapshot e reaplicar o outbox
+    void markLoaded() {
+        loaded = true;
+    }
+
+    @EventListener
+    public void onOutboxMessage(OutboxMessage message) throws JsonProcessingException {
+        apply(message.aggregateType(), message.aggregateId(), message.payload());
+    }
+
+    //Também usado pelo CatalogSnapshotService para reaplicar os eventos posteriores ao snapshot.
+    //O payload traz o estado do empréstimo , então um update que desfaz a devolução volta a marcar o livro.
+    void apply(String aggregateType, Long loanId, String payload) throws JsonProcessingException {
+        if (!Outbox.LOAN.equals(aggregateType) || loanId == null) {
+            return;
+        }
+        JsonNode loan = objectMapper.readTree(payload);
+        JsonNode bookId = loan.path("bookId");
+        if (!bookId.canConvertToLong()) {
+            return;
+        }
+        if (loan.path("returned").asBoolean(false)) {
+            returned(bookId.asLong(), loanId);
+        } else {
+            loaned(bookId.asLong(), loanId);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.ederco.libraryapi.service.snapshot;
+
+import com.ederco.libraryapi.model.entity.Book;
+import com.ederco.libraryapi.service.file.AtomicFiles;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+//Arquivo binário do snapshot do catálogo.
+//
+//Formato: [magic int][formato short][versão long][criado em long (epoch millis)] , depois os registros
+//[tag 1][id long][title][author][isbn] para livros e [tag 2][loanId long][bookId long] para empréstimos
+//ativos , terminando com [tag 0][crc32 int] de tudo o que veio antes. Textos: [tamanho short][UTF-8] , -1 = null.
+//
+//A versão é o último id do outbox_event visto antes da leitura das tabelas: na subida só os eventos
+//com id maior precisam ser reaplicados.
+public final class CatalogSnapshotFile {
+
+    public static final int MAGIC = 0x4C42534E; //"LBSN"
+    public static final short FORMAT = 1;
+
+    private static final byte END = 0;
+    private static final byte BOOK = 1;
+    private static final byte LOAN = 2;
+    private static final int HEADER_BYTES = 4 + 2 + 8 + 8;
+
+    public record Header(long version, Instant createdAt, int books, int loans) {
+    }
+
+    public interface Visitor {
+
+        void book(Book book);
+
+        void loan(long loanId, long bookId);
+    }
+
+    private CatalogSnapshotFile() {
+    }
+
+    public static Writer create(Path target, long version, Instant createdAt) throws IOException {
+        return new Writer(target, version, createdAt);
+    }
+
+    //Mapeia o arquivo em memória e entrega cada registro ao visitor. O crc é conferido antes ,
+    //então um arquivo truncado ou corrompido não carrega nada.
+    public static Header read(Path file, Visitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + 1 + 4 || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid catalog snapshot size: " + size);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, (int) size - 4));
+            if ((int) crc.getValue() != buffer.getInt((int) size - 4)) {
+                throw new IOException("Catalog snapshot checksum mismatch: " + file);
+            }
+
+            if (buffer.getInt() != MAGIC || buffer.getShort() != FORMAT) {
+                throw new IOException("Unsupported catalog snapshot format: " + file);
+            }
+            long version = buffer.getLong();
+            Instant createdAt = Instant.ofEpochMilli(buffer.getLong());
+
+            int books = 0;
+            int loans = 0;
+            byte tag;
+            while ((tag = buffer.get()) != END) {
+                if (tag == BOOK) {
+                    visitor.book(Book.builder()
+                            .id(buffer.getLong())
+                            .title(readString(buffer))
+                            .author(readString(buffer))
+                            .isbn(readString(buffer))
+                            .build());
+                    books++;
+                } else if (tag == LOAN) {
+                    visitor.loan(buffer.getLong(), buffer.getLong());
+                    loans++;
+                } else {
+                    throw new IOException("Unknown catalog snapshot record " + tag + " at " + (buffer.position() - 1));
+                }
+            }
+            return new Header(version, createdAt, books, loans);
+        }
+    }
+
+    //Só o cabeçalho (sem conferir o crc) , books e loans ficam -1
+    public static Header readHeader(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            }
+            buffer.flip();
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC || buffer.getShort() != FORMAT) {
+                throw new IOException("Unsupported catalog snapshot format: " + file);
+            }
+            return new Header(buffer.getLong(), Instant.ofEpochMilli(buffer.getLong()), -1, -1);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    //Grava num arquivo temporário ao lado do destino e só troca pelo definitivo no commit() ,
+    //quem lê nunca vê um snapshot pela metade.
+    public static final class Writer implements Closeable {
+
+        private final Path target;
+        private final Path temp;
+        private final CRC32 crc = new CRC32();
+        private final DataOutputStream out;
+        private boolean committed;
+
+        private Writer(Path target, long version, Instant createdAt) throws IOException {
+            this.target = target;
+            Path parent = target.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            this.temp = Files.createTempFile(parent, target.getFileName().toString(), ".tmp");
+            this.out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024), crc));
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT);
+            out.writeLong(version);
+            out.writeLong(createdAt.toEpochMilli());
+        }
+
+        public void book(Book book) throws IOException {
+            out.writeByte(BOOK);
+            out.writeLong(book.getId());
+            writeString(book.getTitle());
+            writeString(book.getAuthor());
+            writeString(book.getIsbn());
+        }
+
+        public void loan(long loanId, long bookId) throws IOException {
+            out.writeByte(LOAN);
+            out.writeLong(loanId);
+            out.writeLong(bookId);
+        }
+
+        public void commit() throws IOException {
+            out.writeByte(END);
+            out.flush();
+            //o crc não inclui ele mesmo
+            out.writeInt((int) crc.getValue());
+            out.close();
+            AtomicFiles.replace(temp, target);
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                out.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                out.writeShort(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > Short.MAX_VALUE) {
+                throw new IOException("Value too long for catalog snapshot: " + bytes.length + " bytes");
+            }
+            out.writeShort(bytes.length);
+            out.write(bytes);
+        }
+    }
+}
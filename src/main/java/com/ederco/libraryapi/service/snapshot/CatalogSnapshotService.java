@@ -0,0 +1,276 @@
+package com.ederco.libraryapi.service.snapshot;
+
+import com.ederco.libraryapi.model.entity.Book;
+import com.ederco.libraryapi.model.entity.OutboxEvent;
+import com.ederco.libraryapi.model.repository.LoanStore;
+import com.ederco.libraryapi.model.repository.OutboxEventRepository;
+import com.ederco.libraryapi.service.bulkhead.Bulkhead;
+import com.ederco.libraryapi.service.bulkhead.BulkheadRegistry;
+import com.ederco.libraryapi.service.cache.BookCache;
+import com.ederco.libraryapi.service.outbox.Outbox;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Snapshot binário do catálogo (livros + empréstimos ativos) para a subida não começar com o cache frio.
+//
+//Periodicamente os livros e os empréstimos ativos (pelo LoanStore , que também atende aos shards) são gravados num arquivo (CatalogSnapshotFile) com a versão =
+//último id do outbox. Na subida , antes do servidor aceitar requisições , o arquivo é mapeado em memória ,
+//carregado no BookCache e no ActiveLoanIndex , e só os eventos do outbox posteriores à versão são reaplicados.
+//
+//Os ids do outbox seguem a ordem de inserção , não a de commit: uma transação com id menor que a versão
+//pode confirmar depois da leitura das tabelas. Por isso a reaplicação também inclui os eventos criados
+//até replay-margin antes do snapshot (a margem deve ser maior que a transação de escrita mais longa).
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "application.snapshot.enabled", havingValue = "true", matchIfMissing = true)
+public class CatalogSnapshotService implements SmartInitializingSingleton {
+
+    private static final int REPLAY_BATCH = 500;
+
+    private final OutboxEventRepository outboxRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final LoanStore loanStore;
+    private final BookCache bookCache;
+    private final ActiveLoanIndex activeLoans;
+    private final TransactionTemplate readOnly;
+    private final ApplicationEventPublisher publisher;
+    private final ObjectMapper objectMapper;
+    private final Path file;
+    private final Duration outboxRetention;
+    private final Duration replayMargin;
+    private final Timer writeTimer;
+    private final AtomicLong version = new AtomicLong(-1);
+
+    public CatalogSnapshotService(OutboxEventRepository outboxRepository,
+                                  JdbcTemplate jdbcTemplate,
+                                  LoanStore loanStore,
+                                  BookCache bookCache,
+                                  ActiveLoanIndex activeLoans,
+                                  PlatformTransactionManager transactionManager,
+                                  ApplicationEventPublisher publisher,
+                                  ObjectMapper objectMapper,
+                                  MeterRegistry registry,
+                                  @Value("${application.snapshot.path:data/snapshot/catalog.bin}") Path file,
+                                  @Value("${application.outbox.retention:7d}") Duration outboxRetention,
+                                  @Value("${application.snapshot.replay-margin:5m}") Duration replayMargin) {
+        this.outboxRepository = outboxRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.loanStore = loanStore;
+        this.bookCache = bookCache;
+        this.activeLoans = activeLoans;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.publisher = publisher;
+        this.objectMapper = objectMapper;
+        this.file = file;
+        this.outboxRetention = outboxRetention;
+        this.replayMargin = replayMargin;
+        this.writeTimer = Timer.builder("library.catalog.snapshot.write").register(registry);
+        Gauge.builder("library.catalog.snapshot.version", version, AtomicLong::get).register(registry);
+    }
+
+    //Roda depois de todos os beans criados e antes do servidor web subir
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            warm();
+        } catch (Exception e) {
+            //Sem o snapshot a aplicação funciona , só começa com o cache frio
+            log.warn(" could not warm the catalog from {} ", file, e);
+        }
+    }
+
+    public CatalogWarmedEvent warm() throws IOException {
+        long start = System.nanoTime();
+        boolean fromSnapshot = true;
+        long currentVersion = readOnly.execute(status -> outboxRepository.findMaxId());
+
+        CatalogSnapshotFile.Header header = usable(currentVersion) ? load() : null;
+        if (header == null) {
+            //Sem snapshot válido: lê as tabelas uma vez e já deixa o arquivo pronto para a próxima subida
+            fromSnapshot = false;
+            write();
+            header = load();
+            if (header == null) {
+                throw new IOException("Could not read the catalog snapshot just written to " + file);
+            }
+        }
+        CatalogSnapshotFile.Header snapshot = header;
+        int replayed = readOnly.execute(status -> replay(replayFrom(snapshot)));
+        activeLoans.markLoaded();
+
+        CatalogWarmedEvent event = new CatalogWarmedEvent(header.version(), header.books(), activeLoans.size(),
+                replayed, fromSnapshot, Duration.ofNanos(System.nanoTime() - start));
+        log.info(" catalog warmed: {} books , {} active loans , {} events replayed after version {} ( from snapshot: {} ) in {} ms ",
+                event.books(), event.activeLoans(), replayed, header.version(), fromSnapshot, event.took().toMillis());
+        publisher.publishEvent(event);
+        return event;
+    }
+
+    @Scheduled(fixedDelayString = "${application.snapshot.interval-millis:300000}",
+            initialDelayString = "${application.snapshot.interval-millis:300000}")
+    @Bulkhead(BulkheadRegistry.BACKGROUND)
+    public void scheduledWrite() throws IOException {
+        write();
+    }
+
+    //Retorna false quando nada mudou desde o último snapshot gravado
+    public boolean write() throws IOException {
+        long start = System.nanoTime();
+        Long written = readOnly.execute(status -> {
+            //A versão e a data são lidas antes das tabelas: o que mudar durante a leitura tem id maior ,
+            //ou foi criado dentro da margem , e será reaplicado na subida (reaplicar o estado atual de um
+            //livro ou empréstimo é idempotente)
+            long current = outboxRepository.findMaxId();
+            if (current == version.get() && Files.exists(file)) {
+                return null;
+            }
+            try (CatalogSnapshotFile.Writer writer = CatalogSnapshotFile.create(file, current, Instant.now())) {
+                jdbcTemplate.query("select id, title, author, isbn from book order by id", rs -> {
+                    try {
+                        writer.book(Book.builder()
+                                .id(rs.getLong(1))
+                                .title(rs.getString(2))
+                                .author(rs.getString(3))
+                                .isbn(rs.getString(4))
+                                .build());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                loanStore.forEachActive((loanId, bookId) -> {
+                    try {
+                        writer.loan(loanId, bookId);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                writer.commit();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return current;
+        });
+        if (written == null) {
+            return false;
+        }
+        version.set(written);
+        writeTimer.record(Duration.ofNanos(System.nanoTime() - start));
+        log.info(" catalog snapshot version {} written to {} ", written, file);
+        return true;
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    //O snapshot só serve se os eventos posteriores a ele ainda estiverem no outbox
+    private boolean usable(long currentVersion) {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try {
+            CatalogSnapshotFile.Header header = CatalogSnapshotFile.readHeader(file);
+            if (header.version() > currentVersion) {
+                log.info(" catalog snapshot version {} is ahead of the database ( {} ) , rebuilding ", header.version(), currentVersion);
+                return false;
+            }
+            if (header.createdAt().isBefore(Instant.now().minus(outboxRetention))) {
+                log.info(" catalog snapshot from {} is older than the outbox retention , rebuilding ", header.createdAt());
+                return false;
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn(" invalid catalog snapshot {} , rebuilding ", file, e);
+            return false;
+        }
+    }
+
+    //Null se o arquivo estiver corrompido (o crc é conferido antes de carregar qualquer registro)
+    private CatalogSnapshotFile.Header load() {
+        activeLoans.clear();
+        try {
+            CatalogSnapshotFile.Header header = CatalogSnapshotFile.read(file, new CatalogSnapshotFile.Visitor() {
+                @Override
+                public void book(Book book) {
+                    bookCache.put(book);
+                }
+
+                @Override
+                public void loan(long loanId, long bookId) {
+                    activeLoans.loaned(bookId, loanId);
+                }
+            });
+            version.compareAndSet(-1, header.version());
+            return header;
+        } catch (IOException | RuntimeException e) {
+            log.warn(" invalid catalog snapshot {} ", file, e);
+            return null;
+        }
+    }
+
+    //Os eventos de um mesmo livro ou empréstimo confirmam na ordem dos ids (a linha fica bloqueada até o
+    //commit) , então reaplicar a partir de um id anterior à versão termina no estado atual.
+    private long replayFrom(CatalogSnapshotFile.Header header) {
+        Long settled = outboxRepository.findMinIdCreatedSince(header.createdAt().minus(replayMargin));
+        return settled == null ? header.version() : Math.min(header.version(), settled - 1);
+    }
+
+    private int replay(long fromVersion) {
+        int replayed = 0;
+        long after = fromVersion;
+        List<OutboxEvent> batch;
+        do {
+            batch = outboxRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, REPLAY_BATCH));
+            for (OutboxEvent event : batch) {
+                apply(event);
+                after = event.getId();
+                replayed++;
+            }
+        } while (batch.size() == REPLAY_BATCH);
+        return replayed;
+    }
+
+    private void apply(OutboxEvent event) {
+        try {
+            if (Outbox.BOOK.equals(event.getAggregateType())) {
+                if (Outbox.EventType.BOOK_DELETED.name().equals(event.getEventType())) {
+                    bookCache.evict(event.getAggregateId());
+                } else {
+                    bookCache.put(objectMapper.readValue(event.getPayload(), Book.class));
+                }
+            } else {
+                activeLoans.apply(event.getAggregateType(), event.getAggregateId(), event.getPayload());
+            }
+        } catch (JsonProcessingException e) {
+            //O próximo acesso ao livro vai ao banco , só perdemos o aquecimento dele
+            if (Outbox.BOOK.equals(event.getAggregateType())) {
+                bookCache.evict(event.getAggregateId());
+            }
+            log.warn(" could not replay outbox event {} ", event.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.ederco.libraryapi.service.snapshot;
+
+import java.time.Duration;
+
+//Publicado quando o cache de livros e o índice de empréstimos ativos terminam de ser carregados.
+//fromSnapshot = false quando o snapshot não existia (ou não servia) e as tabelas foram lidas inteiras.
+public record CatalogWarmedEvent(long version, int books, int activeLoans, int replayedEvents,
+                                 boolean fromSnapshot, Duration took) {
+}
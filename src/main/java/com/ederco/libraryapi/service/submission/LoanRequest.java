@@ -0,0 +1,36 @@
+package com.ederco.libraryapi.service.submission;
+
+import com.ederco.libraryapi.api.dto.LoanDTO;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+//Pedido de empréstimo aceito de forma assíncrona. O status é atualizado pelos workers
+//depois do commit do lote em que o pedido foi processado.
+@Getter
+public class LoanRequest {
+
+    public enum Status { PENDING, CREATED, REJECTED }
+
+    private final String id = UUID.randomUUID().toString();
+    private final Instant submittedAt = Instant.now();
+    private final LoanDTO loan;
+    private volatile Status status = Status.PENDING;
+    private volatile Long loanId;
+    private volatile String error;
+
+    public LoanRequest(LoanDTO loan) {
+        this.loan = loan;
+    }
+
+    public void created(Long loanId) {
+        this.loanId = loanId;
+        this.status = Status.CREATED;
+    }
+
+    public void rejected(String error) {
+        this.error = error;
+        this.status = Status.REJECTED;
+    }
+}
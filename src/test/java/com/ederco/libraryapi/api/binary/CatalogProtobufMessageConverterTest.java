@@ -0,0 +1,69 @@
+package com.ederco.libraryapi.api.binary;
+
+import com.ederco.libraryapi.api.dto.BookDTO;
+import com.ederco.libraryapi.api.dto.LoanDTO;
+import com.ederco.libraryapi.service.cache.CountedPage;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CatalogProtobufMessageConverterTest {
+
+    CatalogProtobufMessageConverter converter = new CatalogProtobufMessageConverter();
+
+    @Test
+    @DisplayName("Deve escrever somente os DTOs e páginas com mensagem no esquema")
+    public void canWriteTest() {
+        Type bookPage = ResolvableType.forClassWithGenerics(Page.class, BookDTO.class).getType();
+        Type loanPage = ResolvableType.forClassWithGenerics(Page.class, LoanDTO.class).getType();
+        Type stringPage = ResolvableType.forClassWithGenerics(Page.class, String.class).getType();
+
+        assertThat(converter.canWrite(bookPage, CountedPage.class, CatalogProtobufMessageConverter.MEDIA_TYPE)).isTrue();
+        assertThat(converter.canWrite(loanPage, CountedPage.class, CatalogProtobufMessageConverter.MEDIA_TYPE)).isTrue();
+        assertThat(converter.canWrite(BookDTO.class, BookDTO.class, CatalogProtobufMessageConverter.MEDIA_TYPE)).isTrue();
+        assertThat(converter.canWrite(stringPage, CountedPage.class, CatalogProtobufMessageConverter.MEDIA_TYPE)).isFalse();
+        assertThat(converter.canWrite(bookPage, CountedPage.class, org.springframework.http.MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(converter.canRead(BookDTO.class, CatalogProtobufMessageConverter.MEDIA_TYPE)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve escrever a página de empréstimos conforme a mensagem LoanPage")
+    public void writeLoanPageTest() throws Exception {
+        //cenário
+        BookDTO book = BookDTO.builder().id(7L).title("As Aventuras").author("Arthur").isbn("321").build();
+        List<LoanDTO> loans = Arrays.asList(
+                LoanDTO.builder().id(1L).isbn("321").customer("Fulano").email("fulano@email.com").book(book).build(),
+                LoanDTO.builder().id(2L).isbn("321").customer("Ciclano").book(book).build());
+        Type loanPage = ResolvableType.forClassWithGenerics(Page.class, LoanDTO.class).getType();
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+
+        //execução
+        converter.write(new CountedPage<>(loans, PageRequest.of(0, 10), 12, false),
+                loanPage, CatalogProtobufMessageConverter.MEDIA_TYPE, output);
+
+        //verificação
+        ProtobufMapper mapper = new ProtobufMapper();
+        JsonNode page = mapper.readerFor(JsonNode.class)
+                .with(CatalogProtobufMessageConverter.loadSchema().forType("LoanPage"))
+                .readValue(output.getBodyAsBytes());
+        assertThat(output.getHeaders().getContentType()).isEqualTo(CatalogProtobufMessageConverter.MEDIA_TYPE);
+        assertThat(page.get("content").size()).isEqualTo(2);
+        assertThat(page.get("content").get(0).get("customer").asText()).isEqualTo("Fulano");
+        assertThat(page.get("content").get(0).get("book").get("title").asText()).isEqualTo("As Aventuras");
+        assertThat(page.get("content").get(1).has("email")).isFalse();
+        assertThat(page.get("totalElements").asLong()).isEqualTo(12);
+        assertThat(page.get("totalPages").asInt()).isEqualTo(2);
+        assertThat(page.get("exactTotal").asBoolean()).isFalse();
+    }
+}
@@ -0,0 +1,89 @@
+package com.ederco.libraryapi.api.limit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GradientLimiterTest {
+
+    @Test
+    @DisplayName("Deve recusar requisições acima do limite sem bloquear")
+    public void rejectAboveLimitTest() {
+        //cenário
+        GradientLimiter limiter = new GradientLimiter("reads", 2, 1, 10);
+
+        //execução
+        boolean first = limiter.tryAcquire();
+        boolean second = limiter.tryAcquire();
+        boolean third = limiter.tryAcquire();
+
+        //verificação
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        assertThat(third).isFalse();
+        assertThat(limiter.getRejected()).isEqualTo(1);
+
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(5), false);
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve aumentar o limite enquanto a latência se mantém estável")
+    public void increaseLimitWithStableLatencyTest() {
+        //cenário
+        GradientLimiter limiter = new GradientLimiter("reads", 10, 5, 100);
+
+        //execução
+        saturate(limiter, 200, TimeUnit.MILLISECONDS.toNanos(5));
+
+        //verificação
+        assertThat(limiter.getLimit()).isGreaterThan(10);
+    }
+
+    @Test
+    @DisplayName("Deve reduzir o limite quando a latência aumenta")
+    public void decreaseLimitWhenLatencyGrowsTest() {
+        //cenário
+        GradientLimiter limiter = new GradientLimiter("reads", 50, 5, 100);
+        saturate(limiter, 20, TimeUnit.MILLISECONDS.toNanos(5));
+        int limitBefore = limiter.getLimit();
+
+        //execução
+        saturate(limiter, 10, TimeUnit.MILLISECONDS.toNanos(100));
+
+        //verificação
+        assertThat(limiter.getLimit()).isLessThan(limitBefore);
+        assertThat(limiter.getLimit()).isGreaterThanOrEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Deve reduzir o limite quando a requisição falha")
+    public void backoffOnFailureTest() {
+        //cenário
+        GradientLimiter limiter = new GradientLimiter("writes", 20, 5, 100);
+
+        //execução
+        limiter.tryAcquire();
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(5), true);
+
+        //verificação
+        assertThat(limiter.getLimit()).isEqualTo(18);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    //Ocupa todas as vagas e libera cada uma com a latência informada
+    private static void saturate(GradientLimiter limiter, int rounds, long rttNanos) {
+        for (int round = 0; round < rounds; round++) {
+            int acquired = 0;
+            while (limiter.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limiter.release(rttNanos, false);
+            }
+        }
+    }
+}
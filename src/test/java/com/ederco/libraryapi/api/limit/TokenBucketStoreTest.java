@@ -0,0 +1,86 @@
+package com.ederco.libraryapi.api.limit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TokenBucketStoreTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    @DisplayName("Deve recusar quando o balde do cliente esvaziar e informar quando tentar de novo")
+    public void rejectWhenEmptyTest() {
+        //cenário
+        TokenBucketStore store = new TokenBucketStore(4, TimeUnit.MINUTES.toNanos(10));
+        long now = 0;
+
+        //execução
+        TokenBucketStore.Decision first = store.tryConsume("book-search:ip:10.0.0.1", 2, 1, now);
+        TokenBucketStore.Decision second = store.tryConsume("book-search:ip:10.0.0.1", 2, 1, now);
+        TokenBucketStore.Decision third = store.tryConsume("book-search:ip:10.0.0.1", 2, 1, now);
+
+        //verificação
+        assertThat(first.allowed()).isTrue();
+        assertThat(first.remaining()).isEqualTo(1);
+        assertThat(second.allowed()).isTrue();
+        assertThat(second.remaining()).isZero();
+        assertThat(third.allowed()).isFalse();
+        assertThat(third.limit()).isEqualTo(2);
+        assertThat(third.retryAfterSeconds()).isEqualTo(1);
+        assertThat(third.resetSeconds()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve repor os tokens com o tempo sem passar da capacidade")
+    public void refillTest() {
+        //cenário
+        TokenBucketStore store = new TokenBucketStore(4, TimeUnit.MINUTES.toNanos(10));
+        store.tryConsume("key", 2, 1, 0);
+        store.tryConsume("key", 2, 1, 0);
+
+        //execução
+        TokenBucketStore.Decision afterOneSecond = store.tryConsume("key", 2, 1, SECOND);
+        TokenBucketStore.Decision afterOneMinute = store.tryConsume("key", 2, 1, 60 * SECOND);
+
+        //verificação
+        assertThat(afterOneSecond.allowed()).isTrue();
+        assertThat(afterOneMinute.allowed()).isTrue();
+        assertThat(afterOneMinute.remaining()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve manter um balde separado por cliente")
+    public void separateClientsTest() {
+        //cenário
+        TokenBucketStore store = new TokenBucketStore(4, TimeUnit.MINUTES.toNanos(10));
+        store.tryConsume("book-search:ip:10.0.0.1", 1, 1, 0);
+
+        //execução
+        TokenBucketStore.Decision sameClient = store.tryConsume("book-search:ip:10.0.0.1", 1, 1, 0);
+        TokenBucketStore.Decision otherClient = store.tryConsume("book-search:key:partner", 1, 1, 0);
+
+        //verificação
+        assertThat(sameClient.allowed()).isFalse();
+        assertThat(otherClient.allowed()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve remover os baldes parados")
+    public void evictIdleBucketsTest() {
+        //cenário: uma única stripe para que o próximo acesso varra todos os baldes
+        TokenBucketStore store = new TokenBucketStore(1, SECOND);
+        long start = System.nanoTime();
+        store.tryConsume("a", 10, 1, start);
+        store.tryConsume("b", 10, 1, start);
+
+        //execução
+        store.tryConsume("c", 10, 1, start + 5 * SECOND);
+
+        //verificação
+        assertThat(store.size()).isEqualTo(1);
+    }
+}
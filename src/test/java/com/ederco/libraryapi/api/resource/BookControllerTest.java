@@ -1,9 +1,14 @@
 package com.ederco.libraryapi.api.resource;
 
 import com.ederco.libraryapi.api.dto.BookDTO;
+import com.ederco.libraryapi.api.json.JsonPageMessageConverter;
 import com.ederco.libraryapi.exception.BusinessException;
 import com.ederco.libraryapi.model.entity.Book;
 import com.ederco.libraryapi.service.BookService;
+import com.ederco.libraryapi.service.LoanService;
+import com.ederco.libraryapi.service.cache.CountedPage;
+import com.ederco.libraryapi.service.changes.BookChanges;
+import com.ederco.libraryapi.service.snapshot.ActiveLoanIndex;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
@@ -25,7 +30,9 @@ import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilde
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
@@ -46,6 +53,12 @@ public class BookControllerTest {
     @MockBean
     BookService service;
 
+    @MockBean
+    LoanService loanService;
+
+    @MockBean
+    ActiveLoanIndex activeLoans;
+
     @Test
     @DisplayName("Deve criar um livro com sucesso")
     public void createBookTest() throws Exception {
@@ -131,6 +144,7 @@ public class BookControllerTest {
                 .isbn(createNewBook().getIsbn())
                 .build();
         BDDMockito.given(service.getById(id)).willReturn(Optional.of(book));
+        BDDMockito.given(activeLoans.available(id)).willReturn(false);
 
         //execução (when)
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
@@ -144,7 +158,8 @@ public class BookControllerTest {
                 .andExpect(jsonPath("id").value(id))
                 .andExpect(jsonPath("title").value(createNewBook().getTitle()))
                 .andExpect(jsonPath("author").value(createNewBook().getAuthor()))
-                .andExpect(jsonPath("isbn").value(createNewBook().getIsbn()));
+                .andExpect(jsonPath("isbn").value(createNewBook().getIsbn()))
+                .andExpect(jsonPath("available").value(false));
     }
 
     @Test
@@ -290,6 +305,8 @@ public class BookControllerTest {
                 //o segundo parãmetro do PageImpl é o "PageRequest.of" e
                 //o terceiro parãmetro é o total de registros "total"
                 .willReturn(new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0, 100),1));
+        //índice ainda não carregado: a disponibilidade fica de fora
+        BDDMockito.given(activeLoans.available(id)).willReturn(null);
 
         //O ponto de interrogação quer dizer que vamos receber algum parâmetro via GET e
         //o "&" significa que virá mais parâmetros
@@ -306,11 +323,125 @@ public class BookControllerTest {
                 .perform(request)
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("content[0].available").doesNotExist())
                 .andExpect(jsonPath("totalElements").value(1))
                 .andExpect(jsonPath("pageable.pageSize").value(100))
                 .andExpect(jsonPath("pageable.pageNumber").value(0));
     }
 
+    @Test
+    @DisplayName("Deve filtrar livros escrevendo a página direto das entidades")
+    public void findStreamedBooksTest() throws Exception {
+        //cenário
+        Book book = Book.builder().id(11L).title("As Aventuras").author("Arthur").isbn("1213213").build();
+        BDDMockito.given(service.find(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .willReturn(new CountedPage<Book>(Arrays.asList(book), PageRequest.of(0, 100), 1, false));
+
+        //execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?title=Aventuras&page=0&size=100"))
+                .accept(JsonPageMessageConverter.MEDIA_TYPE);
+
+        //verificação
+        mvc
+                .perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("content[0].id").value(11))
+                .andExpect(jsonPath("content[0].title").value("As Aventuras"))
+                .andExpect(jsonPath("content[0].author").value("Arthur"))
+                .andExpect(jsonPath("content[0].isbn").value("1213213"))
+                .andExpect(jsonPath("totalElements").value(1))
+                .andExpect(jsonPath("totalPages").value(1))
+                .andExpect(jsonPath("size").value(100))
+                .andExpect(jsonPath("exactTotal").value(false))
+                .andExpect(jsonPath("sort").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros retornando só os campos pedidos")
+    public void findBookFieldsTest() throws Exception {
+        //cenário
+        Book book = Book.builder().id(11L).title("As Aventuras").build();
+        BDDMockito.given(service.findFields(Mockito.any(Book.class), Mockito.anySet(), Mockito.any(Pageable.class)))
+                .willReturn(new CountedPage<Book>(Arrays.asList(book), PageRequest.of(0, 100), 1, false));
+
+        //execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?title=Aventuras&fields=title,id&page=0&size=100"))
+                .accept(APPLICATION_JSON);
+
+        //verificação
+        mvc
+                .perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("content[0].id").value(11))
+                .andExpect(jsonPath("content[0].title").value("As Aventuras"))
+                .andExpect(jsonPath("content[0].author").doesNotExist())
+                .andExpect(jsonPath("content[0].isbn").doesNotExist())
+                .andExpect(jsonPath("totalElements").value(1));
+        Mockito.verify(service).findFields(Mockito.any(Book.class), Mockito.eq(Set.of("id", "title")), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro ao pedir um campo que não existe")
+    public void findBookUnknownFieldTest() throws Exception {
+        //execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?fields=title,loans"))
+                .accept(APPLICATION_JSON);
+
+        //verificação
+        mvc
+                .perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("Unknown field: loans"));
+        Mockito.verify(service, Mockito.never()).findFields(Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Deve listar as alterações de livros depois do token")
+    public void bookChangesTest() throws Exception {
+        //cenário
+        Book book = Book.builder().id(11L).title("As Aventuras").author("Arthur").isbn("1213213").build();
+        BookChanges changes = new BookChanges(List.of(
+                new BookChanges.Change(41, 11, book),
+                new BookChanges.Change(42, 5, null)), 42, false);
+        BDDMockito.given(service.getChanges(40)).willReturn(changes);
+
+        //execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/changes?since=40"))
+                .accept(APPLICATION_JSON);
+
+        //verificação
+        mvc
+                .perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("changes", Matchers.hasSize(2)))
+                .andExpect(jsonPath("changes[0].op").value("upsert"))
+                .andExpect(jsonPath("changes[0].book.title").value("As Aventuras"))
+                .andExpect(jsonPath("changes[1].op").value("delete"))
+                .andExpect(jsonPath("changes[1].id").value(5))
+                .andExpect(jsonPath("changes[1].book").doesNotExist())
+                .andExpect(jsonPath("next").value("42"))
+                .andExpect(jsonPath("hasMore").value(false));
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro para um token de alterações inválido")
+    public void invalidChangeTokenTest() throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/changes?since=abc"))
+                .accept(APPLICATION_JSON);
+
+        mvc
+                .perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("Invalid change token"));
+    }
+
 
     private static BookDTO createNewBook() {
         return BookDTO
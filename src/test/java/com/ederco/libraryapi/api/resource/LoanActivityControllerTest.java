@@ -0,0 +1,144 @@
+package com.ederco.libraryapi.api.resource;
+
+import com.ederco.libraryapi.service.activity.LoanActivityBus;
+import com.ederco.libraryapi.service.activity.LoanActivityEvent;
+import com.ederco.libraryapi.service.outbox.Outbox;
+import com.ederco.libraryapi.service.outbox.OutboxMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = LoanActivityController.class)
+@Import({LoanActivityBus.class, LoanActivityControllerTest.Metrics.class})
+@AutoConfigureMockMvc
+public class LoanActivityControllerTest {
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    LoanActivityBus loanActivityBus;
+
+    @Test
+    @DisplayName("Deve enviar os eventos de empréstimo publicados depois da conexão")
+    public void streamLiveEventsTest() throws Exception {
+        //cenário
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(LoanActivityController.STREAM_PATH)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //execução
+        loanActivityBus.publish(1, LoanActivityEvent.CREATED, "{\"id\":1,\"customer\":\"Fulano\"}");
+
+        //verificação
+        String content = awaitContent(result, "loan-created");
+        assertThat(content).contains("event:loan-created");
+        assertThat(content).contains("data:{\"id\":1,\"customer\":\"Fulano\"}");
+    }
+
+    @Test
+    @DisplayName("Deve reenviar os eventos posteriores ao Last-Event-ID ao reconectar")
+    public void resumeFromLastEventIdTest() throws Exception {
+        //cenário
+        LoanActivityEvent created = loanActivityBus.publish(11, LoanActivityEvent.CREATED, "{\"id\":10}");
+        LoanActivityEvent returned = loanActivityBus.publish(12, LoanActivityEvent.RETURNED, "{\"id\":10}");
+
+        //execução
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(LoanActivityController.STREAM_PATH)
+                        .header("Last-Event-ID", created.id())
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //verificação
+        String content = awaitContent(result, "loan-returned");
+        assertThat(content).contains("id:" + returned.id());
+        assertThat(content).doesNotContain("event:loan-created");
+    }
+
+    @Test
+    @DisplayName("Deve usar o id do outbox e ignorar a reentrega da mesma mensagem")
+    public void redeliveredOutboxMessageTest() throws Exception {
+        //cenário
+        LoanActivityEvent created = loanActivityBus.publish(20, LoanActivityEvent.CREATED, "{\"id\":20}");
+        OutboxMessage message = new OutboxMessage(21L, Outbox.LOAN, 20L, Outbox.EventType.LOAN_OVERDUE.name(),
+                "{\"id\":20}", Instant.now());
+        loanActivityBus.onOutboxMessage(message);
+
+        //execução
+        loanActivityBus.onOutboxMessage(message);
+        LoanActivityEvent redelivered = loanActivityBus.publish(21, LoanActivityEvent.OVERDUE, "{\"id\":20}");
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(LoanActivityController.STREAM_PATH)
+                        .header("Last-Event-ID", created.id())
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //verificação
+        String content = awaitContent(result, "loan-overdue");
+        assertThat(redelivered).isNull();
+        assertThat(content).contains("id:21");
+        assertThat(content.indexOf("event:loan-overdue")).isEqualTo(content.lastIndexOf("event:loan-overdue"));
+    }
+
+    @Test
+    @DisplayName("Deve enviar um loan-reset quando o Last-Event-ID não está mais no histórico")
+    public void resetWhenLastEventIdIsGoneTest() throws Exception {
+        //cenário
+        LoanActivityEvent newest = loanActivityBus.publish(31, LoanActivityEvent.CREATED, "{\"id\":30}");
+
+        //execução
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(LoanActivityController.STREAM_PATH)
+                        .header("Last-Event-ID", 5)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //verificação: o cliente recarrega e continua a partir do último evento do histórico
+        String content = awaitContent(result, "loan-reset");
+        assertThat(content).contains("event:loan-reset");
+        assertThat(content).contains("id:" + newest.id());
+        assertThat(content).contains("data:{\"lastEventId\":5}");
+        assertThat(content).doesNotContain("event:loan-created");
+    }
+
+    private static String awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String content = result.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            content = result.getResponse().getContentAsString();
+        }
+        return content;
+    }
+}
@@ -3,12 +3,16 @@ package com.ederco.libraryapi.api.resource;
 import com.ederco.libraryapi.api.dto.LoanDTO;
 import com.ederco.libraryapi.api.dto.LoanFilterDTO;
 import com.ederco.libraryapi.api.dto.ReturnedLoanDTO;
+import com.ederco.libraryapi.api.json.JsonPageMessageConverter;
 import com.ederco.libraryapi.exception.BusinessException;
+import com.ederco.libraryapi.exception.ServiceOverloadedException;
 import com.ederco.libraryapi.model.entity.Book;
 import com.ederco.libraryapi.model.entity.Loan;
 import com.ederco.libraryapi.service.BookService;
 import com.ederco.libraryapi.service.LoanService;
 import com.ederco.libraryapi.service.LoanServiceTest;
+import com.ederco.libraryapi.service.LoanSubmissionService;
+import com.ederco.libraryapi.service.submission.LoanRequest;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
@@ -53,6 +57,8 @@ public class LoanControllerTest {
     private BookService bookService;
     @MockBean
     private LoanService loanService;
+    @MockBean
+    private LoanSubmissionService loanSubmissionService;
 
     @Test
     @DisplayName("Deve realizar um empréstimo")
@@ -243,4 +249,172 @@ public class LoanControllerTest {
                 .andExpect(jsonPath("pageable.pageNumber").value(0));
     }
 
+    @Test
+    @DisplayName("Deve filtrar empréstimos escrevendo a página direto das entidades")
+    public void findStreamedLoansTest() throws Exception {
+        //cenário
+        Loan loan = LoanServiceTest.createLoan();
+        loan.setId(1l);
+        loan.setBook(Book.builder().id(1l).title("As Aventuras").isbn("321").build());
+        BDDMockito.given(loanService.find(Mockito.any(LoanFilterDTO.class), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<Loan>(Arrays.asList(loan), PageRequest.of(0, 10), 1));
+
+        //execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(LOAN_API.concat("?isbn=321&page=0&size=10"))
+                .accept(JsonPageMessageConverter.MEDIA_TYPE);
+
+        //verificação
+        mvc
+                .perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(JsonPageMessageConverter.MEDIA_TYPE))
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("content[0].id").value(1))
+                .andExpect(jsonPath("content[0].isbn").value("321"))
+                .andExpect(jsonPath("content[0].customer").value(loan.getCustomer()))
+                .andExpect(jsonPath("content[0].book.title").value("As Aventuras"))
+                .andExpect(jsonPath("totalElements").value(1))
+                .andExpect(jsonPath("size").value(10))
+                .andExpect(jsonPath("page").value(0))
+                .andExpect(jsonPath("exactTotal").value(true))
+                .andExpect(jsonPath("pageable").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Deve filtrar empréstimos enviando cada livro uma única vez")
+    public void findNormalizedLoansTest() throws Exception {
+        //cenário
+        Book book = Book.builder().id(7l).title("As Aventuras").isbn("321").build();
+        Loan first = Loan.builder().id(1l).customer("Fulano").book(book).build();
+        Loan second = Loan.builder().id(2l).customer("Ciclano").book(book).build();
+        BDDMockito.given(loanService.find(Mockito.any(LoanFilterDTO.class), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<Loan>(Arrays.asList(first, second), PageRequest.of(0, 10), 2));
+
+        //execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(LOAN_API.concat("?isbn=321&shape=normalized&page=0&size=10"))
+                .accept(APPLICATION_JSON);
+
+        //verificação
+        mvc
+                .perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(APPLICATION_JSON))
+                .andExpect(jsonPath("content", Matchers.hasSize(2)))
+                .andExpect(jsonPath("content[0].bookId").value(7))
+                .andExpect(jsonPath("content[1].bookId").value(7))
+                .andExpect(jsonPath("content[0].book").doesNotExist())
+                .andExpect(jsonPath("books.*", Matchers.hasSize(1)))
+                .andExpect(jsonPath("books['7'].title").value("As Aventuras"))
+                .andExpect(jsonPath("totalElements").value(2));
+    }
+
+    @Test
+    @DisplayName("Deve aceitar um empréstimo assíncrono e informar onde acompanhar o pedido")
+    public void submitLoanAsyncTest() throws Exception {
+        //cenário
+        LoanDTO dto = LoanDTO.builder().isbn("123").customer("Fulano").build();
+        String json = new ObjectMapper().writeValueAsString(dto);
+        LoanRequest loanRequest = new LoanRequest(dto);
+        BDDMockito.given(loanSubmissionService.submit(Mockito.any(LoanDTO.class))).willReturn(loanRequest);
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(LOAN_API)
+                .header("Prefer", "respond-async")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc
+                .perform(request)
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", Matchers.endsWith(LOAN_API + "/requests/" + loanRequest.getId())))
+                .andExpect(jsonPath("id").value(loanRequest.getId()))
+                .andExpect(jsonPath("status").value("PENDING"));
+
+        Mockito.verify(loanService, Mockito.never()).save(Mockito.any(Loan.class));
+    }
+
+    @Test
+    @DisplayName("Deve aceitar o empréstimo assíncrono quando o Prefer tiver outras preferências")
+    public void submitLoanAsyncWithPreferenceListTest() throws Exception {
+        //cenário
+        LoanDTO dto = LoanDTO.builder().isbn("123").customer("Fulano").build();
+        LoanRequest loanRequest = new LoanRequest(dto);
+        BDDMockito.given(loanSubmissionService.submit(Mockito.any(LoanDTO.class))).willReturn(loanRequest);
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(LOAN_API)
+                .header("Prefer", "respond-async, wait=10")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(dto));
+
+        //execução e verificação
+        mvc
+                .perform(request)
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("id").value(loanRequest.getId()));
+    }
+
+    @Test
+    @DisplayName("Deve criar o empréstimo na hora quando o Prefer não pedir respond-async")
+    public void createLoanWithOtherPreferenceTest() throws Exception {
+        //cenário
+        LoanDTO dto = LoanDTO.builder().isbn("123").customer("Fulano").build();
+        Book book = Book.builder().id(1l).isbn("123").build();
+        BDDMockito.given(bookService.getBookByIsbn("123")).willReturn(Optional.of(book));
+        BDDMockito.given(loanService.save(Mockito.any(Loan.class)))
+                .willReturn(Loan.builder().id(1l).customer("Fulano").book(book).loanDate(LocalDate.now()).build());
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(LOAN_API)
+                .header("Prefer", "return=minimal")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(dto));
+
+        //execução e verificação
+        mvc
+                .perform(request)
+                .andExpect(status().isCreated())
+                .andExpect(content().string("1"));
+
+        Mockito.verify(loanSubmissionService, Mockito.never()).submit(Mockito.any(LoanDTO.class));
+    }
+
+    @Test
+    @DisplayName("Deve retornar 503 com Retry-After quando a fila de empréstimos estiver cheia")
+    public void submitLoanAsyncOverloadedTest() throws Exception {
+        //cenário
+        String json = new ObjectMapper().writeValueAsString(LoanDTO.builder().isbn("123").customer("Fulano").build());
+        BDDMockito.given(loanSubmissionService.submit(Mockito.any(LoanDTO.class)))
+                .willThrow(new ServiceOverloadedException("Loan submission queue is full", 2));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(LOAN_API)
+                .header("Prefer", "respond-async")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc
+                .perform(request)
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"))
+                .andExpect(jsonPath("errors[0]").value("Loan submission queue is full"));
+    }
+
+    @Test
+    @DisplayName("Deve consultar o status de um pedido de empréstimo assíncrono")
+    public void getLoanRequestTest() throws Exception {
+        //cenário
+        LoanRequest loanRequest = new LoanRequest(LoanDTO.builder().isbn("123").customer("Fulano").build());
+        loanRequest.created(10l);
+        BDDMockito.given(loanSubmissionService.getRequest(loanRequest.getId())).willReturn(Optional.of(loanRequest));
+
+        mvc
+                .perform(MockMvcRequestBuilders.get(LOAN_API + "/requests/" + loanRequest.getId()).accept(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("status").value("CREATED"))
+                .andExpect(jsonPath("loanId").value(10));
+    }
+
 }
@@ -0,0 +1,99 @@
+package com.ederco.libraryapi.api.resource;
+
+import com.ederco.libraryapi.model.entity.Book;
+import com.ederco.libraryapi.model.repository.ReactiveCatalogRepository;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = ReactiveCatalogController.class)
+@AutoConfigureMockMvc
+public class ReactiveCatalogControllerTest {
+
+    static final String REACTIVE_API = "/api/reactive";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    ReactiveCatalogRepository repository;
+
+    @Test
+    @DisplayName("Deve obter um livro pelo id de forma assíncrona")
+    public void getBookTest() throws Exception {
+        //cenário
+        Book book = Book.builder().id(1l).title("As aventuras").author("Artur").isbn("001").build();
+        BDDMockito.given(repository.findBookById(1l)).willReturn(Mono.just(book));
+
+        //execução
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(REACTIVE_API + "/books/1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //verificação
+        mvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("id").value(1))
+                .andExpect(jsonPath("title").value("As aventuras"))
+                .andExpect(jsonPath("isbn").value("001"));
+    }
+
+    @Test
+    @DisplayName("Deve retornar resource not found quando o livro não existir")
+    public void bookNotFoundTest() throws Exception {
+        //cenário
+        BDDMockito.given(repository.findBookById(Mockito.anyLong())).willReturn(Mono.empty());
+
+        //execução
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(REACTIVE_API + "/books/1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn();
+
+        //verificação
+        mvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros de forma assíncrona")
+    public void findBooksTest() throws Exception {
+        //cenário
+        Book book = Book.builder().id(1l).title("As aventuras").author("Artur").isbn("001").build();
+        BDDMockito.given(repository.findBooks(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .willReturn(Flux.just(book));
+        BDDMockito.given(repository.countBooks(Mockito.any(Book.class))).willReturn(Mono.just(1l));
+
+        //execução
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(REACTIVE_API + "/books?title=aventuras&page=0&size=100")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn();
+
+        //verificação
+        mvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("totalElements").value(1))
+                .andExpect(jsonPath("pageable.pageSize").value(100));
+    }
+}
@@ -0,0 +1,64 @@
+package com.ederco.libraryapi.api.resource;
+
+import com.ederco.libraryapi.model.entity.Book;
+import com.ederco.libraryapi.model.entity.Loan;
+import com.ederco.libraryapi.model.repository.LoanFilter;
+import com.ederco.libraryapi.model.repository.ReactiveCatalogRepository;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = ReactiveLoanController.class)
+@AutoConfigureMockMvc
+public class ReactiveLoanControllerTest {
+
+    static final String REACTIVE_API = "/api/reactive";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    ReactiveCatalogRepository repository;
+
+    @Test
+    @DisplayName("Deve enviar os empréstimos filtrados como NDJSON")
+    public void streamLoansTest() throws Exception {
+        //cenário
+        Book book = Book.builder().id(1l).isbn("321").build();
+        Loan loan = Loan.builder().id(1l).customer("Fulano").book(book).loanDate(LocalDate.now()).build();
+        BDDMockito.given(repository.findLoans(Mockito.eq(LoanFilter.byIsbn("321")), Mockito.any(Pageable.class)))
+                .willReturn(Flux.just(loan, loan));
+
+        //execução
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(REACTIVE_API + "/loans?isbn=321&page=0&size=10")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        //verificação
+        mvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(Matchers.containsString("\"customer\":\"Fulano\"")));
+    }
+}
@@ -0,0 +1,54 @@
+package com.ederco.libraryapi.benchmark;
+
+import java.util.Arrays;
+
+//Utilitários simples para os benchmarks (testes com @Tag("benchmark")) ,
+//executados com: mvn test -Pbenchmark
+public final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    public static int intProperty(String name, int defaultValue) {
+        return Integer.getInteger(name, defaultValue);
+    }
+
+    public static Result measure(String name, int warmup, int iterations, Runnable action) {
+        for (int i = 0; i < warmup; i++) {
+            action.run();
+        }
+        long[] nanos = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            action.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Result result = Result.of(name, nanos);
+        System.out.println(result);
+        return result;
+    }
+
+    public record Result(String name, int samples, double avgMicros, double p50Micros, double p99Micros) {
+
+        public static Result of(String name, long[] nanos) {
+            long[] sorted = nanos.clone();
+            Arrays.sort(sorted);
+            double avg = Arrays.stream(sorted).average().orElse(0) / 1_000d;
+            return new Result(name, sorted.length, avg, percentile(sorted, 0.50), percentile(sorted, 0.99));
+        }
+
+        private static double percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1_000d;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-40s samples=%-8d avg=%10.1fus p50=%10.1fus p99=%10.1fus",
+                    name, samples, avgMicros, p50Micros, p99Micros);
+        }
+    }
+}
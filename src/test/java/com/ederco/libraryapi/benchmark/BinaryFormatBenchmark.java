@@ -0,0 +1,85 @@
+package com.ederco.libraryapi.benchmark;
+
+import com.ederco.libraryapi.api.binary.CatalogProtobufMessageConverter;
+import com.ederco.libraryapi.api.binary.ProtoPage;
+import com.ederco.libraryapi.api.dto.BookDTO;
+import com.ederco.libraryapi.api.dto.LoanDTO;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.ederco.libraryapi.benchmark.BenchmarkSupport.intProperty;
+import static com.ederco.libraryapi.benchmark.BenchmarkSupport.measure;
+
+//Tamanho , tempo de escrita (servidor) e de leitura (cliente) de uma página de LoanDTO
+//em JSON , CBOR , Smile e Protobuf. Quantidades: -Dbenchmark.page-size=... -Dbenchmark.iterations=...
+@Tag("benchmark")
+public class BinaryFormatBenchmark {
+
+    @Test
+    @DisplayName("Benchmark: JSON x CBOR x Smile x Protobuf para uma página de empréstimos")
+    public void formats() {
+        int pageSize = intProperty("benchmark.page-size", 1_000);
+        int iterations = intProperty("benchmark.iterations", 2_000);
+        ProtoPage page = ProtoPage.of(new PageImpl<>(loans(pageSize), PageRequest.of(0, pageSize), 50_000));
+
+        ProtobufSchema schema = CatalogProtobufMessageConverter.loadSchema().forType("LoanPage");
+        ProtobufMapper protobuf = new ProtobufMapper();
+        protobuf.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+        run("json", new ObjectMapper().writer(), new ObjectMapper().readerFor(JsonNode.class), page, iterations);
+        run("cbor", new ObjectMapper(new CBORFactory()).writer(),
+                new ObjectMapper(new CBORFactory()).readerFor(JsonNode.class), page, iterations);
+        run("smile", new ObjectMapper(new SmileFactory()).writer(),
+                new ObjectMapper(new SmileFactory()).readerFor(JsonNode.class), page, iterations);
+        run("protobuf", protobuf.writer(schema), protobuf.readerFor(JsonNode.class).with(schema), page, iterations);
+    }
+
+    private void run(String format, ObjectWriter writer, ObjectReader reader, ProtoPage page, int iterations) {
+        byte[] bytes = write(writer, page);
+        System.out.printf("%-10s %d loans = %d bytes%n", format, page.content().size(), bytes.length);
+        measure(format + " write", 100, iterations, () -> write(writer, page));
+        measure(format + " read", 100, iterations, () -> {
+            try {
+                reader.readValue(bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static byte[] write(ObjectWriter writer, Object value) {
+        try {
+            return writer.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<LoanDTO> loans(int size) {
+        List<LoanDTO> loans = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            BookDTO book = BookDTO.builder().id(id % 50).title("Title of book " + (id % 50))
+                    .author("Author " + (id % 7)).isbn("978-0-306-40615-" + (id % 10)).build();
+            loans.add(LoanDTO.builder().id(id).isbn(book.getIsbn()).customer("customer-" + id)
+                    .email("customer-" + id + "@mail.com").book(book).build());
+        }
+        return loans;
+    }
+}
@@ -0,0 +1,91 @@
+package com.ederco.libraryapi.benchmark;
+
+import com.ederco.libraryapi.model.entity.Book;
+import com.ederco.libraryapi.service.cache.BookCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+
+import static com.ederco.libraryapi.benchmark.BenchmarkSupport.intProperty;
+import static com.ederco.libraryapi.benchmark.BenchmarkSupport.measure;
+
+//Compara o BookCache no heap (LruCache) com o off-heap: uso de heap depois de carregar o catálogo ,
+//pausas de GC durante leituras com lixo de vida curta (como as requisições) e uma coleta completa.
+//Quantidades configuráveis: -Dbenchmark.books=... -Dbenchmark.iterations=...
+//Para o modo heap com milhões de livros use um -Xmx maior.
+@Tag("benchmark")
+public class BookCacheGcBenchmark {
+
+    @Test
+    @DisplayName("Benchmark: pausas de GC com o cache de livros no heap x fora do heap")
+    public void heapVersusOffHeap() {
+        int books = intProperty("benchmark.books", 1_000_000);
+        int iterations = intProperty("benchmark.iterations", 2_000_000);
+
+        run("heap", books, iterations);
+        run("off-heap", books, iterations);
+    }
+
+    private void run(String store, int books, int iterations) {
+        System.gc();
+        long heapBefore = usedHeap();
+
+        //arena de 96 bytes por livro , suficiente para os textos gerados abaixo
+        BookCache cache = new BookCache(books, store, books * 96, new SimpleMeterRegistry());
+        for (long id = 1; id <= books; id++) {
+            cache.put(Book.builder()
+                    .id(id)
+                    .title("Title of the book number " + id)
+                    .author("Author " + (id % 10_000))
+                    .isbn("978" + String.format("%010d", id))
+                    .isbnKey(9780000000000L + id)
+                    .build());
+        }
+        System.gc();
+        long heapAfterLoad = usedHeap() - heapBefore;
+
+        //Leituras aleatórias (hidratação do get/find) + lixo de vida curta
+        Random random = new Random(42);
+        long[] gcBefore = gcTotals();
+        measure("book cache get (" + store + ")", 10_000, iterations, () -> {
+            Book book = cache.get(1L + random.nextInt(books)).orElseThrow();
+            byte[] garbage = new byte[256 + book.getTitle().length()];
+            garbage[0] = 1;
+        });
+        long[] gcDuring = gcTotals();
+
+        long fullStart = System.nanoTime();
+        System.gc();
+        long fullMillis = (System.nanoTime() - fullStart) / 1_000_000;
+
+        System.out.printf("%-10s books=%d heap=%dMB gc.count=%d gc.time=%dms full.gc=%dms%n",
+                store, books, heapAfterLoad / (1024 * 1024),
+                gcDuring[0] - gcBefore[0], gcDuring[1] - gcBefore[1], fullMillis);
+
+        //mantém o cache vivo até aqui
+        cache.evict(1L);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    //{quantidade de coletas , tempo total em ms} somando todos os coletores
+    private static long[] gcTotals() {
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        long count = 0;
+        long time = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            count += Math.max(0, collector.getCollectionCount());
+            time += Math.max(0, collector.getCollectionTime());
+        }
+        return new long[]{count, time};
+    }
+}
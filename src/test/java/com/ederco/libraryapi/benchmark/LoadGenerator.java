@@ -0,0 +1,105 @@
+package com.ederco.libraryapi.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+//Gerador de carga HTTP local usado pelos benchmarks. Cada cliente é uma thread virtual
+//que faz requisições em sequência durante o tempo informado.
+public class LoadGenerator {
+
+    private final String baseUrl;
+    private final HttpClient client;
+
+    public LoadGenerator(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public void seedBooks(int count) throws Exception {
+        for (int i = 1; i <= count; i++) {
+            String json = String.format("{\"title\":\"Title %d\",\"author\":\"Author %d\",\"isbn\":\"isbn-%d\"}", i, i % 100, i);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/books"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(json))
+                    .build();
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+        }
+    }
+
+    public Report run(String name, int concurrency, Duration duration, IntFunction<String> pathForRequest) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicLong sequence = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        List<Future<long[]>> clients = new ArrayList<>(concurrency);
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < concurrency; c++) {
+                clients.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        String path = pathForRequest.apply((int) sequence.getAndIncrement());
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                                .header("Accept", "application/json")
+                                .timeout(Duration.ofSeconds(30))
+                                .GET()
+                                .build();
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - sent;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000d;
+
+        long[] all = clients.stream().map(LoadGenerator::join).flatMapToLong(Arrays::stream).toArray();
+        Report report = new Report(name, all.length, errors.get(), all.length / elapsedSeconds,
+                BenchmarkSupport.Result.of(name, all));
+        System.out.println(report);
+        return report;
+    }
+
+    private static long[] join(Future<long[]> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record Report(String name, long requests, long errors, double throughput, BenchmarkSupport.Result latency) {
+        @Override
+        public String toString() {
+            return String.format("%-30s requests=%-8d errors=%-6d throughput=%9.1f req/s p50=%8.1fms p99=%8.1fms",
+                    name, requests, errors, throughput, latency.p50Micros() / 1_000d, latency.p99Micros() / 1_000d);
+        }
+    }
+}
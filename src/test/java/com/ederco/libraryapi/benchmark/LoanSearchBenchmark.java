@@ -0,0 +1,131 @@
+package com.ederco.libraryapi.benchmark;
+
+import com.ederco.libraryapi.api.dto.LoanFilterDTO;
+import com.ederco.libraryapi.model.entity.Loan;
+import com.ederco.libraryapi.model.repository.JpaLoanStore;
+import com.ederco.libraryapi.model.repository.LoanRepository;
+import com.ederco.libraryapi.service.LoanService;
+import com.ederco.libraryapi.service.cache.CountCache;
+import com.ederco.libraryapi.service.cache.WriteVersions;
+import com.ederco.libraryapi.service.impl.LoanServiceImpl;
+import com.ederco.libraryapi.service.outbox.Outbox;
+import com.ederco.libraryapi.service.popularity.PopularityTracker;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.ederco.libraryapi.benchmark.BenchmarkSupport.intProperty;
+import static com.ederco.libraryapi.benchmark.BenchmarkSupport.measure;
+
+//Compara a antiga busca "isbn OR customer" (join + OR) com as consultas separadas
+//do LoanServiceImpl.find. Quantidades configuráveis: -Dbenchmark.loans=... -Dbenchmark.books=...
+@Tag("benchmark")
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+public class LoanSearchBenchmark {
+
+    private static final int BATCH = 10_000;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    EntityManager entityManager;
+
+    LoanService service;
+
+    int books;
+    int customers;
+    Random random = new Random(42);
+
+    @BeforeEach
+    public void setUp() {
+        books = intProperty("benchmark.books", 100_000);
+        customers = intProperty("benchmark.customers", 200_000);
+        int loans = intProperty("benchmark.loans", 2_000_000);
+
+        //Um CountCache com uma única entrada , para medir as consultas e não o cache
+        WriteVersions writeVersions = new WriteVersions();
+        service = new LoanServiceImpl(new JpaLoanStore(loanRepository), writeVersions, new CountCache(writeVersions, 1),
+                Mockito.mock(Outbox.class), Mockito.mock(PopularityTracker.class));
+
+        List<Object[]> rows = new ArrayList<>(BATCH);
+        for (int id = 1; id <= books; id++) {
+            rows.add(new Object[]{id, "Title " + id, "Author " + (id % 1000), isbn(id)});
+            if (rows.size() == BATCH || id == books) {
+                jdbcTemplate.batchUpdate("insert into book (id, title, author, isbn) values (?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+        Date today = Date.valueOf(LocalDate.now());
+        for (int id = 1; id <= loans; id++) {
+            rows.add(new Object[]{id, customer(id % customers), "c" + id + "@mail.com", 1 + (id % books), today, true});
+            if (rows.size() == BATCH || id == loans) {
+                jdbcTemplate.batchUpdate("insert into loan (id, customer, customer_email, id_book, loan_date, returned) " +
+                        "values (?, ?, ?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+        System.out.printf("LoanSearchBenchmark: %d books, %d loans, %d customers%n", books, loans, customers);
+    }
+
+    @Test
+    @DisplayName("Benchmark: OR entre tabelas x consultas indexadas separadas")
+    public void orJoinVersusSplitQueries() {
+        int iterations = intProperty("benchmark.iterations", 200);
+
+        measure("OR join (isbn + customer)", 10, iterations, () -> {
+            String isbn = isbn(1 + random.nextInt(books));
+            String customer = customer(random.nextInt(customers));
+            entityManager.createQuery("select l from Loan l join l.book b where b.isbn = :isbn or l.customer = :customer", Loan.class)
+                    .setParameter("isbn", isbn)
+                    .setParameter("customer", customer)
+                    .setMaxResults(10)
+                    .getResultList();
+            entityManager.createQuery("select count(l) from Loan l join l.book b where b.isbn = :isbn or l.customer = :customer", Long.class)
+                    .setParameter("isbn", isbn)
+                    .setParameter("customer", customer)
+                    .getSingleResult();
+            entityManager.clear();
+        });
+
+        measure("split: isbn + customer (union)", 10, iterations, () -> search(isbn(1 + random.nextInt(books)), customer(random.nextInt(customers)), null));
+        measure("split: isbn only", 10, iterations, () -> search(isbn(1 + random.nextInt(books)), null, null));
+        measure("split: customer only", 10, iterations, () -> search(null, customer(random.nextInt(customers)), null));
+        measure("split: customer prefix", 10, iterations, () -> search(null, null, customer(random.nextInt(customers)).substring(0, 12)));
+        measure("split: no filter", 10, iterations, () -> search(null, null, null));
+    }
+
+    private void search(String isbn, String customer, String customerPrefix) {
+        service.find(new LoanFilterDTO(isbn, customer, customerPrefix), PageRequest.of(0, 10));
+        entityManager.clear();
+    }
+
+    private static String isbn(int bookId) {
+        return "isbn-" + bookId;
+    }
+
+    private static String customer(int customerId) {
+        return String.format("customer-%06d", customerId);
+    }
+}
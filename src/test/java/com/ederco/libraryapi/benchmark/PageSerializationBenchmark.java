@@ -0,0 +1,96 @@
+package com.ederco.libraryapi.benchmark;
+
+import com.ederco.libraryapi.api.dto.BookDTO;
+import com.ederco.libraryapi.api.dto.LoanDTO;
+import com.ederco.libraryapi.api.json.CatalogJsonWriter;
+import com.ederco.libraryapi.api.json.JsonPage;
+import com.ederco.libraryapi.model.entity.Book;
+import com.ederco.libraryapi.model.entity.Loan;
+import com.ederco.libraryapi.service.cache.CountedPage;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.ederco.libraryapi.benchmark.BenchmarkSupport.intProperty;
+import static com.ederco.libraryapi.benchmark.BenchmarkSupport.measure;
+
+//Bytes alocados por resposta de GET /api/loans: DTOs + ModelMapper + PageImpl + Jackson reflexivo
+//x JsonPage escrita direto das entidades. Quantidades: -Dbenchmark.page-size=... -Dbenchmark.iterations=...
+@Tag("benchmark")
+public class PageSerializationBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ModelMapper modelMapper = new ModelMapper();
+    private final OutputStream out = OutputStream.nullOutputStream();
+
+    @Test
+    @DisplayName("Benchmark: bytes alocados por página (DTO + Jackson x JsonPage)")
+    public void dtoVersusStreamed() {
+        int pageSize = intProperty("benchmark.page-size", 100);
+        int iterations = intProperty("benchmark.iterations", 20_000);
+        Page<Loan> page = loans(pageSize);
+
+        report("dto + ObjectMapper", iterations, () -> writeDtoPage(page));
+        report("JsonPage (streamed)", iterations, () -> writeStreamedPage(page));
+    }
+
+    private void report(String name, int iterations, Runnable action) {
+        measure(name, 1_000, iterations, action);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            action.run();
+        }
+        long perResponse = (threads.getCurrentThreadAllocatedBytes() - before) / iterations;
+        System.out.printf("%-40s allocated=%d bytes/response%n", name, perResponse);
+    }
+
+    //O mesmo que LoanController.find faz hoje
+    private void writeDtoPage(Page<Loan> result) {
+        List<LoanDTO> loans = new ArrayList<>();
+        for (Loan entity : result.getContent()) {
+            BookDTO bookDTO = modelMapper.map(entity.getBook(), BookDTO.class);
+            LoanDTO loanDTO = modelMapper.map(entity, LoanDTO.class);
+            loanDTO.setBook(bookDTO);
+            loans.add(loanDTO);
+        }
+        try {
+            objectMapper.writeValue(out, new CountedPage<>(loans, result.getPageable(), result.getTotalElements(), true));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeStreamedPage(Page<Loan> result) {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            new JsonPage<>(result, CatalogJsonWriter::loan).writeTo(generator);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Page<Loan> loans(int pageSize) {
+        List<Loan> content = new ArrayList<>(pageSize);
+        for (long id = 1; id <= pageSize; id++) {
+            Book book = Book.builder().id(id % 10 + 1).title("Title " + (id % 10)).author("Author").isbn("isbn-" + (id % 10)).build();
+            content.add(Loan.builder().id(id).customer("customer-" + id).customerEmail("c" + id + "@mail.com")
+                    .book(book).loanDate(LocalDate.now()).returned(false).build());
+        }
+        return new PageImpl<>(content, PageRequest.of(0, pageSize), 10_000);
+    }
+}
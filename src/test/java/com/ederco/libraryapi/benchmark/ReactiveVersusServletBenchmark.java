@@ -0,0 +1,52 @@
+package com.ederco.libraryapi.benchmark;
+
+import com.ederco.libraryapi.LibraryApiApplication;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.ederco.libraryapi.benchmark.BenchmarkSupport.intProperty;
+
+//Aplica a mesma carga de leitura em /api/books (JPA , bloqueante) e em /api/reactive/books
+//(R2DBC) com poucas threads no Tomcat , comparando vazão e p99.
+//-Dbenchmark.concurrency=... -Dbenchmark.seconds=... -Dbenchmark.tomcatThreads=...
+@Tag("benchmark")
+public class ReactiveVersusServletBenchmark {
+
+    private static final int BOOKS = 500;
+
+    @Test
+    @DisplayName("Benchmark: leituras bloqueantes x leituras reativas")
+    public void servletVersusReactiveReads() throws Exception {
+        int concurrency = intProperty("benchmark.concurrency", 400);
+        int seconds = intProperty("benchmark.seconds", 20);
+        int tomcatThreads = intProperty("benchmark.tomcatThreads", 50);
+
+        List<LoadGenerator.Report> reports = new ArrayList<>();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LibraryApiApplication.class)
+                .properties("server.port=0",
+                        "server.tomcat.threads.max=" + tomcatThreads,
+                        "spring.boot.admin.client.enabled=false")
+                .run()) {
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            LoadGenerator load = new LoadGenerator("http://localhost:" + port);
+            load.seedBooks(BOOKS);
+            for (String api : List.of("/api", "/api/reactive")) {
+                reports.add(load.run(api + "/books", concurrency, Duration.ofSeconds(seconds),
+                        i -> i % 4 == 0
+                                ? api + "/books?title=Title%20" + (i % 50) + "&page=" + (i % 3) + "&size=20"
+                                : api + "/books/" + (1 + i % BOOKS)));
+            }
+        }
+
+        System.out.println("ReactiveVersusServletBenchmark (concurrency=" + concurrency + ", tomcat threads=" + tomcatThreads + ")");
+        reports.forEach(System.out::println);
+    }
+}
@@ -0,0 +1,41 @@
+package com.ederco.libraryapi.model.datasource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+//"Replicação" para testes locais com dois H2: copia o primário inteiro (SCRIPT) para a réplica.
+//Chamar replicate() depois de escrever no primário simula a réplica alcançando o primário.
+public class H2TestReplicator {
+
+    private final DataSource primary;
+    private final DataSource replica;
+
+    public H2TestReplicator(DataSource primary, DataSource replica) {
+        this.primary = primary;
+        this.replica = replica;
+    }
+
+    public void replicate() throws SQLException {
+        List<String> script = new ArrayList<>();
+        try (Connection connection = primary.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("script nopasswords nosettings")) {
+            while (result.next()) {
+                script.add(result.getString(1));
+            }
+        }
+        try (Connection connection = replica.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("drop all objects");
+            for (String sql : script) {
+                if (!sql.startsWith("CREATE USER") && !sql.startsWith("--")) {
+                    statement.execute(sql);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.ederco.libraryapi.model.datasource;
+
+import com.ederco.libraryapi.model.entity.Book;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private SimpleMeterRegistry registry;
+    private ReplicaLagMonitor monitor;
+    private H2TestReplicator replicator;
+    private ReplicaRoutingDataSource routing;
+    private LazyConnectionDataSourceProxy dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate writes;
+    private TransactionTemplate reads;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        String name = UUID.randomUUID().toString();
+        DriverManagerDataSource primary = new DriverManagerDataSource("jdbc:h2:mem:primary-" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        DriverManagerDataSource replica = new DriverManagerDataSource("jdbc:h2:mem:replica-" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        registry = new SimpleMeterRegistry();
+        monitor = new ReplicaLagMonitor(primary, Map.of("replica-0", replica), Duration.ofSeconds(5), registry);
+        monitor.createHeartbeatTable();
+        replicator = new H2TestReplicator(primary, replica);
+
+        routing = new ReplicaRoutingDataSource(monitor, registry);
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(ReplicaRoutingDataSource.PRIMARY, primary);
+        targets.put("replica-0", replica);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        dataSource = new LazyConnectionDataSourceProxy(routing);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        writes = new TransactionTemplate(transactionManager);
+        reads = new TransactionTemplate(transactionManager);
+        reads.setReadOnly(true);
+
+        writes.executeWithoutResult(status -> {
+            jdbcTemplate.execute("create table book (id bigint primary key, title varchar(100))");
+            jdbcTemplate.update("insert into book values (1, 'Aventuras')");
+        });
+        //o heartbeat precisa ser de um milissegundo posterior ao commit
+        Thread.sleep(2);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ReadYourWrites.end();
+    }
+
+    @Test
+    @DisplayName("Deve ler da réplica quando ela já recebeu a última escrita")
+    public void readFromReplicaTest() throws Exception {
+        //cenário
+        monitor.heartbeat();
+        replicator.replicate();
+        monitor.heartbeat();
+
+        //execução
+        Integer count = reads.execute(status -> jdbcTemplate.queryForObject("select count(*) from book", Integer.class));
+
+        //verificação
+        assertThat(count).isEqualTo(1);
+        assertThat(routed("replica-0")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve ler do primário enquanto a réplica não recebeu a última escrita do cliente")
+    public void readYourWritesTest() throws Exception {
+        //cenário: a requisição do cliente que escreveu
+        monitor.heartbeat();
+        replicator.replicate();
+        monitor.heartbeat();
+        AtomicLong token = new AtomicLong();
+        ReadYourWrites.begin(0, token::set);
+        writes.executeWithoutResult(status -> jdbcTemplate.update("insert into book values (2, 'Ação')"));
+
+        //execução
+        Integer beforeReplication = reads.execute(status -> jdbcTemplate.queryForObject("select count(*) from book", Integer.class));
+        Thread.sleep(2);
+        monitor.heartbeat();
+        replicator.replicate();
+        monitor.heartbeat();
+        Integer afterReplication = reads.execute(status -> jdbcTemplate.queryForObject("select count(*) from book", Integer.class));
+
+        //verificação
+        assertThat(token.get()).isEqualTo(routing.lastWriteMillis());
+        assertThat(beforeReplication).isEqualTo(2);
+        assertThat(afterReplication).isEqualTo(2);
+        assertThat(routed("replica-0")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve ler da réplica dentro do max-lag sem o token , sem guardar o resultado nos caches")
+    public void otherClientsReadReplicaTest() throws Exception {
+        //cenário: outro cliente escreveu e a réplica ainda não recebeu
+        monitor.heartbeat();
+        replicator.replicate();
+        monitor.heartbeat();
+        writes.executeWithoutResult(status -> jdbcTemplate.update("insert into book values (2, 'Ação')"));
+
+        //execução
+        ReadYourWrites.begin(0, millis -> { });
+        Integer beforeReplication = reads.execute(status -> jdbcTemplate.queryForObject("select count(*) from book", Integer.class));
+        boolean cacheableBefore = ReadYourWrites.cacheable();
+        Thread.sleep(2);
+        monitor.heartbeat();
+        replicator.replicate();
+        monitor.heartbeat();
+        Integer afterReplication = reads.execute(status -> jdbcTemplate.queryForObject("select count(*) from book", Integer.class));
+
+        //verificação
+        assertThat(beforeReplication).isEqualTo(1);
+        assertThat(cacheableBefore).isFalse();
+        assertThat(afterReplication).isEqualTo(2);
+        assertThat(ReadYourWrites.cacheable()).isTrue();
+        assertThat(routed("replica-0")).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve ler do primário quando a réplica está fora do ar ou sem heartbeat")
+    public void fallbackToPrimaryTest() {
+        //cenário: réplica nunca sincronizada
+        monitor.heartbeat();
+
+        //execução
+        Integer count = reads.execute(status -> jdbcTemplate.queryForObject("select count(*) from book", Integer.class));
+
+        //verificação
+        assertThat(count).isEqualTo(1);
+        assertThat(routed("replica-0")).isZero();
+        assertThat(registry.get("library.datasource.replica.healthy").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Não deve contar como escrita uma leitura fora de transação")
+    public void readOutsideTransactionIsNotAWriteTest() throws Exception {
+        //cenário
+        long lastWrite = routing.lastWriteMillis();
+        Thread.sleep(2);
+
+        //execução
+        jdbcTemplate.queryForObject("select count(*) from book", Integer.class);
+
+        //verificação
+        assertThat(routing.lastWriteMillis()).isEqualTo(lastWrite);
+    }
+
+    @Test
+    @DisplayName("Deve rotear pelo JpaTransactionManager: escrita no primário e leitura read-only na réplica")
+    public void jpaTransactionManagerTest() throws Exception {
+        //cenário
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("com.ederco.libraryapi.model.entity");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "create"));
+        factoryBean.afterPropertiesSet();
+        EntityManagerFactory entityManagerFactory = factoryBean.getObject();
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+        TransactionTemplate jpaWrites = new TransactionTemplate(transactionManager);
+        TransactionTemplate jpaReads = new TransactionTemplate(transactionManager);
+        jpaReads.setReadOnly(true);
+        EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+
+        try {
+            //execução: a réplica ainda não tem o livro
+            ReadYourWrites.begin(0, millis -> { });
+            jpaWrites.executeWithoutResult(status -> entityManager.persist(Book.builder().title("Aventuras").isbn("123").build()));
+            Long beforeReplication = jpaReads.execute(status ->
+                    entityManager.createQuery("select count(b) from Book b", Long.class).getSingleResult());
+            double replicaReadsBefore = routed("replica-0");
+            Thread.sleep(2);
+            monitor.heartbeat();
+            replicator.replicate();
+            monitor.heartbeat();
+            Long afterReplication = jpaReads.execute(status ->
+                    entityManager.createQuery("select count(b) from Book b", Long.class).getSingleResult());
+
+            //verificação
+            assertThat(beforeReplication).isEqualTo(1);
+            assertThat(replicaReadsBefore).isZero();
+            assertThat(afterReplication).isEqualTo(1);
+            assertThat(routed("replica-0")).isEqualTo(1);
+        } finally {
+            factoryBean.destroy();
+        }
+    }
+
+    private double routed(String target) {
+        var counter = registry.find("library.datasource.routed").tag("target", target).counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
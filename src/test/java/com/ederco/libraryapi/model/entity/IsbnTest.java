@@ -0,0 +1,33 @@
+package com.ederco.libraryapi.model.entity;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IsbnTest {
+
+    @Test
+    @DisplayName("Deve gerar a mesma chave para as variações ISBN-10 e ISBN-13")
+    public void sameKeyForVariantsTest() {
+        long key = 9780306406157L;
+
+        assertThat(Isbn.key("978-0-306-40615-7")).isEqualTo(key);
+        assertThat(Isbn.key("9780306406157")).isEqualTo(key);
+        assertThat(Isbn.key("0-306-40615-2")).isEqualTo(key);
+        assertThat(Isbn.key("ISBN 0306406152")).isEqualTo(key);
+        assertThat(Isbn.key("080442957X")).isEqualTo(9780804429573L);
+        assertThat(Isbn.key("979-10-90636-07-1")).isEqualTo(9791090636071L);
+    }
+
+    @Test
+    @DisplayName("Não deve gerar chave para textos que não são ISBN válidos")
+    public void invalidIsbnTest() {
+        assertThat(Isbn.key("123")).isEqualTo(Isbn.NONE);
+        assertThat(Isbn.key("0-306-40615-3")).isEqualTo(Isbn.NONE);
+        assertThat(Isbn.key("9780306406158")).isEqualTo(Isbn.NONE);
+        assertThat(Isbn.key("1234567890123")).isEqualTo(Isbn.NONE);
+        assertThat(Isbn.key("03064X6152")).isEqualTo(Isbn.NONE);
+        assertThat(Isbn.key(null)).isEqualTo(Isbn.NONE);
+    }
+}
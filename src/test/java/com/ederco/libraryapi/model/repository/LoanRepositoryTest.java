@@ -9,8 +9,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -43,21 +44,84 @@ public class LoanRepositoryTest {
 
     }
     @Test
-    @DisplayName(" Deve buscar empréstimo pelo isbn do livro ou customer ")
-    public void findByBookIsbnOrCustomerTest(){
+    @DisplayName(" Deve buscar empréstimo pelo isbn do livro ")
+    public void findSliceByBookIsbnTest(){
         //cenário
         Loan loan = createAndPersistLoan(LocalDate.now());
 
-        Page<Loan> result = loanRepository.findByBookIsbnOrCustomer("123", "Fulano", PageRequest.of(0, 10));
+        Slice<Loan> result = loanRepository.findSliceByBookIsbn("123", PageRequest.of(0, 10));
 
         Assertions.assertThat(result.getContent()).hasSize(1);
         Assertions.assertThat(result.getContent()).contains(loan);
         Assertions.assertThat(result.getPageable().getPageSize()).isEqualTo(10);
         Assertions.assertThat(result.getPageable().getPageNumber()).isEqualTo(0);
-        Assertions.assertThat(result.getTotalElements()).isEqualTo(1);
+        Assertions.assertThat(loanRepository.countByBookIsbn("123")).isEqualTo(1);
 
     }
     @Test
+    @DisplayName(" Deve buscar empréstimos pelo isbn ou pelo customer , sem repetir e paginando no banco ")
+    public void findSliceByIsbnOrCustomerTest(){
+        //cenário
+        Loan byIsbn = persistLoan("123", "Ciclano");
+        Loan byCustomer = persistLoan("456", "Fulano");
+        Loan byBoth = persistLoan("123", "Fulano");
+        persistLoan("999", "Beltrano");
+        entityManager.flush();
+        LoanFilter filter = LoanFilter.byIsbnOrCustomer("123", "Fulano", null);
+
+        //execução
+        Slice<Loan> first = loanRepository.findSliceByIsbnOrCustomer(filter, PageRequest.of(0, 2, Sort.by("id")));
+        Slice<Loan> second = loanRepository.findSliceByIsbnOrCustomer(filter, PageRequest.of(1, 2, Sort.by("id")));
+
+        //verificação
+        Assertions.assertThat(first.getContent()).containsExactly(byIsbn, byCustomer);
+        Assertions.assertThat(first.hasNext()).isTrue();
+        Assertions.assertThat(second.getContent()).containsExactly(byBoth);
+        Assertions.assertThat(second.hasNext()).isFalse();
+        Assertions.assertThat(loanRepository.countByIsbnOrCustomer(filter)).isEqualTo(3);
+        Assertions.assertThat(loanRepository.findFields(filter, List.of("id"), PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "id"))).getContent())
+                .extracting(Loan::getId).containsExactly(byBoth.getId(), byCustomer.getId());
+    }
+    @Test
+    @DisplayName(" Deve buscar empréstimo pelo prefixo do customer ")
+    public void findByCustomerPrefixTest(){
+        //cenário
+        Loan loan = createAndPersistLoan(LocalDate.now());
+
+        Slice<Loan> result = loanRepository.findSliceByCustomerStartingWith("Ful", PageRequest.of(0, 10));
+
+        Assertions.assertThat(result.getContent()).containsExactly(loan);
+        //Na união o prefixo também chega sem escape
+        Assertions.assertThat(loanRepository.countByIsbnOrCustomer(LoanFilter.byIsbnOrCustomer("000", null, "Ful"))).isEqualTo(1);
+        Assertions.assertThat(loanRepository.countByIsbnOrCustomer(LoanFilter.byIsbnOrCustomer("000", null, "F_"))).isZero();
+    }
+    @Test
+    @DisplayName(" Deve buscar só os atributos pedidos do empréstimo e do livro ")
+    public void findFieldsTest(){
+        //cenário
+        Loan loan = createAndPersistLoan(LocalDate.now());
+        entityManager.clear();
+
+        //execução
+        Slice<Loan> result = loanRepository.findFields(
+                LoanFilter.byCustomerPrefix("Ful"), List.of("customer", "book.isbn"), PageRequest.of(0, 10));
+
+        //verificação
+        Assertions.assertThat(result.getContent()).hasSize(1);
+        Loan found = result.getContent().get(0);
+        Assertions.assertThat(found.getCustomer()).isEqualTo("Fulano");
+        Assertions.assertThat(found.getId()).isNull();
+        Assertions.assertThat(found.getLoanDate()).isNull();
+        Assertions.assertThat(found.getBook().getIsbn()).isEqualTo("123");
+        Assertions.assertThat(found.getBook().getTitle()).isNull();
+        Assertions.assertThat(result.hasNext()).isFalse();
+
+        Slice<Loan> withoutBook = loanRepository.findFields(
+                LoanFilter.byIsbn("123"), List.of("id"), PageRequest.of(0, 10));
+        Assertions.assertThat(withoutBook.getContent()).extracting(Loan::getId).containsExactly(loan.getId());
+        Assertions.assertThat(withoutBook.getContent().get(0).getBook()).isNull();
+    }
+    @Test
     @DisplayName("Deve obter empréstimos cuja data empréstimo for menor ou igual a trê dias atrás e não retornados")
     public void findByLoanDateLessThanAndNotReturnedTest(){
         Loan loan = createAndPersistLoan(LocalDate.now().minusDays(5));
@@ -90,5 +154,13 @@ public class LoanRepositoryTest {
         return loan;
     }
 
+    private Loan persistLoan(String isbn, String customer){
+        Book book = createNewBook(isbn);
+        entityManager.persist(book);
+        Loan loan = Loan.builder().book(book).customer(customer).loanDate(LocalDate.now()).build();
+        entityManager.persist(loan);
+        return loan;
+    }
+
 
 }
@@ -0,0 +1,91 @@
+package com.ederco.libraryapi.model.repository;
+
+import com.ederco.libraryapi.exception.BusinessException;
+import com.ederco.libraryapi.model.entity.Book;
+import com.ederco.libraryapi.model.entity.Loan;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+//Contexto completo: o JPA (JDBC) e a API reativa (R2DBC) sobem juntos e leem o mesmo banco
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+public class ReactiveCatalogRepositoryTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private ReactiveCatalogRepository reactiveRepository;
+
+    @AfterEach
+    public void tearDown() {
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve ler pelo R2DBC o livro salvo pelo JPA")
+    public void findBookSavedByJpaTest() {
+        //cenário
+        Book book = bookRepository.save(Book.builder().title("As Aventuras").author("Fulano").isbn("9001").build());
+
+        //execução
+        Book found = reactiveRepository.findBookById(book.getId()).block();
+        Long count = reactiveRepository.countBooks(Book.builder().isbn("9001").build()).block();
+
+        //verificação
+        assertThat(found).isNotNull();
+        assertThat(found.getTitle()).isEqualTo("As Aventuras");
+        assertThat(count).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve filtrar os empréstimos com o mesmo LoanFilter da busca JPA")
+    public void findLoansByIsbnOrCustomerTest() {
+        //cenário
+        Book first = bookRepository.save(Book.builder().title("Um").author("Fulano").isbn("9001").build());
+        Book second = bookRepository.save(Book.builder().title("Dois").author("Fulano").isbn("9002").build());
+        loanRepository.save(Loan.builder().book(first).customer("Ciclano").loanDate(LocalDate.now()).build());
+        loanRepository.save(Loan.builder().book(second).customer("Fulano_1").loanDate(LocalDate.now()).build());
+        loanRepository.save(Loan.builder().book(second).customer("FulanoX").loanDate(LocalDate.now()).build());
+        LoanFilter filter = LoanFilter.of("9001", null, "Fulano_");
+
+        //execução
+        List<Loan> loans = reactiveRepository.findLoans(filter, PageRequest.of(0, 10, Sort.by("customer"))).collectList().block();
+        Long count = reactiveRepository.countLoans(filter).block();
+
+        //verificação: o "_" do prefixo é literal
+        assertThat(loans).extracting(Loan::getCustomer).containsExactly("Ciclano", "Fulano_1");
+        assertThat(count).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve recusar a ordenação por um atributo desconhecido")
+    public void unsupportedSortTest() {
+        //execução
+        Throwable bookError = catchThrowable(() -> reactiveRepository.findBooks(new Book(), PageRequest.of(0, 10, Sort.by("loans"))));
+        Throwable loanError = catchThrowable(() -> reactiveRepository.findLoans(LoanFilter.all(), PageRequest.of(0, 10, Sort.by("book"))));
+
+        //verificação
+        assertThat(bookError).isInstanceOf(BusinessException.class).hasMessage("Unsupported book sort property: loans");
+        assertThat(loanError).isInstanceOf(BusinessException.class).hasMessage("Unsupported loan sort property: book");
+    }
+}
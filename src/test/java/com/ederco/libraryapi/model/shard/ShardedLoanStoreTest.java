@@ -0,0 +1,151 @@
+package com.ederco.libraryapi.model.shard;
+
+import com.ederco.libraryapi.exception.BusinessException;
+import com.ederco.libraryapi.model.entity.Book;
+import com.ederco.libraryapi.model.entity.Loan;
+import com.ederco.libraryapi.model.repository.BookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class ShardedLoanStoreTest {
+
+    private static final int SHARDS = 3;
+
+    private ShardedLoanStore store;
+    private LoanShardRouter router;
+
+    @BeforeEach
+    public void setUp() {
+        String name = UUID.randomUUID().toString();
+        List<DataSource> dataSources = new ArrayList<>();
+        for (int i = 0; i < SHARDS; i++) {
+            dataSources.add(new DriverManagerDataSource("jdbc:h2:mem:shard-" + i + "-" + name + ";DB_CLOSE_DELAY=-1", "sa", ""));
+        }
+        BookRepository bookRepository = Mockito.mock(BookRepository.class);
+        Mockito.when(bookRepository.findAllById(Mockito.anyIterable())).thenReturn(List.of());
+        store = new ShardedLoanStore(dataSources, bookRepository, Executors.newFixedThreadPool(SHARDS), new SimpleMeterRegistry());
+        store.createSchema();
+        router = new LoanShardRouter(SHARDS);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        store.close();
+    }
+
+    @Test
+    @DisplayName("Deve gravar os empréstimos de um livro no shard do livro e buscá-los por id")
+    public void saveAndFindByBookTest() {
+        //cenário
+        Book book = Book.builder().id(7l).isbn("123").build();
+
+        //execução
+        Loan first = store.save(loan(book, "Fulano", LocalDate.now()));
+        Loan second = store.save(loan(book, "Ciclano", LocalDate.now()));
+
+        //verificação
+        assertThat(router.shardOfLoan(first.getId())).isEqualTo(router.shardOfBook(7));
+        assertThat(router.shardOfLoan(second.getId())).isEqualTo(router.shardOfBook(7));
+        assertThat(store.findById(first.getId())).map(Loan::getCustomer).contains("Fulano");
+        assertThat(store.findByBook(book, PageRequest.of(0, 10)).getTotalElements()).isEqualTo(2);
+        assertThat(store.existsByBookAndNotReturned(book)).isTrue();
+
+        first.setReturned(true);
+        second.setReturned(true);
+        store.save(first);
+        store.save(second);
+        assertThat(store.existsByBookAndNotReturned(book)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve buscar em todos os shards e intercalar a ordenação e a paginação")
+    public void scatterGatherPaginationTest() {
+        //cenário: 30 livros espalhados pelos shards , um empréstimo cada
+        for (long id = 1; id <= 30; id++) {
+            store.save(loan(Book.builder().id(id).isbn("isbn-" + id).build(), String.format("Cliente %02d", id), LocalDate.now()));
+        }
+
+        //execução
+        PageRequest secondPage = PageRequest.of(1, 7, Sort.by(Sort.Direction.DESC, "customer"));
+        Slice<Loan> slice = store.findSliceByCustomerStartingWith("Cliente", secondPage);
+        Slice<Loan> last = store.findSliceByCustomerStartingWith("Cliente", PageRequest.of(4, 7, Sort.by("customer")));
+
+        //verificação
+        assertThat(slice.getContent()).extracting(Loan::getCustomer)
+                .containsExactly("Cliente 23", "Cliente 22", "Cliente 21", "Cliente 20", "Cliente 19", "Cliente 18", "Cliente 17");
+        assertThat(slice.hasNext()).isTrue();
+        assertThat(last.getContent()).extracting(Loan::getCustomer).containsExactly("Cliente 29", "Cliente 30");
+        assertThat(last.hasNext()).isFalse();
+        assertThat(store.countByCustomerStartingWith("Cliente")).isEqualTo(30);
+        assertThat(store.count()).isEqualTo(30);
+    }
+
+    @Test
+    @DisplayName("Deve buscar os empréstimos atrasados de todos os shards")
+    public void lateLoansTest() {
+        //cenário
+        store.save(loan(Book.builder().id(1l).isbn("1").build(), "Fulano", LocalDate.now().minusDays(10)));
+        store.save(loan(Book.builder().id(2l).isbn("2").build(), "Ciclano", LocalDate.now().minusDays(6)));
+        store.save(loan(Book.builder().id(3l).isbn("3").build(), "Beltrano", LocalDate.now()));
+        Loan returned = store.save(loan(Book.builder().id(4l).isbn("4").build(), "Devolvido", LocalDate.now().minusDays(8)));
+        returned.setReturned(true);
+        store.save(returned);
+
+        //execução
+        List<Loan> late = store.findByLoanDateLessThanAndNotReturned(LocalDate.now().minusDays(4));
+
+        //verificação
+        assertThat(late).extracting(Loan::getCustomer).containsExactly("Fulano", "Ciclano");
+    }
+
+    @Test
+    @DisplayName("Deve percorrer os empréstimos não devolvidos de todos os shards")
+    public void forEachActiveTest() {
+        //cenário
+        Loan first = store.save(loan(Book.builder().id(1l).isbn("1").build(), "Fulano", LocalDate.now()));
+        Loan second = store.save(loan(Book.builder().id(2l).isbn("2").build(), "Ciclano", LocalDate.now()));
+        Loan returned = store.save(loan(Book.builder().id(3l).isbn("3").build(), "Devolvido", LocalDate.now()));
+        returned.setReturned(true);
+        store.save(returned);
+
+        //execução
+        List<long[]> active = new ArrayList<>();
+        store.forEachActive((loanId, bookId) -> active.add(new long[]{loanId, bookId}));
+
+        //verificação
+        assertThat(active).containsExactlyInAnyOrder(new long[]{first.getId(), 1l}, new long[]{second.getId(), 2l});
+    }
+
+    @Test
+    @DisplayName("Deve recusar com erro de negócio a ordenação por uma propriedade sem coluna nos shards")
+    public void unsupportedSortTest() {
+        //execução
+        Throwable exception = catchThrowable(() -> store.findSliceAll(PageRequest.of(0, 10, Sort.by("book.title"))));
+
+        //verificação
+        assertThat(exception).isInstanceOf(BusinessException.class)
+                .hasMessage("Unsupported loan sort property: book.title");
+    }
+
+    private static Loan loan(Book book, String customer, LocalDate loanDate) {
+        return Loan.builder().book(book).customer(customer).customerEmail(customer + "@mail.com").loanDate(loanDate).build();
+    }
+}
@@ -3,7 +3,17 @@ package com.ederco.libraryapi.service;
 import com.ederco.libraryapi.exception.BusinessException;
 import com.ederco.libraryapi.model.entity.Book;
 import com.ederco.libraryapi.model.repository.BookRepository;
+import com.ederco.libraryapi.service.cache.BookCache;
+import com.ederco.libraryapi.service.cache.BookLookupCoalescer;
+import com.ederco.libraryapi.service.cache.BookSearchCache;
+import com.ederco.libraryapi.service.cache.CountCache;
+import com.ederco.libraryapi.service.cache.CountedPage;
+import com.ederco.libraryapi.service.cache.WriteVersions;
+import com.ederco.libraryapi.service.changes.BookChangeLog;
 import com.ederco.libraryapi.service.impl.BookServiceImpl;
+import com.ederco.libraryapi.service.isbn.IsbnIndex;
+import com.ederco.libraryapi.service.outbox.Outbox;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -15,6 +25,7 @@ import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -32,10 +43,24 @@ public class BookServiceTest {
     BookService service;
     @MockBean
     BookRepository repository;
+    @MockBean
+    Outbox outbox;
+    @MockBean
+    BookChangeLog changeLog;
 
     @BeforeEach
     public void setUp() {
-        this.service = new BookServiceImpl(repository);
+        WriteVersions writeVersions = new WriteVersions();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        this.service = new BookServiceImpl(repository,
+                writeVersions,
+                new CountCache(writeVersions, 100),
+                new BookCache(100, meterRegistry),
+                new BookSearchCache(100, meterRegistry),
+                new BookLookupCoalescer(meterRegistry),
+                outbox,
+                new IsbnIndex(Mockito.mock(JdbcTemplate.class), meterRegistry, 100),
+                changeLog);
     }
 
     private static Book createValidBook() {
@@ -66,6 +91,7 @@ public class BookServiceTest {
         assertThat(savedBook.getIsbn()).isEqualTo("123");
         assertThat(savedBook.getTitle()).isEqualTo("As aventuras");
         assertThat(savedBook.getAuthor()).isEqualTo("Fulano");
+        Mockito.verify(outbox).bookChanged(Outbox.EventType.BOOK_CREATED, savedBook);
 
     }
 
@@ -85,6 +111,7 @@ public class BookServiceTest {
                 .hasMessage("Isbn já cadastrado.");
         //verificando que após o erro o livro não deve ser salvo:
         Mockito.verify(repository, Mockito.never()).save(book);
+        Mockito.verifyNoInteractions(outbox);
 
     }
 
@@ -141,6 +168,8 @@ public class BookServiceTest {
 
         //verificação
         Mockito.verify(repository, Mockito.times(1)).delete(book);
+        //o tombstone vai para a sincronização incremental
+        Mockito.verify(changeLog).bookChanged(1L, true);
     }
 
     @Test
@@ -216,6 +245,116 @@ public class BookServiceTest {
         assertThat(result.getPageable().getPageSize()).isEqualTo(10);
     }
 
+    @Test
+    @DisplayName("Deve usar o total em cache ao buscar outra página do mesmo filtro")
+    public void findBookWithCachedTotalTest() {
+        //cenario
+        Book book = createValidBook();
+        List<Book> lista = Arrays.asList(book);
+        Mockito.when(repository.findAll(Mockito.any(Example.class), Mockito.any(PageRequest.class)))
+                .thenReturn(new PageImpl<>(lista, PageRequest.of(0, 10), 25));
+        Mockito.when(repository.findContent(Mockito.any(Example.class), Mockito.any(PageRequest.class)))
+                .thenReturn(lista);
+
+        //execução
+        Page<Book> first = service.find(book, PageRequest.of(0, 10));
+        Page<Book> second = service.find(book, PageRequest.of(1, 10));
+
+        //verificações
+        assertThat(CountedPage.isExact(first)).isTrue();
+        assertThat(CountedPage.isExact(second)).isFalse();
+        assertThat(second.getTotalElements()).isEqualTo(25);
+        assertThat(second.getContent()).isEqualTo(lista);
+        Mockito.verify(repository, Mockito.times(1)).findAll(Mockito.any(Example.class), Mockito.any(PageRequest.class));
+    }
+
+    @Test
+    @DisplayName("Deve reutilizar os ids da busca em cache e hidratar pelo cache de livros")
+    public void findBookFromSearchCacheTest() {
+        //cenario
+        Book book = createValidBook();
+        book.setId(1L);
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        Mockito.when(repository.findAll(Mockito.any(Example.class), Mockito.any(PageRequest.class)))
+                .thenReturn(new PageImpl<>(Arrays.asList(book), pageRequest, 1));
+
+        //execução
+        service.find(book, pageRequest);
+        Page<Book> result = service.find(book, pageRequest);
+
+        //verificações
+        assertThat(result.getTotalElements()).isEqualTo(1);
+        assertThat(result.getContent()).isEqualTo(Arrays.asList(book));
+        assertThat(CountedPage.isExact(result)).isFalse();
+        Mockito.verify(repository, Mockito.times(1)).findAll(Mockito.any(Example.class), Mockito.any(PageRequest.class));
+        Mockito.verify(repository, Mockito.never()).findContent(Mockito.any(Example.class), Mockito.any(PageRequest.class));
+        Mockito.verify(repository, Mockito.never()).findAllById(Mockito.anyIterable());
+    }
+
+    @Test
+    @DisplayName("Deve obter o livro do cache na segunda consulta por id")
+    public void getByIdFromCacheTest() {
+        //cenário
+        Book book = createValidBook();
+        book.setId(1L);
+        Mockito.when(repository.findById(1L)).thenReturn(Optional.of(book));
+
+        //execução
+        service.getById(1L);
+        Optional<Book> foundBook = service.getById(1L);
+
+        //verificações
+        assertThat(foundBook.isPresent()).isTrue();
+        assertThat(foundBook.get()).isEqualTo(book);
+        Mockito.verify(repository, Mockito.times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Deve contar novamente após uma escrita no livro")
+    public void findBookAfterWriteRecountsTest() {
+        //cenario
+        Book book = createValidBook();
+        book.setId(1L);
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        Mockito.when(repository.findAll(Mockito.any(Example.class), Mockito.any(PageRequest.class)))
+                .thenReturn(new PageImpl<>(Arrays.asList(book), pageRequest, 1));
+        Mockito.when(repository.save(book)).thenReturn(book);
+
+        //execução
+        service.find(book, pageRequest);
+        service.update(book);
+        Page<Book> result = service.find(book, pageRequest);
+
+        //verificações
+        assertThat(CountedPage.isExact(result)).isTrue();
+        Mockito.verify(repository, Mockito.times(2)).findAll(Mockito.any(Example.class), Mockito.any(PageRequest.class));
+    }
+
+    @Test
+    @DisplayName("Deve usar o contador mantido para o total sem filtro")
+    public void findAllBooksUsesRowCounterTest() {
+        //cenario
+        Book book = createValidBook();
+        //página cheia: numa página incompleta o PageImpl recalcula o total a partir do conteúdo
+        PageRequest pageRequest = PageRequest.of(0, 1);
+        Mockito.when(repository.count()).thenReturn(1L);
+        Mockito.when(repository.findContent(Mockito.any(Example.class), Mockito.any(PageRequest.class)))
+                .thenReturn(Arrays.asList(book));
+        Mockito.when(repository.existsByIsbn(Mockito.anyString())).thenReturn(false);
+        Mockito.when(repository.save(Mockito.any(Book.class)))
+                .thenReturn(Book.builder().id(2L).isbn("456").author("Fulano").title("As Aventuras").build());
+
+        //execução
+        service.find(new Book(), pageRequest);
+        service.save(createValidBook());
+        Page<Book> result = service.find(new Book(), pageRequest);
+
+        //verificações
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        assertThat(CountedPage.isExact(result)).isFalse();
+        Mockito.verify(repository, Mockito.times(1)).count();
+    }
+
     @Test
     @DisplayName("Deve obter um livro pelo isbn")
     public void getBookByIsbnTest() {
@@ -236,4 +375,39 @@ public class BookServiceTest {
 
     }
 
+    @Test
+    @DisplayName("Deve obter o livro por qualquer variação do isbn sem consultar o banco")
+    public void getBookByIsbnVariantTest() {
+        //cenário
+        Book book = Book.builder().isbn("978-0-306-40615-7").author("Fulano").title("As Aventuras").build();
+        Mockito.when(repository.save(book)).thenReturn(Book.builder()
+                .id(1L).isbn("978-0-306-40615-7").author("Fulano").title("As Aventuras").build());
+        service.save(book);
+
+        //execução
+        Optional<Book> isbn10 = service.getBookByIsbn("0-306-40615-2");
+        Optional<Book> isbn13 = service.getBookByIsbn("9780306406157");
+
+        //verificação
+        Assertions.assertThat(isbn10.map(Book::getId)).contains(1L);
+        Assertions.assertThat(isbn13.map(Book::getId)).contains(1L);
+        Mockito.verify(repository, Mockito.never()).findByIsbn(Mockito.anyString());
+        Mockito.verify(repository, Mockito.never()).findFirstByIsbnKey(Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Não deve salvar um livro com outra forma de um isbn já cadastrado")
+    public void shouldNotSaveIsbnVariantTest() {
+        //cenário
+        Book book = Book.builder().isbn("0306406152").author("Fulano").title("As Aventuras").build();
+        Mockito.when(repository.existsByIsbn(Mockito.anyString())).thenReturn(false);
+        Mockito.when(repository.existsByIsbnKey(9780306406157L)).thenReturn(true);
+
+        //execução
+        Throwable exception = Assertions.catchThrowable(() -> service.save(book));
+
+        //verificação
+        assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Isbn já cadastrado.");
+        Mockito.verify(repository, Mockito.never()).save(book);
+    }
 }
@@ -4,8 +4,15 @@ import com.ederco.libraryapi.api.dto.LoanFilterDTO;
 import com.ederco.libraryapi.exception.BusinessException;
 import com.ederco.libraryapi.model.entity.Book;
 import com.ederco.libraryapi.model.entity.Loan;
+import com.ederco.libraryapi.model.repository.JpaLoanStore;
+import com.ederco.libraryapi.model.repository.LoanFilter;
 import com.ederco.libraryapi.model.repository.LoanRepository;
+import com.ederco.libraryapi.service.cache.CountCache;
+import com.ederco.libraryapi.service.cache.CountedPage;
+import com.ederco.libraryapi.service.cache.WriteVersions;
 import com.ederco.libraryapi.service.impl.LoanServiceImpl;
+import com.ederco.libraryapi.service.outbox.Outbox;
+import com.ederco.libraryapi.service.popularity.PopularityTracker;
 import org.assertj.core.api.AbstractLongAssert;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,6 +24,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -36,12 +44,18 @@ public class LoanServiceTest {
 //    private LoanRepository repository;
     @MockBean
     LoanRepository repository;
+    @MockBean
+    Outbox outbox;
+    @MockBean
+    PopularityTracker popularity;
 
 //    private LoanService service;
     LoanService service;
     @BeforeEach
     public void setUp(){
-        this.service = new LoanServiceImpl(repository);
+        WriteVersions writeVersions = new WriteVersions();
+        this.service = new LoanServiceImpl(new JpaLoanStore(repository), writeVersions, new CountCache(writeVersions, 100), outbox,
+                popularity);
     }
 
     @Test
@@ -73,6 +87,7 @@ public class LoanServiceTest {
         Assertions.assertThat(loan.getBook().getId()).isEqualTo(savedLoan.getBook().getId());
         Assertions.assertThat(loan.getLoanDate()).isEqualTo(savedLoan.getLoanDate());
         Assertions.assertThat(loan.getCustomer()).isEqualTo(savedLoan.getCustomer());
+        Mockito.verify(popularity).record(1L);
 
     }
     @Test
@@ -133,6 +148,7 @@ public class LoanServiceTest {
 
         Assertions.assertThat(updatedLoan.getReturned()).isTrue();
         verify(repository).save(loan);
+        verify(outbox).loanChanged(Outbox.EventType.LOAN_RETURNED, loan);
 
     }
     @Test
@@ -153,11 +169,10 @@ public class LoanServiceTest {
         List<Loan> lista = Arrays.asList(loan);
         //O PageImpl vai receber 3 parâmetros:
         //Page<Book> page = new PageImpl<Book>(list, pageRequest,1);
-        Page<Loan> page = new PageImpl<Loan>(lista, pageRequest, lista.size());
-        Mockito.when(repository.findByBookIsbnOrCustomer(Mockito.anyString(),
-                        Mockito.anyString(),
-                        Mockito.any(PageRequest.class)))
-                .thenReturn(page);
+        //Com isbn e customer informados , o service pede a união ao repositório
+        LoanFilter union = LoanFilter.byIsbnOrCustomer("321", "Fulano", null);
+        Mockito.when(repository.findSliceByIsbnOrCustomer(union, pageRequest))
+                .thenReturn(new SliceImpl<Loan>(lista, pageRequest, false));
 
         //execução
         Page<Loan> result = service.find(loanFilterDTO, pageRequest);
@@ -169,6 +184,114 @@ public class LoanServiceTest {
         assertThat(result.getPageable().getPageSize()).isEqualTo(10);
     }
 
+    @Test
+    @DisplayName("Deve buscar empréstimos apenas pelo isbn quando o cliente não for informado")
+    public void findLoansByIsbnOnlyTest() {
+        //cenario
+        LoanFilterDTO loanFilterDTO = LoanFilterDTO.builder().isbn("321").build();
+        Loan loan = createLoan();
+        loan.setId(1l);
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        List<Loan> lista = Arrays.asList(loan);
+        when(repository.findSliceByBookIsbn("321", pageRequest)).thenReturn(new SliceImpl<Loan>(lista, pageRequest, false));
+
+        //execução
+        Page<Loan> result = service.find(loanFilterDTO, pageRequest);
+
+        //verificações
+        assertThat(result.getContent()).isEqualTo(lista);
+        assertThat(result.getTotalElements()).isEqualTo(1);
+        verify(repository, never()).findSliceByCustomer(Mockito.any(), Mockito.any(PageRequest.class));
+        verify(repository, never()).countByBookIsbn(Mockito.anyString());
+    }
+
+    @Test
+    @DisplayName("Deve buscar empréstimos pelo prefixo do cliente")
+    public void findLoansByCustomerPrefixTest() {
+        //cenario
+        LoanFilterDTO loanFilterDTO = LoanFilterDTO.builder().customerPrefix("Ful").build();
+        Loan loan = createLoan();
+        loan.setId(1l);
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        List<Loan> lista = Arrays.asList(loan);
+        when(repository.findSliceByCustomerStartingWith("Ful", pageRequest)).thenReturn(new SliceImpl<Loan>(lista, pageRequest, false));
+
+        //execução
+        Page<Loan> result = service.find(loanFilterDTO, pageRequest);
+
+        //verificações
+        assertThat(result.getContent()).isEqualTo(lista);
+        assertThat(result.getTotalElements()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve retornar todos os empréstimos quando nenhum filtro for informado")
+    public void findLoansWithoutFilterTest() {
+        //cenario
+        Loan loan = createLoan();
+        loan.setId(1l);
+        PageRequest pageRequest = PageRequest.of(0, 1);
+        List<Loan> lista = Arrays.asList(loan);
+        when(repository.findSliceAll(pageRequest)).thenReturn(new SliceImpl<Loan>(lista, pageRequest, true));
+        when(repository.count()).thenReturn(3L);
+
+        //execução
+        Page<Loan> result = service.find(new LoanFilterDTO(), pageRequest);
+
+        //verificações
+        assertThat(result.getContent()).isEqualTo(lista);
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        assertThat(CountedPage.isExact(result)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve reutilizar o total em cache até que um empréstimo seja salvo")
+    public void findLoansWithCachedTotalTest() {
+        //cenario
+        LoanFilterDTO loanFilterDTO = LoanFilterDTO.builder()
+                .isbn("321")
+                .build();
+        Loan loan = createLoan();
+        loan.setId(1l);
+        PageRequest pageRequest = PageRequest.of(0, 1);
+        List<Loan> lista = Arrays.asList(loan);
+
+        when(repository.findSliceByBookIsbn("321", pageRequest))
+                .thenReturn(new SliceImpl<Loan>(lista, pageRequest, true));
+        when(repository.countByBookIsbn("321")).thenReturn(15L);
+        when(repository.existsByBookAndNotReturned(Mockito.any(Book.class))).thenReturn(false);
+        when(repository.save(Mockito.any(Loan.class))).thenReturn(loan);
+
+        //execução
+        service.find(loanFilterDTO, pageRequest);
+        Page<Loan> cached = service.find(loanFilterDTO, pageRequest);
+        service.save(createLoan());
+        Page<Loan> recounted = service.find(loanFilterDTO, pageRequest);
+
+        //verificações
+        assertThat(CountedPage.isExact(cached)).isFalse();
+        assertThat(cached.getTotalElements()).isEqualTo(15);
+        assertThat(CountedPage.isExact(recounted)).isTrue();
+        verify(repository, times(2)).countByBookIsbn("321");
+    }
+
+    @Test
+    @DisplayName("Deve gravar um evento de atraso no outbox para cada empréstimo atrasado")
+    public void markOverdueTest() {
+        //cenário
+        Loan first = createLoan();
+        first.setId(1L);
+        Loan second = createLoan();
+        second.setId(2L);
+
+        //execução
+        service.markOverdue(Arrays.asList(first, second));
+
+        //verificação
+        verify(outbox).loanChanged(Outbox.EventType.LOAN_OVERDUE, first);
+        verify(outbox).loanChanged(Outbox.EventType.LOAN_OVERDUE, second);
+    }
+
     public static Loan createLoan(){
         Book book = Book.builder().id(1L).build();
         String customer = "Fulano";
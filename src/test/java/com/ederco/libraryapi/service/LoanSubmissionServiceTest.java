@@ -0,0 +1,155 @@
+package com.ederco.libraryapi.service;
+
+import com.ederco.libraryapi.api.dto.LoanDTO;
+import com.ederco.libraryapi.exception.BusinessException;
+import com.ederco.libraryapi.exception.ServiceOverloadedException;
+import com.ederco.libraryapi.model.entity.Book;
+import com.ederco.libraryapi.model.entity.Loan;
+import com.ederco.libraryapi.service.bulkhead.BulkheadRegistry;
+import com.ederco.libraryapi.service.impl.LoanSubmissionServiceImpl;
+import com.ederco.libraryapi.service.submission.LoanRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class LoanSubmissionServiceTest {
+
+    @MockBean
+    BookService bookService;
+    @MockBean
+    LoanService loanService;
+    @MockBean
+    PlatformTransactionManager transactionManager;
+
+    LoanSubmissionServiceImpl service;
+    BulkheadRegistry bulkheads = new BulkheadRegistry(new SimpleMeterRegistry(), 10, 1, 0, 1, 0, 1, 0);
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        service.stop();
+    }
+
+    @Test
+    @DisplayName("Deve gravar os empréstimos da fila e atualizar o status dos pedidos")
+    public void processQueuedLoansTest() throws InterruptedException {
+        //cenário
+        service = newService(10);
+        Book book = Book.builder().id(1l).isbn("123").build();
+        Mockito.when(bookService.getBookByIsbn("123")).thenReturn(Optional.of(book));
+        Mockito.when(bookService.getBookByIsbn("999")).thenReturn(Optional.empty());
+        Mockito.when(loanService.save(Mockito.any(Loan.class)))
+                .thenReturn(Loan.builder().id(1l).book(book).build())
+                .thenThrow(new BusinessException("Book already loaned"));
+
+        //execução
+        service.start();
+        LoanRequest created = service.submit(LoanDTO.builder().isbn("123").customer("Fulano").build());
+        LoanRequest loaned = service.submit(LoanDTO.builder().isbn("123").customer("Ciclano").build());
+        LoanRequest unknownBook = service.submit(LoanDTO.builder().isbn("999").customer("Beltrano").build());
+        awaitProcessed(created, loaned, unknownBook);
+
+        //verificação
+        assertThat(created.getStatus()).isEqualTo(LoanRequest.Status.CREATED);
+        assertThat(created.getLoanId()).isEqualTo(1l);
+        assertThat(loaned.getStatus()).isEqualTo(LoanRequest.Status.REJECTED);
+        assertThat(loaned.getError()).isEqualTo("Book already loaned");
+        assertThat(unknownBook.getStatus()).isEqualTo(LoanRequest.Status.REJECTED);
+        assertThat(unknownBook.getError()).isEqualTo("Book not found for passed isbn");
+        assertThat(service.getRequest(created.getId())).contains(created);
+    }
+
+    @Test
+    @DisplayName("Deve recusar pedidos quando a fila estiver cheia")
+    public void queueFullTest() {
+        //cenário: sem workers a fila não é consumida
+        service = newService(1);
+        service.submit(LoanDTO.builder().isbn("123").build());
+
+        //execução
+        Throwable exception = catchThrowable(() -> service.submit(LoanDTO.builder().isbn("321").build()));
+
+        //verificação
+        assertThat(exception).isInstanceOf(ServiceOverloadedException.class);
+        assertThat(((ServiceOverloadedException) exception).getRetryAfterSeconds()).isEqualTo(3);
+        Mockito.verify(loanService, Mockito.never()).save(Mockito.any(Loan.class));
+    }
+
+    @Test
+    @DisplayName("Com os empréstimos nos shards , deve gravar cada pedido uma única vez , sem refazer o lote")
+    public void shardedLoansAreNotRetriedTest() throws InterruptedException {
+        //cenário: os dois pedidos entram no mesmo lote
+        service = newService(10, true);
+        Book book = Book.builder().id(1l).isbn("123").build();
+        Mockito.when(bookService.getBookByIsbn("123")).thenReturn(Optional.of(book));
+        Mockito.when(loanService.save(Mockito.any(Loan.class)))
+                .thenReturn(Loan.builder().id(1l).book(book).build())
+                .thenThrow(new IllegalStateException("shard unavailable"));
+        LoanRequest created = service.submit(LoanDTO.builder().isbn("123").customer("Fulano").build());
+        LoanRequest failed = service.submit(LoanDTO.builder().isbn("123").customer("Ciclano").build());
+
+        //execução
+        service.start();
+        awaitProcessed(created, failed);
+
+        //verificação
+        assertThat(created.getStatus()).isEqualTo(LoanRequest.Status.CREATED);
+        assertThat(failed.getStatus()).isEqualTo(LoanRequest.Status.REJECTED);
+        Mockito.verify(loanService, Mockito.times(2)).save(Mockito.any(Loan.class));
+    }
+
+    @Test
+    @DisplayName("Deve esperar a vaga de gravação antes de abrir a transação do lote")
+    public void waitForLoanWritePermitTest() throws InterruptedException {
+        //cenário: a única vaga de gravação de empréstimos está ocupada
+        service = newService(10);
+        Book book = Book.builder().id(1l).isbn("123").build();
+        Mockito.when(bookService.getBookByIsbn("123")).thenReturn(Optional.of(book));
+        Mockito.when(loanService.save(Mockito.any(Loan.class))).thenReturn(Loan.builder().id(1l).book(book).build());
+        bulkheads.get(BulkheadRegistry.LOAN_WRITES).acquire();
+
+        //execução
+        service.start();
+        LoanRequest request = service.submit(LoanDTO.builder().isbn("123").customer("Fulano").build());
+        Thread.sleep(200);
+        LoanRequest.Status whileFull = request.getStatus();
+        Mockito.verifyNoInteractions(transactionManager);
+        bulkheads.get(BulkheadRegistry.LOAN_WRITES).release();
+        awaitProcessed(request);
+
+        //verificação: sem vaga o lote não abre transação nem é recusado
+        assertThat(whileFull).isEqualTo(LoanRequest.Status.PENDING);
+        assertThat(request.getStatus()).isEqualTo(LoanRequest.Status.CREATED);
+    }
+
+    private LoanSubmissionServiceImpl newService(int queueCapacity) {
+        return newService(queueCapacity, false);
+    }
+
+    private LoanSubmissionServiceImpl newService(int queueCapacity, boolean loanShards) {
+        return new LoanSubmissionServiceImpl(bookService, loanService, transactionManager, bulkheads,
+                new SimpleMeterRegistry(), queueCapacity, 1, 10, 3, 100, loanShards);
+    }
+
+    private static void awaitProcessed(LoanRequest... requests) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        for (LoanRequest request : requests) {
+            while (request.getStatus() == LoanRequest.Status.PENDING && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.ederco.libraryapi.service.autocomplete;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BookTrieTest {
+
+    @Test
+    @DisplayName("Deve sugerir por prefixo do título , de qualquer palavra e sem acentos")
+    public void suggestByPrefixTest() {
+        //cenário
+        BookTrie trie = new BookTrie(10, 48);
+        trie.put(1, "O Senhor dos Anéis", "J. R. R. Tolkien");
+        trie.put(2, "Senhora", "José de Alencar");
+        trie.put(3, "Dom Casmurro", "Machado de Assis");
+
+        //execução e verificação
+        assertThat(trie.suggest("senh", 10)).extracting(BookTrie.Suggestion::id).containsExactly(2l, 1l);
+        assertThat(trie.suggest("ANEIS", 10)).extracting(BookTrie.Suggestion::id).containsExactly(1l);
+        assertThat(trie.suggest("machado de", 10)).extracting(BookTrie.Suggestion::title).containsExactly("Dom Casmurro");
+        assertThat(trie.suggest("xyz", 10)).isEmpty();
+        assertThat(trie.suggest("  ", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve preferir título a autor e respeitar o limite de k livros por prefixo")
+    public void rankingAndTopKTest() {
+        //cenário
+        BookTrie trie = new BookTrie(2, 48);
+        trie.put(1, "Memórias Póstumas", "Machado de Assis");
+        trie.put(2, "Machado de Assis: uma biografia", "Fulano");
+        trie.put(3, "Machado", "Ciclano");
+
+        //execução
+        var suggestions = trie.suggest("machado", 10);
+
+        //verificação
+        assertThat(suggestions).extracting(BookTrie.Suggestion::id).containsExactly(3l, 2l);
+    }
+
+    @Test
+    @DisplayName("Deve atualizar e remover livros recalculando os melhores de cada prefixo")
+    public void updateAndRemoveTest() {
+        //cenário
+        BookTrie trie = new BookTrie(1, 48);
+        trie.put(1, "Aventuras", "Fulano");
+        trie.put(2, "Aventuras de Pi", "Ciclano");
+        int nodes = trie.nodes();
+
+        //execução
+        trie.remove(1);
+        var afterRemove = trie.suggest("aven", 10);
+        trie.put(2, "Outro título", "Ciclano");
+
+        //verificação
+        assertThat(afterRemove).extracting(BookTrie.Suggestion::id).containsExactly(2l);
+        assertThat(trie.suggest("aven", 10)).isEmpty();
+        assertThat(trie.suggest("outro", 10)).extracting(BookTrie.Suggestion::title).containsExactly("Outro título");
+        assertThat(trie.nodes()).isLessThan(nodes);
+        assertThat(trie.size()).isEqualTo(1);
+        assertThat(trie.estimatedBytes()).isPositive();
+    }
+
+    @Test
+    @DisplayName("Deve manter a estimativa de memória a cada alteração e ignorar limites negativos")
+    public void estimatedBytesAndLimitTest() {
+        //cenário
+        BookTrie trie = new BookTrie(10, 48);
+        long empty = trie.estimatedBytes();
+
+        //execução
+        trie.put(1, "Aventuras", "Fulano");
+        long oneBook = trie.estimatedBytes();
+        trie.put(2, "Aventuras de Pi", "Ciclano");
+        long twoBooks = trie.estimatedBytes();
+        trie.remove(2);
+
+        //verificação
+        assertThat(oneBook).isGreaterThan(empty);
+        assertThat(twoBooks).isGreaterThan(oneBook);
+        assertThat(trie.estimatedBytes()).isLessThan(twoBooks);
+        assertThat(trie.suggest("aven", -1)).isEmpty();
+    }
+}
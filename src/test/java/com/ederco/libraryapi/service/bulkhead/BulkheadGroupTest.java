@@ -0,0 +1,81 @@
+package com.ederco.libraryapi.service.bulkhead;
+
+import com.ederco.libraryapi.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class BulkheadGroupTest {
+
+    @Test
+    @DisplayName("Deve recusar quando todas as vagas do grupo estiverem ocupadas")
+    public void rejectWhenFullTest() {
+        //cenário
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BulkheadGroup search = new BulkheadGroup("search", 2, 10, registry);
+        search.acquire();
+        search.acquire();
+
+        //execução
+        Throwable exception = catchThrowable(search::acquire);
+
+        //verificação
+        assertThat(exception).isInstanceOf(ServiceOverloadedException.class);
+        assertThat(search.getActive()).isEqualTo(2);
+        assertThat(registry.get("library.bulkhead.calls").tag("group", "search").tag("result", "rejected")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve isolar os grupos: buscas lotadas não bloqueiam empréstimos")
+    public void isolateGroupsTest() {
+        //cenário
+        BulkheadRegistry bulkheads = new BulkheadRegistry(new SimpleMeterRegistry(), 10, 1, 0, 1, 0, 1, 0);
+        bulkheads.get(BulkheadRegistry.SEARCH).acquire();
+
+        //execução
+        Throwable search = catchThrowable(() -> bulkheads.get(BulkheadRegistry.SEARCH).acquire());
+        Throwable loanWrites = catchThrowable(() -> bulkheads.get(BulkheadRegistry.LOAN_WRITES).acquire());
+
+        //verificação
+        assertThat(search).isInstanceOf(ServiceOverloadedException.class);
+        assertThat(loanWrites).isNull();
+    }
+
+    @Test
+    @DisplayName("Deve liberar a vaga para a próxima chamada")
+    public void releasePermitTest() {
+        //cenário
+        BulkheadGroup loanWrites = new BulkheadGroup("loan-writes", 1, 0, new SimpleMeterRegistry());
+        loanWrites.acquire();
+
+        //execução
+        loanWrites.release();
+
+        //verificação
+        assertThat(catchThrowable(loanWrites::acquire)).isNull();
+        assertThat(loanWrites.getActive()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve marcar a vaga como da thread só enquanto a ação roda")
+    public void runHoldingTest() throws InterruptedException {
+        //cenário
+        BulkheadGroup loanWrites = new BulkheadGroup("loan-writes", 1, 0, new SimpleMeterRegistry());
+        boolean[] inside = new boolean[2];
+
+        //execução
+        loanWrites.runHolding(() -> {
+            inside[0] = loanWrites.isHeldByCurrentThread();
+            inside[1] = loanWrites.getActive() == 1;
+        });
+
+        //verificação
+        assertThat(inside).containsExactly(true, true);
+        assertThat(loanWrites.isHeldByCurrentThread()).isFalse();
+        assertThat(loanWrites.getActive()).isZero();
+    }
+}
@@ -0,0 +1,41 @@
+package com.ederco.libraryapi.service.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LongLongMapTest {
+
+    @Test
+    @DisplayName("Deve se comportar como um HashMap em inclusões , substituições e remoções aleatórias")
+    public void randomOperationsTest() {
+        //cenário
+        LongLongMap map = new LongLongMap(4, -1);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        //execução
+        for (int i = 0; i < 200_000; i++) {
+            long key = 1 + random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertThat(map.remove(key)).isEqualTo(expected.getOrDefault(key, -1l));
+                expected.remove(key);
+            } else {
+                assertThat(map.put(key, i)).isEqualTo(expected.getOrDefault(key, -1l));
+                expected.put(key, (long) i);
+            }
+        }
+
+        //verificação
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (long key = 1; key <= 5_000; key++) {
+            assertThat(map.get(key)).isEqualTo(expected.getOrDefault(key, -1l));
+        }
+        assertThat(map.capacity()).isGreaterThan(map.size());
+    }
+}
@@ -0,0 +1,130 @@
+package com.ederco.libraryapi.service.cache;
+
+import com.ederco.libraryapi.model.entity.Book;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OffHeapBookStoreTest {
+
+    @Test
+    @DisplayName("Deve gravar e ler o livro fora do heap , inclusive textos nulos e acentuados")
+    public void putAndGetTest() {
+        //cenário
+        OffHeapBookStore store = new OffHeapBookStore(10, 1024);
+        Book book = Book.builder().id(1L).title("Memórias Póstumas").author("Machado de Assis")
+                .isbn("978-0-306-40615-7").isbnKey(9780306406157L).build();
+
+        //execução
+        store.put(book);
+        store.put(Book.builder().id(2L).title("").build());
+
+        //verificação
+        assertThat(store.get(1L)).isEqualTo(book);
+        Book empty = store.get(2L);
+        assertThat(empty.getTitle()).isEmpty();
+        assertThat(empty.getAuthor()).isNull();
+        assertThat(empty.getIsbn()).isNull();
+        assertThat(empty.getIsbnKey()).isNull();
+        assertThat(store.get(3L)).isNull();
+        assertThat(store.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve substituir e remover livros liberando o espaço da arena")
+    public void replaceAndRemoveTest() {
+        //cenário
+        OffHeapBookStore store = new OffHeapBookStore(10, 1024);
+        store.put(Book.builder().id(1L).title("Antigo").author("Autor").isbn("123").build());
+
+        //execução
+        store.put(Book.builder().id(1L).title("Novo").author("Autor").isbn("123").build());
+
+        //verificação
+        assertThat(store.get(1L).getTitle()).isEqualTo("Novo");
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.arenaLiveBytes()).isEqualTo(6 + "Novo".length() + "Autor".length() + "123".length());
+
+        store.remove(1L);
+        assertThat(store.get(1L)).isNull();
+        assertThat(store.size()).isZero();
+        assertThat(store.arenaLiveBytes()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve expulsar livros ao atingir o limite de slots , preservando os lidos recentemente")
+    public void evictOnSlotLimitTest() {
+        //cenário
+        OffHeapBookStore store = new OffHeapBookStore(3, 1024);
+        for (long id = 1; id <= 3; id++) {
+            store.put(book(id));
+        }
+        //a primeira expulsão zera os bits de todos e tira o livro 1
+        store.put(book(4));
+        store.get(2L);
+
+        //execução
+        store.put(book(5));
+
+        //verificação: o 2 foi lido e ganhou uma segunda chance , o 3 sai
+        assertThat(store.size()).isEqualTo(3);
+        assertThat(store.evictions()).isEqualTo(2);
+        assertThat(store.get(1L)).isNull();
+        assertThat(store.get(3L)).isNull();
+        assertThat(store.get(2L)).isEqualTo(book(2));
+        assertThat(store.get(4L)).isEqualTo(book(4));
+        assertThat(store.get(5L)).isEqualTo(book(5));
+    }
+
+    @Test
+    @DisplayName("Deve compactar a arena e expulsar livros quando os textos não couberem")
+    public void compactArenaTest() {
+        //cenário
+        OffHeapBookStore store = new OffHeapBookStore(100, 200);
+
+        //execução
+        for (int round = 0; round < 50; round++) {
+            for (long id = 1; id <= 4; id++) {
+                store.put(book(id, "Titulo " + round));
+            }
+        }
+
+        //verificação
+        assertThat(store.compactions()).isPositive();
+        assertThat(store.arenaUsedBytes()).isLessThanOrEqualTo(200);
+        for (long id = 1; id <= 4; id++) {
+            assertThat(store.get(id).getTitle()).isEqualTo("Titulo 49");
+        }
+
+        for (long id = 5; id <= 20; id++) {
+            store.put(book(id, "Titulo " + id));
+        }
+        assertThat(store.evictions()).isPositive();
+        assertThat(store.arenaLiveBytes()).isLessThanOrEqualTo(200);
+        assertThat(store.get(20L).getTitle()).isEqualTo("Titulo 20");
+    }
+
+    @Test
+    @DisplayName("Não deve guardar livro com texto maior que a arena")
+    public void rejectTooLargeTest() {
+        //cenário
+        OffHeapBookStore store = new OffHeapBookStore(10, 64);
+        store.put(book(1));
+
+        //execução
+        boolean stored = store.put(book(1, "x".repeat(100)));
+
+        //verificação
+        assertThat(stored).isFalse();
+        assertThat(store.get(1L)).isNull();
+    }
+
+    private static Book book(long id) {
+        return book(id, "Titulo " + id);
+    }
+
+    private static Book book(long id, String title) {
+        return Book.builder().id(id).title(title).author("Autor").isbn("isbn-" + id).build();
+    }
+}
@@ -0,0 +1,88 @@
+package com.ederco.libraryapi.service.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class SingleFlightTest {
+
+    @Test
+    @DisplayName("Deve executar uma única consulta para chamadas simultâneas com a mesma chave")
+    public void coalesceConcurrentCallsTest() throws Exception {
+        //cenário
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+
+        //execução
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(executor.submit(() -> singleFlight.execute(1L, () -> {
+                loads.incrementAndGet();
+                await(release);
+                return "livro 1";
+            })));
+        }
+        while (singleFlight.coalescedCount() < callers - 1) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        //verificação
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("livro 1");
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(singleFlight.executedCount()).isEqualTo(1);
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Deve liberar a chave após a execução , sem guardar o resultado")
+    public void releaseKeyAfterCallTest() {
+        //cenário
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+
+        //execução
+        singleFlight.execute(1L, () -> "v" + loads.incrementAndGet());
+        String second = singleFlight.execute(1L, () -> "v" + loads.incrementAndGet());
+
+        //verificação
+        assertThat(second).isEqualTo("v2");
+        assertThat(singleFlight.coalescedCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve propagar a exceção do carregamento")
+    public void propagateLoaderExceptionTest() {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+
+        Throwable exception = catchThrowable(() -> singleFlight.execute(1L, () -> {
+            throw new IllegalStateException("falhou");
+        }));
+
+        assertThat(exception).isInstanceOf(IllegalStateException.class).hasMessage("falhou");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
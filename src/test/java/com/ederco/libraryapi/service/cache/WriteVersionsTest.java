@@ -0,0 +1,81 @@
+package com.ederco.libraryapi.service.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static com.ederco.libraryapi.service.cache.WriteVersions.Table.BOOK;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WriteVersionsTest {
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve manter o total sem filtro a partir da primeira contagem")
+    public void rowCountTest() {
+        //cenário
+        WriteVersions versions = new WriteVersions();
+
+        //execução
+        long first = versions.rowCount(BOOK, () -> 10);
+        versions.written(BOOK, 1);
+        long second = versions.rowCount(BOOK, () -> 99);
+
+        //verificação
+        assertThat(first).isEqualTo(10);
+        assertThat(second).isEqualTo(11);
+    }
+
+    @Test
+    @DisplayName("Não deve guardar uma contagem feita durante o commit de uma inclusão")
+    public void rowCountDuringCommitTest() {
+        //cenário: a inclusão já passou do beforeCommit , mas o afterCommit ainda não rodou
+        WriteVersions versions = new WriteVersions();
+        TransactionSynchronizationManager.initSynchronization();
+        versions.writing(BOOK);
+        AfterCommit.run(() -> versions.written(BOOK, 1));
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(s -> s.beforeCommit(false));
+
+        //execução: o "count" já vê a linha confirmada no banco
+        long during = versions.rowCount(BOOK, () -> 11);
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        long after = versions.rowCount(BOOK, () -> 11);
+
+        //verificação: sem o ajuste duplo o total continua 11
+        assertThat(during).isEqualTo(11);
+        assertThat(after).isEqualTo(11);
+        assertThat(versions.rowCount(BOOK, () -> 99)).isEqualTo(11);
+    }
+
+    @Test
+    @DisplayName("Deve voltar a guardar a contagem depois de uma inclusão desfeita")
+    public void rowCountAfterRollbackTest() {
+        //cenário
+        WriteVersions versions = new WriteVersions();
+        TransactionSynchronizationManager.initSynchronization();
+        versions.writing(BOOK);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(s -> s.beforeCommit(false));
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        //execução
+        versions.rowCount(BOOK, () -> 10);
+
+        //verificação
+        assertThat(versions.rowCount(BOOK, () -> 99)).isEqualTo(10);
+    }
+}
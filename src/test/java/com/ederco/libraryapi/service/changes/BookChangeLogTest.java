@@ -0,0 +1,99 @@
+package com.ederco.libraryapi.service.changes;
+
+import com.ederco.libraryapi.model.entity.Book;
+import com.ederco.libraryapi.model.entity.BookChange;
+import com.ederco.libraryapi.model.repository.BookChangeRepository;
+import com.ederco.libraryapi.model.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class BookChangeLogTest {
+
+    @MockBean
+    BookChangeRepository repository;
+    @MockBean
+    BookRepository bookRepository;
+
+    BookChangeLog changeLog;
+
+    @BeforeEach
+    public void setUp() {
+        changeLog = new BookChangeLog(repository, bookRepository, Mockito.mock(JdbcTemplate.class), 2, 5000);
+    }
+
+    @Test
+    @DisplayName("Deve retornar inclusões e tombstones depois do token e o próximo token")
+    public void changesSinceTokenTest() {
+        //cenário
+        Instant old = Instant.now().minusSeconds(60);
+        Book book = Book.builder().id(7l).title("As Aventuras").build();
+        givenChanges(10l, change(11l, 7l, false, old), change(12l, 5l, true, old));
+        Mockito.when(bookRepository.findAllById(List.of(7l))).thenReturn(List.of(book));
+
+        //execução
+        BookChanges changes = changeLog.since(10l);
+
+        //verificação
+        assertThat(changes.changes()).extracting(BookChanges.Change::seq).containsExactly(11l, 12l);
+        assertThat(changes.changes().get(0).book()).isEqualTo(book);
+        assertThat(changes.changes().get(1).tombstone()).isTrue();
+        assertThat(changes.next()).isEqualTo(12l);
+        assertThat(changes.hasMore()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve cortar o lote no máximo configurado e indicar que há mais alterações")
+    public void changesBatchLimitTest() {
+        //cenário
+        Instant old = Instant.now().minusSeconds(60);
+        givenChanges(0l, change(1l, 1l, true, old), change(2l, 2l, true, old), change(3l, 3l, true, old));
+
+        //execução
+        BookChanges changes = changeLog.since(0l);
+
+        //verificação
+        assertThat(changes.changes()).hasSize(2);
+        assertThat(changes.next()).isEqualTo(2l);
+        assertThat(changes.hasMore()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Não deve avançar o token sobre alterações recentes , que podem ter commits anteriores pendentes")
+    public void recentChangesKeepTokenTest() {
+        //cenário
+        Instant old = Instant.now().minusSeconds(60);
+        givenChanges(0l, change(1l, 1l, true, old), change(2l, 2l, true, Instant.now()), change(3l, 3l, true, old));
+
+        //execução
+        BookChanges changes = changeLog.since(0l);
+
+        //verificação
+        assertThat(changes.changes()).extracting(BookChanges.Change::seq).containsExactly(1l, 2l);
+        assertThat(changes.next()).isEqualTo(1l);
+        assertThat(changes.hasMore()).isFalse();
+    }
+
+    private void givenChanges(long since, BookChange... rows) {
+        Mockito.when(repository.findBySeqGreaterThanOrderBySeqAsc(Mockito.eq(since), Mockito.any(Pageable.class)))
+                .thenReturn(List.of(rows));
+    }
+
+    private static BookChange change(long seq, long bookId, boolean deleted, Instant changedAt) {
+        return BookChange.builder().seq(seq).bookId(bookId).deleted(deleted).changedAt(changedAt).build();
+    }
+}
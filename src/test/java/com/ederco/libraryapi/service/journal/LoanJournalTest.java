@@ -0,0 +1,159 @@
+package com.ederco.libraryapi.service.journal;
+
+import com.ederco.libraryapi.service.outbox.Outbox;
+import com.ederco.libraryapi.service.outbox.OutboxMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LoanJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Deve gravar os registros em segmentos e consultá-los por empréstimo e por período")
+    public void appendAndQueryTest() throws Exception {
+        //cenário: segmentos pequenos para forçar a rotação
+        LoanJournal journal = newJournal(LoanJournal.FsyncPolicy.ALWAYS);
+        journal.start();
+
+        //execução
+        for (long sequence = 1; sequence <= 20; sequence++) {
+            journal.append(record(sequence, sequence % 3));
+        }
+        journal.flush();
+
+        //verificação
+        try (Stream<Path> segments = Files.list(directory)) {
+            assertThat(segments.count()).isGreaterThan(1);
+        }
+        assertThat(journal.byLoan(1)).extracting(JournalRecord::sequence).containsExactly(1l, 4l, 7l, 10l, 13l, 16l, 19l);
+        assertThat(journal.between(Instant.ofEpochSecond(3), Instant.ofEpochSecond(6), 100))
+                .extracting(JournalRecord::sequence).containsExactly(3l, 4l, 5l);
+        journal.close();
+    }
+
+    @Test
+    @DisplayName("Deve consultar pelos resumos refeitos ao reabrir o journal e parar no limite")
+    public void queryRecoveredSegmentsTest() throws Exception {
+        //cenário
+        LoanJournal journal = newJournal(LoanJournal.FsyncPolicy.ALWAYS);
+        journal.start();
+        for (long sequence = 1; sequence <= 20; sequence++) {
+            journal.append(record(sequence, sequence % 3));
+        }
+        journal.flush();
+        journal.close();
+
+        //execução
+        LoanJournal reopened = newJournal(LoanJournal.FsyncPolicy.ALWAYS);
+        reopened.start();
+        reopened.append(record(21, 2));
+        reopened.flush();
+
+        //verificação
+        assertThat(reopened.byLoan(2)).extracting(JournalRecord::sequence).containsExactly(2l, 5l, 8l, 11l, 14l, 17l, 20l, 21l);
+        assertThat(reopened.byLoan(42)).isEmpty();
+        assertThat(reopened.between(Instant.ofEpochSecond(3), Instant.ofEpochSecond(30), 4))
+                .extracting(JournalRecord::sequence).containsExactly(3l, 4l, 5l, 6l);
+        assertThat(reopened.between(Instant.ofEpochSecond(21), Instant.ofEpochSecond(22), 10))
+                .extracting(JournalRecord::sequence).containsExactly(21l);
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("Deve retomar a escrita depois do último registro e ignorar reentregas")
+    public void recoverAndIgnoreDuplicatesTest() throws Exception {
+        //cenário
+        LoanJournal journal = newJournal(LoanJournal.FsyncPolicy.INTERVAL);
+        journal.start();
+        for (long sequence = 1; sequence <= 10; sequence++) {
+            journal.append(record(sequence, 1));
+        }
+        journal.flush();
+        journal.close();
+
+        //execução
+        LoanJournal reopened = newJournal(LoanJournal.FsyncPolicy.INTERVAL);
+        reopened.start();
+        reopened.append(record(9, 1));
+        reopened.append(record(11, 1));
+        reopened.flush();
+
+        //verificação
+        List<Long> replayed = new ArrayList<>();
+        reopened.replay(8, record -> replayed.add(record.sequence()));
+        assertThat(replayed).containsExactly(8l, 9l, 10l, 11l);
+        assertThat(reopened.lastSequence()).isEqualTo(11);
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("Deve gravar ids do outbox que chegam fora de ordem e achá-los depois de trocar de segmento")
+    public void outOfOrderSequencesTest() throws Exception {
+        //cenário: o id 3 foi confirmado depois dos ids 4 a 8
+        LoanJournal journal = newJournal(LoanJournal.FsyncPolicy.NEVER);
+        journal.start();
+        for (long sequence = 1; sequence <= 8; sequence++) {
+            if (sequence != 3) {
+                journal.append(record(sequence, 1));
+            }
+        }
+
+        //execução
+        journal.append(record(3, 1));
+        journal.append(record(3, 1));
+        journal.flush();
+
+        //verificação
+        List<Long> replayed = new ArrayList<>();
+        journal.replay(3, record -> replayed.add(record.sequence()));
+        assertThat(replayed).containsExactly(4l, 5l, 6l, 7l, 8l, 3l);
+        assertThat(journal.lastSequence()).isEqualTo(8);
+        journal.close();
+    }
+
+    @Test
+    @DisplayName("Deve registrar checkouts e devoluções recebidos pelo outbox")
+    public void journalOutboxMessagesTest() throws Exception {
+        //cenário
+        LoanJournal journal = newJournal(LoanJournal.FsyncPolicy.NEVER);
+        journal.start();
+
+        //execução
+        journal.onOutboxMessage(new OutboxMessage(1l, Outbox.LOAN, 5l, Outbox.EventType.LOAN_CREATED.name(),
+                "{\"id\":5,\"bookId\":2,\"customer\":\"Fulano\"}", Instant.now()));
+        journal.onOutboxMessage(new OutboxMessage(2l, Outbox.BOOK, 2l, Outbox.EventType.BOOK_UPDATED.name(),
+                "{\"id\":2}", Instant.now()));
+        journal.onOutboxMessage(new OutboxMessage(3l, Outbox.LOAN, 5l, Outbox.EventType.LOAN_RETURNED.name(),
+                "{\"id\":5,\"bookId\":2,\"customer\":\"Fulano\"}", Instant.now()));
+        journal.flush();
+
+        //verificação
+        assertThat(journal.byLoan(5)).extracting(JournalRecord::type)
+                .containsExactly(JournalRecord.Type.CHECKOUT, JournalRecord.Type.RETURN);
+        assertThat(journal.byLoan(5).get(0).customer()).isEqualTo("Fulano");
+        journal.close();
+    }
+
+    private LoanJournal newJournal(LoanJournal.FsyncPolicy fsyncPolicy) {
+        return new LoanJournal(directory, 256, 16, fsyncPolicy, 50, 1000, new ObjectMapper(), new SimpleMeterRegistry());
+    }
+
+    private static JournalRecord record(long sequence, long loanId) {
+        return new JournalRecord(sequence, Instant.ofEpochSecond(sequence),
+                sequence % 2 == 0 ? JournalRecord.Type.RETURN : JournalRecord.Type.CHECKOUT, loanId, 7, "Fulano");
+    }
+}
@@ -0,0 +1,100 @@
+package com.ederco.libraryapi.service.outbox;
+
+import com.ederco.libraryapi.model.entity.OutboxEvent;
+import com.ederco.libraryapi.model.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class OutboxRelayTest {
+
+    @MockBean
+    OutboxEventRepository repository;
+    @MockBean
+    PlatformTransactionManager transactionManager;
+
+    List<OutboxEvent> delivered;
+    boolean failing;
+    OutboxRelay relay;
+
+    @BeforeEach
+    public void setUp() {
+        delivered = new ArrayList<>();
+        OutboxSink sink = new OutboxSink() {
+            @Override
+            public String name() {
+                return "test";
+            }
+
+            @Override
+            public void publish(List<OutboxEvent> events) {
+                if (failing) {
+                    throw new IllegalStateException("sink offline");
+                }
+                delivered.addAll(events);
+            }
+        };
+        relay = new OutboxRelay(repository, List.of(sink), transactionManager, new SimpleMeterRegistry(),
+                100, Duration.ofDays(7));
+    }
+
+    @Test
+    @DisplayName("Deve publicar os eventos pendentes em ordem e marcá-los como publicados")
+    public void publishPendingEventsTest() {
+        //cenário
+        List<OutboxEvent> pending = List.of(event(1l, 10l), event(2l, 11l), event(3l, 10l));
+        Mockito.when(repository.findByPublishedAtIsNullOrderByIdAsc(Mockito.any(Pageable.class))).thenReturn(pending);
+
+        //execução
+        int published = relay.publishBatch();
+
+        //verificação
+        assertThat(published).isEqualTo(3);
+        assertThat(delivered).extracting(OutboxEvent::getId).containsExactly(1l, 2l, 3l);
+        Mockito.verify(repository).markPublished(Mockito.eq(List.of(1l, 2l, 3l)), Mockito.any(Instant.class));
+    }
+
+    @Test
+    @DisplayName("Não deve marcar o lote como publicado quando o sink falhar")
+    public void keepPendingWhenSinkFailsTest() {
+        //cenário
+        failing = true;
+        Mockito.when(repository.findByPublishedAtIsNullOrderByIdAsc(Mockito.any(Pageable.class)))
+                .thenReturn(List.of(event(1l, 10l)));
+
+        //execução
+        int published = relay.publishBatch();
+
+        //verificação
+        assertThat(published).isZero();
+        Mockito.verify(repository, Mockito.never()).markPublished(Mockito.any(), Mockito.any());
+    }
+
+    private static OutboxEvent event(Long id, Long aggregateId) {
+        return OutboxEvent.builder()
+                .id(id)
+                .aggregateType(Outbox.BOOK)
+                .aggregateId(aggregateId)
+                .eventType(Outbox.EventType.BOOK_UPDATED.name())
+                .payload("{}")
+                .createdAt(Instant.now())
+                .build();
+    }
+}
@@ -0,0 +1,60 @@
+package com.ederco.libraryapi.service.popularity;
+
+import com.ederco.libraryapi.exception.BusinessException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PopularityTrackerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Deve manter as contagens depois de reiniciar a partir do checkpoint")
+    public void checkpointTest() throws Exception {
+        //cenário
+        Path checkpoint = directory.resolve("popularity.bin");
+        PopularityTracker tracker = new PopularityTracker(new SimpleMeterRegistry(), 4, 1024, 10, checkpoint);
+        tracker.record(7);
+        tracker.record(7);
+        tracker.record(5);
+
+        //execução
+        tracker.write();
+        PopularityTracker restarted = new PopularityTracker(new SimpleMeterRegistry(), 4, 1024, 10, checkpoint);
+        restarted.afterSingletonsInstantiated();
+
+        //verificação
+        for (String window : new String[]{"1h", "24h", "30d"}) {
+            assertThat(restarted.top(window, 10)).containsExactly(new PopularBook(7, 2), new PopularBook(5, 1));
+        }
+        assertThat(restarted.top("24h", 1)).containsExactly(new PopularBook(7, 2));
+    }
+
+    @Test
+    @DisplayName("Deve começar do zero quando o checkpoint tiver outro tamanho de sketch")
+    public void incompatibleCheckpointTest() throws Exception {
+        //cenário
+        Path checkpoint = directory.resolve("popularity.bin");
+        PopularityTracker tracker = new PopularityTracker(new SimpleMeterRegistry(), 4, 1024, 10, checkpoint);
+        tracker.record(7);
+        tracker.write();
+
+        //execução
+        PopularityTracker restarted = new PopularityTracker(new SimpleMeterRegistry(), 4, 2048, 10, checkpoint);
+        restarted.afterSingletonsInstantiated();
+
+        //verificação
+        assertThat(restarted.top("24h", 10)).isEmpty();
+        assertThatThrownBy(() -> restarted.top("7d", 10))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageStartingWith("Unknown window: 7d");
+    }
+}
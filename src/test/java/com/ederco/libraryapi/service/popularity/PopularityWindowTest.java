@@ -0,0 +1,68 @@
+package com.ederco.libraryapi.service.popularity;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PopularityWindowTest {
+
+    private static final long MINUTE = 60_000;
+
+    @Test
+    @DisplayName("Deve ordenar os livros pelo número de empréstimos na janela")
+    public void topBooksTest() {
+        //cenário
+        PopularityWindow window = new PopularityWindow("1h", Duration.ofHours(1), 12, 4, 1024, 10, 0);
+
+        //execução
+        for (int i = 0; i < 3; i++) {
+            window.add(7, MINUTE);
+        }
+        window.add(5, MINUTE);
+        window.add(9, MINUTE);
+        window.add(9, MINUTE);
+
+        //verificação
+        assertThat(window.top()).containsExactly(
+                new PopularBook(7, 3), new PopularBook(9, 2), new PopularBook(5, 1));
+    }
+
+    @Test
+    @DisplayName("Deve descontar os empréstimos que saíram da janela")
+    public void slidingWindowTest() {
+        //cenário
+        PopularityWindow window = new PopularityWindow("1h", Duration.ofHours(1), 12, 4, 1024, 10, 0);
+        window.add(7, 0);
+        window.add(7, 0);
+        window.add(5, 30 * MINUTE);
+
+        //execução
+        window.advance(62 * MINUTE);
+
+        //verificação
+        assertThat(window.top()).containsExactly(new PopularBook(5, 1));
+
+        window.advance(200 * MINUTE);
+        assertThat(window.top()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve trocar o candidato menos emprestado quando outro livro passar dele")
+    public void candidateReplacementTest() {
+        //cenário
+        PopularityWindow window = new PopularityWindow("1h", Duration.ofHours(1), 12, 4, 1024, 2, 0);
+        window.add(1, 0);
+        window.add(1, 0);
+        window.add(2, 0);
+
+        //execução
+        window.add(3, 0);
+        window.add(3, 0);
+
+        //verificação
+        assertThat(window.top()).containsExactly(new PopularBook(1, 2), new PopularBook(3, 2));
+    }
+}
@@ -0,0 +1,38 @@
+package com.ederco.libraryapi.service.snapshot;
+
+import com.ederco.libraryapi.service.outbox.Outbox;
+import com.ederco.libraryapi.service.outbox.OutboxMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ActiveLoanIndexTest {
+
+    @Test
+    @DisplayName("Deve informar a disponibilidade só depois de carregado e segui-la pelo outbox")
+    public void availableTest() throws Exception {
+        //cenário
+        ActiveLoanIndex index = new ActiveLoanIndex(new ObjectMapper(), new SimpleMeterRegistry());
+        index.loaned(1, 10);
+
+        //execução
+        Boolean beforeLoad = index.available(1L);
+        index.markLoaded();
+        index.onOutboxMessage(new OutboxMessage(1L, Outbox.LOAN, 11L, Outbox.EventType.LOAN_CREATED.name(),
+                "{\"id\":11,\"bookId\":2,\"returned\":null}", Instant.now()));
+        index.onOutboxMessage(new OutboxMessage(2L, Outbox.LOAN, 10L, Outbox.EventType.LOAN_RETURNED.name(),
+                "{\"id\":10,\"bookId\":1,\"returned\":true}", Instant.now()));
+
+        //verificação
+        assertThat(beforeLoad).isNull();
+        assertThat(index.available(1L)).isTrue();
+        assertThat(index.available(2L)).isFalse();
+        index.clear();
+        assertThat(index.available(1L)).isNull();
+    }
+}
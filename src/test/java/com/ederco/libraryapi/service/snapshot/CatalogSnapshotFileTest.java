@@ -0,0 +1,110 @@
+package com.ederco.libraryapi.service.snapshot;
+
+import com.ederco.libraryapi.model.entity.Book;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CatalogSnapshotFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Deve gravar e ler de volta os livros , os empréstimos ativos e a versão")
+    public void writeAndReadTest() throws Exception {
+        //cenário
+        Path file = directory.resolve("catalog.bin");
+        Instant createdAt = Instant.ofEpochMilli(1_000_000);
+        try (CatalogSnapshotFile.Writer writer = CatalogSnapshotFile.create(file, 42, createdAt)) {
+            writer.book(Book.builder().id(1l).title("Aventuras").author("Fulano").isbn("123").build());
+            writer.book(Book.builder().id(2l).title("Ação e reação").author(null).isbn("456").build());
+            writer.loan(10, 2);
+            writer.commit();
+        }
+
+        //execução
+        List<Book> books = new ArrayList<>();
+        List<long[]> loans = new ArrayList<>();
+        CatalogSnapshotFile.Header header = CatalogSnapshotFile.read(file, visitor(books, loans));
+
+        //verificação
+        assertThat(header).isEqualTo(new CatalogSnapshotFile.Header(42, createdAt, 2, 1));
+        assertThat(CatalogSnapshotFile.readHeader(file).version()).isEqualTo(42);
+        assertThat(books).extracting(Book::getTitle).containsExactly("Aventuras", "Ação e reação");
+        assertThat(books.get(1).getAuthor()).isNull();
+        assertThat(loans).hasSize(1);
+        assertThat(loans.get(0)).containsExactly(10, 2);
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files).containsExactly(file);
+        }
+    }
+
+    @Test
+    @DisplayName("Não deve carregar nada de um snapshot corrompido")
+    public void corruptedSnapshotTest() throws Exception {
+        //cenário
+        Path file = directory.resolve("catalog.bin");
+        try (CatalogSnapshotFile.Writer writer = CatalogSnapshotFile.create(file, 1, Instant.now())) {
+            writer.book(Book.builder().id(1l).title("Aventuras").author("Fulano").isbn("123").build());
+            writer.commit();
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 10] ^= 0x7f;
+        Files.write(file, bytes);
+
+        //execução
+        List<Book> books = new ArrayList<>();
+
+        //verificação
+        assertThatThrownBy(() -> CatalogSnapshotFile.read(file, visitor(books, new ArrayList<>())))
+                .isInstanceOf(IOException.class);
+        assertThat(books).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve manter o snapshot anterior quando a gravação não termina")
+    public void unfinishedWriteTest() throws Exception {
+        //cenário
+        Path file = directory.resolve("catalog.bin");
+        try (CatalogSnapshotFile.Writer writer = CatalogSnapshotFile.create(file, 1, Instant.now())) {
+            writer.commit();
+        }
+
+        //execução: fecha sem commit
+        try (CatalogSnapshotFile.Writer writer = CatalogSnapshotFile.create(file, 2, Instant.now())) {
+            writer.book(Book.builder().id(1l).title("Aventuras").build());
+        }
+
+        //verificação
+        assertThat(CatalogSnapshotFile.readHeader(file).version()).isEqualTo(1);
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files).containsExactly(file);
+        }
+    }
+
+    private static CatalogSnapshotFile.Visitor visitor(List<Book> books, List<long[]> loans) {
+        return new CatalogSnapshotFile.Visitor() {
+            @Override
+            public void book(Book book) {
+                books.add(book);
+            }
+
+            @Override
+            public void loan(long loanId, long bookId) {
+                loans.add(new long[]{loanId, bookId});
+            }
+        };
+    }
+}